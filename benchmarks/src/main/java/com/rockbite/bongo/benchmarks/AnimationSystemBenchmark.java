@@ -0,0 +1,76 @@
+package com.rockbite.bongo.benchmarks;
+
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.EntityEdit;
+import com.rockbite.bongo.engine.components.render.Animation;
+import com.rockbite.bongo.engine.gltf.scene.SceneModel;
+import com.rockbite.bongo.engine.gltf.scene.SceneModelInstance;
+import com.rockbite.bongo.engine.systems.render.AnimationSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AnimationSystem} over a crowd of rigs, reported per entity. Each rig has 4 limbs of 6 bones plus a root, every
+ * node animated by a translation and a rotation channel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AnimationSystemBenchmark {
+
+	private static final int ENTITIES = 500;
+
+	@Param({"false", "true"})
+	private boolean parallel;
+
+	private World world;
+	private AnimationSystem animationSystem;
+
+	@Setup
+	public void setup () {
+		Headless.init();
+
+		animationSystem = new AnimationSystem();
+		animationSystem.setParallel(parallel);
+		world = new World(new WorldConfigurationBuilder().with(animationSystem).build());
+
+		final SceneModel rig = BenchmarkScenes.createRig("rig", 4, 6, 30);
+		for (int i = 0; i < ENTITIES; i++) {
+			final EntityEdit edit = world.createEntity().edit();
+			edit.add(new SceneModelInstance(rig));
+			final Animation animation = edit.create(Animation.class);
+			animation.setAnimationName(BenchmarkScenes.ANIMATION_NAME);
+			// spread the crowd over the clip so they do not all hit the same keyframes
+			animation.setTrack(BenchmarkScenes.ANIMATION_LENGTH * i / ENTITIES);
+		}
+		world.process();
+	}
+
+	@TearDown
+	public void tearDown () {
+		world.dispose();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ENTITIES)
+	public void animate () {
+		animationSystem.process();
+	}
+}
@@ -0,0 +1,136 @@
+package com.rockbite.bongo.benchmarks;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Quaternion;
+import com.badlogic.gdx.utils.Array;
+import com.rockbite.bongo.engine.gltf.scene.SceneMaterial;
+import com.rockbite.bongo.engine.gltf.scene.SceneMesh;
+import com.rockbite.bongo.engine.gltf.scene.SceneMeshPrimtive;
+import com.rockbite.bongo.engine.gltf.scene.SceneMeshVertexInfo;
+import com.rockbite.bongo.engine.gltf.scene.SceneModel;
+import com.rockbite.bongo.engine.gltf.scene.SceneNode;
+import com.rockbite.bongo.engine.gltf.scene.animation.SceneAnimation;
+import com.rockbite.bongo.engine.gltf.scene.animation.SceneAnimationSampler;
+import com.rockbite.bongo.engine.gltf.scene.animation.SceneNodeAnimation;
+import com.rockbite.bongo.engine.meshutils.CubeUtils;
+
+/**
+ * Scene models built in code for benchmarks, numbered and parented the same way the glTF loader sets them up
+ */
+public final class BenchmarkScenes {
+
+	public static final String ANIMATION_NAME = "benchmark";
+
+	/**
+	 * Length of the generated animation in seconds
+	 */
+	public static final float ANIMATION_LENGTH = 2f;
+
+	private BenchmarkScenes () {
+	}
+
+	/**
+	 * Rig of limbs hanging off a root node, every node animated by a translation and a rotation sampler. The root
+	 * carries an unskinned box mesh.
+	 */
+	public static SceneModel createRig (String name, int limbs, int bonesPerLimb, int keyframes) {
+		final SceneModel model = new SceneModel(name);
+		final Array<SceneNode> nodes = new Array<>();
+
+		final SceneNode root = createNode(name + "-root", nodes);
+		root.setSceneMesh(new SceneMesh(name + "-mesh", createPrimitive(name, CubeUtils.createBoxMesh(1, 1, 1), SceneMaterial.BasicPBR(name, Color.WHITE, 0, 1))));
+		model.nodes.add(root);
+
+		for (int limb = 0; limb < limbs; limb++) {
+			SceneNode parent = root;
+			for (int bone = 0; bone < bonesPerLimb; bone++) {
+				final SceneNode node = createNode(name + "-" + limb + "-" + bone, nodes);
+				node.translation.set(0, 1, 0);
+				parent.addChild(node);
+				parent = node;
+			}
+		}
+
+		final SceneAnimation animation = new SceneAnimation(ANIMATION_NAME);
+		for (int i = 0; i < nodes.size; i++) {
+			final Array<SceneAnimationSampler<?>> samplers = new Array<>();
+			samplers.add(createTranslationSampler(keyframes, i));
+			samplers.add(createRotationSampler(keyframes, i));
+
+			final SceneNodeAnimation nodeAnimation = new SceneNodeAnimation();
+			nodeAnimation.setSceneNode(nodes.get(i));
+			nodeAnimation.setSamplers(samplers);
+			animation.getSceneNodeAnimationArray().add(nodeAnimation);
+		}
+		animation.calculateMaxTime();
+		model.sceneAnimations.add(animation);
+
+		model.calculateTransforms();
+		return model;
+	}
+
+	/**
+	 * Single node drawing the same mesh once per material, a cheap stand in for a prop with several primitives
+	 */
+	public static SceneModel createProp (String name, Mesh mesh, SceneMaterial... materials) {
+		final SceneModel model = new SceneModel(name);
+		final SceneNode node = createNode(name + "-node", new Array<>());
+
+		final SceneMeshPrimtive[] primitives = new SceneMeshPrimtive[materials.length];
+		for (int i = 0; i < materials.length; i++) {
+			primitives[i] = createPrimitive(name + "-" + i, mesh, materials[i]);
+		}
+		node.setSceneMesh(new SceneMesh(name + "-mesh", primitives));
+		model.nodes.add(node);
+
+		model.calculateTransforms();
+		return model;
+	}
+
+	private static SceneNode createNode (String name, Array<SceneNode> nodes) {
+		final SceneNode node = new SceneNode(name, nodes.size);
+		nodes.add(node);
+		return node;
+	}
+
+	private static SceneMeshPrimtive createPrimitive (String name, Mesh mesh, SceneMaterial material) {
+		final SceneMeshPrimtive primitive = new SceneMeshPrimtive(name + "-primitive", mesh, new SceneMeshVertexInfo(mesh.getVertexAttributes()));
+		primitive.sceneMaterial = material;
+		return primitive;
+	}
+
+	public static SceneAnimationSampler.TranslationSampler createTranslationSampler (int keyframes, int seed) {
+		final float[] times = createTimes(keyframes);
+		final float[] values = new float[keyframes * 3];
+		for (int i = 0; i < keyframes; i++) {
+			values[i * 3] = MathUtils.sin(i + seed) * 0.1f;
+			values[i * 3 + 1] = 1f;
+			values[i * 3 + 2] = MathUtils.cos(i + seed) * 0.1f;
+		}
+		return (SceneAnimationSampler.TranslationSampler)SceneAnimationSampler.create(times, values, "translation", "LINEAR");
+	}
+
+	public static SceneAnimationSampler.RotationSampler createRotationSampler (int keyframes, int seed) {
+		final float[] times = createTimes(keyframes);
+		final float[] values = new float[keyframes * 4];
+		final Quaternion rotation = new Quaternion();
+		for (int i = 0; i < keyframes; i++) {
+			rotation.setEulerAngles((i * 37 + seed * 11) % 360, (i * 13) % 90, 0);
+			values[i * 4] = rotation.x;
+			values[i * 4 + 1] = rotation.y;
+			values[i * 4 + 2] = rotation.z;
+			values[i * 4 + 3] = rotation.w;
+		}
+		return (SceneAnimationSampler.RotationSampler)SceneAnimationSampler.create(times, values, "rotation", "LINEAR");
+	}
+
+	private static float[] createTimes (int keyframes) {
+		final float[] times = new float[keyframes];
+		for (int i = 0; i < keyframes; i++) {
+			times[i] = keyframes == 1 ? 0 : ANIMATION_LENGTH * i / (keyframes - 1);
+		}
+		return times;
+	}
+}
@@ -0,0 +1,65 @@
+package com.rockbite.bongo.benchmarks;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessFiles;
+import com.badlogic.gdx.backends.headless.mock.graphics.MockGraphics;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+
+/**
+ * Sets up the parts of libGDX the benchmarked code touches, without a window or GL context. GL calls are accepted
+ * and do nothing, so meshes can be created but never drawn. The application only reports its type, as headless
+ * desktop, so nothing registers for file watching.
+ */
+public final class Headless {
+
+	/**
+	 * Frame time reported by {@link Gdx#graphics}, systems reading the delta advance by this every call
+	 */
+	public static final float FRAME_DELTA = 1f / 60f;
+
+	private static boolean initialized;
+
+	private static final InvocationHandler NO_OP = (proxy, method, args) -> {
+		final Class<?> returnType = method.getReturnType();
+		if (returnType == boolean.class) return false;
+		if (returnType == int.class) return 0;
+		if (returnType == long.class) return 0L;
+		if (returnType == float.class) return 0f;
+		if (returnType == String.class) return "";
+		return null;
+	};
+
+	private Headless () {
+	}
+
+	public static synchronized void init () {
+		if (initialized) return;
+
+		GdxNativesLoader.load();
+
+		Gdx.files = new HeadlessFiles();
+		Gdx.graphics = new MockGraphics() {
+			@Override
+			public float getDeltaTime () {
+				return FRAME_DELTA;
+			}
+		};
+		Gdx.gl = Gdx.gl20 = stub(GL20.class, NO_OP);
+		Gdx.app = stub(Application.class, (proxy, method, args) -> {
+			if (method.getName().equals("getType")) return Application.ApplicationType.HeadlessDesktop;
+			return NO_OP.invoke(proxy, method, args);
+		});
+
+		initialized = true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T stub (Class<T> type, InvocationHandler handler) {
+		return (T)Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+	}
+}
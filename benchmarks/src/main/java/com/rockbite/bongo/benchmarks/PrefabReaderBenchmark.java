@@ -0,0 +1,109 @@
+package com.rockbite.bongo.benchmarks;
+
+import com.artemis.Component;
+import com.moandjiezana.toml.Toml;
+import com.rockbite.bongo.engine.components.prefab.Prefab;
+import com.rockbite.bongo.engine.gltf.scene.SceneModelInstance;
+import com.rockbite.bongo.engine.prefab.PrefabReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading prefab files the way {@link com.rockbite.bongo.engine.systems.PrefabSystem} does on load and on every hot
+ * reload, with and without the TOML parse in front of the reflective component reader.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrefabReaderBenchmark {
+
+	public enum Faction {
+		PLAYER, NEUTRAL, HOSTILE
+	}
+
+	public static class Loot {
+		public String item;
+		public int amount;
+		public float chance;
+	}
+
+	public static class Stats extends Component {
+		public int health;
+		public float speed;
+		public Faction faction;
+		public String[] tags;
+		public Loot loot;
+	}
+
+	@Param({"10", "100"})
+	private int prefabs;
+
+	private final PrefabReader prefabReader = new PrefabReader();
+
+	private String source;
+	private List<Toml> parsed;
+
+	@Setup
+	public void setup () {
+		prefabReader.objectMapper.put("prefab", Prefab.class);
+		prefabReader.objectMapper.put("model", SceneModelInstance.class);
+		prefabReader.objectMapper.put("stats", Stats.class);
+
+		final StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < prefabs; i++) {
+			builder.append("[[prefab]]\n");
+			builder.append("[prefab.prefab]\n");
+			builder.append("identifier = \"unit").append(i).append("\"\n");
+			builder.append("[prefab.model]\n");
+			builder.append("modelName = \"models/unit").append(i % 4).append(".gltf\"\n");
+			builder.append("[prefab.stats]\n");
+			builder.append("health = ").append(100 + i).append('\n');
+			builder.append("speed = ").append(1.5f + i * 0.01f).append('\n');
+			builder.append("faction = \"").append(Faction.values()[i % Faction.values().length]).append("\"\n");
+			builder.append("tags = [\"ground\", \"melee\", \"tier").append(i % 3).append("\"]\n");
+			builder.append("[prefab.stats.loot]\n");
+			builder.append("item = \"coin\"\n");
+			builder.append("amount = ").append(i % 10 + 1).append('\n');
+			builder.append("chance = 0.25\n\n");
+		}
+		source = builder.toString();
+		parsed = new Toml().read(source).getTables("prefab");
+	}
+
+	private void read (List<Toml> prefabConfigs, Blackhole blackhole) {
+		for (Toml prefabConfig : prefabConfigs) {
+			for (Map.Entry<String, Object> entry : prefabConfig.entrySet()) {
+				if (entry.getValue() instanceof Toml) {
+					blackhole.consume(prefabReader.topLevelParseAndRead(entry.getKey(), (Toml)entry.getValue()));
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public void parseAndRead (Blackhole blackhole) {
+		read(new Toml().read(source).getTables("prefab"), blackhole);
+	}
+
+	@Benchmark
+	public void read (Blackhole blackhole) {
+		read(parsed, blackhole);
+	}
+}
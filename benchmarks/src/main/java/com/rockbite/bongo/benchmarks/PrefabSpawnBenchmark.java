@@ -0,0 +1,94 @@
+package com.rockbite.bongo.benchmarks;
+
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.files.FileHandle;
+import com.rockbite.bongo.engine.systems.PrefabSystem;
+import net.mostlyoriginal.api.event.common.EventSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spawning a wave of entities from one prefab, one at a time against {@link PrefabSystem#spawn}. Spawned entities are
+ * deleted between invocations, outside the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrefabSpawnBenchmark {
+
+	private static final String IDENTIFIER = "unit";
+
+	@Param({"5000"})
+	private int wave;
+
+	private World world;
+	private PrefabSystem prefabSystem;
+	private FileHandle prefabFile;
+
+	private final IntBag spawned = new IntBag();
+
+	@Setup
+	public void setup () {
+		Headless.init();
+
+		prefabSystem = new PrefabSystem();
+		world = new World(new WorldConfigurationBuilder().with(new EventSystem(), prefabSystem).build());
+
+		prefabFile = FileHandle.tempFile("prefab");
+		prefabFile.writeString(
+			"[[prefab]]\n" +
+			"[prefab.prefab]\n" +
+			"identifier = \"" + IDENTIFIER + "\"\n" +
+			"[prefab.model]\n" +
+			"modelName = \"models/unit.gltf\"\n", false);
+		prefabSystem.registerForPrefabExtraction(prefabFile);
+	}
+
+	@TearDown
+	public void tearDown () {
+		world.dispose();
+		prefabFile.delete();
+	}
+
+	@TearDown(Level.Invocation)
+	public void deleteSpawned () {
+		final int[] entities = spawned.getData();
+		for (int i = 0, s = spawned.size(); i < s; i++) {
+			world.delete(entities[i]);
+		}
+		spawned.setSize(0);
+		world.process();
+	}
+
+	@Benchmark
+	public IntBag oneByOne () {
+		for (int i = 0; i < wave; i++) {
+			spawned.add(prefabSystem.createEntityFromPrefabIdentifier(IDENTIFIER).getId());
+		}
+		return spawned;
+	}
+
+	@Benchmark
+	public IntBag spawn () {
+		prefabSystem.spawn(IDENTIFIER, wave, (entity, index) -> spawned.add(entity));
+		return spawned;
+	}
+}
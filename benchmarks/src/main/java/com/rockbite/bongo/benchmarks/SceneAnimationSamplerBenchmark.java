@@ -0,0 +1,93 @@
+package com.rockbite.bongo.benchmarks;
+
+import com.badlogic.gdx.math.Quaternion;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Vector3;
+import com.rockbite.bongo.engine.gltf.scene.animation.SceneAnimationSampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyframe lookup and sampling. Playback advances by a frame each call and keeps its cursor, as
+ * {@link com.rockbite.bongo.engine.systems.render.AnimationSystem} does, seeks jump to random times.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SceneAnimationSamplerBenchmark {
+
+	private static final int SEEK_TIMES = 1024;
+
+	@Param({"16", "256", "4096"})
+	private int keyframes;
+
+	private SceneAnimationSampler.TranslationSampler translationSampler;
+	private SceneAnimationSampler.RotationSampler rotationSampler;
+
+	private float time;
+	private int translationCursor;
+	private int rotationCursor;
+
+	private final float[] seekTimes = new float[SEEK_TIMES];
+	private int seekIndex;
+
+	private final Vector3 translation = new Vector3();
+	private final Quaternion rotation = new Quaternion();
+
+	@Setup
+	public void setup () {
+		translationSampler = BenchmarkScenes.createTranslationSampler(keyframes, 0);
+		rotationSampler = BenchmarkScenes.createRotationSampler(keyframes, 0);
+
+		final RandomXS128 random = new RandomXS128(7);
+		for (int i = 0; i < SEEK_TIMES; i++) {
+			seekTimes[i] = random.nextFloat() * BenchmarkScenes.ANIMATION_LENGTH;
+		}
+	}
+
+	private float nextFrameTime () {
+		time += Headless.FRAME_DELTA;
+		if (time > BenchmarkScenes.ANIMATION_LENGTH) {
+			time = 0;
+		}
+		return time;
+	}
+
+	private float nextSeekTime () {
+		seekIndex = (seekIndex + 1) & (SEEK_TIMES - 1);
+		return seekTimes[seekIndex];
+	}
+
+	@Benchmark
+	public void playback (Blackhole blackhole) {
+		final float time = nextFrameTime();
+		translationCursor = translationSampler.sample(time, translationCursor, translation);
+		rotationCursor = rotationSampler.sample(time, rotationCursor, rotation);
+		blackhole.consume(translation);
+		blackhole.consume(rotation);
+	}
+
+	@Benchmark
+	public void seek (Blackhole blackhole) {
+		final float time = nextSeekTime();
+		translationSampler.sample(time, 0, translation);
+		rotationSampler.sample(time, 0, rotation);
+		blackhole.consume(translation);
+		blackhole.consume(rotation);
+	}
+}
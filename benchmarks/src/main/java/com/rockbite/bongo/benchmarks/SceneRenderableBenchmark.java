@@ -0,0 +1,136 @@
+package com.rockbite.bongo.benchmarks;
+
+import com.artemis.Aspect;
+import com.artemis.ComponentMapper;
+import com.artemis.EntitySubscription;
+import com.artemis.World;
+import com.artemis.WorldConfigurationBuilder;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.PerspectiveCamera;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.Array;
+import com.rockbite.bongo.engine.gltf.scene.SceneMaterial;
+import com.rockbite.bongo.engine.gltf.scene.SceneModel;
+import com.rockbite.bongo.engine.gltf.scene.SceneModelInstance;
+import com.rockbite.bongo.engine.gltf.scene.SceneRenderQueue;
+import com.rockbite.bongo.engine.gltf.scene.SceneRenderable;
+import com.rockbite.bongo.engine.gltf.scene.SceneRenderableProvider;
+import com.rockbite.bongo.engine.gltf.scene.shader.BaseSceneShader;
+import com.rockbite.bongo.engine.gltf.scene.shader.SceneShaderProvider;
+import com.rockbite.bongo.engine.meshutils.CubeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per frame cost of turning scene model instances into culled, sorted renderables: the gather and sort path of
+ * {@link SceneRenderableProvider} against the persistent {@link SceneRenderQueue}. Props are scattered around the
+ * camera so part of them is culled.
+ * <p>
+ * Shaders need a GL context, the provider here hands out none, so shader resolution is not part of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SceneRenderableBenchmark {
+
+	private static final int ENTITIES = 1000;
+	private static final int PROP_VARIANTS = 8;
+	private static final float SPREAD = 200f;
+
+	private static class NullShaderProvider extends SceneShaderProvider {
+
+		@Override
+		public BaseSceneShader getShader (SceneRenderable renderable) {
+			return null;
+		}
+
+		@Override
+		protected BaseSceneShader createShader (SceneRenderable renderable, World world) {
+			return null;
+		}
+	}
+
+	private World world;
+	private EntitySubscription subscription;
+	private ComponentMapper<SceneModelInstance> mapper;
+
+	private final SceneShaderProvider shaderProvider = new NullShaderProvider();
+	private final SceneRenderableProvider renderableProvider = new SceneRenderableProvider();
+	private final Array<SceneRenderable> renderables = new Array<>();
+	private SceneRenderQueue renderQueue;
+
+	private PerspectiveCamera camera;
+
+	@Setup
+	public void setup () {
+		Headless.init();
+
+		world = new World(new WorldConfigurationBuilder().build());
+		subscription = world.getAspectSubscriptionManager().get(Aspect.all(SceneModelInstance.class));
+		mapper = world.getMapper(SceneModelInstance.class);
+
+		final RandomXS128 random = new RandomXS128(3);
+
+		final Mesh mesh = CubeUtils.createBoxMesh(1, 1, 1);
+		final SceneModel[] props = new SceneModel[PROP_VARIANTS];
+		for (int i = 0; i < PROP_VARIANTS; i++) {
+			props[i] = BenchmarkScenes.createProp("prop" + i, mesh,
+				SceneMaterial.BasicPBR("prop" + i + "-a", Color.WHITE, 0, 1),
+				SceneMaterial.BasicPBR("prop" + i + "-b", Color.GRAY, 1, 0.5f),
+				SceneMaterial.BasicPBR("prop" + i + "-c", Color.RED, 0, 0.2f));
+		}
+
+		for (int i = 0; i < ENTITIES; i++) {
+			final Matrix4 transform = new Matrix4()
+				.setToTranslation(random.nextFloat() * SPREAD - SPREAD / 2f, 0, random.nextFloat() * SPREAD - SPREAD / 2f)
+				.rotate(0, 1, 0, random.nextFloat() * 360f);
+			world.createEntity().edit().add(new SceneModelInstance(props[i % PROP_VARIANTS], transform, (String[])null));
+		}
+		world.process();
+
+		camera = new PerspectiveCamera(67, 1280, 720);
+		camera.position.set(0, 20, 0);
+		camera.lookAt(50, 0, 50);
+		camera.near = 0.1f;
+		camera.far = 150f;
+		camera.update();
+
+		renderQueue = new SceneRenderQueue(subscription, mapper, shaderProvider, false);
+	}
+
+	@TearDown
+	public void tearDown () {
+		renderQueue.dispose();
+		world.dispose();
+	}
+
+	@Benchmark
+	public void gatherAndSort (Blackhole blackhole) {
+		renderableProvider.obtainSceneRenderables(subscription, mapper, shaderProvider, false, camera.frustum, renderables);
+		renderableProvider.sort(renderables);
+		blackhole.consume(renderables.size);
+		renderableProvider.freeAll(renderables);
+	}
+
+	@Benchmark
+	public Array<SceneRenderable> renderQueue () {
+		return renderQueue.update(camera.frustum, camera.position);
+	}
+}
@@ -0,0 +1,66 @@
+package com.rockbite.bongo.benchmarks;
+
+import com.badlogic.gdx.math.Vector3;
+import com.rockbite.tween.TweenSystem;
+import com.rockbite.tween.controllers.Vector3TweenController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TweenSystem#update(float)} with a steady set of running tweens, and with short tweens starting and
+ * completing every frame on top of it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TweenSystemBenchmark {
+
+	private static final int CHURN = 100;
+
+	@Param({"1000", "10000"})
+	private int running;
+
+	private TweenSystem tweenSystem;
+	private final Vector3 churnTarget = new Vector3();
+
+	@Setup
+	public void setup () {
+		tweenSystem = new TweenSystem();
+		for (int i = 0; i < running; i++) {
+			tweenSystem.Tween(new Vector3(), Vector3TweenController.MOVE_TO_XYZ)
+				.target(i, i * 2, i * 3)
+				.duration(Float.MAX_VALUE)
+				.startNow();
+		}
+	}
+
+	@Benchmark
+	public void update () {
+		tweenSystem.update(Headless.FRAME_DELTA);
+	}
+
+	@Benchmark
+	public void churn () {
+		for (int i = 0; i < CHURN; i++) {
+			tweenSystem.Tween(churnTarget, Vector3TweenController.MOVE_TO_XYZ)
+				.target(1, 2, 3)
+				.duration(0)
+				.startNow();
+		}
+		tweenSystem.update(Headless.FRAME_DELTA);
+	}
+}
@@ -0,0 +1,165 @@
+package com.rockbite.bongo.benchmarks.talos;
+
+import com.badlogic.gdx.graphics.Color;
+import com.talosvfx.talos.runtime.ParticleEffectDescriptor;
+import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
+import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.modules.AbstractModule;
+import com.talosvfx.talos.runtime.modules.CurveModule;
+import com.talosvfx.talos.runtime.modules.DrawableModule;
+import com.talosvfx.talos.runtime.modules.EmConfigModule;
+import com.talosvfx.talos.runtime.modules.EmitterModule;
+import com.talosvfx.talos.runtime.modules.GradientColorModule;
+import com.talosvfx.talos.runtime.modules.InputModule;
+import com.talosvfx.talos.runtime.modules.MathModule;
+import com.talosvfx.talos.runtime.modules.MeshGeneratorModule;
+import com.talosvfx.talos.runtime.modules.NoiseModule;
+import com.talosvfx.talos.runtime.modules.ParticleModule;
+import com.talosvfx.talos.runtime.modules.ParticlePointDataGeneratorModule;
+import com.talosvfx.talos.runtime.modules.QuadMeshGeneratorModule;
+import com.talosvfx.talos.runtime.modules.RandomRangeModule;
+import com.talosvfx.talos.runtime.modules.SingleParticlePointDataGeneratorModule;
+import com.talosvfx.talos.runtime.modules.StaticValueModule;
+import com.talosvfx.talos.runtime.modules.Vector3Module;
+
+/**
+ * Effects wired in code, module by module as the loader does, so benchmarks do not depend on exported effect files
+ */
+public final class EffectFixtures {
+
+	public enum Effect {
+		/**
+		 * Short lived particles thrown up under gravity and drag, random ranges on every particle input
+		 */
+		SPARKS,
+		/**
+		 * Long lived particles drifting on noise, curves and gradients over particle life
+		 */
+		SMOKE
+	}
+
+	private EffectFixtures () {
+	}
+
+	public static ParticleEffectDescriptor create (Effect effect) {
+		final ParticleEffectDescriptor descriptor = new ParticleEffectDescriptor();
+		final GraphBuilder graph = new GraphBuilder(descriptor);
+
+		switch (effect) {
+			case SPARKS:
+				sparks(graph);
+				break;
+			case SMOKE:
+				smoke(graph);
+				break;
+		}
+
+		descriptor.addEmitter(graph.emitter);
+		return descriptor;
+	}
+
+	private static void sparks (GraphBuilder graph) {
+		final ParticleModule particle = graph.base(600);
+
+		graph.connect(graph.range(0.6f, 1.2f), particle, ParticleModule.LIFE);
+		graph.connect(graph.vector(graph.range(-3f, 3f), graph.range(6f, 10f), graph.range(-3f, 3f)), particle, ParticleModule.INITIAL_VELOCITY);
+		graph.connect(graph.vector(graph.constant(0), graph.constant(-9.8f), graph.constant(0)), particle, ParticleModule.GRAVITY);
+		graph.connect(graph.vector(graph.constant(0.4f), graph.constant(0.4f), graph.constant(0.4f)), particle, ParticleModule.DRAG);
+
+		final GradientColorModule color = graph.add(new GradientColorModule());
+		color.createPoint(Color.YELLOW, 0.3f);
+		color.createPoint(Color.RED, 1f);
+		graph.connect(color, particle, ParticleModule.COLOR);
+
+		final CurveModule fade = graph.add(new CurveModule());
+		fade.createPoint(0, 1);
+		fade.createPoint(1, 0);
+		graph.connect(fade, particle, ParticleModule.TRANSPARENCY);
+	}
+
+	private static void smoke (GraphBuilder graph) {
+		final ParticleModule particle = graph.base(150);
+
+		graph.connect(graph.range(2f, 4f), particle, ParticleModule.LIFE);
+		graph.connect(graph.vector(graph.range(-0.5f, 0.5f), graph.range(1f, 2f), graph.range(-0.5f, 0.5f)), particle, ParticleModule.INITIAL_VELOCITY);
+
+		final InputModule alpha = graph.add(new InputModule());
+		alpha.setInput(ScopePayload.PARTICLE_ALPHA);
+
+		final NoiseModule noise = graph.add(new NoiseModule());
+		noise.setFrequency(4f);
+		graph.connect(alpha, noise, NoiseModule.X);
+		graph.connect(alpha, noise, NoiseModule.Y);
+
+		final MathModule sway = graph.add(new MathModule());
+		sway.setB(-0.5f);
+		graph.connect(noise, sway, MathModule.A);
+		graph.connect(graph.vector(sway, graph.constant(0.5f), sway), particle, ParticleModule.VELOCITY_OVER_TIME);
+
+		final GradientColorModule color = graph.add(new GradientColorModule());
+		color.createPoint(Color.DARK_GRAY, 0.5f);
+		color.createPoint(Color.LIGHT_GRAY, 1f);
+		graph.connect(color, particle, ParticleModule.COLOR);
+
+		final CurveModule fade = graph.add(new CurveModule());
+		fade.createPoint(0, 0);
+		fade.createPoint(0.2f, 0.8f);
+		fade.createPoint(1, 0);
+		graph.connect(fade, particle, ParticleModule.TRANSPARENCY);
+	}
+
+	private static class GraphBuilder {
+
+		private final ParticleEmitterDescriptor emitter;
+
+		GraphBuilder (ParticleEffectDescriptor descriptor) {
+			emitter = new ParticleEmitterDescriptor(descriptor);
+		}
+
+		<T extends AbstractModule> T add (T module) {
+			module.setModuleGraph(emitter);
+			module.setIndex(emitter.getModules().size);
+			emitter.addModule(module);
+			return module;
+		}
+
+		void connect (AbstractModule from, AbstractModule to, int slotTo) {
+			emitter.connectNode(from, to, 0, slotTo);
+		}
+
+		/**
+		 * Continuous emitter at the given rate, drawn as single point quads
+		 */
+		ParticleModule base (float rate) {
+			final EmitterModule emitterModule = add(new EmitterModule());
+			connect(add(new EmConfigModule()), emitterModule, EmitterModule.CONFIG);
+			connect(constant(rate), emitterModule, EmitterModule.RATE);
+
+			final DrawableModule drawable = add(new DrawableModule());
+			emitter.connectNode(add(new SingleParticlePointDataGeneratorModule()), drawable, ParticlePointDataGeneratorModule.MODULE, DrawableModule.POINT_GENERATOR);
+			emitter.connectNode(add(new QuadMeshGeneratorModule()), drawable, MeshGeneratorModule.MODULE, DrawableModule.MESH_GENERATOR);
+
+			return add(new ParticleModule());
+		}
+
+		StaticValueModule constant (float value) {
+			final StaticValueModule module = add(new StaticValueModule());
+			module.setStaticValue(value);
+			return module;
+		}
+
+		RandomRangeModule range (float min, float max) {
+			final RandomRangeModule module = add(new RandomRangeModule());
+			module.setMinMax(min, max);
+			return module;
+		}
+
+		Vector3Module vector (AbstractModule x, AbstractModule y, AbstractModule z) {
+			final Vector3Module module = add(new Vector3Module());
+			connect(x, module, Vector3Module.X);
+			connect(y, module, Vector3Module.Y);
+			connect(z, module, Vector3Module.Z);
+			return module;
+		}
+	}
+}
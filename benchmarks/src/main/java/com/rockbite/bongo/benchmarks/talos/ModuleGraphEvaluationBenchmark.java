@@ -0,0 +1,96 @@
+package com.rockbite.bongo.benchmarks.talos;
+
+import com.talosvfx.talos.runtime.ParticleEffectDescriptor;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
+import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.modules.AbstractModule;
+import com.talosvfx.talos.runtime.modules.CurveModule;
+import com.talosvfx.talos.runtime.modules.InputModule;
+import com.talosvfx.talos.runtime.modules.MathModule;
+import com.talosvfx.talos.runtime.modules.NoiseModule;
+import com.talosvfx.talos.runtime.values.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single particle request through a small diamond shaped graph, particle alpha feeding a curve and noise that are
+ * combined twice, interpreted and compiled. Each call is a new requester so nothing is served from the module caches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModuleGraphEvaluationBenchmark {
+
+	@Param({"false", "true"})
+	private boolean compiled;
+
+	private ScopePayload scope;
+	private MathModule output;
+	private float alpha;
+
+	@Setup
+	public void setup () {
+		final ParticleEffectDescriptor descriptor = new ParticleEffectDescriptor();
+		final ParticleEmitterDescriptor emitter = new ParticleEmitterDescriptor(descriptor);
+
+		final InputModule input = add(emitter, new InputModule());
+		input.setInput(ScopePayload.PARTICLE_ALPHA);
+
+		final CurveModule curve = add(emitter, new CurveModule());
+		curve.createPoint(0, 0);
+		curve.createPoint(0.5f, 1);
+		curve.createPoint(1, 0.2f);
+		emitter.connectNode(input, curve, InputModule.OUTPUT, CurveModule.ALPHA);
+
+		final NoiseModule noise = add(emitter, new NoiseModule());
+		emitter.connectNode(input, noise, InputModule.OUTPUT, NoiseModule.X);
+		emitter.connectNode(curve, noise, CurveModule.OUTPUT, NoiseModule.Y);
+
+		final MathModule product = add(emitter, new MathModule());
+		emitter.connectNode(curve, product, CurveModule.OUTPUT, MathModule.A);
+		emitter.connectNode(noise, product, NoiseModule.OUTPUT, MathModule.B);
+
+		output = add(emitter, new MathModule());
+		emitter.connectNode(product, output, MathModule.OUTPUT, MathModule.A);
+		emitter.connectNode(input, output, InputModule.OUTPUT, MathModule.B);
+
+		descriptor.addEmitter(emitter);
+		descriptor.setCompiledEvaluation(compiled);
+
+		final ParticleEffectInstance instance = descriptor.createEffectInstance();
+		scope = instance.getScope();
+		emitter.prepareEvaluation();
+	}
+
+	private static <T extends AbstractModule> T add (ParticleEmitterDescriptor emitter, T module) {
+		module.setModuleGraph(emitter);
+		module.setIndex(emitter.getModules().size);
+		emitter.addModule(module);
+		return module;
+	}
+
+	@Benchmark
+	public Value evaluate () {
+		alpha += 0.001f;
+		if (alpha > 1) alpha = 0;
+
+		scope.set(ScopePayload.PARTICLE_ALPHA, alpha);
+		scope.setCurrentRequesterID(scope.newParticleRequester());
+		return output.fetchOutputSlotValue(MathModule.OUTPUT);
+	}
+}
@@ -0,0 +1,85 @@
+package com.rockbite.bongo.benchmarks.talos;
+
+import com.rockbite.bongo.benchmarks.Headless;
+import com.talosvfx.talos.runtime.ParticleEffectDescriptor;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One frame of a running effect at its steady particle count, under each evaluation mode of the runtime
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParticleEffectUpdateBenchmark {
+
+	public enum Evaluation {
+		/**
+		 * Pull based graph evaluation, one {@link com.talosvfx.talos.runtime.Particle} object per particle
+		 */
+		INTERPRETED,
+		/**
+		 * Flattened graph programs, see {@link ParticleEffectDescriptor#setCompiledEvaluation(boolean)}
+		 */
+		COMPILED,
+		/**
+		 * Compiled, with particles kept in column storage
+		 */
+		STORE,
+		/**
+		 * Compiled, column storage and the particle module sampled a batch at a time
+		 */
+		BATCHED
+	}
+
+	/**
+	 * Long enough for the longest lived particles of every fixture to reach a steady count
+	 */
+	private static final float PREWARM_SECONDS = 5f;
+
+	@Param({"SPARKS", "SMOKE"})
+	private EffectFixtures.Effect effect;
+
+	@Param({"INTERPRETED", "COMPILED", "STORE", "BATCHED"})
+	private Evaluation evaluation;
+
+	private ParticleEffectInstance instance;
+
+	@Setup
+	public void setup () {
+		Headless.init();
+
+		final ParticleEffectDescriptor descriptor = EffectFixtures.create(effect);
+		descriptor.setCompiledEvaluation(evaluation != Evaluation.INTERPRETED);
+
+		instance = descriptor.createEffectInstance();
+		instance.loopable = true;
+		instance.setParticleStoreEnabled(evaluation == Evaluation.STORE || evaluation == Evaluation.BATCHED);
+		instance.setBatchEvaluation(evaluation == Evaluation.BATCHED);
+
+		for (float time = 0; time < PREWARM_SECONDS; time += Headless.FRAME_DELTA) {
+			instance.update(Headless.FRAME_DELTA);
+		}
+	}
+
+	@Benchmark
+	public int update () {
+		instance.update(Headless.FRAME_DELTA);
+		return instance.getParticleCount();
+	}
+}
@@ -13,6 +13,10 @@ public class Bongo {
 
 	public static Boolean DEBUG = true;
 	public static Boolean CORE_SHADER_DEBUG = false;
+	/**
+	 * Records per system timings in {@link com.rockbite.bongo.engine.systems.GameLoopSystemInvocationStrategy#getProfiler()}
+	 */
+	public static Boolean PROFILE_SYSTEMS = false;
 
 	public static IMGUIPlatform imguiPlatform;
 
@@ -0,0 +1,38 @@
+package com.rockbite.bongo.engine.annotations;
+
+import com.rockbite.bongo.engine.systems.ParallelGameLoopSystemInvocationStrategy;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares what a system touches, for {@link ParallelGameLoopSystemInvocationStrategy}. Systems without it run
+ * exclusive.
+ */
+@Target(value = ElementType.TYPE)
+@Retention(value = RetentionPolicy.RUNTIME)
+public @interface SystemAccess {
+
+	/**
+	 * Component, singleton or other shared types only read
+	 */
+	Class<?>[] reads () default {};
+
+	/**
+	 * Component, singleton or other shared types written
+	 */
+	Class<?>[] writes () default {};
+
+	/**
+	 * Runs alone, with entity states flushed before and after. Required for systems that create or delete entities or
+	 * add or remove components.
+	 */
+	boolean exclusive () default false;
+
+	/**
+	 * Runs on the thread processing the world, for systems making GL calls
+	 */
+	boolean glThread () default false;
+}
@@ -18,4 +18,13 @@ public class PointLight extends Component {
 		this.b = b;
 		this.strength = strength;
 	}
+
+	/**
+	 * Distance at which the brightest channel falls below cutoff, with the inverse square falloff the shaders use
+	 */
+	public float getInfluenceRadius (float cutoff) {
+		final float peak = Math.max(r, Math.max(g, b)) * strength;
+		if (peak <= 0) return 0;
+		return (float)Math.sqrt(peak / cutoff);
+	}
 }
@@ -0,0 +1,121 @@
+package com.rockbite.bongo.engine.gltf;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import lombok.Getter;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary glTF container, a JSON chunk describing the scene followed by an optional binary chunk holding buffer 0.
+ * <p>
+ * The file is memory mapped where the backend allows it, so the binary chunk is a view over the mapping rather than a
+ * copy on the heap.
+ */
+public class GLTFBinary {
+
+	private static final int MAGIC = 0x46546C67; //glTF
+	private static final int CHUNK_JSON = 0x4E4F534A;
+	private static final int CHUNK_BIN = 0x004E4942;
+
+	private static final int HEADER_LENGTH = 12;
+	private static final int CHUNK_HEADER_LENGTH = 8;
+
+	@Getter
+	private final String json;
+	/** Little endian view over the BIN chunk, null if the file has none */
+	@Getter
+	private final ByteBuffer binaryChunk;
+
+	private GLTFBinary (String json, ByteBuffer binaryChunk) {
+		this.json = json;
+		this.binaryChunk = binaryChunk;
+	}
+
+	public static boolean isBinary (FileHandle handle) {
+		return handle.extension().equalsIgnoreCase("glb");
+	}
+
+	public static GLTFBinary read (FileHandle handle) {
+		final ByteBuffer data = map(handle);
+
+		if (data.remaining() < HEADER_LENGTH || data.getInt(0) != MAGIC) {
+			throw new GdxRuntimeException("Not a binary glTF file: " + handle.path());
+		}
+		final int version = data.getInt(4);
+		if (version != 2) {
+			throw new GdxRuntimeException("Unsupported binary glTF version " + version + ": " + handle.path());
+		}
+		final int length = Math.min(data.getInt(8), data.limit());
+
+		String json = null;
+		ByteBuffer binaryChunk = null;
+
+		int offset = HEADER_LENGTH;
+		while (offset + CHUNK_HEADER_LENGTH <= length) {
+			final int chunkLength = data.getInt(offset);
+			final int chunkType = data.getInt(offset + 4);
+			final int chunkStart = offset + CHUNK_HEADER_LENGTH;
+			if (chunkStart + chunkLength > length) {
+				throw new GdxRuntimeException("Truncated chunk in binary glTF file: " + handle.path());
+			}
+
+			if (chunkType == CHUNK_JSON && json == null) {
+				final byte[] bytes = new byte[chunkLength];
+				final ByteBuffer jsonChunk = slice(data, chunkStart, chunkLength);
+				jsonChunk.get(bytes);
+				json = new String(bytes, StandardCharsets.UTF_8);
+			} else if (chunkType == CHUNK_BIN && binaryChunk == null) {
+				binaryChunk = slice(data, chunkStart, chunkLength);
+			}
+
+			//Chunks are padded to 4 bytes
+			offset = chunkStart + ((chunkLength + 3) & ~3);
+		}
+
+		if (json == null) {
+			throw new GdxRuntimeException("Binary glTF file has no JSON chunk: " + handle.path());
+		}
+		return new GLTFBinary(json, binaryChunk);
+	}
+
+	/**
+	 * Maps the whole file read only, falling back to a single copy into a direct buffer for file types that can not be
+	 * mapped, such as classpath resources.
+	 *
+	 * @return little endian buffer positioned at 0
+	 */
+	public static ByteBuffer map (FileHandle handle) {
+		ByteBuffer buffer = null;
+		if (handle.type() != Files.FileType.Classpath) {
+			try {
+				buffer = handle.map(FileChannel.MapMode.READ_ONLY);
+			} catch (GdxRuntimeException ignored) {
+				//Not backed by a file, e.g. an internal file inside an apk
+			}
+		}
+		if (buffer == null) {
+			final byte[] bytes = handle.readBytes();
+			buffer = ByteBuffer.allocateDirect(bytes.length);
+			buffer.put(bytes);
+			((Buffer)buffer).position(0);
+		}
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		return buffer;
+	}
+
+	/**
+	 * Little endian view over [start, start + length) of buffer, sharing its memory
+	 */
+	public static ByteBuffer slice (ByteBuffer buffer, int start, int length) {
+		final ByteBuffer duplicate = buffer.duplicate();
+		((Buffer)duplicate).position(start);
+		((Buffer)duplicate).limit(start + length);
+		return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+}
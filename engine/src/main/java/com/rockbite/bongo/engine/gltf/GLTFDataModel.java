@@ -165,7 +165,10 @@ public class GLTFDataModel {
 	public static class BufferData implements Json.Serializable {
 
 		private int byteLength;
+		/** Decoded contents of an embedded base64 data uri, null otherwise */
 		private byte[] byteData;
+		/** Path of an external .bin relative to the glTF file, null when embedded or the binary chunk of a .glb */
+		private String uri;
 
 		@Override
 		public void write (Json json) {
@@ -175,11 +178,16 @@ public class GLTFDataModel {
 		@Override
 		public void read (Json json, JsonValue jsonData) {
 			byteLength = jsonData.getInt("byteLength");
-			String data = jsonData.getString("uri");
+			String data = jsonData.getString("uri", null);
+			if (data == null) return;
 
-			data = data.split("base64,")[1];
+			if (data.startsWith("data:")) {
+				data = data.split("base64,")[1];
 
-			byteData = Base64Coder.decode(data);
+				byteData = Base64Coder.decode(data);
+			} else {
+				uri = data;
+			}
 		}
 	}
 
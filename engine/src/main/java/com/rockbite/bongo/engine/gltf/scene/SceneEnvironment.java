@@ -7,6 +7,7 @@ import com.badlogic.gdx.graphics.GLTexture;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
 import com.badlogic.gdx.utils.Array;
 import com.rockbite.bongo.engine.annotations.ComponentExpose;
 import com.rockbite.bongo.engine.components.render.PointLight;
@@ -32,8 +33,21 @@ public class SceneEnvironment {
 	@ComponentExpose(flavour = FLOAT)
 	private float[] ambientStrength = new float[]{1f};
 
-	int maxPointLights = 5;
+	/**
+	 * Point lights fed to each draw, the NumPointLights define of lit shaders. Changing it recompiles every lit shader,
+	 * so it is best set before the first frame.
+	 */
+	int maxPointLights = 8;
+	/**
+	 * Radiance below which a point light is considered to have no influence, used to cull lights outside the view
+	 */
+	private float pointLightCutoff = 0.01f;
+	/** Every point light in the world this frame */
 	private Array<PointLight> pointLights = new Array<>();
+	/** Nearest visible lights, at most {@link #maxPointLights}, as selected by {@link #selectActivePointLights(Camera)} */
+	private Array<PointLight> activePointLights = new Array<>();
+	private Array<PointLight> candidatePointLights = new Array<>();
+	private float[] candidateDistances = new float[16];
 
 	private GLTexture brdfMap;
 
@@ -89,6 +103,71 @@ public class SceneEnvironment {
 		lightSpaceMatrixOut.set(lightProjection).mul(lightView);
 	}
 
+	/**
+	 * Fits an orthographic light volume around a slice of the view frustum, used per shadow cascade.
+	 * <p>
+	 * The volume is sized from the bounding sphere of the slice, so it does not change with camera rotation, and its
+	 * center is snapped to whole shadow map texels, so shadow edges do not shimmer as the camera moves.
+	 * <p>
+	 * The eye is pulled back along the light direction until it is in front of every caster in casterBounds, so casters
+	 * outside the slice that throw shadows into it are not clipped by the near plane.
+	 *
+	 * @param corners      the 8 corners of the frustum slice, in world space
+	 * @param casterBounds world bounds of everything that can cast into the slice, null or invalid to only cover the slice
+	 */
+	public void calculateCascadeLightSpaceMatrix (Vector3[] corners, BoundingBox casterBounds, int shadowMapSize, Matrix4 lightSpaceMatrixOut) {
+		frustumCenter.setZero();
+		for (Vector3 corner : corners) {
+			frustumCenter.add(corner);
+		}
+		frustumCenter.scl(1f / corners.length);
+
+		float radius = 0;
+		for (Vector3 corner : corners) {
+			radius = Math.max(radius, corner.dst(frustumCenter));
+		}
+		//Round up so floating point noise does not change the texel size between frames
+		radius = MathUtils.ceil(radius * 16f) / 16f;
+
+		float texelsPerUnit = shadowMapSize/(radius * 2f);
+
+		scalingMatrix.setToScaling(texelsPerUnit, texelsPerUnit, texelsPerUnit);
+		tempZeroVector3.setZero();
+		tempUpVector.set(0, 1, 0);
+
+		tempBaseLookAt.set(-directionalLightDir.x, -directionalLightDir.y, -directionalLightDir.z);
+
+		tempLookAt.setToLookAt(tempZeroVector3, tempBaseLookAt, tempUpVector);
+		tempLookAt.mul(scalingMatrix);
+		tempLookAtinv.set(tempLookAt).inv();
+
+		frustumCenter.mul(tempLookAt);
+		frustumCenter.x = MathUtils.floor(frustumCenter.x);
+		frustumCenter.y = MathUtils.floor(frustumCenter.y);
+		frustumCenter.z = MathUtils.floor(frustumCenter.z);
+		frustumCenter.mul(tempLookAtinv);
+
+		float eyeDistance = radius * 2f;
+		if (casterBounds != null && casterBounds.isValid()) {
+			//Furthest any caster reaches towards the light from the slice center, projected on the light direction
+			casterBounds.getCenter(tempVec3).sub(frustumCenter);
+			final float centerOffset = tempVec3.dot(directionalLightDir);
+			final float halfExtent =
+				Math.abs(directionalLightDir.x) * casterBounds.getWidth()
+					+ Math.abs(directionalLightDir.y) * casterBounds.getHeight()
+					+ Math.abs(directionalLightDir.z) * casterBounds.getDepth();
+			final float casterReach = halfExtent * 0.5f - centerOffset;
+			//Whole units, so small caster movement does not change the matrix and invalidate cached cascades
+			eyeDistance = Math.max(eyeDistance, MathUtils.ceil(casterReach) + 1f);
+		}
+
+		Vector3 eyeVec = tempVec3.set(directionalLightDir).scl(eyeDistance).scl(-1f).add(frustumCenter);
+
+		lightView.setToLookAt(eyeVec, frustumCenter, tempUpVector);
+		lightProjection.setToOrtho(-radius, radius, -radius, radius, 0.01f, eyeDistance + radius);
+		lightSpaceMatrixOut.set(lightProjection).mul(lightView);
+	}
+
 	private Vector3 getFrustumCenter (Camera camera, Vector3 vector3) {
 		vector3.setZero();
 		for (Vector3 planePoint : camera.frustum.planePoints) {
@@ -98,6 +177,47 @@ public class SceneEnvironment {
 		return vector3;
 	}
 
+	/**
+	 * Culls {@link #pointLights} against the camera frustum by their influence radius and keeps the nearest
+	 * {@link #maxPointLights} to the camera in {@link #activePointLights}
+	 */
+	public void selectActivePointLights (Camera camera) {
+		activePointLights.clear();
+		candidatePointLights.clear();
+
+		final Vector3 cameraPosition = camera.position;
+		for (int i = 0; i < pointLights.size; i++) {
+			final PointLight pointLight = pointLights.get(i);
+			final float radius = pointLight.getInfluenceRadius(pointLightCutoff);
+			if (radius <= 0 || !camera.frustum.sphereInFrustum(pointLight.getWorldPosition(), radius)) continue;
+
+			if (candidateDistances.length <= candidatePointLights.size) {
+				final float[] grown = new float[candidateDistances.length * 2];
+				System.arraycopy(candidateDistances, 0, grown, 0, candidateDistances.length);
+				candidateDistances = grown;
+			}
+			candidateDistances[candidatePointLights.size] = pointLight.getWorldPosition().dst2(cameraPosition);
+			candidatePointLights.add(pointLight);
+		}
+
+		//Partial selection, only the first maxPointLights are needed in order
+		final int count = Math.min(maxPointLights, candidatePointLights.size);
+		for (int i = 0; i < count; i++) {
+			int nearest = i;
+			for (int j = i + 1; j < candidatePointLights.size; j++) {
+				if (candidateDistances[j] < candidateDistances[nearest]) nearest = j;
+			}
+			if (nearest != i) {
+				final float distance = candidateDistances[i];
+				candidateDistances[i] = candidateDistances[nearest];
+				candidateDistances[nearest] = distance;
+				candidatePointLights.swap(i, nearest);
+			}
+			activePointLights.add(candidatePointLights.get(i));
+		}
+		candidatePointLights.clear();
+	}
+
 	public void packFromRaw () {
 		for (int i = 0; i < 3; i++) {
 			if (MathUtils.isZero(directionalLightDirRaw[i])) {
@@ -0,0 +1,78 @@
+package com.rockbite.bongo.engine.gltf.scene;
+
+import com.badlogic.gdx.files.FileHandle;
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Progress of a scene queued with {@link com.rockbite.bongo.engine.systems.SceneLoaderSystem#loadSceneAsync(FileHandle)}.
+ * <p>
+ * The future completes on the GL thread, after the scene has been added to the world, so stages chained on it with the
+ * non async methods can safely touch GL and the world.
+ */
+public class SceneLoadHandle {
+
+	public enum Stage {
+		/** Parsing, decoding and interleaving on a worker thread */
+		PREPARING,
+		/** Waiting for, or in the middle of, GL uploads */
+		UPLOADING,
+		DONE,
+		FAILED
+	}
+
+	@Getter
+	private final FileHandle handle;
+	@Getter
+	private final CompletableFuture<SceneGraph> future = new CompletableFuture<>();
+
+	@Getter
+	private volatile Stage stage = Stage.PREPARING;
+
+	private volatile SceneResourceContext resourceContext;
+
+	public SceneLoadHandle (FileHandle handle) {
+		this.handle = handle;
+	}
+
+	/**
+	 * Rough overall progress, the worker side counts as the first half
+	 */
+	public float getProgress () {
+		switch (stage) {
+			case PREPARING:
+				return 0;
+			case UPLOADING:
+				return 0.5f + resourceContext.getUploadProgress() * 0.5f;
+			default:
+				return 1;
+		}
+	}
+
+	public boolean isDone () {
+		return stage == Stage.DONE || stage == Stage.FAILED;
+	}
+
+	/**
+	 * @return the loaded scene, null until done
+	 */
+	public SceneGraph getSceneGraph () {
+		return stage == Stage.DONE ? future.join() : null;
+	}
+
+	public void prepared (SceneResourceContext resourceContext) {
+		this.resourceContext = resourceContext;
+		stage = Stage.UPLOADING;
+	}
+
+	public void complete (SceneGraph sceneGraph) {
+		stage = Stage.DONE;
+		future.complete(sceneGraph);
+	}
+
+	public void fail (Throwable throwable) {
+		stage = Stage.FAILED;
+		future.completeExceptionally(throwable);
+	}
+}
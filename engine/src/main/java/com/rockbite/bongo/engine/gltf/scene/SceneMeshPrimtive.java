@@ -5,21 +5,19 @@ import com.badlogic.gdx.graphics.Mesh;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
 import com.badlogic.gdx.graphics.g3d.model.Node;
 import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ArrayMap;
-import com.badlogic.gdx.utils.FloatArray;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.OrderedMap;
-import com.badlogic.gdx.utils.ShortArray;
+import com.rockbite.bongo.engine.gltf.GLTFBinary;
 import com.rockbite.bongo.engine.gltf.GLTFDataModel;
 import lombok.Getter;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
-import java.nio.ShortBuffer;
+import java.util.Arrays;
 
 public class SceneMeshPrimtive {
 
@@ -39,11 +37,20 @@ public class SceneMeshPrimtive {
 	 * updated by a call to {@link ModelInstance#calculateTransforms()}. Do not set or change this value manually. */
 	public Matrix4[] bones;
 
-	private float[] vertices;
-	private short[] indices;
-
 	public int renderMode = GL20.GL_TRIANGLES;
 
+	/** Interleaved data waiting for {@link #uploadMesh()}, null once uploaded */
+	private float[] pendingVertices;
+	private short[] pendingIndices;
+	private int pendingVertexCount;
+
+	/** Bind pose bounds in mesh space, shared between copies. Null if the primitive has no position data */
+	private BoundingBox localBounds;
+
+	private final BoundingBox worldBounds = new BoundingBox();
+	private final Matrix4 worldBoundsTransform = new Matrix4();
+	private boolean worldBoundsValid;
+
 	public SceneMeshPrimtive (String name, Mesh mesh, SceneMeshVertexInfo vertexInfo) {
 		this.name = name;
 		this.mesh = mesh;
@@ -54,6 +61,10 @@ public class SceneMeshPrimtive {
 
 	}
 
+	/**
+	 * Builds the interleaved vertex data without touching GL, so it is safe to call from a worker thread. The mesh is
+	 * created by {@link #uploadMesh()}.
+	 */
 	public SceneMeshPrimtive (GLTFDataModel.MeshData meshData, GLTFDataModel.PrimitivesData primitive, GLTFDataModel dataModel, SceneMaterial sceneMaterial, SceneResourceContext resourceContext) {
 		this.name = meshData.getName();
 
@@ -71,136 +82,184 @@ public class SceneMeshPrimtive {
 			vertexInfo.vertexInfoArray.add(value);
 		}
 
-		OrderedMap<String, FloatArray> attributeFloatMap = new OrderedMap<>();
-
-		for (ObjectMap.Entry<String, Integer> attribute : attributes) {
-			final String key = attribute.key;
+		final Array<SceneMeshVertexInfo.VertexInfo> vertexInfoArray = vertexInfo.vertexInfoArray;
+		final int totalNumComponentsPerVertex = vertexInfo.getTotalNumComponentsPerVertex();
+		final int vertexCount = dataModel.getAccessors()[attributes.get(attributes.orderedKeys().first())].getCount();
 
-			final FloatArray floatArray = new FloatArray();
-			attributeFloatMap.put(key, floatArray);
+		//Interleave straight out of the (possibly memory mapped) buffers, this is the only copy before the upload
+		final float[] vertices = new float[vertexCount * totalNumComponentsPerVertex];
 
-			final Integer accessorIndex = attribute.value;
+		int componentOffset = 0;
+		int attributeIndex = 0;
+		for (ObjectMap.Entry<String, Integer> attribute : attributes) {
+			final GLTFDataModel.AccessorData accessor = dataModel.getAccessors()[attribute.value];
+			final GLTFDataModel.BufferViewData bufferView = dataModel.getBufferViews()[accessor.getBufferView()];
+			final ByteBuffer buff = resourceContext.getBuffer(bufferView.getBuffer());
+			final int numComponents = vertexInfoArray.get(attributeIndex++).getNumComponents();
 
-			final GLTFDataModel.AccessorData accessor = dataModel.getAccessors()[accessorIndex];
+			if (accessor.getCount() < vertexCount) {
+				throw new GdxRuntimeException("Attribute " + attribute.key + " of " + name + " has " + accessor.getCount() + " elements, expected " + vertexCount);
+			}
 
-			final int bufferViewIndex = accessor.getBufferView();
-			final GLTFDataModel.BufferViewData bufferView = dataModel.getBufferViews()[bufferViewIndex];
+			interleaveAttribute(buff, bufferView, accessor, numComponents, vertices, componentOffset, totalNumComponentsPerVertex, vertexCount);
+			componentOffset += numComponents;
+		}
 
-			final int bufferIndex = bufferView.getBuffer();
+		final short[] indices = primitive.getIndices() != -1 ? readIndices(dataModel, dataModel.getAccessors()[primitive.getIndices()], resourceContext) : new short[0];
 
-			final ByteBuffer buff = resourceContext.getBuffer(bufferIndex);
+		pendingVertexCount = vertexCount;
+		pendingVertices = vertices;
+		pendingIndices = indices;
 
-			if (bufferView.getByteStride() != -1) {
-				throw new GdxRuntimeException("Not supported");
-			} else {
+		final Integer positionAccessorIndex = attributes.get("POSITION");
+		if (positionAccessorIndex != null) {
+			final GLTFDataModel.AccessorData positionAccessor = dataModel.getAccessors()[positionAccessorIndex];
+			final float[] min = positionAccessor.getMin();
+			final float[] max = positionAccessor.getMax();
+			if (min != null && max != null && min.length >= 3 && max.length >= 3) {
+				localBounds = new BoundingBox(new Vector3(min[0], min[1], min[2]), new Vector3(max[0], max[1], max[2]));
+			}
+		}
+	}
 
-				//5120 (BYTE)	1
-				//5121(UNSIGNED_BYTE)	1
-				//5122 (SHORT)	2
-				//5123 (UNSIGNED_SHORT)	2
-				//5125 (UNSIGNED_INT)	4
-				//5126 (FLOAT)	4
+	public boolean isMeshUploaded () {
+		return pendingVertices == null;
+	}
 
-				buff.position(bufferView.getByteOffset() + accessor.getByteOffset());
+	/**
+	 * Creates the GL mesh from the data built in the constructor and releases it, must be called on the GL thread
+	 */
+	public void uploadMesh () {
+		if (pendingVertices == null) return;
 
+		mesh = new Mesh(true, pendingVertexCount, pendingIndices.length, vertexInfo.packToVertexAttributes());
+		mesh.setVertices(pendingVertices);
+		if (pendingIndices.length > 0) {
+			mesh.setIndices(pendingIndices);
+		}
 
-				if (accessor.getComponentType() == 5126) {
-					final FloatBuffer floatBuffer = buff.asFloatBuffer();
+		pendingVertices = null;
+		pendingIndices = null;
+	}
 
-					final int byteLength = bufferView.getByteLength();
-					int floatCount = byteLength/4;
+	private static int componentSize (int componentType) {
+		switch (componentType) {
+			case GL20.GL_BYTE:
+			case GL20.GL_UNSIGNED_BYTE:
+				return 1;
+			case GL20.GL_SHORT:
+			case GL20.GL_UNSIGNED_SHORT:
+				return 2;
+			case GL20.GL_UNSIGNED_INT:
+			case GL20.GL_FLOAT:
+				return 4;
+			default:
+				throw new GdxRuntimeException("No type supported for componentType: " + componentType);
+		}
+	}
 
-					for (int i = 0; i < floatCount; i++) {
-						final float v = floatBuffer.get(i);
-						floatArray.add(v);
-					}
-				} else if (accessor.getComponentType() == 5121) {
+	/**
+	 * Copies one attribute into its slot of every vertex, converting integer components to float. Uses absolute reads
+	 * only, so the shared buffer position is left alone.
+	 */
+	private static void interleaveAttribute (ByteBuffer buff, GLTFDataModel.BufferViewData bufferView, GLTFDataModel.AccessorData accessor, int numComponents,
+		float[] vertices, int componentOffset, int vertexStride, int vertexCount) {
 
-					final int byteLength = bufferView.getByteLength();
-					int floatCount = byteLength;
+		final int componentType = accessor.getComponentType();
+		final int componentSize = componentSize(componentType);
+		final int elementStride = bufferView.getByteStride() != -1 ? bufferView.getByteStride() : componentSize * numComponents;
+		final int base = bufferView.getByteOffset() + accessor.getByteOffset();
 
-					for (int i = 0; i < floatCount; i++) {
-						final int v = buff.get() & 0xff;//Convert
-						floatArray.add(v);
-					}
-				} else {
-					throw new GdxRuntimeException("No type supported for componentType: " + accessor.getComponentType());
+		for (int i = 0; i < vertexCount; i++) {
+			final int source = base + i * elementStride;
+			final int destination = i * vertexStride + componentOffset;
+
+			for (int k = 0; k < numComponents; k++) {
+				final int index = source + k * componentSize;
+				final float v;
+				switch (componentType) {
+					case GL20.GL_FLOAT:
+						v = buff.getFloat(index);
+						break;
+					case GL20.GL_UNSIGNED_BYTE:
+						v = buff.get(index) & 0xff;
+						break;
+					case GL20.GL_BYTE:
+						v = buff.get(index);
+						break;
+					case GL20.GL_UNSIGNED_SHORT:
+						v = buff.getShort(index) & 0xffff;
+						break;
+					case GL20.GL_SHORT:
+						v = buff.getShort(index);
+						break;
+					default:
+						v = buff.getInt(index) & 0xFFFFFFFFL;
+						break;
 				}
+				vertices[destination + k] = v;
 			}
 		}
+	}
 
-		final int indicesIndex = primitive.getIndices();
-		final GLTFDataModel.AccessorData indicesAccessor = dataModel.getAccessors()[indicesIndex];
-		final int indicesBufferView = indicesAccessor.getBufferView();
-		final GLTFDataModel.BufferViewData bufferView = dataModel.getBufferViews()[indicesBufferView];
-
+	/**
+	 * Meshes only take 16 bit indices, wider types are narrowed
+	 */
+	private static short[] readIndices (GLTFDataModel dataModel, GLTFDataModel.AccessorData indicesAccessor, SceneResourceContext resourceContext) {
+		final GLTFDataModel.BufferViewData bufferView = dataModel.getBufferViews()[indicesAccessor.getBufferView()];
 		final ByteBuffer buff = resourceContext.getBuffer(bufferView.getBuffer());
-
-		buff.position(indicesAccessor.getByteOffset() + bufferView.getByteOffset());
-
-		if (indicesAccessor.getComponentType() == GL20.GL_SHORT || indicesAccessor.getComponentType() == GL20.GL_UNSIGNED_SHORT) {
-
-			final ShortBuffer intBuffer = buff.asShortBuffer();
-
-			final int byteLength = bufferView.getByteLength();
-			int shortCount = byteLength/2;
-
-			ShortArray shortArray = new ShortArray();
-
-			this.indices = new short[shortCount];
-
-			for (int i = 0; i < shortCount; i++) {
-				final short v = intBuffer.get(i);
-				if (v <  0) {
+		final int base = indicesAccessor.getByteOffset() + bufferView.getByteOffset();
+		final int count = indicesAccessor.getCount();
+
+		final short[] indices = new short[count];
+		switch (indicesAccessor.getComponentType()) {
+			case GL20.GL_SHORT:
+			case GL20.GL_UNSIGNED_SHORT:
+				GLTFBinary.slice(buff, base, count * 2).asShortBuffer().get(indices);
+				break;
+			case GL20.GL_UNSIGNED_INT:
+				for (int i = 0; i < count; i++) {
+					indices[i] = (short)buff.getInt(base + i * 4);
 				}
-				this.indices[i] = v;
-			}
-
-		} else if (indicesAccessor.getComponentType() == GL20.GL_UNSIGNED_INT) {
-			int maxIndices = indicesAccessor.getCount();
-			indices = new short[maxIndices];
-			IntBuffer intBuffer = buff.asIntBuffer();
-			long maxIndex = 0;
-			for(int i=0 ; i<maxIndices ; i++){
-				long index = intBuffer.get() & 0xFFFFFFFFL;
-				maxIndex = Math.max(index, maxIndex);
-				indices[i] = (short)index;
-				if (indices[i] < 0) {
+				break;
+			case GL20.GL_UNSIGNED_BYTE:
+				for (int i = 0; i < count; i++) {
+					indices[i] = (short)(buff.get(base + i) & 0xff);
 				}
-			}
+				break;
+			default:
+				throw new GdxRuntimeException("No index type supported for componentType: " + indicesAccessor.getComponentType());
 		}
+		return indices;
+	}
 
-		final Array<SceneMeshVertexInfo.VertexInfo> vertexInfoArray = vertexInfo.vertexInfoArray;
-
-		final SceneMeshVertexInfo.VertexInfo first = vertexInfoArray.first();
-		final int numComponents = first.getNumComponents();
-		final String s = attributes.orderedKeys().get(0);
-		final FloatArray floatArray = attributeFloatMap.get(s);
-		int vertexCount = floatArray.size/numComponents;
-
-
-		final int totalNumComponentsPerVertex = vertexInfo.getTotalNumComponentsPerVertex();
-
-		vertices = new float[vertexCount * totalNumComponentsPerVertex];
-
-		int idx = 0;
-		for (int i = 0; i < vertexCount; i++) {
-			for (int j = 0; j < vertexInfoArray.size; j++) {
-				final SceneMeshVertexInfo.VertexInfo vertex = vertexInfoArray.get(j);
-				final String vertexDataKey = attributeFloatMap.orderedKeys().get(j);
-				final FloatArray vertexData = attributeFloatMap.get(vertexDataKey);
-				int offsetPerVertex = i * vertex.getNumComponents();
-
-				for (int k = 0; k < vertex.getNumComponents(); k++) {
-					vertices[idx++] = vertexData.get(offsetPerVertex + k);
-				}
-			}
-
+	/**
+	 * Bounds in mesh space, from the position accessor min/max when the primitive came from glTF, otherwise
+	 * calculated from the mesh vertices on first use.
+	 * @return null if there are no vertices to bound
+	 */
+	public BoundingBox getLocalBounds () {
+		if (localBounds == null && mesh != null && mesh.getNumVertices() > 0) {
+			localBounds = mesh.calculateBoundingBox();
 		}
+		return localBounds;
+	}
 
-		mesh = new Mesh(true, vertices.length/totalNumComponentsPerVertex, indices.length, vertexInfo.packToVertexAttributes());
-		mesh.setVertices(vertices);
-		mesh.setIndices(indices);
+	/**
+	 * World space bounds for the given transform. The result is cached and only recomputed when the transform changes,
+	 * so static geometry gathered by several passes is only transformed once.
+	 * @return null if there are no vertices to bound
+	 */
+	public BoundingBox getWorldBounds (Matrix4 worldTransform) {
+		final BoundingBox localBounds = getLocalBounds();
+		if (localBounds == null) return null;
+
+		if (!worldBoundsValid || !Arrays.equals(worldBoundsTransform.val, worldTransform.val)) {
+			worldBounds.set(localBounds).mul(worldTransform);
+			worldBoundsTransform.set(worldTransform);
+			worldBoundsValid = true;
+		}
+		return worldBounds;
 	}
 
 	public SceneMeshPrimtive copy () {
@@ -212,6 +271,7 @@ public class SceneMeshPrimtive {
 		copy.attributes = attributes;
 		copy.vertexInfo = vertexInfo;
 		copy.renderMode = renderMode;
+		copy.localBounds = localBounds;
 
 		if (invBoneBindTransforms == null) {
 			copy.invBoneBindTransforms = null;
@@ -10,6 +10,8 @@ import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.rockbite.bongo.engine.gltf.scene.animation.SceneAnimation;
 import com.rockbite.bongo.engine.gltf.scene.animation.SceneNodeAnimation;
 import com.rockbite.bongo.engine.prefab.Marshallable;
+import com.rockbite.bongo.engine.render.InterpolatedTransform;
+import com.rockbite.bongo.engine.systems.render.SceneTransformInterpolationSystem;
 import lombok.Getter;
 
 @Getter
@@ -24,6 +26,15 @@ public class SceneModelInstance extends Component implements Marshallable<SceneM
 	private Array<SceneNode> nodes = new Array<>();
 	private Array<SceneAnimation> animations = new Array<>();
 
+	private SceneTransformHierarchy transformHierarchy;
+	private int transformHierarchyVersion;
+	private int transformVersion;
+
+	/**
+	 * State of {@link #transform} before the last logic tick, see {@link SceneTransformInterpolationSystem}
+	 */
+	private final InterpolatedTransform interpolatedTransform = new InterpolatedTransform();
+
 	public SceneModelInstance () {
 	}
 
@@ -46,6 +57,14 @@ public class SceneModelInstance extends Component implements Marshallable<SceneM
 		calculateTransforms();
 	}
 
+	/**
+	 * Transform to draw with, interpolated between logic ticks when {@link SceneTransformInterpolationSystem} is present
+	 */
+	public Matrix4 getRenderTransform () {
+		if (transform == null) return null;
+		return interpolatedTransform.getRenderTransform(transform);
+	}
+
 	private void copyAnimations (Array<SceneAnimation> sceneAnimations) {
 		for (SceneAnimation sceneAnimation : sceneAnimations) {
 			SceneAnimation copy = new SceneAnimation(sceneAnimation);
@@ -63,14 +82,36 @@ public class SceneModelInstance extends Component implements Marshallable<SceneM
 		}
 	}
 
+	/**
+	 * Updates node and bone transforms through the flattened {@link SceneTransformHierarchy}.
+	 * Only touches state owned by this instance, so different instances can be updated concurrently.
+	 */
 	public void calculateTransforms () {
-		final int n = nodes.size;
-		for (int i = 0; i < n; i++) {
-			nodes.get(i).calculateTransforms(true);
+		final int structureVersion = getStructureVersion();
+		if (transformHierarchy == null || transformHierarchyVersion != structureVersion) {
+			transformHierarchy = new SceneTransformHierarchy(nodes);
+			transformHierarchyVersion = structureVersion;
 		}
-		for (int i = 0; i < n; i++) {
-			nodes.get(i).calculateBoneTransforms(true);
+		transformHierarchy.update();
+		transformVersion++;
+	}
+
+	/**
+	 * Changes every time node and bone transforms are recalculated
+	 */
+	public int getTransformVersion () {
+		return transformVersion;
+	}
+
+	/**
+	 * Changes whenever nodes are added to this instance, or children or meshes anywhere below its nodes
+	 */
+	public int getStructureVersion () {
+		int version = nodes.size;
+		for (int i = 0; i < nodes.size; i++) {
+			version = version * 31 + nodes.get(i).structureVersion;
 		}
+		return version;
 	}
 
 	private void invalidate (SceneNode node) {
@@ -59,11 +59,25 @@ public class SceneNode {
 
 	int skin = -1;
 
+	/**
+	 * Bumped on this node and all its ancestors when a child or mesh is added below it, so owners of the tree notice
+	 * structural changes, see {@link SceneModelInstance#getStructureVersion()}
+	 */
+	int structureVersion;
+
 
 	public SceneNode (String name) {
 		this.name = name;
 	}
 
+	/**
+	 * Node built in code rather than loaded, nodeIndex is its index in the model the way the glTF loader numbers nodes
+	 */
+	public SceneNode (String name, int nodeIndex) {
+		this.name = name;
+		this.nodeIndex = nodeIndex;
+	}
+
 	public SceneNode (int nodeIndex, GLTFDataModel.NodeData nodeData, SceneResourceContext sceneResourceContext) {
 		this.nodeIndex = nodeIndex;
 
@@ -107,6 +121,7 @@ public class SceneNode {
 	public void setSceneMesh (SceneMesh sceneMesh) {
 		hasMesh = true;
 		this.sceneMesh = sceneMesh;
+		structureChanged();
 	}
 
 
@@ -193,9 +208,16 @@ public class SceneNode {
 		return node;
 	}
 
-	void addChild (SceneNode child) {
+	public void addChild (SceneNode child) {
 		children.add(child);
 		child.parent = this;
+		structureChanged();
+	}
+
+	private void structureChanged () {
+		for (SceneNode node = this; node != null; node = node.parent) {
+			node.structureVersion++;
+		}
 	}
 
 	@Override
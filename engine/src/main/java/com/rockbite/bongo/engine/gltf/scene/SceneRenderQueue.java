@@ -0,0 +1,361 @@
+package com.rockbite.bongo.engine.gltf.scene;
+
+import com.artemis.ComponentMapper;
+import com.artemis.EntitySubscription;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.math.Frustum;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+import com.rockbite.bongo.engine.gltf.scene.shader.SceneShaderProvider;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Persistent render list for a single pass.
+ * <p>
+ * Renderables are created, and their shaders resolved, once when an entity enters the pass subscription, and freed when
+ * it leaves. Each frame only the world transforms are refreshed before culling, and the visible set is radix sorted on
+ * a packed key of shader, material, mesh and view depth.
+ * <p>
+ * Entries are rebuilt when their {@link SceneModelInstance} is swapped or its node tree changes, see
+ * {@link SceneModelInstance#getStructureVersion()}, and every entry is rebuilt when the shader provider recompiled
+ * shaders for a changed environment. Other changes, such as a new material on an existing primitive, need
+ * {@link #invalidate(int)}.
+ */
+public class SceneRenderQueue implements EntitySubscription.SubscriptionListener {
+
+	private static final int SHADER_BITS = 12;
+	private static final int MATERIAL_BITS = 16;
+	private static final int MESH_BITS = 16;
+	private static final int DEPTH_BITS = 20;
+
+	private static final int MESH_SHIFT = DEPTH_BITS;
+	private static final int MATERIAL_SHIFT = MESH_SHIFT + MESH_BITS;
+	private static final int SHADER_SHIFT = MATERIAL_SHIFT + MATERIAL_BITS;
+
+	private static class Entry {
+		private int entity;
+		private int index;
+		private SceneModelInstance instance;
+		private int structureVersion;
+		private int transformVersion;
+		private final Array<SceneRenderable> renderables = new Array<>();
+	}
+
+	/**
+	 * Id of a shader, material or mesh in the sort key, held for as long as renderables use it
+	 */
+	private static class StateId {
+		private int id;
+		private int references;
+	}
+
+	private final EntitySubscription subscription;
+	private final ComponentMapper<SceneModelInstance> sceneModelInstanceMapper;
+	private final SceneShaderProvider shaderProvider;
+	private final SceneRenderableProvider sceneRenderableProvider = new SceneRenderableProvider();
+
+	private final IntMap<Entry> entriesByEntity = new IntMap<>();
+	private final Array<Entry> entries = new Array<>(false, 16);
+
+	private final IdentityMap<Object, StateId> stateIds = new IdentityMap<>();
+	private final IntArray freeStateIds = new IntArray();
+	private int nextStateId = 1;
+
+	private int shaderRevision;
+
+	private final Array<SceneRenderable> visible = new Array<>(SceneRenderable.class);
+	private SceneRenderable[] sortTemp = new SceneRenderable[0];
+	private long[] keys = new long[0];
+	private long[] keysTemp = new long[0];
+	private final int[] radixCounts = new int[256];
+
+	@Getter
+	private boolean instanced;
+
+	/** Primitives that passed the culling test on the last {@link #update(Frustum, Vector3)} */
+	@Getter
+	private int visibleCount;
+	/** Primitives rejected by the culling test on the last {@link #update(Frustum, Vector3)} */
+	@Getter
+	private int culledCount;
+	/**
+	 * World bounds of every primitive on the last {@link #update(Frustum, Vector3)}, culled or not. Only primitives that
+	 * went through culling contribute their full bounds, the rest only their origin
+	 */
+	@Getter
+	private final BoundingBox bounds = new BoundingBox();
+
+	private final Matrix4 tempTransform = new Matrix4();
+
+	public SceneRenderQueue (EntitySubscription subscription, ComponentMapper<SceneModelInstance> sceneModelInstanceMapper, SceneShaderProvider shaderProvider, boolean instanced) {
+		this.subscription = subscription;
+		this.sceneModelInstanceMapper = sceneModelInstanceMapper;
+		this.shaderProvider = shaderProvider;
+		this.instanced = instanced;
+		this.shaderRevision = shaderProvider.getRevision();
+
+		subscription.addSubscriptionListener(this);
+		inserted(subscription.getEntities());
+	}
+
+	/**
+	 * Changing the instancing mode rebuilds every entry, as the shaders have to be resolved again
+	 */
+	public void setInstanced (boolean instanced) {
+		if (this.instanced == instanced) return;
+		this.instanced = instanced;
+		invalidateAll();
+	}
+
+	@Override
+	public void inserted (IntBag entities) {
+		final int[] ids = entities.getData();
+		for (int i = 0, s = entities.size(); i < s; i++) {
+			invalidate(ids[i]);
+		}
+	}
+
+	@Override
+	public void removed (IntBag entities) {
+		final int[] ids = entities.getData();
+		for (int i = 0, s = entities.size(); i < s; i++) {
+			remove(ids[i]);
+		}
+	}
+
+	/**
+	 * Rebuilds the renderables of an entity from its current {@link SceneModelInstance}
+	 */
+	public void invalidate (int entity) {
+		Entry entry = entriesByEntity.get(entity);
+		if (entry == null) {
+			entry = new Entry();
+			entry.entity = entity;
+			entry.index = entries.size;
+			entries.add(entry);
+			entriesByEntity.put(entity, entry);
+		} else {
+			free(entry);
+		}
+
+		entry.instance = sceneModelInstanceMapper.get(entity);
+		entry.structureVersion = entry.instance.getStructureVersion();
+		entry.transformVersion = entry.instance.getTransformVersion();
+		sceneRenderableProvider.gatherRenderables(entry.instance, shaderProvider, instanced, entry.renderables);
+
+		for (int i = 0; i < entry.renderables.size; i++) {
+			final SceneRenderable renderable = entry.renderables.get(i);
+			renderable.stateSortKey =
+				((long)acquireStateId(renderable.shader, SHADER_BITS) << SHADER_SHIFT)
+					| ((long)acquireStateId(renderable.material, MATERIAL_BITS) << MATERIAL_SHIFT)
+					| ((long)acquireStateId(renderable.sceneMesh.mesh, MESH_BITS) << MESH_SHIFT);
+		}
+	}
+
+	public void invalidateAll () {
+		for (int i = 0; i < entries.size; i++) {
+			invalidate(entries.get(i).entity);
+		}
+	}
+
+	private void remove (int entity) {
+		final Entry entry = entriesByEntity.remove(entity);
+		if (entry == null) return;
+
+		free(entry);
+
+		entries.removeIndex(entry.index);
+		if (entry.index < entries.size) {
+			entries.get(entry.index).index = entry.index;
+		}
+	}
+
+	private void free (Entry entry) {
+		final Array<SceneRenderable> renderables = entry.renderables;
+		for (int i = 0; i < renderables.size; i++) {
+			final SceneRenderable renderable = renderables.get(i);
+			releaseStateId(renderable.shader);
+			releaseStateId(renderable.material);
+			releaseStateId(renderable.sceneMesh.mesh);
+		}
+		sceneRenderableProvider.freeAll(renderables);
+	}
+
+	/**
+	 * Ids only need to be stable for as long as a state is used, they are reused once released, and wrap once a field
+	 * runs out of bits, which costs batching but not correctness
+	 */
+	private int acquireStateId (Object state, int bits) {
+		if (state == null) return 0;
+		StateId stateId = stateIds.get(state);
+		if (stateId == null) {
+			stateId = new StateId();
+			stateId.id = freeStateIds.size > 0 ? freeStateIds.pop() : nextStateId++;
+			stateIds.put(state, stateId);
+		}
+		stateId.references++;
+		return stateId.id & ((1 << bits) - 1);
+	}
+
+	/**
+	 * Drops the state once no renderable uses it, so unloaded meshes and materials are not kept alive by the queue
+	 */
+	private void releaseStateId (Object state) {
+		if (state == null) return;
+		final StateId stateId = stateIds.get(state);
+		if (stateId == null) return;
+
+		if (--stateId.references == 0) {
+			stateIds.remove(state);
+			freeStateIds.add(stateId.id);
+		}
+	}
+
+	/**
+	 * Refreshes world transforms, culls and sorts.
+	 *
+	 * @param cullingFrustum null to skip culling
+	 * @param viewPosition   origin for the front to back depth part of the sort key
+	 * @return visible renderables in draw order, valid until the next update or entity change
+	 */
+	public Array<SceneRenderable> update (Frustum cullingFrustum, Vector3 viewPosition) {
+		visible.clear();
+		visibleCount = 0;
+		culledCount = 0;
+		bounds.inf();
+
+		shaderProvider.refresh();
+		if (shaderRevision != shaderProvider.getRevision()) {
+			shaderRevision = shaderProvider.getRevision();
+			invalidateAll();
+		}
+
+		for (int i = 0; i < entries.size; i++) {
+			final Entry entry = entries.get(i);
+			final SceneModelInstance instance = sceneModelInstanceMapper.get(entry.entity);
+			if (instance != entry.instance || instance.getStructureVersion() != entry.structureVersion) {
+				invalidate(entry.entity);
+			}
+			final boolean bonesChanged = entry.transformVersion != entry.instance.getTransformVersion();
+			entry.transformVersion = entry.instance.getTransformVersion();
+
+			final Array<SceneRenderable> renderables = entry.renderables;
+			for (int j = 0; j < renderables.size; j++) {
+				final SceneRenderable renderable = renderables.get(j);
+				final SceneMeshPrimtive sceneMeshPrimtive = renderable.sceneMesh;
+
+				SceneRenderableProvider.calculateWorldTransform(entry.instance, renderable.referenceSceneNode, sceneMeshPrimtive, tempTransform);
+				if ((bonesChanged && renderable.bones != null) || !Arrays.equals(tempTransform.val, renderable.worldTransform.val)) {
+					renderable.worldTransform.set(tempTransform);
+					renderable.transformVersion++;
+				}
+
+				if (cullingFrustum != null && sceneMeshPrimtive.bones == null) {
+					final BoundingBox worldBounds = sceneMeshPrimtive.getWorldBounds(renderable.worldTransform);
+					if (worldBounds != null) {
+						bounds.ext(worldBounds);
+						if (!cullingFrustum.boundsInFrustum(worldBounds)) {
+							culledCount++;
+							continue;
+						}
+					}
+				} else {
+					bounds.ext(renderable.worldTransform.val[Matrix4.M03], renderable.worldTransform.val[Matrix4.M13], renderable.worldTransform.val[Matrix4.M23]);
+				}
+				visibleCount++;
+				visible.add(renderable);
+			}
+		}
+
+		sort(viewPosition);
+		return visible;
+	}
+
+	private void sort (Vector3 viewPosition) {
+		final int count = visible.size;
+		if (keys.length < count) {
+			keys = new long[visible.items.length];
+			keysTemp = new long[visible.items.length];
+			sortTemp = new SceneRenderable[visible.items.length];
+		}
+
+		final SceneRenderable[] items = visible.items;
+		for (int i = 0; i < count; i++) {
+			final SceneRenderable renderable = items[i];
+			final float[] val = renderable.worldTransform.val;
+			final float dx = val[Matrix4.M03] - viewPosition.x;
+			final float dy = val[Matrix4.M13] - viewPosition.y;
+			final float dz = val[Matrix4.M23] - viewPosition.z;
+			//Bits of a positive float sort the same as its value, keep the top DEPTH_BITS
+			final long depth = Float.floatToRawIntBits(dx * dx + dy * dy + dz * dz) >>> (32 - DEPTH_BITS);
+			keys[i] = renderable.stateSortKey | depth;
+		}
+
+		radixSort(items, keys, sortTemp, keysTemp, count);
+	}
+
+	/**
+	 * LSD radix sort of items by unsigned 64 bit key, one byte per pass. Passes where every key shares the same byte are
+	 * skipped, which is most of them for a typical scene. Result ends up in items/keys.
+	 */
+	private void radixSort (SceneRenderable[] items, long[] keys, SceneRenderable[] itemsTemp, long[] keysTemp, int count) {
+		if (count < 2) return;
+
+		SceneRenderable[] srcItems = items, dstItems = itemsTemp;
+		long[] srcKeys = keys, dstKeys = keysTemp;
+		final int[] counts = radixCounts;
+
+		for (int shift = 0; shift < 64; shift += 8) {
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < count; i++) {
+				counts[(int)(srcKeys[i] >>> shift) & 0xFF]++;
+			}
+			if (counts[(int)(srcKeys[0] >>> shift) & 0xFF] == count) continue;
+
+			for (int b = 0, offset = 0; b < 256; b++) {
+				final int bucket = counts[b];
+				counts[b] = offset;
+				offset += bucket;
+			}
+			for (int i = 0; i < count; i++) {
+				final int destination = counts[(int)(srcKeys[i] >>> shift) & 0xFF]++;
+				dstKeys[destination] = srcKeys[i];
+				dstItems[destination] = srcItems[i];
+			}
+
+			final SceneRenderable[] swapItems = srcItems;
+			srcItems = dstItems;
+			dstItems = swapItems;
+			final long[] swapKeys = srcKeys;
+			srcKeys = dstKeys;
+			dstKeys = swapKeys;
+		}
+
+		if (srcItems != items) {
+			System.arraycopy(srcItems, 0, items, 0, count);
+			System.arraycopy(srcKeys, 0, keys, 0, count);
+		}
+	}
+
+	/**
+	 * Frees every renderable and stops listening to the subscription
+	 */
+	public void dispose () {
+		subscription.removeSubscriptionListener(this);
+		for (int i = 0; i < entries.size; i++) {
+			free(entries.get(i));
+		}
+		entries.clear();
+		entriesByEntity.clear();
+		visible.clear();
+		stateIds.clear();
+		freeStateIds.clear();
+	}
+}
@@ -16,6 +16,18 @@ public class SceneRenderable implements Pool.Poolable {
 	public Matrix4 worldTransform = new Matrix4();
 	public Matrix4[] bones = null;
 
+	/** Drawn through the GL3 instanced path, batched with other renderables sharing shader, mesh and material */
+	public boolean instanced;
+
+	/** Packed shader, material and mesh ids assigned by {@link SceneRenderQueue}, depth is added per frame */
+	public long stateSortKey;
+
+	/**
+	 * Bumped by {@link SceneRenderQueue} whenever the world transform or bones change, and on every reuse, so passes can
+	 * tell a renderable has not moved without comparing matrices
+	 */
+	public int transformVersion;
+
 	/**
 	 * Resets the object for reuse. Object references should be nulled and fields may be set to default values.
 	 */
@@ -27,6 +39,9 @@ public class SceneRenderable implements Pool.Poolable {
 		material = null;
 
 		bones = null;
+		instanced = false;
+		stateSortKey = 0;
+		transformVersion++;
 
 	}
 
@@ -37,6 +52,9 @@ public class SceneRenderable implements Pool.Poolable {
 		copy.material = material;
 		copy.worldTransform = worldTransform;
 		copy.bones = bones;
+		copy.instanced = instanced;
+		copy.stateSortKey = stateSortKey;
+		copy.transformVersion = transformVersion;
 		return copy;
 	}
 }
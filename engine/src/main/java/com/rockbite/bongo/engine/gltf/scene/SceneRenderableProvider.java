@@ -3,15 +3,29 @@ package com.rockbite.bongo.engine.gltf.scene;
 import com.artemis.ComponentMapper;
 import com.artemis.EntitySubscription;
 import com.artemis.utils.IntBag;
+import com.badlogic.gdx.math.Frustum;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.collision.BoundingBox;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Pool;
 import com.rockbite.bongo.engine.gltf.scene.shader.BaseSceneShader;
 import com.rockbite.bongo.engine.gltf.scene.shader.SceneShaderProvider;
 
+import lombok.Getter;
+
 import java.util.Comparator;
 
 public class SceneRenderableProvider {
 
+	/** Primitives that passed the culling test during the last obtain call */
+	@Getter
+	private int visibleCount;
+	/** Primitives rejected by the culling test during the last obtain call */
+	@Getter
+	private int culledCount;
+
+	private final Matrix4 tempWorldTransform = new Matrix4();
+
 	private Pool<SceneRenderable> sceneRenderablePool = new Pool<SceneRenderable>() {
 		@Override
 		protected SceneRenderable newObject () {
@@ -19,10 +33,18 @@ public class SceneRenderableProvider {
 		}
 	};
 
+	/**
+	 * Groups by shader, then mesh, then material so that state switches are minimal and renderables that can be
+	 * drawn together as one instanced batch end up next to each other
+	 */
 	private Comparator<? super SceneRenderable> shaderSorter = new Comparator<SceneRenderable>() {
 		@Override
 		public int compare (SceneRenderable o1, SceneRenderable o2) {
-			return o1.shader.compareTo(o2.shader);
+			int result = Integer.compare(System.identityHashCode(o1.shader), System.identityHashCode(o2.shader));
+			if (result != 0) return result;
+			result = Integer.compare(System.identityHashCode(o1.sceneMesh.mesh), System.identityHashCode(o2.sceneMesh.mesh));
+			if (result != 0) return result;
+			return Integer.compare(System.identityHashCode(o1.material), System.identityHashCode(o2.material));
 		}
 	};
 
@@ -32,11 +54,29 @@ public class SceneRenderableProvider {
 		ComponentMapper<SceneModelInstance> sceneNodeInstanceMapper,
 		SceneShaderProvider shaderProvider,
 		Array<SceneRenderable> out) {
+		obtainSceneRenderables(nodeInstancesSubscription, sceneNodeInstanceMapper, shaderProvider, false, null, out);
+	}
+
+	/**
+	 * @param instanced mark unskinned renderables for the instanced path, shaders are then resolved with instancing enabled
+	 * @param cullingFrustum primitives whose world bounds are fully outside are skipped, null to gather everything.
+	 *                       Skinned primitives are never culled, their bind pose bounds do not follow the animation
+	 */
+	public void obtainSceneRenderables (
+		EntitySubscription nodeInstancesSubscription,
+		ComponentMapper<SceneModelInstance> sceneNodeInstanceMapper,
+		SceneShaderProvider shaderProvider,
+		boolean instanced,
+		Frustum cullingFrustum,
+		Array<SceneRenderable> out) {
+		visibleCount = 0;
+		culledCount = 0;
+
 		final IntBag entities = nodeInstancesSubscription.getEntities();
 		for (int i = 0; i < entities.size(); i++) {
 			final int e = entities.get(i);
 			final SceneModelInstance sceneNodeInstance = sceneNodeInstanceMapper.get(e);
-			gatherRenderables(sceneNodeInstance, shaderProvider, out);
+			gatherRenderables(sceneNodeInstance, shaderProvider, instanced, cullingFrustum, out);
 		}
 	}
 
@@ -52,13 +92,24 @@ public class SceneRenderableProvider {
 	//		return out;
 	//	}
 
-	private void gatherRenderables (SceneModelInstance instance, SceneNode sceneNode, SceneShaderProvider sceneShaderProvider, Array<SceneRenderable> out) {
+	private void gatherRenderables (SceneModelInstance instance, SceneNode sceneNode, SceneShaderProvider sceneShaderProvider, boolean instanced, Frustum cullingFrustum, Array<SceneRenderable> out) {
 		if (sceneNode.isHasMesh()) {
 			final SceneMesh sceneMesh = sceneNode.getSceneMesh();
 			for (SceneMeshPrimtive sceneMeshPrimtive : sceneMesh.getSceneMeshPrimtiveArray()) {
 
 				final SceneMaterial material = sceneMeshPrimtive.sceneMaterial;
 
+				final Matrix4 worldTransform = calculateWorldTransform(instance, sceneNode, sceneMeshPrimtive, tempWorldTransform);
+
+				if (cullingFrustum != null && sceneMeshPrimtive.bones == null) {
+					final BoundingBox worldBounds = sceneMeshPrimtive.getWorldBounds(worldTransform);
+					if (worldBounds != null && !cullingFrustum.boundsInFrustum(worldBounds)) {
+						culledCount++;
+						continue;
+					}
+				}
+				visibleCount++;
+
 				//pool
 				SceneRenderable sceneRenderable = sceneRenderablePool.obtain();
 				sceneRenderable.setSceneMesh(sceneMeshPrimtive);
@@ -66,14 +117,9 @@ public class SceneRenderableProvider {
 				sceneRenderable.setReferenceSceneNode(sceneNode);
 
 				sceneRenderable.setBones(sceneMeshPrimtive.bones);
+				sceneRenderable.setInstanced(instanced && sceneMeshPrimtive.bones == null);
 
-				if (sceneMeshPrimtive.bones == null && instance.transform != null) {
-					sceneRenderable.worldTransform.set(instance.transform).mul(sceneNode.globalTransform);
-				} else if (instance.transform != null) {
-					sceneRenderable.worldTransform.set(instance.transform);
-				} else {
-					sceneRenderable.worldTransform.idt();
-				}
+				sceneRenderable.worldTransform.set(worldTransform);
 
 				BaseSceneShader shader = sceneShaderProvider.getShader(sceneRenderable);
 
@@ -85,13 +131,36 @@ public class SceneRenderableProvider {
 		}
 
 		for (SceneNode child : sceneNode.getChildren()) {
-			gatherRenderables(instance, child, sceneShaderProvider, out);
+			gatherRenderables(instance, child, sceneShaderProvider, instanced, cullingFrustum, out);
 		}
 	}
 
-	private void gatherRenderables (SceneModelInstance nodeInstance, SceneShaderProvider shaderProvider, Array<SceneRenderable> out) {
+	/**
+	 * World transform a primitive is drawn with. Skinned primitives only take the instance transform, their bones
+	 * already carry the node transforms.
+	 */
+	public static Matrix4 calculateWorldTransform (SceneModelInstance instance, SceneNode sceneNode, SceneMeshPrimtive sceneMeshPrimtive, Matrix4 out) {
+		final Matrix4 transform = instance.getRenderTransform();
+		if (sceneMeshPrimtive.bones == null && transform != null) {
+			out.set(transform).mul(sceneNode.globalTransform);
+		} else if (transform != null) {
+			out.set(transform);
+		} else {
+			out.idt();
+		}
+		return out;
+	}
+
+	/**
+	 * Obtains a renderable for every primitive of the instance without culling, with shaders resolved.
+	 */
+	public void gatherRenderables (SceneModelInstance nodeInstance, SceneShaderProvider shaderProvider, boolean instanced, Array<SceneRenderable> out) {
+		gatherRenderables(nodeInstance, shaderProvider, instanced, null, out);
+	}
+
+	private void gatherRenderables (SceneModelInstance nodeInstance, SceneShaderProvider shaderProvider, boolean instanced, Frustum cullingFrustum, Array<SceneRenderable> out) {
 		for (SceneNode node : nodeInstance.getNodes()) {
-			gatherRenderables(nodeInstance, node, shaderProvider, out);
+			gatherRenderables(nodeInstance, node, shaderProvider, instanced, cullingFrustum, out);
 		}
 	}
 
@@ -1,6 +1,7 @@
 package com.rockbite.bongo.engine.gltf.scene;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
@@ -9,18 +10,24 @@ import com.badlogic.gdx.graphics.glutils.PixmapTextureData;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Base64Coder;
 import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.IntMap;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.rockbite.bongo.engine.gltf.GLTFBinary;
 import com.rockbite.bongo.engine.gltf.GLTFDataModel;
 import com.rockbite.bongo.engine.gltf.scene.animation.SceneAnimationData;
 import com.rockbite.bongo.engine.gltf.scene.animation.SceneAnimationSampler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinTask;
 
 public class SceneResourceContext {
 
@@ -35,32 +42,131 @@ public class SceneResourceContext {
 	private IntMap<SceneSkin> sceneSkins = new IntMap<>();
 	private IntMap<Array<SceneAnimationData>> sceneAnimationDatas = new IntMap<>();
 
+	private GLTFDataModel dataModel;
+
+	/** Sampler ref of each glTF texture index, resolved to the uploaded texture once it exists */
+	private Array<TextureSamplerRef> textureRefs = new Array<>();
+	private Array<PendingTexture> pendingTextures = new Array<>();
+	private Array<SceneMeshPrimtive> pendingPrimitives = new Array<>();
+	private IntArray pendingPrimitiveMaterials = new IntArray();
+	private boolean materialsCreated;
+
+	private int uploadsDone;
+	private int uploadsTotal;
+
 	public SceneResourceContext () {
 
 	}
 
 	public void loadFromDataModel (GLTFDataModel dataModel) {
+		loadFromDataModel(dataModel, null, null);
+	}
+
+	/**
+	 * Loads everything synchronously, must be called on the GL thread
+	 *
+	 * @param sourceFile  the .gltf/.glb file, external buffers are resolved relative to it. May be null if all buffers are embedded
+	 * @param binaryChunk BIN chunk of a .glb, used for the buffer without a uri. May be null
+	 */
+	public void loadFromDataModel (GLTFDataModel dataModel, FileHandle sourceFile, ByteBuffer binaryChunk) {
+		prepare(dataModel, sourceFile, binaryChunk, false);
+		upload(Long.MAX_VALUE);
+	}
+
+	/**
+	 * First half of loading, everything that does not need GL: buffers, image decoding, vertex interleaving, skins and
+	 * animations. Safe to call from a worker thread, follow with {@link #upload(long)} on the GL thread.
+	 *
+	 * @param parallel decode images and interleave meshes as forked tasks, only when called from a fork join worker
+	 */
+	public void prepare (GLTFDataModel dataModel, FileHandle sourceFile, ByteBuffer binaryChunk, boolean parallel) {
+		this.dataModel = dataModel;
+
 		final GLTFDataModel.BufferData[] bufferDatas = dataModel.getBuffers();
 		final GLTFDataModel.ImageData[] images = dataModel.getImages();
 		final GLTFDataModel.SamplerData[] samplers = dataModel.getSamplers();
 		final GLTFDataModel.TextureData[] textures = dataModel.getTextures();
-		final GLTFDataModel.MaterialData[] materialDatas = dataModel.getMaterials();
 		final GLTFDataModel.MeshData[] meshDatas = dataModel.getMeshes();
 		final GLTFDataModel.SkinData[] skins = dataModel.getSkins();
 		final GLTFDataModel.AnimationData[] animations = dataModel.getAnimations();
 
-		extractBuffers(bufferDatas);
+		extractBuffers(bufferDatas, sourceFile, binaryChunk);
 
-		extractAndLoadTextures(dataModel, images, samplers, textures);
+		final Array<Runnable> tasks = new Array<>();
 
-		extractAndCreateMaterials(materialDatas);
+		extractTextures(dataModel, images, samplers, textures, tasks);
 
-		extractAndCreateGeometry(dataModel, meshDatas);
+		extractGeometry(dataModel, meshDatas, tasks);
+
+		if (parallel) {
+			final Array<ForkJoinTask<?>> forked = new Array<>(tasks.size);
+			for (Runnable task : tasks) {
+				forked.add(ForkJoinTask.adapt(task).fork());
+			}
+			for (ForkJoinTask<?> task : forked) {
+				task.join();
+			}
+		} else {
+			for (Runnable task : tasks) {
+				task.run();
+			}
+		}
+
+		queuePrimitives(meshDatas);
 
 		extractSkins(dataModel, skins);
 
 		extractAnimations(dataModel, animations);
 
+		uploadsTotal = pendingTextures.size + pendingPrimitives.size + 1;
+	}
+
+	/**
+	 * Second half of loading, creates textures, materials and meshes on the GL thread. Each call does at least one
+	 * upload and then stops once the budget is spent.
+	 *
+	 * @param budgetNanos time to spend in this call
+	 * @return true once everything is uploaded
+	 */
+	public boolean upload (long budgetNanos) {
+		final long start = System.nanoTime();
+
+		while (pendingTextures.size > 0) {
+			final PendingTexture pending = pendingTextures.removeIndex(0);
+			hashedTextures.put(pending.samplerRef, createTexture(pending.textureData, pending.samplerData));
+			uploadsDone++;
+			if (System.nanoTime() - start >= budgetNanos) return false;
+		}
+
+		if (!materialsCreated) {
+			for (int i = 0; i < textureRefs.size; i++) {
+				loadedTextures.put(i, hashedTextures.get(textureRefs.get(i)));
+			}
+			extractAndCreateMaterials(dataModel.getMaterials());
+			for (int i = 0; i < pendingPrimitives.size; i++) {
+				pendingPrimitives.get(i).sceneMaterial = sceneMaterials.get(pendingPrimitiveMaterials.get(i));
+			}
+			materialsCreated = true;
+			uploadsDone++;
+			if (System.nanoTime() - start >= budgetNanos) return false;
+		}
+
+		while (pendingPrimitives.size > 0) {
+			pendingPrimitives.pop().uploadMesh();
+			pendingPrimitiveMaterials.pop();
+			uploadsDone++;
+			if (System.nanoTime() - start >= budgetNanos) return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return fraction of the GL uploads done, 0 until {@link #prepare} has finished
+	 */
+	public float getUploadProgress () {
+		if (uploadsTotal == 0) return 0;
+		return uploadsDone / (float)uploadsTotal;
 	}
 
 	private void extractAnimations (GLTFDataModel dataModel, GLTFDataModel.AnimationData[] animations) {
@@ -176,33 +282,75 @@ public class SceneResourceContext {
 		}
 	}
 
-	private void extractAndCreateGeometry (GLTFDataModel dataModel, GLTFDataModel.MeshData[] meshDatas) {
+	private void extractGeometry (GLTFDataModel dataModel, GLTFDataModel.MeshData[] meshDatas, Array<Runnable> tasks) {
 		for (int i = 0; i < meshDatas.length; i++) {
 			final GLTFDataModel.MeshData meshData = meshDatas[i];
 
-			SceneMesh sceneMesh = new SceneMesh(meshData, dataModel);
+			final SceneMesh sceneMesh = new SceneMesh(meshData, dataModel);
+			final Array<SceneMeshPrimtive> primitives = sceneMesh.getSceneMeshPrimtiveArray();
+			primitives.setSize(meshData.getPrimitives().length);
 
 			for (int j = 0; j < meshData.getPrimitives().length; j++) {
 				final GLTFDataModel.PrimitivesData primitive = meshData.getPrimitives()[j];
-				final int material = primitive.getMaterial();
-				final SceneMaterial sceneMaterial = sceneMaterials.get(material);
-				SceneMeshPrimtive sceneMeshPrimtive = new SceneMeshPrimtive(meshData, primitive, dataModel, sceneMaterial, this);
-				sceneMesh.getSceneMeshPrimtiveArray().add(sceneMeshPrimtive);
+				final int primitiveIndex = j;
+				tasks.add(() -> primitives.set(primitiveIndex, new SceneMeshPrimtive(meshData, primitive, dataModel, null, this)));
 			}
 
 			sceneMeshes.put(i, sceneMesh);
 		}
+
+	}
+
+	/**
+	 * Queues every primitive for upload, along with the material it is assigned once materials exist
+	 */
+	private void queuePrimitives (GLTFDataModel.MeshData[] meshDatas) {
+		for (int i = 0; i < meshDatas.length; i++) {
+			final GLTFDataModel.PrimitivesData[] primitiveDatas = meshDatas[i].getPrimitives();
+			final Array<SceneMeshPrimtive> primitives = sceneMeshes.get(i).getSceneMeshPrimtiveArray();
+			for (int j = 0; j < primitiveDatas.length; j++) {
+				pendingPrimitives.add(primitives.get(j));
+				pendingPrimitiveMaterials.add(primitiveDatas[j].getMaterial());
+			}
+		}
 	}
 
-	private void extractBuffers (GLTFDataModel.BufferData[] bufferDatas) {
+	private void extractBuffers (GLTFDataModel.BufferData[] bufferDatas, FileHandle sourceFile, ByteBuffer binaryChunk) {
 		for (int i = 0; i < bufferDatas.length; i++) {
 			final GLTFDataModel.BufferData buffer = bufferDatas[i];
-			final ByteBuffer allocate = ByteBuffer.allocate(buffer.getByteLength());
-			allocate.order(ByteOrder.LITTLE_ENDIAN);
-			allocate.put(buffer.getByteData());
-			allocate.position(0);
 
-			buffers.put(i, allocate);
+			final ByteBuffer byteBuffer;
+			if (buffer.getByteData() != null) {
+				byteBuffer = ByteBuffer.allocateDirect(buffer.getByteLength());
+				byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+				byteBuffer.put(buffer.getByteData(), 0, buffer.getByteLength());
+				byteBuffer.position(0);
+			} else if (buffer.getUri() == null) {
+				if (binaryChunk == null) {
+					throw new GdxRuntimeException("Buffer " + i + " has no uri and there is no binary chunk to read it from");
+				}
+				byteBuffer = binaryChunk;
+			} else {
+				if (sourceFile == null) {
+					throw new GdxRuntimeException("Buffer " + i + " references " + buffer.getUri() + " but the source file is unknown");
+				}
+				byteBuffer = GLTFBinary.map(resolveUri(sourceFile, buffer.getUri()));
+			}
+
+			if (byteBuffer.limit() < buffer.getByteLength()) {
+				throw new GdxRuntimeException("Buffer " + i + " is " + byteBuffer.limit() + " bytes, expected " + buffer.getByteLength());
+			}
+
+			buffers.put(i, byteBuffer);
+		}
+	}
+
+	private static FileHandle resolveUri (FileHandle sourceFile, String uri) {
+		try {
+			//Uris are percent encoded, but a literal + is not a space
+			return sourceFile.parent().child(URLDecoder.decode(uri.replace("+", "%2B"), "UTF-8"));
+		} catch (UnsupportedEncodingException e) {
+			throw new GdxRuntimeException(e);
 		}
 	}
 
@@ -240,9 +388,20 @@ public class SceneResourceContext {
 		}
 	}
 
-	private void extractAndLoadTextures (GLTFDataModel dataModel, GLTFDataModel.ImageData[] images, GLTFDataModel.SamplerData[] samplers, GLTFDataModel.TextureData[] textures) {
+	private static class PendingTexture {
+		private TextureSamplerRef samplerRef;
+		private GLTFDataModel.SamplerData samplerData;
+		private TextureData textureData;
+	}
+
+	/**
+	 * Dedupes textures by image and sampler, and adds a decode task per unique pair
+	 */
+	private void extractTextures (GLTFDataModel dataModel, GLTFDataModel.ImageData[] images, GLTFDataModel.SamplerData[] samplers, GLTFDataModel.TextureData[] textures, Array<Runnable> tasks) {
 		if (textures == null) return;
 
+		final ObjectSet<TextureSamplerRef> queued = new ObjectSet<>();
+
 		for (int i = 0; i < textures.length; i++) {
 			final GLTFDataModel.TextureData texture = textures[i];
 
@@ -253,19 +412,23 @@ public class SceneResourceContext {
 			samplerRef.source = source;
 			samplerRef.sampler = sampler;
 
-			if (hashedTextures.containsKey(samplerRef)) {
-				final Texture reference = hashedTextures.get(samplerRef);
-				loadedTextures.put(i, reference);
-				continue;
-			}
+			textureRefs.add(samplerRef);
 
-			final GLTFDataModel.ImageData sourceImageData = images[source];
-			final GLTFDataModel.SamplerData samplerData = samplers[sampler];
+			if (!queued.add(samplerRef)) continue;
 
+			final PendingTexture pendingTexture = new PendingTexture();
+			pendingTexture.samplerRef = samplerRef;
+			pendingTexture.samplerData = samplers[sampler];
+			pendingTextures.add(pendingTexture);
 
-			Texture tex = createTexture(createImage(sourceImageData, dataModel), samplerData);
-			loadedTextures.put(i, tex);
-			hashedTextures.put(samplerRef, tex);
+			final GLTFDataModel.ImageData sourceImageData = images[source];
+			tasks.add(() -> {
+				final TextureData textureData = createImage(sourceImageData, dataModel);
+				if (textureData == null) {
+					throw new GdxRuntimeException("Unsupported image in texture " + source);
+				}
+				pendingTexture.textureData = textureData;
+			});
 		}
 	}
 
@@ -290,17 +453,16 @@ public class SceneResourceContext {
 			final int bufferView = sourceImageData.getBufferView();
 
 			final String mimeType = sourceImageData.getMimeType();
-			if (mimeType.equals("image/png")) {
+			if (mimeType.equals("image/png") || mimeType.equals("image/jpeg")) {
 				//Load png from byte array
 				final GLTFDataModel.BufferViewData imageBufferView = dataModel.getBufferViews()[bufferView];
 				final int buffer = imageBufferView.getBuffer();
 
-				final ByteBuffer byteBuffer = buffers.get(buffer);
-				byteBuffer.position(imageBufferView.getByteOffset());
+				//Private view, images are decoded concurrently from the same buffer
+				final ByteBuffer byteBuffer = GLTFBinary.slice(buffers.get(buffer), imageBufferView.getByteOffset(), imageBufferView.getByteLength());
 
 				byte[] rewind = new byte[imageBufferView.getByteLength()];
 				byteBuffer.get(rewind,0, imageBufferView.getByteLength());
-				byteBuffer.rewind();
 
 
 				Pixmap pixmap = new Pixmap(rewind, 0, rewind.length);
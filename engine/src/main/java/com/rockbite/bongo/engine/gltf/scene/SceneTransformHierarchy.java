@@ -0,0 +1,166 @@
+package com.rockbite.bongo.engine.gltf.scene;
+
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * Flattened view of a {@link SceneNode} tree.
+ * <p>
+ * Nodes are stored in topological (parent before child) order with a parent index per node, and the local and global
+ * matrices of every node are packed into contiguous float arrays, 16 floats per node. Skinned primitives get their joints
+ * resolved to indices into the same arrays, so a full update is two linear loops with no recursion, iterators or allocation.
+ * <p>
+ * A hierarchy only touches the nodes and bones it was built from, so hierarchies of different instances can be updated
+ * from different threads at the same time.
+ */
+public class SceneTransformHierarchy {
+
+	private static final int MATRIX_SIZE = 16;
+
+	private final SceneNode[] nodes;
+	private final int[] parentIndices;
+
+	private final float[] localTransforms;
+	private final float[] globalTransforms;
+
+	private final SkinBinding[] skinBindings;
+
+	private static class SkinBinding {
+		private final Matrix4[] bones;
+		private final int[] jointIndices;
+		private final float[] inverseBindTransforms;
+
+		private SkinBinding (Matrix4[] bones, int[] jointIndices, float[] inverseBindTransforms) {
+			this.bones = bones;
+			this.jointIndices = jointIndices;
+			this.inverseBindTransforms = inverseBindTransforms;
+		}
+	}
+
+	public SceneTransformHierarchy (Array<SceneNode> rootNodes) {
+		final Array<SceneNode> flatNodes = new Array<>(SceneNode.class);
+		final ObjectIntMap<SceneNode> nodeIndices = new ObjectIntMap<>();
+		final IntArray parents = new IntArray();
+
+		for (int i = 0; i < rootNodes.size; i++) {
+			flatten(rootNodes.get(i), -1, flatNodes, parents, nodeIndices);
+		}
+
+		nodes = flatNodes.toArray();
+		parentIndices = parents.toArray();
+
+		localTransforms = new float[nodes.length * MATRIX_SIZE];
+		globalTransforms = new float[nodes.length * MATRIX_SIZE];
+
+		final Array<SkinBinding> bindings = new Array<>(SkinBinding.class);
+		for (SceneNode node : nodes) {
+			if (!node.isHasMesh()) continue;
+
+			final Array<SceneMeshPrimtive> primitives = node.getSceneMesh().getSceneMeshPrimtiveArray();
+			for (int i = 0; i < primitives.size; i++) {
+				final SceneMeshPrimtive prim = primitives.get(i);
+				if (prim.invBoneBindTransforms == null || prim.bones == null || prim.invBoneBindTransforms.size != prim.bones.length)
+					continue;
+
+				final int boneCount = prim.bones.length;
+				final int[] jointIndices = new int[boneCount];
+				final float[] inverseBindTransforms = new float[boneCount * MATRIX_SIZE];
+				for (int j = 0; j < boneCount; j++) {
+					final SceneNode joint = prim.invBoneBindTransforms.keys[j];
+					final int jointIndex = nodeIndices.get(joint, -1);
+					if (jointIndex == -1) {
+						throw new GdxRuntimeException("Joint " + joint.name + " is not part of this hierarchy");
+					}
+					jointIndices[j] = jointIndex;
+					System.arraycopy(prim.invBoneBindTransforms.values[j].val, 0, inverseBindTransforms, j * MATRIX_SIZE, MATRIX_SIZE);
+				}
+				bindings.add(new SkinBinding(prim.bones, jointIndices, inverseBindTransforms));
+			}
+		}
+		skinBindings = bindings.toArray();
+	}
+
+	private static void flatten (SceneNode node, int parentIndex, Array<SceneNode> flatNodes, IntArray parents, ObjectIntMap<SceneNode> nodeIndices) {
+		final int index = flatNodes.size;
+		flatNodes.add(node);
+		parents.add(node.inheritTransform ? parentIndex : -1);
+		nodeIndices.put(node, index);
+
+		final Array<SceneNode> children = node.getChildren();
+		for (int i = 0; i < children.size; i++) {
+			flatten(children.get(i), index, flatNodes, parents, nodeIndices);
+		}
+	}
+
+	public int getNodeCount () {
+		return nodes.length;
+	}
+
+	public SceneNode getNode (int index) {
+		return nodes[index];
+	}
+
+	public int getParentIndex (int index) {
+		return parentIndices[index];
+	}
+
+	/**
+	 * Packed global transforms, node i starts at i * 16. Valid after {@link #update()}.
+	 */
+	public float[] getGlobalTransforms () {
+		return globalTransforms;
+	}
+
+	/**
+	 * Recomputes local, global and bone transforms, and writes them back into the {@link SceneNode#globalTransform}
+	 * and {@link SceneMeshPrimtive#bones} the renderers read.
+	 */
+	public void update () {
+		final SceneNode[] nodes = this.nodes;
+		final int[] parentIndices = this.parentIndices;
+		final float[] local = this.localTransforms;
+		final float[] global = this.globalTransforms;
+
+		for (int i = 0, offset = 0; i < nodes.length; i++, offset += MATRIX_SIZE) {
+			final SceneNode node = nodes[i];
+			System.arraycopy(node.calculateLocalTransform().val, 0, local, offset, MATRIX_SIZE);
+
+			final int parent = parentIndices[i];
+			if (parent < 0) {
+				System.arraycopy(local, offset, global, offset, MATRIX_SIZE);
+			} else {
+				mul(global, parent * MATRIX_SIZE, local, offset, global, offset);
+			}
+			System.arraycopy(global, offset, node.globalTransform.val, 0, MATRIX_SIZE);
+		}
+
+		for (SkinBinding binding : skinBindings) {
+			final Matrix4[] bones = binding.bones;
+			final int[] jointIndices = binding.jointIndices;
+			final float[] inverseBindTransforms = binding.inverseBindTransforms;
+			for (int j = 0; j < bones.length; j++) {
+				mul(global, jointIndices[j] * MATRIX_SIZE, inverseBindTransforms, j * MATRIX_SIZE, bones[j].val, 0);
+			}
+		}
+	}
+
+	/**
+	 * Column major out = a * b, same layout as {@link Matrix4#mul(Matrix4)}. out must not overlap a or b.
+	 */
+	static void mul (float[] a, int aOffset, float[] b, int bOffset, float[] out, int outOffset) {
+		for (int column = 0; column < 4; column++) {
+			final int bColumn = bOffset + column * 4;
+			final float b0 = b[bColumn], b1 = b[bColumn + 1], b2 = b[bColumn + 2], b3 = b[bColumn + 3];
+			final int outColumn = outOffset + column * 4;
+			for (int row = 0; row < 4; row++) {
+				out[outColumn + row] = a[aOffset + row] * b0
+					+ a[aOffset + 4 + row] * b1
+					+ a[aOffset + 8 + row] * b2
+					+ a[aOffset + 12 + row] * b3;
+			}
+		}
+	}
+}
@@ -1,18 +1,23 @@
 package com.rockbite.bongo.engine.gltf.scene.animation;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.math.Interpolation;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Quaternion;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 
-import java.util.Map;
-import java.util.TreeMap;
-
+/**
+ * Keyframe sampler backed by packed primitive arrays.
+ * <p>
+ * Times are kept in a sorted float[] and values in a packed float[] with a fixed stride per keyframe.
+ * For CUBICSPLINE samplers every keyframe stores (in-tangent, value, out-tangent), as laid out in the glTF accessor.
+ * <p>
+ * Samplers are shared between every {@link com.rockbite.bongo.engine.gltf.scene.SceneModelInstance} of a model,
+ * so they hold no playback state. The caller keeps a keyframe cursor per playhead (see {@link SceneNodeAnimation#getKeyframeCursors()})
+ * which makes forward playback O(1) and allocation free.
+ */
 public abstract class SceneAnimationSampler<T> {
 
-	private static final int LINEAR = 0, STEP = 1, CUBICSPLINE = 2;
+	static final int LINEAR = 0, STEP = 1, CUBICSPLINE = 2;
 
 
 	//"translation"	"VEC3"	5126 (FLOAT)	XYZ translation vector
@@ -27,51 +32,47 @@ public abstract class SceneAnimationSampler<T> {
 	//5121 (UNSIGNED_BYTE) normalized
 	//5122 (SHORT) normalized
 	//5123 (UNSIGNED_SHORT) normalized	Weights of
-	int INTERPOLATION_MODE;
-	private TreeMap<Float, T> data = new TreeMap<>();
+	final int INTERPOLATION_MODE;
+
+	final float[] times;
+	final float[] values;
+	final int stride;
 
 	float maxInputTime;
 
-	public SceneAnimationSampler (float[] inputData, T[] outputData, int interpolation) {
+	public SceneAnimationSampler (float[] inputData, float[] outputData, int stride, int interpolation) {
+		if (inputData.length == 0) {
+			throw new GdxRuntimeException("Sampler has no keyframes");
+		}
+		final int valuesPerKeyframe = interpolation == CUBICSPLINE ? stride * 3 : stride;
+		if (outputData.length < inputData.length * valuesPerKeyframe) {
+			throw new GdxRuntimeException("Sampler output too small, expected " + inputData.length * valuesPerKeyframe + " got " + outputData.length);
+		}
+
 		INTERPOLATION_MODE = interpolation;
 
-		maxInputTime = inputData[inputData.length - 1];
+		this.times = inputData;
+		this.values = outputData;
+		this.stride = stride;
 
-		for (int index = 0; index < outputData.length; index++) {
-			data.put(inputData[index], outputData[index++]);
-		}
+		maxInputTime = inputData[inputData.length - 1];
 	}
 
-	protected abstract T interpolate (T floor, T ceil, float alpha);
-
 	public static SceneAnimationSampler create (float[] inputs, float[] outputs, String path, String interpolation) {
-		if (path.equalsIgnoreCase("translation") || path.equalsIgnoreCase("scale")) {
-			Vector3[] vecs = new Vector3[outputs.length/3];
-			int idx = 0;
-			for (int i = 0; i < outputs.length; i+=3) {
-				Vector3 vector3 = new Vector3(outputs[i], outputs[i + 1], outputs[i + 2]);
-				vecs[idx++] = vector3;
-			}
-			if (path.equalsIgnoreCase("scale")) {
-				return new ScaleSampler(inputs, vecs, parseInterpolation(interpolation));
-			} else {
-				return new TranslationSampler(inputs, vecs, parseInterpolation(interpolation));
-			}
+		final int interpolationMode = parseInterpolation(interpolation);
+
+		if (path.equalsIgnoreCase("translation")) {
+			return new TranslationSampler(inputs, outputs, interpolationMode);
+		} else if (path.equalsIgnoreCase("scale")) {
+			return new ScaleSampler(inputs, outputs, interpolationMode);
 		} else if (path.equalsIgnoreCase("rotation")) {
-			Quaternion[] quaternions = new Quaternion[outputs.length/4];
-			int idx = 0;
-			for (int i = 0; i < outputs.length; i+=4) {
-				Quaternion quaternion = new Quaternion(outputs[i], outputs[i + 1], outputs[i + 2], outputs[i + 3]);
-				quaternions[idx++] = quaternion;
-			}
-			return new RotationSampler(inputs, quaternions, parseInterpolation(interpolation));
+			return new RotationSampler(inputs, outputs, interpolationMode);
 		} else if (path.equalsIgnoreCase("weights")) {
-			Float[] data = new Float[outputs.length];
-			int idx = 0;
-			for (float output : outputs) {
-				data[idx++] = output;
+			int valuesPerKeyframe = outputs.length / inputs.length;
+			if (interpolationMode == CUBICSPLINE) {
+				valuesPerKeyframe /= 3;
 			}
-			return new WeightsSampler(inputs, data, parseInterpolation(interpolation));
+			return new WeightsSampler(inputs, outputs, valuesPerKeyframe, interpolationMode);
 		} else {
 			throw new GdxRuntimeException("No valid interpolation found for " + path);
 		}
@@ -90,61 +91,125 @@ public abstract class SceneAnimationSampler<T> {
 		throw new GdxRuntimeException("Invalid interpolation " + interpolation);
 	}
 
-	public T getInterpolatedValueForTime (float time) {
-		final Map.Entry<Float, T> floor = data.floorEntry(time);
-		Map.Entry<Float, T> ceil = data.ceilingEntry(time);
+	public int getKeyframeCount () {
+		return times.length;
+	}
 
-		if (floor == null) {
-			throw new GdxRuntimeException("No floor found");
+	/**
+	 * Finds the keyframe at or before time. The cursor and the keyframe following it are checked
+	 * first, so sequential playback never hits the binary search.
+	 *
+	 * @param time   sample time
+	 * @param cursor keyframe returned by the previous lookup for this playhead
+	 * @return index of the last keyframe with a time <= time, or 0 if time is before the first keyframe
+	 */
+	public int findKeyframe (float time, int cursor) {
+		final float[] times = this.times;
+		final int last = times.length - 1;
+
+		if (cursor < 0 || cursor > last) {
+			cursor = 0;
 		}
-		if (ceil == null) {
-			ceil = data.floorEntry(0f);
+
+		if (times[cursor] <= time) {
+			if (cursor == last || time < times[cursor + 1]) {
+				return cursor;
+			}
+			if (cursor + 1 == last || time < times[cursor + 2]) {
+				return cursor + 1;
+			}
 		}
 
-		final Float floorFloat = floor.getKey();
-		final Float ceilFloat = ceil.getKey();
+		if (time <= times[0]) return 0;
+		if (time >= times[last]) return last;
 
+		int low = 0;
+		int high = last;
+		while (high - low > 1) {
+			final int mid = (low + high) >>> 1;
+			if (times[mid] <= time) {
+				low = mid;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
 
-		float interval = ceilFloat - floorFloat;
-		float alpha = floorFloat;
-		if (MathUtils.isZero(interval)) {
-			alpha = 1f;
-		} else {
-			time -= alpha;
-			time /= interval;
-			alpha = time;
+	/**
+	 * Evaluates a single component between keyframe and keyframe + 1.
+	 */
+	final float component (int keyframe, int component, float time) {
+		final float[] times = this.times;
+		final int last = times.length - 1;
+
+		if (INTERPOLATION_MODE == CUBICSPLINE) {
+			final int keyframeStride = stride * 3;
+			if (keyframe >= last || time <= times[keyframe]) {
+				return values[keyframe * keyframeStride + stride + component];
+			}
+			final int next = keyframe + 1;
+			final float delta = times[next] - times[keyframe];
+			final float t = (time - times[keyframe]) / delta;
+			final float t2 = t * t;
+			final float t3 = t2 * t;
+
+			final float value = values[keyframe * keyframeStride + stride + component];
+			final float outTangent = values[keyframe * keyframeStride + stride * 2 + component];
+			final float nextInTangent = values[next * keyframeStride + component];
+			final float nextValue = values[next * keyframeStride + stride + component];
+
+			return (2 * t3 - 3 * t2 + 1) * value
+				+ (t3 - 2 * t2 + t) * delta * outTangent
+				+ (-2 * t3 + 3 * t2) * nextValue
+				+ (t3 - t2) * delta * nextInTangent;
+		}
+
+		final float floor = values[keyframe * stride + component];
+		if (INTERPOLATION_MODE == STEP || keyframe >= last || time <= times[keyframe]) {
+			return floor;
 		}
 
-		final T interpolate = interpolate(floor.getValue(), ceil.getValue(), alpha);
-		return interpolate;
+		final float alpha = alpha(keyframe, time);
+		return floor + (values[(keyframe + 1) * stride + component] - floor) * alpha;
+	}
+
+	final float alpha (int keyframe, float time) {
+		final float interval = times[keyframe + 1] - times[keyframe];
+		if (MathUtils.isZero(interval)) {
+			return 1f;
+		}
+		return (time - times[keyframe]) / interval;
 	}
 
+	/**
+	 * Convenience lookup that binary searches every call and writes into a sampler owned temp.
+	 * Not safe to use from multiple threads, prefer the cursor based sample methods for playback.
+	 */
+	public abstract T getInterpolatedValueForTime (float time);
+
 
 	public static class TranslationSampler extends SceneAnimationSampler<Vector3> {
 
 		private Vector3 temp = new Vector3();
 
-		public TranslationSampler (float[] inputData, Vector3[] outputData, int interpolation) {
-			super(inputData, outputData, interpolation);
+		public TranslationSampler (float[] inputData, float[] outputData, int interpolation) {
+			super(inputData, outputData, 3, interpolation);
 		}
 
-		@Override
-		protected Vector3 interpolate (Vector3 floor, Vector3 ceil, float alpha) {
-
-			if (INTERPOLATION_MODE == LINEAR) {
-				temp.set(floor);
-				temp.lerp(ceil, alpha);
-				return temp;
-			} else if (INTERPOLATION_MODE == STEP) {
-				return floor;
-			} else if (INTERPOLATION_MODE == CUBICSPLINE) {
-				temp.set(floor);
-				temp.lerp(ceil, alpha);
-				return temp;
-			}
-
-			throw new GdxRuntimeException("Invalid interpolation");
+		/**
+		 * @return the keyframe cursor to pass on the next call for this playhead
+		 */
+		public int sample (float time, int cursor, Vector3 out) {
+			final int keyframe = findKeyframe(time, cursor);
+			out.set(component(keyframe, 0, time), component(keyframe, 1, time), component(keyframe, 2, time));
+			return keyframe;
+		}
 
+		@Override
+		public Vector3 getInterpolatedValueForTime (float time) {
+			sample(time, 0, temp);
+			return temp;
 		}
 	}
 
@@ -152,26 +217,67 @@ public abstract class SceneAnimationSampler<T> {
 
 		private Quaternion temp = new Quaternion();
 
-		public RotationSampler (float[] inputData, Quaternion[] outputData, int interpolation) {
-			super(inputData, outputData, interpolation);
+		public RotationSampler (float[] inputData, float[] outputData, int interpolation) {
+			super(inputData, outputData, 4, interpolation);
 		}
 
-		@Override
-		protected Quaternion interpolate (Quaternion floor, Quaternion ceil, float alpha) {
-
-			if (INTERPOLATION_MODE == LINEAR) {
-				temp.set(floor);
-				temp.slerp(ceil, alpha);
-				return temp;
-			} else if (INTERPOLATION_MODE == STEP) {
-				return floor;
-			} else if (INTERPOLATION_MODE == CUBICSPLINE) {
-				temp.set(floor);
-				temp.slerp(ceil, alpha);
-				return temp;
+		/**
+		 * @return the keyframe cursor to pass on the next call for this playhead
+		 */
+		public int sample (float time, int cursor, Quaternion out) {
+			final int keyframe = findKeyframe(time, cursor);
+
+			if (INTERPOLATION_MODE == CUBICSPLINE) {
+				//Spec requires the spline result to be normalized
+				out.set(component(keyframe, 0, time), component(keyframe, 1, time), component(keyframe, 2, time), component(keyframe, 3, time));
+				out.nor();
+				return keyframe;
+			}
+
+			final int from = keyframe * 4;
+			if (INTERPOLATION_MODE == STEP || keyframe == times.length - 1 || time <= times[keyframe]) {
+				out.set(values[from], values[from + 1], values[from + 2], values[from + 3]);
+				return keyframe;
+			}
+
+			slerp(values, from, from + 4, alpha(keyframe, time), out);
+			return keyframe;
+		}
+
+		/**
+		 * Same as {@link Quaternion#slerp(Quaternion, float)}, reading both ends straight out of the packed array.
+		 */
+		private static void slerp (float[] values, int from, int to, float alpha, Quaternion out) {
+			final float x = values[from], y = values[from + 1], z = values[from + 2], w = values[from + 3];
+			float endX = values[to], endY = values[to + 1], endZ = values[to + 2], endW = values[to + 3];
+
+			float d = x * endX + y * endY + z * endZ + w * endW;
+			if (d < 0f) {
+				endX = -endX;
+				endY = -endY;
+				endZ = -endZ;
+				endW = -endW;
+				d = -d;
+			}
+
+			float scale0 = 1f - alpha;
+			float scale1 = alpha;
+
+			if ((1 - d) > 0.1) {
+				final float angle = (float)Math.acos(d);
+				final float invSinTheta = 1f / (float)Math.sin(angle);
+
+				scale0 = ((float)Math.sin((1f - alpha) * angle) * invSinTheta);
+				scale1 = ((float)Math.sin((alpha * angle)) * invSinTheta);
 			}
 
-			throw new GdxRuntimeException("Invalid interpolation");
+			out.set(scale0 * x + scale1 * endX, scale0 * y + scale1 * endY, scale0 * z + scale1 * endZ, scale0 * w + scale1 * endW);
+		}
+
+		@Override
+		public Quaternion getInterpolatedValueForTime (float time) {
+			sample(time, 0, temp);
+			return temp;
 		}
 	}
 
@@ -179,48 +285,55 @@ public abstract class SceneAnimationSampler<T> {
 
 		private Vector3 temp = new Vector3();
 
-		public ScaleSampler (float[] inputData, Vector3[] outputData, int interpolation) {
-			super(inputData, outputData, interpolation);
+		public ScaleSampler (float[] inputData, float[] outputData, int interpolation) {
+			super(inputData, outputData, 3, interpolation);
 		}
 
-		@Override
-		protected Vector3 interpolate (Vector3 floor, Vector3 ceil, float alpha) {
-
-			if (INTERPOLATION_MODE == LINEAR) {
-				temp.set(floor);
-				temp.lerp(ceil, alpha);
-				return temp;
-			} else if (INTERPOLATION_MODE == STEP) {
-				return floor;
-			} else if (INTERPOLATION_MODE == CUBICSPLINE) {
-				temp.set(floor);
-				temp.lerp(ceil, alpha);
-				return temp;
-			}
+		/**
+		 * @return the keyframe cursor to pass on the next call for this playhead
+		 */
+		public int sample (float time, int cursor, Vector3 out) {
+			final int keyframe = findKeyframe(time, cursor);
+			out.set(component(keyframe, 0, time), component(keyframe, 1, time), component(keyframe, 2, time));
+			return keyframe;
+		}
 
-			throw new GdxRuntimeException("Invalid interpolation");
+		@Override
+		public Vector3 getInterpolatedValueForTime (float time) {
+			sample(time, 0, temp);
+			return temp;
 		}
 	}
 
-	public static class WeightsSampler extends SceneAnimationSampler<Float> {
+	public static class WeightsSampler extends SceneAnimationSampler<float[]> {
 
-		public WeightsSampler (float[] inputData, Float[] outputData, int interpolation) {
-			super(inputData, outputData, interpolation);
-		}
+		private float[] temp;
 
-		@Override
-		protected Float interpolate (Float floor, Float ceil, float alpha) {
+		public WeightsSampler (float[] inputData, float[] outputData, int weightsPerKeyframe, int interpolation) {
+			super(inputData, outputData, weightsPerKeyframe, interpolation);
+			temp = new float[weightsPerKeyframe];
+		}
 
-			if (INTERPOLATION_MODE == LINEAR) {
-				return Interpolation.linear.apply(floor, ceil, alpha);
-			} else if (INTERPOLATION_MODE == STEP) {
-				return floor;
-			} else if (INTERPOLATION_MODE == CUBICSPLINE) {
-				return Interpolation.linear.apply(floor, ceil, alpha);
+		public int getWeightCount () {
+			return stride;
+		}
 
+		/**
+		 * @param out array of at least {@link #getWeightCount()} floats
+		 * @return the keyframe cursor to pass on the next call for this playhead
+		 */
+		public int sample (float time, int cursor, float[] out) {
+			final int keyframe = findKeyframe(time, cursor);
+			for (int i = 0; i < stride; i++) {
+				out[i] = component(keyframe, i, time);
 			}
+			return keyframe;
+		}
 
-			throw new GdxRuntimeException("Invalid interpolation");
+		@Override
+		public float[] getInterpolatedValueForTime (float time) {
+			sample(time, 0, temp);
+			return temp;
 		}
 	}
 
@@ -11,13 +11,24 @@ public class SceneNodeAnimation {
 
 	private Array<SceneAnimationSampler<?>> samplers;
 
+	/**
+	 * Last keyframe found per sampler, index matches {@link #samplers}. Samplers are shared between instances,
+	 * the cursors are not.
+	 */
+	private int[] keyframeCursors;
+
 	public SceneNodeAnimation () {
 
 	}
 
 	public SceneNodeAnimation (SceneNode copyReferenceNode, SceneNodeAnimation sceneAnimation) {
 		this.sceneNode = copyReferenceNode;
-		samplers = sceneAnimation.getSamplers();
+		setSamplers(sceneAnimation.getSamplers());
+	}
+
+	public void setSamplers (Array<SceneAnimationSampler<?>> samplers) {
+		this.samplers = samplers;
+		this.keyframeCursors = new int[samplers.size];
 	}
 
 }
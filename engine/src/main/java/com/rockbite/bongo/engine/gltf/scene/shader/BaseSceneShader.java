@@ -3,6 +3,7 @@ package com.rockbite.bongo.engine.gltf.scene.shader;
 import com.artemis.BaseSystem;
 import com.artemis.EntityEdit;
 import com.artemis.World;
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
@@ -29,6 +30,7 @@ import com.rockbite.bongo.engine.fileutil.ReloadUtils;
 import com.rockbite.bongo.engine.gltf.scene.SceneEnvironment;
 import com.rockbite.bongo.engine.gltf.scene.SceneMaterial;
 import com.rockbite.bongo.engine.gltf.scene.SceneRenderable;
+import com.rockbite.bongo.engine.render.InstanceTransformBuffer;
 import com.rockbite.bongo.engine.systems.render.ShaderProcessingSystem;
 import lombok.Data;
 
@@ -41,6 +43,10 @@ public abstract class BaseSceneShader implements Comparable<BaseSceneShader>, Re
 	private final long attributesMask;
 	private final long vertexMask;
 
+	private final boolean instanced;
+	private int instanceTransformLocation = -1;
+	private int instanceNormalLocation = -1;
+
 	private String prefix;
 
 	protected Attributes tmpAttributes = new Attributes();
@@ -57,6 +63,7 @@ public abstract class BaseSceneShader implements Comparable<BaseSceneShader>, Re
 
 		attributesMask = attributes.getMask() | getOptionalAttributes();
 		vertexMask = vertexAttributes.getMaskWithSizePacked();
+		instanced = sceneRenderable.instanced;
 
 
 		prefix = createPrefix(sceneRenderable);
@@ -225,6 +232,7 @@ public abstract class BaseSceneShader implements Comparable<BaseSceneShader>, Re
 		if (and(vertexMask, VertexAttributes.Usage.Normal)) prefix += "#define normalFlag\n";
 		if (and(vertexMask, VertexAttributes.Usage.ColorPacked)) prefix += "#define colorFlag\n";
 		if (and(vertexMask, VertexAttributes.Usage.BoneWeight)) prefix += "#define skinningFlag\n";
+		if (sceneRenderable.instanced) prefix += "#define instancedFlag\n";
 
 
 		return prefix;
@@ -241,6 +249,22 @@ public abstract class BaseSceneShader implements Comparable<BaseSceneShader>, Re
 		init();
 	}
 
+	/**
+	 * Recompiles the shader if its prefix no longer matches what it would be created with now, e.g. after the
+	 * environment changed the point light or cascade count. GL thread only.
+	 *
+	 * @return true if the shader was recompiled
+	 */
+	public boolean refreshPrefix () {
+		final String currentPrefix = createPrefix(sceneRenderable);
+		if (currentPrefix.equals(prefix)) return false;
+
+		prefix = currentPrefix;
+		resetAndRecompileShader();
+		init();
+		return true;
+	}
+
 	public boolean hasSystem (Class<? extends BaseSystem> shadowPassSystemClass) {
 		return world.getSystem(shadowPassSystemClass) != null;
 	}
@@ -422,6 +446,8 @@ public abstract class BaseSceneShader implements Comparable<BaseSceneShader>, Re
 				if (location >= 0) attributes.put(attr.getKey(), location);
 			}
 		}
+		instanceTransformLocation = instanced ? program.getAttributeLocation(InstanceTransformBuffer.INSTANCE_TRANSFORM_ATTRIBUTE) : -1;
+		instanceNormalLocation = instanced ? program.getAttributeLocation(InstanceTransformBuffer.INSTANCE_NORMAL_ATTRIBUTE) : -1;
 	}
 
 	public void begin (Cameras cameras, RenderUtils renderUtils, SceneEnvironment sceneEnvironment) {
@@ -480,6 +506,51 @@ public abstract class BaseSceneShader implements Comparable<BaseSceneShader>, Re
 
 	}
 
+	/**
+	 * Draws every transform collected in instances with a single glDrawElementsInstanced call.
+	 * Local uniforms are set once from renderable, so every instance must share its mesh and material.
+	 * Only valid when {@link #supportsInstancing()} is true.
+	 */
+	public void renderInstanced (SceneRenderable renderable, InstanceTransformBuffer instances) {
+		if (!supportsInstancing()) {
+			throw new GdxRuntimeException("Shader was not compiled for instancing");
+		}
+
+		combinedAttributes.clear();
+		if (renderable.material != null) combinedAttributes.set(renderable.material.getAttributes());
+		for (int u, i = 0; i < localUniforms.size; ++i)
+			if (setters.get(u = localUniforms.get(i)) != null) {
+				setters.get(u).set(this, u, renderable, combinedAttributes);
+			}
+
+		final Mesh mesh = renderable.sceneMesh.mesh;
+		if (currentMesh != mesh) {
+			if (currentMesh != null) currentMesh.unbind(program, tempArray.items);
+			currentMesh = mesh;
+			currentMesh.bind(program, getAttributeLocations(mesh.getVertexAttributes()));
+		}
+
+		instances.bind(instanceTransformLocation, instanceNormalLocation);
+		if (mesh.getNumIndices() > 0) {
+			Gdx.gl30.glDrawElementsInstanced(renderable.sceneMesh.renderMode, mesh.getNumIndices(), GL20.GL_UNSIGNED_SHORT, 0, instances.getInstanceCount());
+		} else {
+			Gdx.gl30.glDrawArraysInstanced(renderable.sceneMesh.renderMode, 0, mesh.getNumVertices(), instances.getInstanceCount());
+		}
+		instances.unbind(instanceTransformLocation, instanceNormalLocation);
+	}
+
+	public boolean isInstanced () {
+		return instanced;
+	}
+
+	/**
+	 * Whether the program actually reads the per instance transform, shaders that ignore instancedFlag
+	 * have to be drawn one renderable at a time.
+	 */
+	public boolean supportsInstancing () {
+		return instanced && instanceTransformLocation >= 0;
+	}
+
 	public void end () {
 		if (currentMesh != null) {
 			currentMesh.unbind(program, tempArray.items);
@@ -605,7 +676,8 @@ public abstract class BaseSceneShader implements Comparable<BaseSceneShader>, Re
 	public boolean canRender (SceneRenderable renderable) {
 		final long renderableMask = combineAttributeMasks(renderable);
 		return (attributesMask == (renderableMask | getOptionalAttributes()))
-			&& (vertexMask == renderable.sceneMesh.getVertexInfo().getVertexAttributes().getMaskWithSizePacked());
+			&& (vertexMask == renderable.sceneMesh.getVertexInfo().getVertexAttributes().getMaskWithSizePacked())
+			&& (instanced == renderable.instanced);
 	}
 
 }
@@ -0,0 +1,50 @@
+package com.rockbite.bongo.engine.gltf.scene.shader;
+
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.rockbite.bongo.engine.components.render.PointLight;
+
+/**
+ * Uniform locations of a u_pointLights[] struct array, resolved once per compiled program so uploads
+ * do no string building or name lookups. Used when uniform buffers are not available.
+ */
+public class PointLightUniforms {
+
+	private static final float UNUSED_LIGHT_DISTANCE = 1e6f;
+
+	private final int[] worldPositionLocations;
+	private final int[] rgbRadianceLocations;
+
+	public PointLightUniforms (ShaderProgram program, int count) {
+		worldPositionLocations = new int[count];
+		rgbRadianceLocations = new int[count];
+		for (int i = 0; i < count; i++) {
+			worldPositionLocations[i] = program.fetchUniformLocation("u_pointLights[" + i + "].worldPosition", false);
+			rgbRadianceLocations[i] = program.fetchUniformLocation("u_pointLights[" + i + "].rgbRadiance", false);
+		}
+	}
+
+	public boolean isEmpty () {
+		return worldPositionLocations.length == 0 || worldPositionLocations[0] < 0;
+	}
+
+	/**
+	 * Uploads lights in order, slots past lights.size get zero radiance
+	 */
+	public void upload (ShaderProgram program, Array<PointLight> lights) {
+		for (int i = 0; i < worldPositionLocations.length; i++) {
+			if (worldPositionLocations[i] < 0) continue;
+
+			if (i < lights.size) {
+				final PointLight light = lights.get(i);
+				final Vector3 position = light.getWorldPosition();
+				program.setUniformf(worldPositionLocations[i], position.x, position.y, position.z);
+				program.setUniformf(rgbRadianceLocations[i], light.getR(), light.getG(), light.getB(), light.getStrength());
+			} else {
+				program.setUniformf(worldPositionLocations[i], UNUSED_LIGHT_DISTANCE, UNUSED_LIGHT_DISTANCE, UNUSED_LIGHT_DISTANCE);
+				program.setUniformf(rgbRadianceLocations[i], 0f, 0f, 0f, 0f);
+			}
+		}
+	}
+}
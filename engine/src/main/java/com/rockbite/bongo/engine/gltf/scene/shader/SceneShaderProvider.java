@@ -3,38 +3,169 @@ package com.rockbite.bongo.engine.gltf.scene.shader;
 import com.artemis.World;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.LongMap;
+import com.rockbite.bongo.engine.gltf.scene.SceneGraph;
+import com.rockbite.bongo.engine.gltf.scene.SceneMesh;
+import com.rockbite.bongo.engine.gltf.scene.SceneMeshPrimtive;
+import com.rockbite.bongo.engine.gltf.scene.SceneModel;
+import com.rockbite.bongo.engine.gltf.scene.SceneNode;
 import com.rockbite.bongo.engine.gltf.scene.SceneRenderable;
+import com.rockbite.bongo.engine.systems.render.EnvironmentConfigSystem;
+import com.rockbite.bongo.engine.systems.render.ShadowPassSystem;
 
 public abstract class SceneShaderProvider {
 
 	protected Array<BaseSceneShader> shaders = new Array<BaseSceneShader>();
 
+	/**
+	 * Shader variants keyed by {@link #variantKey(SceneRenderable)}, everything {@link BaseSceneShader#canRender(SceneRenderable)} compares
+	 */
+	private final LongMap<BaseSceneShader> variants = new LongMap<>();
+
 	private World world;
 
+	private final SceneRenderable warmUpRenderable = new SceneRenderable();
+
+	/**
+	 * Environment state shader prefixes were last checked against, see {@link #refresh()}
+	 */
+	private long environmentKey;
+	/**
+	 * Bumped whenever {@link #refresh()} recompiles a shader
+	 */
+	private int revision;
+
 	public BaseSceneShader getShader (SceneRenderable renderable) {
 		BaseSceneShader suggestedShader = renderable.shader;
 		if (suggestedShader != null && suggestedShader.canRender(renderable)) return suggestedShader;
-		for (BaseSceneShader shader : shaders) {
-			if (shader.canRender(renderable)) return shader;
+
+		final long key = variantKey(renderable);
+		final BaseSceneShader variant = variants.get(key);
+		if (variant != null && variant.canRender(renderable)) return variant;
+
+		if (variant != null) {
+			//Key collision, fall back to the full scan
+			for (BaseSceneShader shader : shaders) {
+				if (shader.canRender(renderable)) return shader;
+			}
 		}
+
 		final BaseSceneShader shader = createShader(renderable, world);
 		if (!shader.canRender(renderable)) throw new GdxRuntimeException("unable to provide a shader for this renderable");
 		shader.init();
 		shaders.add(shader);
+		if (variant == null) {
+			variants.put(key, shader);
+		}
 		return shader;
 	}
 
+	/**
+	 * Packs the material attribute mask, packed vertex attribute mask and instancing flag into a single key.
+	 * The shader prefix is derived from those same inputs, so it does not need to be part of the key.
+	 */
+	static long variantKey (SceneRenderable renderable) {
+		final long materialMask = renderable.material != null ? renderable.material.getMask() : 0;
+		final long vertexMask = renderable.sceneMesh.getVertexInfo().getVertexAttributes().getMaskWithSizePacked();
+
+		long hash = materialMask * 0x9E3779B97F4A7C15L;
+		hash = (hash ^ (hash >>> 29) ^ vertexMask) * 0xBF58476D1CE4E5B9L;
+		hash ^= hash >>> 32;
+		return renderable.instanced ? ~hash : hash;
+	}
+
+	/**
+	 * Compiles every variant the primitives of a loaded scene graph will need, so the first frame that draws them
+	 * does not stall on shader compilation. Must be called on the GL thread.
+	 *
+	 * @param instanced whether the pass using this provider draws unskinned primitives instanced
+	 */
+	public void warmUp (SceneGraph sceneGraph, boolean instanced) {
+		final Array<SceneModel> rootModels = sceneGraph.getRootModels();
+		for (int i = 0; i < rootModels.size; i++) {
+			final Array<SceneNode> nodes = rootModels.get(i).nodes;
+			for (int j = 0; j < nodes.size; j++) {
+				warmUp(nodes.get(j), instanced);
+			}
+		}
+	}
+
+	private void warmUp (SceneNode sceneNode, boolean instanced) {
+		if (sceneNode.isHasMesh()) {
+			final SceneMesh sceneMesh = sceneNode.getSceneMesh();
+			final Array<SceneMeshPrimtive> primitives = sceneMesh.getSceneMeshPrimtiveArray();
+			for (int i = 0; i < primitives.size; i++) {
+				final SceneMeshPrimtive primitive = primitives.get(i);
+
+				warmUpRenderable.reset();
+				warmUpRenderable.setSceneMesh(primitive);
+				warmUpRenderable.setMaterial(primitive.sceneMaterial);
+				warmUpRenderable.setReferenceSceneNode(sceneNode);
+				warmUpRenderable.setBones(primitive.bones);
+				warmUpRenderable.setInstanced(instanced && primitive.bones == null);
+
+				getShader(warmUpRenderable);
+			}
+		}
+
+		final Array<SceneNode> children = sceneNode.getChildren();
+		for (int i = 0; i < children.size; i++) {
+			warmUp(children.get(i), instanced);
+		}
+	}
+
 	protected abstract BaseSceneShader createShader (final SceneRenderable renderable, World world);
 
+	/**
+	 * Recompiles shaders whose prefix went stale since the environment they were created for changed. Cheap when
+	 * nothing changed, meant to be called every frame on the GL thread.
+	 */
+	public void refresh () {
+		final long key = environmentKey();
+		if (key == environmentKey) return;
+		environmentKey = key;
+
+		boolean recompiled = false;
+		for (int i = 0; i < shaders.size; i++) {
+			recompiled |= shaders.get(i).refreshPrefix();
+		}
+		if (recompiled) {
+			revision++;
+		}
+	}
+
+	/**
+	 * Everything outside the renderable that bundled shaders build their prefix from
+	 */
+	protected long environmentKey () {
+		if (world == null) return 0;
+
+		long key = 0;
+		final EnvironmentConfigSystem environmentConfigSystem = world.getSystem(EnvironmentConfigSystem.class);
+		if (environmentConfigSystem != null && environmentConfigSystem.getEnvironment() != null) {
+			key = environmentConfigSystem.getEnvironment().getSceneEnvironment().getMaxPointLights();
+		}
+		final ShadowPassSystem shadowPassSystem = world.getSystem(ShadowPassSystem.class);
+		return key * 31 + (shadowPassSystem != null ? shadowPassSystem.getCascadeCount() : -1);
+	}
+
+	/**
+	 * Changes whenever shaders were recompiled, renderables resolved before should resolve their shaders again
+	 */
+	public int getRevision () {
+		return revision;
+	}
+
 	public void injectWorld (World world) {
 		this.world = world;
 	}
-	
+
 	public void dispose () {
 		for (BaseSceneShader shader : shaders) {
 			shader.dispose();
 		}
 		shaders.clear();
+		variants.clear();
 	}
 
 
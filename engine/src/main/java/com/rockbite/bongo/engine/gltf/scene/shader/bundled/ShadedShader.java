@@ -1,6 +1,7 @@
 package com.rockbite.bongo.engine.gltf.scene.shader.bundled;
 
 import com.artemis.World;
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Texture;
@@ -10,8 +11,6 @@ import com.badlogic.gdx.graphics.g3d.attributes.DepthTestAttribute;
 import com.badlogic.gdx.graphics.g3d.attributes.IntAttribute;
 import com.badlogic.gdx.math.Matrix3;
 import com.badlogic.gdx.math.Matrix4;
-import com.badlogic.gdx.utils.Array;
-import com.rockbite.bongo.engine.components.render.PointLight;
 import com.rockbite.bongo.engine.components.singletons.Cameras;
 import com.rockbite.bongo.engine.components.singletons.RenderUtils;
 import com.rockbite.bongo.engine.gltf.scene.SceneEnvironment;
@@ -21,6 +20,8 @@ import com.rockbite.bongo.engine.gltf.scene.shader.PBRColourAttribute;
 import com.rockbite.bongo.engine.gltf.scene.shader.PBRFloatAttribute;
 import com.rockbite.bongo.engine.gltf.scene.shader.PBRMaterialAttribute;
 import com.rockbite.bongo.engine.gltf.scene.shader.PBRVec3Attribute;
+import com.rockbite.bongo.engine.gltf.scene.shader.PointLightUniforms;
+import com.rockbite.bongo.engine.render.PointLightUniformBuffer;
 import com.rockbite.bongo.engine.systems.render.EnvironmentConfigSystem;
 import com.rockbite.bongo.engine.systems.render.ShadowPassSystem;
 
@@ -62,7 +63,6 @@ public class ShadedShader extends BaseSceneShader  {
 		public final static Uniform shadowLightDir = new Uniform("u_lightDir");
 		public final static Uniform shadowLightColour = new Uniform("u_lightColour");
 		public final static Uniform ambientStrength = new Uniform("u_ambientStrength");
-		public final static Uniform pointLights = new Uniform("u_pointLights");
 		public final static Uniform envMap = new Uniform("u_envMap");
 		public final static Uniform irradianceMap = new Uniform("u_irradianceMap");
 		public final static Uniform prefilterMap = new Uniform("u_prefilterMap");
@@ -85,6 +85,17 @@ public class ShadedShader extends BaseSceneShader  {
 			}
 		};
 
+		public final static Uniform cascadeMatrices = new Uniform("u_cascadeMatrices") {
+			@Override
+			public boolean validate (BaseSceneShader shader, int inputID, SceneRenderable renderable) {
+				boolean hasShadowSystem = shader.hasSystem(ShadowPassSystem.class);
+				return hasShadowSystem && super.validate(shader, inputID, renderable);
+			}
+		};
+		public final static Uniform cascadeSplits = new Uniform("u_cascadeSplits");
+		public final static Uniform shadowTexelSize = new Uniform("u_shadowTexelSize");
+		public final static Uniform cameraDirection = new Uniform("u_cameraDirection");
+
 
 
 	}
@@ -231,15 +242,10 @@ public class ShadedShader extends BaseSceneShader  {
 
 		//lighting
 		public final static Setter shadowLightMatrix = new GlobalSetter() {
-			Matrix4 lightSpaceMatrix = new Matrix4();
 			@Override
 			public void set (BaseSceneShader shader, int inputID, SceneRenderable renderable, Attributes combinedAttributes) {
 				final ShadowPassSystem system = shader.world.getSystem(ShadowPassSystem.class);
-				final int shadowMapSize = system.getShadowMapSize();
-
-				shader.sceneEnvironment.calculateDirectionLightSpaceMatrix(shader.cameras.getGameCamera(), lightSpaceMatrix, shadowMapSize);
-
-				shader.set(inputID, lightSpaceMatrix);
+				shader.set(inputID, system.getShadowMatrix());
 			}
 		};
 		public final static Setter shadowLightDir = new GlobalSetter() {
@@ -260,29 +266,6 @@ public class ShadedShader extends BaseSceneShader  {
 				shader.set(inputID, shader.sceneEnvironment.getAmbientStrength()[0]);
 			}
 		};
-		public final static Setter pointLights = new GlobalSetter() {
-			@Override
-			public void set (BaseSceneShader shader, int inputID, SceneRenderable renderable, Attributes combinedAttributes) {
-				Array<PointLight> pointLights = shader.sceneEnvironment.getPointLights();
-				int maxPointLights = shader.sceneEnvironment.getMaxPointLights();
-				int idx = 0;
-				for (int i = 0; i < maxPointLights; i++) {
-					PointLight pointLight = pointLights.get(i);
-					shader.program.setUniformf("u_pointLights["+i+"].worldPosition", pointLight.getWorldPosition());
-					shader.program.setUniformf("u_pointLights["+i+"].rgbRadiance", pointLight.getR(), pointLight.getG(), pointLight.getB(), pointLight.getStrength());
-					idx++;
-				}
-
-				int remaining = maxPointLights - idx;
-				for (int i = 0; i < remaining; i++) {
-					shader.program.setUniformf("u_pointLights["+i+"].worldPosition", 0, 0, 0);
-					shader.program.setUniformf("u_pointLights["+i+"].rgbRadiance", 0f, 0f, 0f, 0f);
-
-				}
-			}
-		};
-
-
 		public final static Setter envMap = new GlobalSetter() {
 			@Override
 			public void set (BaseSceneShader shader, int inputID, SceneRenderable renderable, Attributes combinedAttributes) {
@@ -315,6 +298,35 @@ public class ShadedShader extends BaseSceneShader  {
 				shader.set(inputID, shader.context.textureBinder.bind(shadowMapTexture));
 			}
 		};
+		public final static Setter cascadeMatrices = new GlobalSetter() {
+			@Override
+			public void set (BaseSceneShader shader, int inputID, SceneRenderable renderable, Attributes combinedAttributes) {
+				final ShadowPassSystem shadowPassSystem = shader.world.getSystem(ShadowPassSystem.class);
+				final float[] matrices = shadowPassSystem.getCascadeSamplingMatrices();
+				shader.program.setUniformMatrix4fv(shader.loc(inputID), matrices, 0, shadowPassSystem.getCascadeCount() * 16);
+			}
+		};
+		public final static Setter cascadeSplits = new GlobalSetter() {
+			@Override
+			public void set (BaseSceneShader shader, int inputID, SceneRenderable renderable, Attributes combinedAttributes) {
+				final float[] splits = shader.world.getSystem(ShadowPassSystem.class).getCascadeSplits();
+				shader.set(inputID, splits[0], splits[1], splits[2], splits[3]);
+			}
+		};
+		public final static Setter shadowTexelSize = new GlobalSetter() {
+			@Override
+			public void set (BaseSceneShader shader, int inputID, SceneRenderable renderable, Attributes combinedAttributes) {
+				final ShadowPassSystem shadowPassSystem = shader.world.getSystem(ShadowPassSystem.class);
+				final float shadowMapSize = shadowPassSystem.getShadowMapSize();
+				shader.set(inputID, 1f / (shadowMapSize * shadowPassSystem.getCascadeCount()), 1f / shadowMapSize);
+			}
+		};
+		public final static Setter cameraDirection = new GlobalSetter() {
+			@Override
+			public void set (BaseSceneShader shader, int inputID, SceneRenderable renderable, Attributes combinedAttributes) {
+				shader.set(inputID, shader.cameras.getGameCamera().direction);
+			}
+		};
 	}
 
 	//global
@@ -348,14 +360,21 @@ public class ShadedShader extends BaseSceneShader  {
 	private int u_lightDir;
 	private int u_lightColour;
 	private int u_ambientStrength;
-	private int u_pointLights;
 	private int u_envMap;
 	private int u_irradianceMap;
 	private int u_shadowMap;
+	private int u_cascadeMatrices;
+	private int u_cascadeSplits;
+	private int u_shadowTexelSize;
+	private int u_cameraDirection;
 	private int u_prefilterMap;
 	private int u_brdfMap;
 
 
+	//Point lights are a struct array with no location of their own, uploaded directly instead of through a setter
+	private int pointLightCount;
+	private PointLightUniforms pointLightUniforms;
+
 	public ShadedShader (FileHandle vertexSource, FileHandle fragmentSource, SceneRenderable sceneRenderable, World world) {
 		super(vertexSource, fragmentSource, sceneRenderable, world);
 	}
@@ -376,6 +395,10 @@ public class ShadedShader extends BaseSceneShader  {
 		if (has(u_time)) {
 			set(u_time, sceneEnvironment.getTime());
 		}
+
+		if (pointLightUniforms != null) {
+			pointLightUniforms.upload(program, sceneEnvironment.getActivePointLights());
+		}
 	}
 
 
@@ -413,7 +436,6 @@ public class ShadedShader extends BaseSceneShader  {
 		u_lightDir = register(Inputs.shadowLightDir, Setters.shadowLightDir);
 		u_lightColour = register(Inputs.shadowLightColour, Setters.shadowLightColour);
 		u_ambientStrength = register(Inputs.ambientStrength, Setters.ambientStrength);
-		u_pointLights = register(Inputs.pointLights, Setters.pointLights);
 		u_envMap = register(Inputs.envMap, Setters.envMap);
 		u_irradianceMap = register(Inputs.irradianceMap, Setters.irradianceMap);
 		u_prefilterMap = register(Inputs.prefilterMap, Setters.prefilterMap);
@@ -421,6 +443,19 @@ public class ShadedShader extends BaseSceneShader  {
 
 		u_lightSpaceMatrix = register(Inputs.shadowLightMatrix, Setters.shadowLightMatrix);
 		u_shadowMap = register(Inputs.shadowMap, Setters.shadowMap);
+		u_cascadeMatrices = register(Inputs.cascadeMatrices, Setters.cascadeMatrices);
+		u_cascadeSplits = register(Inputs.cascadeSplits, Setters.cascadeSplits);
+		u_shadowTexelSize = register(Inputs.shadowTexelSize, Setters.shadowTexelSize);
+		u_cameraDirection = register(Inputs.cameraDirection, Setters.cameraDirection);
+
+		pointLightUniforms = null;
+		if (program != null) {
+			if (Gdx.gl30 != null) {
+				PointLightUniformBuffer.bindBlock(program);
+			} else {
+				pointLightUniforms = new PointLightUniforms(program, pointLightCount);
+			}
+		}
 	}
 
 
@@ -459,12 +494,19 @@ public class ShadedShader extends BaseSceneShader  {
 		SceneEnvironment sceneEnvironmentFromSystem = environmentConfigSystem.getEnvironment().getSceneEnvironment();
 
 		prefix += "#define NumDirectionalLights 1\n";
-		prefix += "#define NumPointLights " + sceneEnvironmentFromSystem.getMaxPointLights() + "\n";
+		pointLightCount = sceneEnvironmentFromSystem.getMaxPointLights();
+		prefix += "#define NumPointLights " + pointLightCount + "\n";
+		if (Gdx.gl30 != null) {
+			prefix += "#define pointLightBlockFlag\n";
+		}
 
 
 		final ShadowPassSystem shadowMapSystem = world.getSystem(ShadowPassSystem.class);
 		if (shadowMapSystem != null) {
 			prefix += "#define shadowMapFlag\n";
+			if (Gdx.gl30 != null) {
+				prefix += "#define NumShadowCascades " + shadowMapSystem.getCascadeCount() + "\n";
+			}
 		}
 
 		return prefix;
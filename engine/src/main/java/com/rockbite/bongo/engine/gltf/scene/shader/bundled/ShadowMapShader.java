@@ -44,16 +44,10 @@ public class ShadowMapShader extends BaseSceneShader {
 		};
 
 		public final static Setter lightMatrix = new GlobalSetter() {
-
-			Matrix4 lightSpaceMatrix = new Matrix4();
 			@Override
 			public void set (BaseSceneShader shader, int inputID, SceneRenderable renderable, Attributes combinedAttributes) {
 				final ShadowPassSystem system = shader.world.getSystem(ShadowPassSystem.class);
-				final int shadowMapSize = system.getShadowMapSize();
-
-				shader.sceneEnvironment.calculateDirectionLightSpaceMatrix(shader.cameras.getGameCamera(), lightSpaceMatrix, shadowMapSize);
-
-				shader.set(inputID, lightSpaceMatrix);
+				shader.set(inputID, system.getCurrentCascadeLightMatrix());
 			}
 		};
 
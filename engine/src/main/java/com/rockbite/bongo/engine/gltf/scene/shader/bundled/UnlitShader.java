@@ -198,15 +198,10 @@ public class UnlitShader extends BaseSceneShader  {
 
 		//lighting
 		public final static Setter shadowLightMatrix = new GlobalSetter() {
-			Matrix4 lightSpaceMatrix = new Matrix4();
 			@Override
 			public void set (BaseSceneShader shader, int inputID, SceneRenderable renderable, Attributes combinedAttributes) {
 				final ShadowPassSystem system = shader.world.getSystem(ShadowPassSystem.class);
-				final int shadowMapSize = system.getShadowMapSize();
-
-				shader.sceneEnvironment.calculateDirectionLightSpaceMatrix(shader.cameras.getGameCamera(), lightSpaceMatrix, shadowMapSize);
-
-				shader.set(inputID, lightSpaceMatrix);
+				shader.set(inputID, system.getShadowMatrix());
 			}
 		};
 		public final static Setter shadowLightDir = new GlobalSetter() {
@@ -136,16 +136,10 @@ public class WaterShader extends BaseSceneShader {
 
 		//lighting
 		public final static Setter shadowLightMatrix = new GlobalSetter() {
-			Matrix4 lightSpaceMatrix = new Matrix4();
-
 			@Override
 			public void set (BaseSceneShader shader, int inputID, SceneRenderable renderable, Attributes combinedAttributes) {
 				final ShadowPassSystem system = shader.world.getSystem(ShadowPassSystem.class);
-				final int shadowMapSize = system.getShadowMapSize();
-
-				shader.sceneEnvironment.calculateDirectionLightSpaceMatrix(shader.cameras.getGameCamera(), lightSpaceMatrix, shadowMapSize);
-
-				shader.set(inputID, lightSpaceMatrix);
+				shader.set(inputID, system.getShadowMatrix());
 			}
 		};
 		public final static Setter shadowLightDir = new GlobalSetter() {
@@ -196,6 +190,10 @@ public class WaterShader extends BaseSceneShader {
 	private int u_lightColour;
 	private int u_envMap;
 	private int u_shadowMap;
+	private int u_cascadeMatrices;
+	private int u_cascadeSplits;
+	private int u_shadowTexelSize;
+	private int u_cameraDirection;
 
 
 	public WaterShader (FileHandle vertexSource, FileHandle fragmentSource, SceneRenderable sceneRenderable, World world) {
@@ -267,6 +265,9 @@ public class WaterShader extends BaseSceneShader {
 		final ShadowPassSystem shadowMapSystem = world.getSystem(ShadowPassSystem.class);
 		if (shadowMapSystem != null) {
 			prefix += "#define shadowMapFlag\n";
+			if (Gdx.gl30 != null) {
+				prefix += "#define NumShadowCascades " + shadowMapSystem.getCascadeCount() + "\n";
+			}
 		}
 
 
@@ -296,6 +297,10 @@ public class WaterShader extends BaseSceneShader {
 
 		u_lightSpaceMatrix = register(Inputs.shadowLightMatrix, Setters.shadowLightMatrix);
 		u_shadowMap = register(Inputs.shadowMap, Setters.shadowMap);
+		u_cascadeMatrices = register(ShadedShader.Inputs.cascadeMatrices, ShadedShader.Setters.cascadeMatrices);
+		u_cascadeSplits = register(ShadedShader.Inputs.cascadeSplits, ShadedShader.Setters.cascadeSplits);
+		u_shadowTexelSize = register(ShadedShader.Inputs.shadowTexelSize, ShadedShader.Setters.shadowTexelSize);
+		u_cameraDirection = register(ShadedShader.Inputs.cameraDirection, ShadedShader.Setters.cameraDirection);
 	}
 
 	/**
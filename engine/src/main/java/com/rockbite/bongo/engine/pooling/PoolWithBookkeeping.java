@@ -67,22 +67,42 @@ public abstract class PoolWithBookkeeping<T> extends Pool<T> {
 
 	private Array<T> freeObjectsArray = null;
 	public boolean contains (Pool<T> pool, T component) {
+		final Array<T> freeObjects = getFreeObjects(pool);
+		return freeObjects != null && freeObjects.contains(component, true);
+	}
+
+	private Array<T> getFreeObjects (Pool<T> pool) {
 		try {
 			if (freeObjectsArray == null) {
 				Field freeObjects = Pool.class.getDeclaredField("freeObjects");
 				freeObjects.setAccessible(true);
 				freeObjectsArray = (Array<T>)freeObjects.get(pool);
 			}
-			if (freeObjectsArray.contains(component, true)) {
-				return true;
-			}
 		} catch (NoSuchFieldException e) {
 			e.printStackTrace();
 		} catch (IllegalAccessException e) {
 			e.printStackTrace();
 		}
+		return freeObjectsArray;
+	}
 
-		return false;
+	/**
+	 * Pool#fill creates objects without going through obtain, track them here so discarding them later
+	 * does not skew the existing instances
+	 */
+	@Override
+	public void fill (int size) {
+		final int freeBefore = getFree();
+		super.fill(size);
+		if (Bongo.DEBUG) {
+			final Array<T> freeObjects = getFreeObjects(this);
+			if (freeObjects != null) {
+				//fill appends the new objects to the end of the free objects
+				for (int i = freeBefore; i < freeObjects.size; i++) {
+					existingInstances.add(freeObjects.get(i));
+				}
+			}
+		}
 	}
 
 	@Override
@@ -102,6 +122,15 @@ public abstract class PoolWithBookkeeping<T> extends Pool<T> {
 		}
 	}
 
+	@Override
+	protected void discard (T object) {
+		super.discard(object);
+		if (Bongo.DEBUG) {
+			//Dropped instead of kept, it no longer exists for this pool
+			existingInstances.removeValue(object, true);
+		}
+	}
+
 	public T obtain () {
 		boolean creatingNewObject = getFree() == 0;
 		final T obtain = super.obtain();
@@ -0,0 +1,93 @@
+package com.rockbite.bongo.engine.prefab;
+
+import com.artemis.Archetype;
+import com.artemis.ArchetypeBuilder;
+import com.artemis.Component;
+import com.artemis.ComponentMapper;
+import com.artemis.World;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.utils.Array;
+import lombok.Getter;
+
+/**
+ * Everything needed to create entities from a {@link PrefabConfig}, resolved once: an archetype with every component
+ * of the prefab, so an entity gets its whole composition in one step, and a mapper per component that carries data.
+ * Components are filled in through {@link Marshallable}, components that are not marshallable keep their defaults,
+ * same as when they are created through an edit.
+ * <p>
+ * A plan holds on to the config it was compiled from, a reloaded prefab needs a new plan.
+ */
+public class PrefabInstantiationPlan {
+
+	private final World world;
+
+	@Getter
+	private final PrefabConfig config;
+
+	private final Archetype archetype;
+
+	private final ComponentMapper<? extends Component>[] mappers;
+	private final Component[] sources;
+
+	@SuppressWarnings("unchecked")
+	public PrefabInstantiationPlan (World world, PrefabConfig config) {
+		this.world = world;
+		this.config = config;
+
+		final ArchetypeBuilder archetypeBuilder = new ArchetypeBuilder();
+		final Array<ComponentMapper<? extends Component>> marshallableMappers = new Array<>();
+		final Array<Component> marshallableSources = new Array<>();
+
+		for (Component component : config.getComponents()) {
+			archetypeBuilder.add(component.getClass());
+
+			if (component instanceof Marshallable) {
+				marshallableMappers.add(world.getMapper(component.getClass()));
+				marshallableSources.add(component);
+			}
+		}
+
+		archetype = archetypeBuilder.build(world);
+		mappers = marshallableMappers.toArray(ComponentMapper.class);
+		sources = marshallableSources.toArray(Component.class);
+	}
+
+	/**
+	 * @return id of a new entity with every component of the prefab
+	 */
+	public int create () {
+		final int entity = world.create(archetype);
+		for (int i = 0; i < mappers.length; i++) {
+			copy(mappers[i].get(entity), sources[i]);
+		}
+		return entity;
+	}
+
+	/**
+	 * Creates count entities at once. Ids are allocated first, then the prefab data is copied one component type
+	 * at a time over all of them.
+	 *
+	 * @param out cleared, then receives the ids of the new entities
+	 */
+	public void create (int count, IntBag out) {
+		out.setSize(0);
+		out.ensureCapacity(count);
+		for (int i = 0; i < count; i++) {
+			out.add(world.create(archetype));
+		}
+
+		final int[] entities = out.getData();
+		for (int i = 0; i < mappers.length; i++) {
+			final ComponentMapper<? extends Component> mapper = mappers[i];
+			final Component source = sources[i];
+			for (int j = 0; j < count; j++) {
+				copy(mapper.get(entities[j]), source);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void copy (Component target, Component source) {
+		((Marshallable<Component>)target).marshallFrom(source);
+	}
+}
@@ -37,6 +37,11 @@ public class PrefabReader {
 
 	public ObjectMap<String, Class> objectMapper = new ObjectMap<>();
 
+	/**
+	 * Fields already looked up by name, per class, made accessible once. Prefab files are read again on every reload
+	 */
+	private ObjectMap<Class<?>, ObjectMap<String, Field>> fieldCache = new ObjectMap<>();
+
 	public Object topLevelParseAndRead (String componentName, Toml data) {
 		componentParsingStack.clear();
 
@@ -66,6 +71,22 @@ public class PrefabReader {
 		}
 	}
 
+	private Field getField (String name, Class<?> targetType) throws Throwable {
+		ObjectMap<String, Field> fields = fieldCache.get(targetType);
+		if (fields == null) {
+			fields = new ObjectMap<>();
+			fieldCache.put(targetType, fields);
+		}
+
+		Field field = fields.get(name);
+		if (field == null) {
+			field = ReflectUtils.getFieldWithName(name, targetType, null);
+			field.setAccessible(true);
+			fields.put(name, field);
+		}
+		return field;
+	}
+
 	private Object createObjectFromClassAndToml (Class targetType, Object tomlSideData) throws ReflectionException {
 
 		if (targetType.isEnum()) {
@@ -136,14 +157,13 @@ public class PrefabReader {
 					final Object tomlSideChildData = stringObjectEntry.getValue();
 
 					try {
-						final Field declaredField = ReflectUtils.getFieldWithName(tomlSideKey, targetType, null);
+						final Field declaredField = getField(tomlSideKey, targetType);
 
 						//Get the object
 						componentParsingStack.addLast(declaredField.getType().getSimpleName());
 						final Object child = createObjectFromClassAndToml(declaredField.getType(), tomlSideChildData);
 						componentParsingStack.removeLast();
 
-						declaredField.setAccessible(true);
 						declaredField.set(objectInstance, child);
 
 
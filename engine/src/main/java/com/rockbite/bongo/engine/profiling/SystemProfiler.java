@@ -0,0 +1,398 @@
+package com.rockbite.bongo.engine.profiling;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.rockbite.bongo.engine.Bongo;
+import com.rockbite.bongo.engine.systems.GameLoopSystemInvocationStrategy;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Timings of the last {@link #getCapacity()} frames of a {@link GameLoopSystemInvocationStrategy}, recorded while
+ * {@link Bongo#PROFILE_SYSTEMS} is enabled. Every frame holds one event per system run, per entity state update and per
+ * logic tick, with its start and duration in nanoseconds.
+ * <p>
+ * Frames are written by the thread running the world into a ring of preallocated slots, without locks. Every slot
+ * carries the number of the frame it holds, cleared while it is being written, so readers on any thread, like
+ * {@link #computeStats(Stats)} and {@link #writeChromeTrace(Writer)}, skip frames that were overwritten under them.
+ */
+public class SystemProfiler {
+
+	public static final int DEFAULT_CAPACITY = 300;
+
+	private static final int WRITING = -1;
+
+	private final Frame[] frames;
+
+	/**
+	 * Event names, the systems in invocation order followed by {@link #getEntityStatesEvent()} and
+	 * {@link #getLogicTickEvent()}
+	 */
+	private String[] eventNames = new String[0];
+	private int entityStatesEvent;
+	private int logicTickEvent;
+
+	/**
+	 * Frames completed so far, frame n is held by slot n % capacity
+	 */
+	private volatile long publishedFrames;
+
+	private Frame currentFrame;
+	private long currentFrameNumber;
+
+	public SystemProfiler () {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public SystemProfiler (int capacity) {
+		frames = new Frame[Math.max(1, capacity)];
+		for (int i = 0; i < frames.length; i++) {
+			frames[i] = new Frame();
+		}
+	}
+
+	/**
+	 * Names the events of the systems, in the order their indices are passed to {@link #record(int, int, long, long)}.
+	 * Clears recorded frames, they refer to the previous names.
+	 */
+	public void setSystemNames (String[] systemNames) {
+		final String[] names = Arrays.copyOf(systemNames, systemNames.length + 2);
+		entityStatesEvent = systemNames.length;
+		logicTickEvent = systemNames.length + 1;
+		names[entityStatesEvent] = "updateEntityStates";
+		names[logicTickEvent] = "logicTick";
+		eventNames = names;
+
+		for (Frame frame : frames) {
+			frame.sequence = WRITING;
+		}
+	}
+
+	public int getCapacity () {
+		return frames.length;
+	}
+
+	public int getEventCount () {
+		return eventNames.length;
+	}
+
+	public String getEventName (int event) {
+		return eventNames[event];
+	}
+
+	public int getEntityStatesEvent () {
+		return entityStatesEvent;
+	}
+
+	public int getLogicTickEvent () {
+		return logicTickEvent;
+	}
+
+	public long getPublishedFrames () {
+		return publishedFrames;
+	}
+
+	public void beginFrame (long startNanos) {
+		currentFrameNumber = publishedFrames;
+		currentFrame = frames[(int)(currentFrameNumber % frames.length)];
+		currentFrame.sequence = WRITING;
+		currentFrame.start = startNanos;
+		currentFrame.count = 0;
+	}
+
+	/**
+	 * @param tick logic tick the event ran in, -1 outside of logic ticks
+	 */
+	public void record (int event, int tick, long startNanos, long durationNanos) {
+		final Frame frame = currentFrame;
+		if (frame == null) return;
+
+		if (frame.count == frame.events.length) {
+			frame.grow();
+		}
+		final int index = frame.count++;
+		frame.events[index] = event;
+		frame.ticks[index] = tick;
+		frame.starts[index] = startNanos;
+		frame.durations[index] = durationNanos;
+	}
+
+	public void endFrame (long endNanos) {
+		final Frame frame = currentFrame;
+		if (frame == null) return;
+
+		frame.duration = endNanos - frame.start;
+		frame.sequence = currentFrameNumber;
+		publishedFrames = currentFrameNumber + 1;
+		currentFrame = null;
+	}
+
+	/**
+	 * Per frame totals of every event over the recorded frames: average, 99th percentile and maximum, plus the
+	 * average frame time
+	 */
+	public void computeStats (Stats stats) {
+		final int eventCount = eventNames.length;
+		stats.ensureCapacity(eventCount, frames.length);
+
+		final long published = publishedFrames;
+		final long first = Math.max(0, published - frames.length);
+
+		int sampled = 0;
+		long frameTotal = 0;
+		for (long frameNumber = first; frameNumber < published; frameNumber++) {
+			final Frame frame = frames[(int)(frameNumber % frames.length)];
+			if (frame.sequence != frameNumber) continue;
+
+			Arrays.fill(stats.frameTotals, 0, eventCount, 0);
+			Arrays.fill(stats.frameCalls, 0, eventCount, 0);
+
+			final int[] events = frame.events;
+			final long[] durations = frame.durations;
+			final int count = Math.min(frame.count, Math.min(events.length, durations.length));
+			for (int i = 0; i < count; i++) {
+				final int event = events[i];
+				if (event < 0 || event >= eventCount) continue;
+				stats.frameTotals[event] += durations[i];
+				stats.frameCalls[event]++;
+			}
+			final long frameDuration = frame.duration;
+
+			// overwritten while being read
+			if (frame.sequence != frameNumber) continue;
+
+			for (int event = 0; event < eventCount; event++) {
+				stats.samples[event][sampled] = stats.frameTotals[event];
+				stats.calls[event] += stats.frameCalls[event];
+			}
+			frameTotal += frameDuration;
+			sampled++;
+		}
+
+		stats.eventCount = eventCount;
+		stats.frames = sampled;
+		stats.averageFrameNanos = sampled > 0 ? frameTotal / sampled : 0;
+		for (int event = 0; event < eventCount; event++) {
+			final long[] samples = stats.samples[event];
+			Arrays.sort(samples, 0, sampled);
+
+			long total = 0;
+			for (int i = 0; i < sampled; i++) {
+				total += samples[i];
+			}
+			stats.averageNanos[event] = sampled > 0 ? total / sampled : 0;
+			stats.p99Nanos[event] = sampled > 0 ? samples[Math.min(sampled - 1, (int)Math.ceil(sampled * 0.99) - 1)] : 0;
+			stats.maxNanos[event] = sampled > 0 ? samples[sampled - 1] : 0;
+			stats.averageCalls[event] = sampled > 0 ? (float)stats.calls[event] / sampled : 0;
+			stats.calls[event] = 0;
+		}
+	}
+
+	public void exportChromeTrace (FileHandle fileHandle) {
+		Writer writer = null;
+		try {
+			writer = new BufferedWriter(fileHandle.writer(false, "UTF-8"));
+			writeChromeTrace(writer);
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Could not export chrome trace: " + fileHandle, e);
+		} finally {
+			StreamUtils.closeQuietly(writer);
+		}
+	}
+
+	/**
+	 * Writes the recorded frames as Chrome trace event json, to open in chrome://tracing or Perfetto. Frames, logic
+	 * ticks and entity state updates become complete events around the systems they contain, timestamps are in
+	 * microseconds from the start of the oldest frame.
+	 */
+	public void writeChromeTrace (Writer writer) throws IOException {
+		final long published = publishedFrames;
+		final long first = Math.max(0, published - frames.length);
+
+		long origin = -1;
+		boolean firstEvent = true;
+
+		writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+		for (long frameNumber = first; frameNumber < published; frameNumber++) {
+			final Frame frame = frames[(int)(frameNumber % frames.length)];
+			if (frame.sequence != frameNumber) continue;
+
+			final Frame copy = frame.copy();
+			if (frame.sequence != frameNumber) continue;
+
+			if (origin == -1) {
+				origin = copy.start;
+			}
+
+			firstEvent = writeEvent(writer, firstEvent, "frame", "frame", frameNumber, -1, copy.start - origin, copy.duration);
+			for (int i = 0; i < copy.count; i++) {
+				final int event = copy.events[i];
+				if (event < 0 || event >= eventNames.length) continue;
+
+				final String category = event == logicTickEvent ? "tick" : event == entityStatesEvent ? "entityStates" : "system";
+				firstEvent = writeEvent(writer, firstEvent, eventNames[event], category, frameNumber, copy.ticks[i], copy.starts[i] - origin, copy.durations[i]);
+			}
+		}
+		writer.write("\n]}\n");
+		writer.flush();
+	}
+
+	private static boolean writeEvent (Writer writer, boolean firstEvent, String name, String category, long frame, int tick, long startNanos, long durationNanos) throws IOException {
+		if (!firstEvent) {
+			writer.write(",\n");
+		}
+		writer.write("{\"name\":\"");
+		writeEscaped(writer, name);
+		writer.write("\",\"cat\":\"");
+		writer.write(category);
+		writer.write("\",\"ph\":\"X\",\"pid\":1,\"tid\":1,\"ts\":");
+		writer.write(formatMicros(startNanos));
+		writer.write(",\"dur\":");
+		writer.write(formatMicros(durationNanos));
+		writer.write(",\"args\":{\"frame\":");
+		writer.write(Long.toString(frame));
+		if (tick >= 0) {
+			writer.write(",\"tick\":");
+			writer.write(Integer.toString(tick));
+		}
+		writer.write("}}");
+		return false;
+	}
+
+	private static String formatMicros (long nanos) {
+		final long whole = nanos / 1000;
+		final long fraction = Math.abs(nanos % 1000);
+		if (fraction == 0) return Long.toString(whole);
+
+		final String digits = Long.toString(1000 + fraction).substring(1);
+		return (nanos < 0 && whole == 0 ? "-" : "") + whole + "." + digits;
+	}
+
+	private static void writeEscaped (Writer writer, String value) throws IOException {
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				writer.write('\\');
+				writer.write(c);
+			} else if (c < 0x20) {
+				writer.write(String.format("\\u%04x", (int)c));
+			} else {
+				writer.write(c);
+			}
+		}
+	}
+
+	private static class Frame {
+		private volatile long sequence = WRITING;
+
+		private long start;
+		private long duration;
+
+		private int count;
+		private int[] events = new int[64];
+		private int[] ticks = new int[64];
+		private long[] starts = new long[64];
+		private long[] durations = new long[64];
+
+		private void grow () {
+			final int capacity = events.length * 2;
+			events = Arrays.copyOf(events, capacity);
+			ticks = Arrays.copyOf(ticks, capacity);
+			starts = Arrays.copyOf(starts, capacity);
+			durations = Arrays.copyOf(durations, capacity);
+		}
+
+		private Frame copy () {
+			final Frame copy = new Frame();
+			copy.start = start;
+			copy.duration = duration;
+
+			final int[] events = this.events;
+			final int[] ticks = this.ticks;
+			final long[] starts = this.starts;
+			final long[] durations = this.durations;
+			copy.count = Math.min(count, Math.min(Math.min(events.length, ticks.length), Math.min(starts.length, durations.length)));
+			copy.events = Arrays.copyOf(events, copy.count);
+			copy.ticks = Arrays.copyOf(ticks, copy.count);
+			copy.starts = Arrays.copyOf(starts, copy.count);
+			copy.durations = Arrays.copyOf(durations, copy.count);
+			return copy;
+		}
+	}
+
+	/**
+	 * Result of {@link #computeStats(Stats)}, reused between calls
+	 */
+	public static class Stats {
+
+		private int eventCount;
+		private int frames;
+		private long averageFrameNanos;
+
+		private long[] averageNanos = new long[0];
+		private long[] p99Nanos = new long[0];
+		private long[] maxNanos = new long[0];
+		private float[] averageCalls = new float[0];
+
+		private long[] frameTotals = new long[0];
+		private int[] frameCalls = new int[0];
+		private long[] calls = new long[0];
+		private long[][] samples = new long[0][];
+
+		private void ensureCapacity (int eventCount, int frameCapacity) {
+			if (averageNanos.length < eventCount) {
+				averageNanos = new long[eventCount];
+				p99Nanos = new long[eventCount];
+				maxNanos = new long[eventCount];
+				averageCalls = new float[eventCount];
+				frameTotals = new long[eventCount];
+				frameCalls = new int[eventCount];
+				calls = new long[eventCount];
+				samples = new long[eventCount][];
+			}
+			for (int i = 0; i < eventCount; i++) {
+				if (samples[i] == null || samples[i].length < frameCapacity) {
+					samples[i] = new long[frameCapacity];
+				}
+			}
+		}
+
+		public int getEventCount () {
+			return eventCount;
+		}
+
+		/**
+		 * Frames the stats were computed over
+		 */
+		public int getFrames () {
+			return frames;
+		}
+
+		public long getAverageFrameNanos () {
+			return averageFrameNanos;
+		}
+
+		public long getAverageNanos (int event) {
+			return averageNanos[event];
+		}
+
+		public long getP99Nanos (int event) {
+			return p99Nanos[event];
+		}
+
+		public long getMaxNanos (int event) {
+			return maxNanos[event];
+		}
+
+		/**
+		 * Times the event ran per frame on average, systems run once per logic tick or once per frame
+		 */
+		public float getAverageCalls (int event) {
+			return averageCalls[event];
+		}
+	}
+}
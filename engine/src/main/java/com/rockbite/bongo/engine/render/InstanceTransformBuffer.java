@@ -0,0 +1,124 @@
+package com.rockbite.bongo.engine.render;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.math.Matrix3;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Streaming vertex buffer of per instance world transforms, read by shaders as a mat4 attribute with a divisor of 1,
+ * followed by the matching normal matrix as a mat3 attribute so shaders don't have to invert per vertex.
+ * The buffer is orphaned on every upload so the driver never has to wait on the previous draw.
+ * GL3 only.
+ */
+public class InstanceTransformBuffer implements Disposable {
+
+	public static final String INSTANCE_TRANSFORM_ATTRIBUTE = "a_instanceSRT";
+	public static final String INSTANCE_NORMAL_ATTRIBUTE = "a_instanceNormalMatrix";
+
+	private static final int FLOATS_PER_INSTANCE = 16 + 9;
+	private static final int BYTES_PER_INSTANCE = FLOATS_PER_INSTANCE * 4;
+	private static final int NORMAL_OFFSET = 16 * 4;
+
+	private final Matrix3 tmpNormal = new Matrix3();
+
+	private FloatBuffer staging;
+	private int bufferHandle;
+	private int instanceCount;
+
+	public InstanceTransformBuffer (int initialInstances) {
+		staging = BufferUtils.newFloatBuffer(Math.max(1, initialInstances) * FLOATS_PER_INSTANCE);
+	}
+
+	public void clear () {
+		instanceCount = 0;
+		((Buffer)staging).clear();
+	}
+
+	public void add (Matrix4 transform) {
+		if (staging.remaining() < FLOATS_PER_INSTANCE) {
+			final FloatBuffer grown = BufferUtils.newFloatBuffer(staging.capacity() * 2);
+			((Buffer)staging).flip();
+			grown.put(staging);
+			staging = grown;
+		}
+		staging.put(transform.val);
+		tmpNormal.set(transform);
+		if (tmpNormal.det() != 0) {
+			tmpNormal.inv().transpose();
+		}
+		staging.put(tmpNormal.val);
+		instanceCount++;
+	}
+
+	public int getInstanceCount () {
+		return instanceCount;
+	}
+
+	/**
+	 * Uploads the collected transforms and points the four column attributes starting at transformLocation,
+	 * and the three starting at normalLocation, at them. A negative normalLocation skips the normal matrix.
+	 * Must be called with the target mesh already bound.
+	 */
+	public void bind (int transformLocation, int normalLocation) {
+		if (bufferHandle == 0) {
+			bufferHandle = Gdx.gl.glGenBuffer();
+		}
+
+		((Buffer)staging).flip();
+
+		final GL20 gl = Gdx.gl;
+		gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, bufferHandle);
+		//Orphan then fill
+		gl.glBufferData(GL20.GL_ARRAY_BUFFER, staging.capacity() * 4, null, GL20.GL_STREAM_DRAW);
+		gl.glBufferSubData(GL20.GL_ARRAY_BUFFER, 0, instanceCount * BYTES_PER_INSTANCE, staging);
+
+		for (int column = 0; column < 4; column++) {
+			final int location = transformLocation + column;
+			gl.glEnableVertexAttribArray(location);
+			gl.glVertexAttribPointer(location, 4, GL20.GL_FLOAT, false, BYTES_PER_INSTANCE, column * 16);
+			Gdx.gl30.glVertexAttribDivisor(location, 1);
+		}
+		if (normalLocation >= 0) {
+			for (int column = 0; column < 3; column++) {
+				final int location = normalLocation + column;
+				gl.glEnableVertexAttribArray(location);
+				gl.glVertexAttribPointer(location, 3, GL20.GL_FLOAT, false, BYTES_PER_INSTANCE, NORMAL_OFFSET + column * 12);
+				Gdx.gl30.glVertexAttribDivisor(location, 1);
+			}
+		}
+
+		gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+	}
+
+	/**
+	 * Resets the divisors so the locations can be reused by non instanced meshes sharing the same vertex array state.
+	 */
+	public void unbind (int transformLocation, int normalLocation) {
+		for (int column = 0; column < 4; column++) {
+			final int location = transformLocation + column;
+			Gdx.gl30.glVertexAttribDivisor(location, 0);
+			Gdx.gl.glDisableVertexAttribArray(location);
+		}
+		if (normalLocation >= 0) {
+			for (int column = 0; column < 3; column++) {
+				final int location = normalLocation + column;
+				Gdx.gl30.glVertexAttribDivisor(location, 0);
+				Gdx.gl.glDisableVertexAttribArray(location);
+			}
+		}
+	}
+
+	@Override
+	public void dispose () {
+		if (bufferHandle != 0) {
+			Gdx.gl.glDeleteBuffer(bufferHandle);
+			bufferHandle = 0;
+		}
+	}
+}
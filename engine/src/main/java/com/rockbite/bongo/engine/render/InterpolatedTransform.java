@@ -0,0 +1,118 @@
+package com.rockbite.bongo.engine.render;
+
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Quaternion;
+import com.badlogic.gdx.math.Vector3;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the state of a transform from before the last logic tick, and the transform render passes draw with, blended
+ * between that state and the current one.
+ * <p>
+ * Translation and scale are lerped and rotation is slerped, so rotating objects keep their shape. Transforms that did
+ * not change over the tick are copied as they are.
+ */
+public class InterpolatedTransform {
+
+	private final Matrix4 previous = new Matrix4();
+	private final Matrix4 interpolated = new Matrix4();
+
+	/**
+	 * False until the first snapshot, and again after {@link #reset()}
+	 */
+	private boolean captured;
+
+	/**
+	 * Set once interpolated, render transforms fall back to the current transform before that and after {@link #reset()}
+	 */
+	private boolean active;
+
+	private static final Vector3 tmpPreviousTranslation = new Vector3();
+	private static final Vector3 tmpCurrentTranslation = new Vector3();
+	private static final Vector3 tmpPreviousScale = new Vector3();
+	private static final Vector3 tmpCurrentScale = new Vector3();
+	private static final Quaternion tmpPreviousRotation = new Quaternion();
+	private static final Quaternion tmpCurrentRotation = new Quaternion();
+	private static final Matrix4 tmpRotation = new Matrix4();
+
+	/**
+	 * Stores current as the state before the next logic tick
+	 */
+	public void capture (Matrix4 current) {
+		previous.set(current);
+		captured = true;
+	}
+
+	/**
+	 * Renders the current transform without blending until interpolated again, e.g. after teleporting an object or
+	 * when interpolation stops
+	 */
+	public void reset () {
+		captured = false;
+		active = false;
+	}
+
+	/**
+	 * Blends from the captured state to current by alpha, 0 renders the state before the last logic tick and 1 the
+	 * current one. Render thread only, shares temporaries between instances.
+	 */
+	public Matrix4 interpolate (Matrix4 current, float alpha) {
+		active = true;
+
+		if (!captured) {
+			capture(current);
+		}
+
+		if (alpha >= 1f || Arrays.equals(previous.val, current.val)) {
+			return interpolated.set(current);
+		}
+
+		previous.getTranslation(tmpPreviousTranslation);
+		current.getTranslation(tmpCurrentTranslation);
+		decompose(previous, tmpPreviousScale, tmpPreviousRotation);
+		decompose(current, tmpCurrentScale, tmpCurrentRotation);
+
+		tmpPreviousTranslation.lerp(tmpCurrentTranslation, alpha);
+		tmpPreviousScale.lerp(tmpCurrentScale, alpha);
+		tmpPreviousRotation.slerp(tmpCurrentRotation, alpha);
+
+		return interpolated.set(tmpPreviousTranslation, tmpPreviousRotation, tmpPreviousScale);
+	}
+
+	/**
+	 * Scale and rotation of a translation * rotation * scale transform. {@link Matrix4#getScale(Vector3)} measures rows,
+	 * which only holds for uniform scale, so axes are measured by column here.
+	 */
+	private static void decompose (Matrix4 transform, Vector3 scale, Quaternion rotation) {
+		final float[] val = transform.val;
+		scale.set(
+			Vector3.len(val[Matrix4.M00], val[Matrix4.M10], val[Matrix4.M20]),
+			Vector3.len(val[Matrix4.M01], val[Matrix4.M11], val[Matrix4.M21]),
+			Vector3.len(val[Matrix4.M02], val[Matrix4.M12], val[Matrix4.M22])
+		);
+
+		final float[] rotationVal = tmpRotation.idt().val;
+		for (int row = 0; row < 3; row++) {
+			rotationVal[row] = scale.x == 0 ? 0 : val[row] / scale.x;
+			rotationVal[4 + row] = scale.y == 0 ? 0 : val[4 + row] / scale.y;
+			rotationVal[8 + row] = scale.z == 0 ? 0 : val[8 + row] / scale.z;
+		}
+		tmpRotation.getRotation(rotation);
+	}
+
+	/**
+	 * The transform to draw with, current until interpolated for the first time
+	 */
+	public Matrix4 getRenderTransform (Matrix4 current) {
+		return active ? interpolated : current;
+	}
+
+	public Matrix4 getPrevious () {
+		return previous;
+	}
+
+	public boolean isActive () {
+		return active;
+	}
+}
@@ -0,0 +1,83 @@
+package com.rockbite.bongo.engine.render;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.rockbite.bongo.engine.components.render.PointLight;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+
+/**
+ * std140 uniform buffer holding the active point lights, shared by every lit shader.
+ * Uploaded once per frame and bound to {@link #BINDING_POINT}, shaders only link their PointLightBlock to that binding
+ * point once after compiling, so drawing does no per shader light uploads at all. GL3 only.
+ */
+public class PointLightUniformBuffer implements Disposable {
+
+	public static final String BLOCK_NAME = "PointLightBlock";
+	public static final int BINDING_POINT = 0;
+
+	/** vec3 worldPosition padded to 16 bytes, vec4 rgbRadiance */
+	private static final int FLOATS_PER_LIGHT = 8;
+
+	/** Unused slots are parked here with zero radiance, so the falloff never divides by zero */
+	private static final float UNUSED_LIGHT_DISTANCE = 1e6f;
+
+	private FloatBuffer staging;
+	private int bufferHandle;
+
+	/**
+	 * Links the PointLightBlock of program, if it declares one, to {@link #BINDING_POINT}
+	 */
+	public static void bindBlock (ShaderProgram program) {
+		final int blockIndex = Gdx.gl30.glGetUniformBlockIndex(program.getHandle(), BLOCK_NAME);
+		if (blockIndex != GL30.GL_INVALID_INDEX) {
+			Gdx.gl30.glUniformBlockBinding(program.getHandle(), blockIndex, BINDING_POINT);
+		}
+	}
+
+	/**
+	 * @param capacity size of the shader side array, slots past lights.size are cleared
+	 */
+	public void upload (Array<PointLight> lights, int capacity) {
+		final int floats = capacity * FLOATS_PER_LIGHT;
+		if (staging == null || staging.capacity() < floats) {
+			staging = BufferUtils.newFloatBuffer(floats);
+		}
+		((Buffer)staging).clear();
+
+		for (int i = 0; i < capacity; i++) {
+			if (i < lights.size) {
+				final PointLight light = lights.get(i);
+				final Vector3 position = light.getWorldPosition();
+				staging.put(position.x).put(position.y).put(position.z).put(0);
+				staging.put(light.getR()).put(light.getG()).put(light.getB()).put(light.getStrength());
+			} else {
+				staging.put(UNUSED_LIGHT_DISTANCE).put(UNUSED_LIGHT_DISTANCE).put(UNUSED_LIGHT_DISTANCE).put(0);
+				staging.put(0).put(0).put(0).put(0);
+			}
+		}
+		((Buffer)staging).flip();
+
+		if (bufferHandle == 0) {
+			bufferHandle = Gdx.gl.glGenBuffer();
+		}
+		Gdx.gl.glBindBuffer(GL30.GL_UNIFORM_BUFFER, bufferHandle);
+		Gdx.gl.glBufferData(GL30.GL_UNIFORM_BUFFER, floats * 4, staging, GL30.GL_DYNAMIC_DRAW);
+		Gdx.gl.glBindBuffer(GL30.GL_UNIFORM_BUFFER, 0);
+		Gdx.gl30.glBindBufferBase(GL30.GL_UNIFORM_BUFFER, BINDING_POINT, bufferHandle);
+	}
+
+	@Override
+	public void dispose () {
+		if (bufferHandle != 0) {
+			Gdx.gl.glDeleteBuffer(bufferHandle);
+			bufferHandle = 0;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.rockbite.bongo.engine.render;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.LongMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of include expanded shader sources, keyed by a hash of the raw contents of every file a shader depends on.
+ * <p>
+ * Variants of a shader only differ by their prefix, so they all share a single expansion. When a cache directory is set
+ * expansions are also written to disk, and later runs skip include expansion entirely. Editing any dependency changes
+ * the hash, so stale entries are never read.
+ */
+public class ShaderSourceCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(ShaderSourceCache.class);
+
+	public static final long HASH_SEED = 0xCBF29CE484222325L;
+
+	private static final String VERTEX_SUFFIX = ".vert.glsl";
+	private static final String FRAGMENT_SUFFIX = ".frag.glsl";
+
+	private static final LongMap<String[]> expandedSources = new LongMap<>();
+
+	private static FileHandle cacheDirectory;
+
+	/**
+	 * @param directory where expanded sources are persisted, null to only cache in memory
+	 */
+	public static void setCacheDirectory (FileHandle directory) {
+		cacheDirectory = directory;
+		if (directory != null) {
+			directory.mkdirs();
+		}
+	}
+
+	public static FileHandle getCacheDirectory () {
+		return cacheDirectory;
+	}
+
+	/**
+	 * @return {vertex, fragment} sources, or null if nothing is cached for this hash
+	 */
+	public static String[] get (long sourceHash) {
+		String[] sources = expandedSources.get(sourceHash);
+		if (sources != null || cacheDirectory == null) return sources;
+
+		final FileHandle vertex = cacheDirectory.child(fileName(sourceHash, VERTEX_SUFFIX));
+		final FileHandle fragment = cacheDirectory.child(fileName(sourceHash, FRAGMENT_SUFFIX));
+		if (!vertex.exists() || !fragment.exists()) return null;
+
+		try {
+			sources = new String[]{vertex.readString(), fragment.readString()};
+		} catch (GdxRuntimeException e) {
+			logger.warn("Unable to read cached shader sources " + Long.toHexString(sourceHash), e);
+			return null;
+		}
+		expandedSources.put(sourceHash, sources);
+		return sources;
+	}
+
+	public static void put (long sourceHash, String vertex, String fragment) {
+		expandedSources.put(sourceHash, new String[]{vertex, fragment});
+
+		if (cacheDirectory == null) return;
+		try {
+			cacheDirectory.child(fileName(sourceHash, VERTEX_SUFFIX)).writeString(vertex, false);
+			cacheDirectory.child(fileName(sourceHash, FRAGMENT_SUFFIX)).writeString(fragment, false);
+		} catch (GdxRuntimeException e) {
+			logger.warn("Unable to persist shader sources " + Long.toHexString(sourceHash), e);
+		}
+	}
+
+	/**
+	 * Drops the in memory entries, files in the cache directory are left alone
+	 */
+	public static void clear () {
+		expandedSources.clear();
+	}
+
+	/**
+	 * 64 bit FNV-1a over the characters of source, chained from hash
+	 */
+	public static long hash (long hash, String source) {
+		for (int i = 0, n = source.length(); i < n; i++) {
+			hash ^= source.charAt(i);
+			hash *= 0x100000001B3L;
+		}
+		return hash;
+	}
+
+	private static String fileName (long sourceHash, String suffix) {
+		return Long.toHexString(sourceHash) + suffix;
+	}
+}
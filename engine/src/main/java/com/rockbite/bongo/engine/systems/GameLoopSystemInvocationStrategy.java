@@ -20,6 +20,8 @@ import com.artemis.BaseSystem;
 import com.artemis.SystemInvocationStrategy;
 import com.artemis.utils.BitVector;
 import com.badlogic.gdx.utils.Array;
+import com.rockbite.bongo.engine.Bongo;
+import com.rockbite.bongo.engine.profiling.SystemProfiler;
 
 import java.util.concurrent.TimeUnit;
 
@@ -33,6 +35,7 @@ public class GameLoopSystemInvocationStrategy extends SystemInvocationStrategy {
 
 	private final Array<BaseSystem> logicMarkedSystems;
 	private final Array<BaseSystem> otherSystems;
+	private final Array<BaseSystem> logicTickListeners;
 
 	private long nanosPerLogicTick; // ~ dt
 	private long currentTime = System.nanoTime();
@@ -44,6 +47,11 @@ public class GameLoopSystemInvocationStrategy extends SystemInvocationStrategy {
 	private final BitVector disabledlogicMarkedSystems = new BitVector();
 	private final BitVector disabledOtherSystems = new BitVector();
 
+	/**
+	 * Records system timings of every frame while {@link Bongo#PROFILE_SYSTEMS} is enabled
+	 */
+	private final SystemProfiler profiler = new SystemProfiler();
+
 	public GameLoopSystemInvocationStrategy () {
 		this(40);
 	}
@@ -60,12 +68,32 @@ public class GameLoopSystemInvocationStrategy extends SystemInvocationStrategy {
 		this.nanosPerLogicTick = TimeUnit.MILLISECONDS.toNanos(millisPerLogicTick);
 		logicMarkedSystems = new Array<BaseSystem>();
 		otherSystems = new Array<BaseSystem>();
+		logicTickListeners = new Array<BaseSystem>();
 	}
 
 	public void setNanosPerLogicTick (long nanosPerLogicTick) {
 		this.nanosPerLogicTick = nanosPerLogicTick;
 	}
 
+	/**
+	 * Length of one logic tick in seconds, the step {@link PhysicsStepMarker} systems are expected to advance by
+	 */
+	public float getSecondsPerLogicTick () {
+		return nanosPerLogicTick * 0.000000001f;
+	}
+
+	/**
+	 * Fraction of a logic tick accumulated but not yet simulated, from 0 to 1. Render systems interpolate between the
+	 * state before and after the last logic tick by it.
+	 */
+	public float getAlpha () {
+		return (float)accumulator / nanosPerLogicTick;
+	}
+
+	public SystemProfiler getProfiler () {
+		return profiler;
+	}
+
 
 	private void sortSystems () {
 		if (!systemsSorted) {
@@ -77,8 +105,20 @@ public class GameLoopSystemInvocationStrategy extends SystemInvocationStrategy {
 				} else {
 					otherSystems.add(system);
 				}
+				if (system instanceof LogicTickListener) {
+					logicTickListeners.add(system);
+				}
 			}
 			systemsSorted = true;
+
+			final String[] systemNames = new String[logicMarkedSystems.size + otherSystems.size];
+			for (int i = 0; i < logicMarkedSystems.size; i++) {
+				systemNames[i] = logicMarkedSystems.get(i).getClass().getSimpleName();
+			}
+			for (int i = 0; i < otherSystems.size; i++) {
+				systemNames[logicMarkedSystems.size + i] = otherSystems.get(i).getClass().getSimpleName();
+			}
+			profiler.setSystemNames(systemNames);
 		}
 	}
 
@@ -98,10 +138,16 @@ public class GameLoopSystemInvocationStrategy extends SystemInvocationStrategy {
 		currentTime = newTime;
 		accumulator += frameTime;
 
+		// read once, so toggling mid frame never leaves a frame half recorded
+		final SystemProfiler profiler = Bongo.PROFILE_SYSTEMS ? this.profiler : null;
+		if (profiler != null) {
+			profiler.beginFrame(newTime);
+		}
+
 		// required since artemis-odb-2.0.0-RC4, updateEntityStates() must be called
 		// before processing the first system - in case any entities are
 		// added outside the main process loop
-		updateEntityStates();
+		updateEntityStates(profiler, -1);
 
 		/**
 		 * Uncomment this line if you use the world's delta within your systems.
@@ -109,20 +155,24 @@ public class GameLoopSystemInvocationStrategy extends SystemInvocationStrategy {
 		 */
 //		world.setDelta(nanosPerLogicTick * 0.000000001f);
 
+		int tick = 0;
 		while (accumulator >= nanosPerLogicTick) {
-			/** Process all entity systems inheriting from {@link PhysicsStepMarker} */
-			for (int i = 0; i < logicMarkedSystems.size; i++) {
-				/**
-				 * Make sure your systems keep the current state before calculating the new state
-				 * else you cannot interpolate later on when rendering
-				 */
-				if (disabledlogicMarkedSystems.get(i)) {
-					continue;
+			final long tickStart = profiler != null ? System.nanoTime() : 0;
+
+			for (int i = 0; i < logicTickListeners.size; i++) {
+				final BaseSystem listener = logicTickListeners.get(i);
+				if (isEnabled(listener)) {
+					((LogicTickListener)listener).beforeLogicTick();
 				}
-				logicMarkedSystems.get(i).process();
-				updateEntityStates();
 			}
 
+			processLogicSystems(tick, profiler);
+
+			if (profiler != null) {
+				profiler.record(profiler.getLogicTickEvent(), tick, tickStart, System.nanoTime() - tickStart);
+			}
+			tick++;
+
 			accumulator -= nanosPerLogicTick;
 		}
 
@@ -133,9 +183,15 @@ public class GameLoopSystemInvocationStrategy extends SystemInvocationStrategy {
 
 		/**
 		 * When you divide accumulator by nanosPerLogicTick you get your alpha.
-		 * You can store the alpha value in a GameStateComponent f.e.
+		 * Listeners interpolate their render state with it before any render system runs.
 		 */
-//		float alpha = (float) accumulator / nanosPerLogicTick;
+		final float alpha = getAlpha();
+		for (int i = 0; i < logicTickListeners.size; i++) {
+			final BaseSystem listener = logicTickListeners.get(i);
+			if (isEnabled(listener)) {
+				((LogicTickListener)listener).afterLogicTicks(alpha);
+			}
+		}
 
 		/** Process all NON {@link PhysicsStepMarker} inheriting entity systems */
 		for (int i = 0; i < otherSystems.size; i++) {
@@ -145,9 +201,67 @@ public class GameLoopSystemInvocationStrategy extends SystemInvocationStrategy {
 			if (disabledOtherSystems.get(i)) {
 				continue;
 			}
-			otherSystems.get(i).process();
+			processSystem(otherSystems.get(i), logicMarkedSystems.size + i, -1, profiler);
+		}
+
+		if (profiler != null) {
+			profiler.endFrame(System.nanoTime());
+		}
+	}
+
+	/**
+	 * Runs every enabled {@link PhysicsStepMarker} system once, for one logic tick
+	 *
+	 * @param profiler null when not profiling
+	 */
+	protected void processLogicSystems (int tick, SystemProfiler profiler) {
+		/** Process all entity systems inheriting from {@link PhysicsStepMarker} */
+		for (int i = 0; i < logicMarkedSystems.size; i++) {
+			/**
+			 * Make sure your systems keep the current state before calculating the new state
+			 * else you cannot interpolate later on when rendering
+			 */
+			if (disabledlogicMarkedSystems.get(i)) {
+				continue;
+			}
+			processSystem(logicMarkedSystems.get(i), i, tick, profiler);
+		}
+	}
+
+	/**
+	 * {@link PhysicsStepMarker} systems in invocation order, their indices are their profiler events
+	 */
+	protected Array<BaseSystem> getLogicMarkedSystems () {
+		return logicMarkedSystems;
+	}
+
+	protected boolean isLogicSystemDisabled (int index) {
+		return disabledlogicMarkedSystems.get(index);
+	}
+
+	protected void processSystem (BaseSystem system, int event, int tick, SystemProfiler profiler) {
+		if (profiler == null) {
+			system.process();
 			updateEntityStates();
+			return;
 		}
+
+		final long start = System.nanoTime();
+		system.process();
+		profiler.record(event, tick, start, System.nanoTime() - start);
+
+		updateEntityStates(profiler, tick);
+	}
+
+	protected void updateEntityStates (SystemProfiler profiler, int tick) {
+		if (profiler == null) {
+			updateEntityStates();
+			return;
+		}
+
+		final long start = System.nanoTime();
+		updateEntityStates();
+		profiler.record(profiler.getEntityStatesEvent(), tick, start, System.nanoTime() - start);
 	}
 
 	@Override
@@ -0,0 +1,20 @@
+package com.rockbite.bongo.engine.systems;
+
+/**
+ * Systems implementing this are notified by {@link GameLoopSystemInvocationStrategy} around logic ticks, on the thread
+ * processing the world. Lets render side state be interpolated between the last two ticks.
+ */
+public interface LogicTickListener {
+
+	/**
+	 * Called before each logic tick, before any {@link PhysicsStepMarker} system runs
+	 */
+	void beforeLogicTick ();
+
+	/**
+	 * Called once per frame after the logic ticks and before the render systems
+	 *
+	 * @param alpha see {@link GameLoopSystemInvocationStrategy#getAlpha()}
+	 */
+	void afterLogicTicks (float alpha);
+}
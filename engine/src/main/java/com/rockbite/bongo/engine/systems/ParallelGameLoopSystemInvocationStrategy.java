@@ -0,0 +1,342 @@
+package com.rockbite.bongo.engine.systems;
+
+import com.artemis.BaseEntitySystem;
+import com.artemis.BaseSystem;
+import com.artemis.World;
+import com.artemis.utils.BitVector;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.rockbite.bongo.engine.Bongo;
+import com.rockbite.bongo.engine.annotations.SystemAccess;
+import com.rockbite.bongo.engine.profiling.SystemProfiler;
+import com.rockbite.bongo.engine.threadutil.ThreadUtils;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link GameLoopSystemInvocationStrategy} that runs the {@link PhysicsStepMarker} systems of a logic tick concurrently
+ * on {@link ThreadUtils#getWorkerPool()} wherever they do not conflict. Render systems still run one after the other on
+ * the thread processing the world.
+ * <p>
+ * Only systems annotated with {@link SystemAccess} run concurrently, they declare the types they read and write, and
+ * every system writes itself. Two systems conflict when one writes a type the other reads or writes, and the later
+ * registered one then waits for the earlier one. Systems that conflict with nothing between them run at the same time.
+ * Systems without the annotation run exclusive, as nothing is known about what they touch.
+ * <p>
+ * Entity states are no longer updated after every system. They are flushed at sync points instead, at the end of the
+ * tick and around {@link SystemAccess#exclusive()} systems, which run alone. Parallel systems must therefore not create
+ * or delete entities, nor add or remove components, they have to be exclusive to do so. In debug this is checked after
+ * every parallel system. Entity subscriptions are brought up to date on the world thread before parallel systems
+ * start, so systems sharing an aspect do not rebuild the same subscription concurrently. {@link RenderPassSystem}s and
+ * {@link SystemAccess#glThread()} systems run on the thread processing the world.
+ */
+public class ParallelGameLoopSystemInvocationStrategy extends GameLoopSystemInvocationStrategy {
+
+	/**
+	 * Consecutive logic systems between two sync points, or a single exclusive system
+	 */
+	private Array<Segment> segments;
+
+	private final ForkJoinPool pool;
+
+	private Thread worldThread;
+	private final ConcurrentLinkedQueue<Node> pinnedReady = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger remaining = new AtomicInteger();
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	/**
+	 * Pending entity changes of the world, only read in debug to catch parallel systems editing it
+	 */
+	private BitVector pendingChanges;
+	private BitVector pendingDeletes;
+
+	public ParallelGameLoopSystemInvocationStrategy () {
+		this(40);
+	}
+
+	public ParallelGameLoopSystemInvocationStrategy (int millisPerLogicTick) {
+		this(millisPerLogicTick, ThreadUtils.getWorkerPool());
+	}
+
+	public ParallelGameLoopSystemInvocationStrategy (int millisPerLogicTick, ForkJoinPool pool) {
+		super(millisPerLogicTick);
+		this.pool = pool;
+	}
+
+	@Override
+	protected void processLogicSystems (int tick, SystemProfiler profiler) {
+		if (segments == null) {
+			segments = buildSegments(getLogicMarkedSystems());
+			if (Bongo.DEBUG) {
+				resolvePendingEdits();
+			}
+		}
+
+		for (int i = 0; i < segments.size; i++) {
+			final Segment segment = segments.get(i);
+			if (segment.exclusive) {
+				final Node node = segment.nodes.get(0);
+				if (isLogicSystemDisabled(node.index)) continue;
+
+				// states were flushed after whatever ran before, and are again after this system
+				processSystem(node.system, node.index, tick, profiler);
+			} else {
+				runSegment(segment, tick, profiler);
+				updateEntityStates(profiler, tick);
+			}
+		}
+	}
+
+	/**
+	 * Systems in order of their sync points, for debugging the derived schedule
+	 */
+	public String describeSchedule () {
+		if (segments == null) {
+			segments = buildSegments(getLogicMarkedSystems());
+		}
+
+		final StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < segments.size; i++) {
+			final Segment segment = segments.get(i);
+			builder.append(segment.exclusive ? "exclusive" : "parallel").append('\n');
+			for (Node node : segment.nodes) {
+				builder.append("  ").append(node.system.getClass().getSimpleName());
+				if (node.pinned) builder.append(" (gl thread)");
+				if (node.successors.size > 0) {
+					builder.append(" ->");
+					for (int j = 0; j < node.successors.size; j++) {
+						builder.append(' ').append(segment.nodes.get(node.successors.get(j)).system.getClass().getSimpleName());
+					}
+				}
+				builder.append('\n');
+			}
+		}
+		return builder.toString();
+	}
+
+	private void runSegment (Segment segment, int tick, SystemProfiler profiler) {
+		final Array<Node> nodes = segment.nodes;
+
+		// subscriptions rebuild lazily, do it here rather than in systems sharing them on worker threads
+		updateEntityStates(profiler, tick);
+		for (int i = 0; i < nodes.size; i++) {
+			final BaseSystem system = nodes.get(i).system;
+			if (system instanceof BaseEntitySystem) {
+				((BaseEntitySystem)system).getSubscription().getEntities();
+			}
+		}
+
+		worldThread = Thread.currentThread();
+		failure.set(null);
+		remaining.set(nodes.size);
+		for (int i = 0; i < nodes.size; i++) {
+			final Node node = nodes.get(i);
+			node.pending.set(node.predecessorCount);
+			node.start = 0;
+			node.duration = -1;
+		}
+		for (int i = 0; i < nodes.size; i++) {
+			final Node node = nodes.get(i);
+			if (node.predecessorCount == 0) {
+				schedule(segment, node, profiler != null);
+			}
+		}
+
+		while (remaining.get() > 0) {
+			final Node node = pinnedReady.poll();
+			if (node != null) {
+				run(segment, node, profiler != null);
+			} else {
+				LockSupport.park(this);
+			}
+		}
+
+		final Throwable throwable = failure.getAndSet(null);
+		if (throwable != null) {
+			throw new GdxRuntimeException("Logic system failed", throwable);
+		}
+
+		// the profiler is not thread safe, timings are recorded once all systems are done
+		if (profiler != null) {
+			for (int i = 0; i < nodes.size; i++) {
+				final Node node = nodes.get(i);
+				if (node.duration >= 0) {
+					profiler.record(node.index, tick, node.start, node.duration);
+				}
+			}
+		}
+	}
+
+	private void schedule (Segment segment, Node node, boolean timed) {
+		if (node.pinned) {
+			pinnedReady.add(node);
+			LockSupport.unpark(worldThread);
+		} else {
+			pool.execute(() -> run(segment, node, timed));
+		}
+	}
+
+	private void run (Segment segment, Node node, boolean timed) {
+		try {
+			if (!isLogicSystemDisabled(node.index) && failure.get() == null) {
+				final long start = timed ? System.nanoTime() : 0;
+				node.system.process();
+				if (timed) {
+					node.start = start;
+					node.duration = System.nanoTime() - start;
+				}
+				if (pendingChanges != null && (!pendingChanges.isEmpty() || !pendingDeletes.isEmpty())) {
+					throw new GdxRuntimeException(node.system.getClass().getSimpleName()
+						+ " edited entities while running in parallel, annotate it with @SystemAccess(exclusive = true)");
+				}
+			}
+		} catch (Throwable throwable) {
+			failure.compareAndSet(null, throwable);
+		} finally {
+			for (int i = 0; i < node.successors.size; i++) {
+				final Node successor = segment.nodes.get(node.successors.get(i));
+				if (successor.pending.decrementAndGet() == 0) {
+					schedule(segment, successor, timed);
+				}
+			}
+			if (remaining.decrementAndGet() == 0) {
+				LockSupport.unpark(worldThread);
+			}
+		}
+	}
+
+	/**
+	 * Artemis keeps pending entity changes package private, they are read reflectively for the debug check
+	 */
+	private void resolvePendingEdits () {
+		try {
+			final Field batchProcessorField = World.class.getDeclaredField("batchProcessor");
+			batchProcessorField.setAccessible(true);
+			final Object batchProcessor = batchProcessorField.get(world);
+
+			final Field changedField = batchProcessor.getClass().getDeclaredField("changed");
+			changedField.setAccessible(true);
+			final Field deletedField = batchProcessor.getClass().getDeclaredField("deleted");
+			deletedField.setAccessible(true);
+
+			pendingChanges = (BitVector)changedField.get(batchProcessor);
+			pendingDeletes = (BitVector)deletedField.get(batchProcessor);
+		} catch (NoSuchFieldException | IllegalAccessException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static Array<Segment> buildSegments (Array<BaseSystem> systems) {
+		final Array<Segment> segments = new Array<>();
+
+		Segment current = null;
+		for (int i = 0; i < systems.size; i++) {
+			final BaseSystem system = systems.get(i);
+			final Node node = new Node(system, i);
+
+			if (node.exclusive) {
+				final Segment exclusive = new Segment(true);
+				exclusive.nodes.add(node);
+				segments.add(exclusive);
+				current = null;
+				continue;
+			}
+
+			if (current == null) {
+				current = new Segment(false);
+				segments.add(current);
+			}
+
+			// edges only go from earlier to later systems, so the graph has no cycles
+			final int nodeIndex = current.nodes.size;
+			for (int j = 0; j < nodeIndex; j++) {
+				final Node earlier = current.nodes.get(j);
+				if (earlier.conflicts(node)) {
+					earlier.successors.add(nodeIndex);
+					node.predecessorCount++;
+				}
+			}
+			current.nodes.add(node);
+		}
+
+		return segments;
+	}
+
+	private static class Segment {
+		private final boolean exclusive;
+		private final Array<Node> nodes = new Array<>();
+
+		private Segment (boolean exclusive) {
+			this.exclusive = exclusive;
+		}
+	}
+
+	private static class Node {
+		private final BaseSystem system;
+		/**
+		 * Index among the logic systems, also the profiler event
+		 */
+		private final int index;
+
+		private final ObjectSet<Class<?>> reads = new ObjectSet<>();
+		private final ObjectSet<Class<?>> writes = new ObjectSet<>();
+		private final boolean exclusive;
+		private final boolean pinned;
+
+		private final IntArray successors = new IntArray();
+		private int predecessorCount;
+		private final AtomicInteger pending = new AtomicInteger();
+
+		private long start;
+		private long duration;
+
+		private Node (BaseSystem system, int index) {
+			this.system = system;
+			this.index = index;
+
+			final Class<? extends BaseSystem> systemClass = system.getClass();
+			final SystemAccess access = systemClass.getAnnotation(SystemAccess.class);
+
+			writes.add(systemClass);
+			if (access != null) {
+				for (Class<?> type : access.reads()) {
+					reads.add(type);
+				}
+				for (Class<?> type : access.writes()) {
+					writes.add(type);
+				}
+			}
+
+			exclusive = access == null || access.exclusive();
+			pinned = system instanceof RenderPassSystem || (access != null && access.glThread());
+		}
+
+		private boolean conflicts (Node other) {
+			for (Class<?> type : writes) {
+				if (other.writes.contains(type) || other.reads.contains(type) || other.writesSubtypeOf(type)) return true;
+			}
+			for (Class<?> type : other.writes) {
+				if (reads.contains(type) || writesSubtypeOf(type)) return true;
+			}
+			return false;
+		}
+
+		/**
+		 * A system referencing another by a super type still conflicts with it
+		 */
+		private boolean writesSubtypeOf (Class<?> type) {
+			if (!BaseSystem.class.isAssignableFrom(type)) return false;
+			for (Class<?> written : writes) {
+				if (written != type && type.isAssignableFrom(written)) return true;
+			}
+			return false;
+		}
+	}
+}
@@ -7,9 +7,11 @@ import com.artemis.Entity;
 import com.artemis.EntityEdit;
 import com.artemis.EntitySubscription;
 import com.artemis.annotations.All;
+import com.artemis.utils.IntBag;
 import com.badlogic.gdx.Files;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.moandjiezana.toml.Toml;
 import com.moandjiezana.toml.TomlWriter;
@@ -20,6 +22,7 @@ import com.rockbite.bongo.engine.fileutil.ReloadUtils;
 import com.rockbite.bongo.engine.gltf.scene.SceneModelInstance;
 import com.rockbite.bongo.engine.prefab.Marshallable;
 import com.rockbite.bongo.engine.prefab.PrefabConfig;
+import com.rockbite.bongo.engine.prefab.PrefabInstantiationPlan;
 import com.rockbite.bongo.engine.prefab.PrefabReader;
 import net.mostlyoriginal.api.event.common.EventSystem;
 import org.slf4j.Logger;
@@ -32,6 +35,22 @@ public class PrefabSystem extends BaseSystem {
 
 	private static Logger logger = LoggerFactory.getLogger(PrefabSystem.class);
 
+	/**
+	 * Entities {@link #spawn(String, int, SpawnInitializer)} creates before handing them to the initializer
+	 */
+	private static final int SPAWN_BATCH_SIZE = 256;
+
+	public interface SpawnInitializer {
+
+		/**
+		 * Called once per spawned entity, after the prefab data is copied in
+		 *
+		 * @param index position of the entity in the spawn, from 0 to count - 1
+		 */
+		void initialize (int entity, int index);
+
+	}
+
 	//MAPPERS
 	private ComponentMapper<Prefab> prefabComponentMapper;
 
@@ -41,6 +60,11 @@ public class PrefabSystem extends BaseSystem {
 
 	private ObjectMap<String, PrefabConfig> prefabIdentifierMap = new ObjectMap<>();
 
+	/**
+	 * Compiled on first use, and again once a reload replaces the config of the identifier
+	 */
+	private ObjectMap<String, PrefabInstantiationPlan> prefabPlanMap = new ObjectMap<>();
+
 	private Array<String> prefabFiles = new Array<>();
 
 	private PrefabReader prefabReader = new PrefabReader();
@@ -171,12 +195,16 @@ public class PrefabSystem extends BaseSystem {
 		}
 	}
 
-	private Entity createEntityFromPrefabConfig (PrefabConfig prefabConfig) {
-		Entity entity = world.createEntity();
-
-		updateEntityFromPrefab(entity.getId(), prefabConfig);
+	private PrefabInstantiationPlan getPlanForIdentifier (String identifier) {
+		final PrefabConfig prefabConfig = getConfigForIdentifier(identifier);
+		if (prefabConfig == null) return null;
 
-		return entity;
+		PrefabInstantiationPlan plan = prefabPlanMap.get(identifier);
+		if (plan == null || plan.getConfig() != prefabConfig) {
+			plan = new PrefabInstantiationPlan(world, prefabConfig);
+			prefabPlanMap.put(identifier, plan);
+		}
+		return plan;
 	}
 
 	public PrefabConfig getConfigForIdentifier (String identifier) {
@@ -189,8 +217,42 @@ public class PrefabSystem extends BaseSystem {
 	}
 
 	public Entity createEntityFromPrefabIdentifier (String identifier) {
-		final PrefabConfig configForIdentifier = getConfigForIdentifier(identifier);
-		return createEntityFromPrefabConfig(configForIdentifier);
+		final PrefabInstantiationPlan plan = getPlanForIdentifier(identifier);
+		if (plan == null) return null;
+		return world.getEntity(plan.create());
+	}
+
+	/**
+	 * Creates count entities from a prefab, in batches of {@link #SPAWN_BATCH_SIZE}. Each batch is allocated and filled
+	 * with the prefab data before the initializer sees any of its entities.
+	 *
+	 * @param count at least 1
+	 * @param initializer per entity setup on top of the prefab, can be null, may spawn other entities itself
+	 * @return entities spawned, 0 when there is no prefab for the identifier
+	 */
+	public int spawn (String identifier, int count, SpawnInitializer initializer) {
+		if (count <= 0) {
+			throw new GdxRuntimeException("Spawn count has to be positive: " + count);
+		}
+
+		final PrefabInstantiationPlan plan = getPlanForIdentifier(identifier);
+		if (plan == null) return 0;
+
+		// per call, an initializer spawning more entities must not refill the batch being initialized
+		final IntBag spawnBatch = new IntBag(Math.min(SPAWN_BATCH_SIZE, count));
+		for (int start = 0; start < count; start += SPAWN_BATCH_SIZE) {
+			final int batchSize = Math.min(SPAWN_BATCH_SIZE, count - start);
+			plan.create(batchSize, spawnBatch);
+
+			if (initializer != null) {
+				final int[] entities = spawnBatch.getData();
+				for (int i = 0; i < batchSize; i++) {
+					initializer.initialize(entities[i], start + i);
+				}
+			}
+		}
+
+		return count;
 	}
 
 
@@ -6,16 +6,19 @@ import com.artemis.Component;
 import com.artemis.ComponentMapper;
 import com.artemis.EntitySubscription;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.math.Frustum;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.utils.Array;
 import com.rockbite.bongo.engine.components.singletons.Cameras;
 import com.rockbite.bongo.engine.components.singletons.Environment;
 import com.rockbite.bongo.engine.components.singletons.RenderUtils;
+import com.rockbite.bongo.engine.gltf.scene.SceneGraph;
 import com.rockbite.bongo.engine.gltf.scene.SceneModelInstance;
 import com.rockbite.bongo.engine.gltf.scene.SceneRenderable;
-import com.rockbite.bongo.engine.gltf.scene.SceneRenderableProvider;
+import com.rockbite.bongo.engine.gltf.scene.SceneRenderQueue;
 import com.rockbite.bongo.engine.gltf.scene.shader.BaseSceneShader;
 import com.rockbite.bongo.engine.gltf.scene.shader.SceneShaderProvider;
+import com.rockbite.bongo.engine.render.InstanceTransformBuffer;
 
 
 public abstract class RenderPassSystem extends BaseSystem {
@@ -36,7 +39,7 @@ public abstract class RenderPassSystem extends BaseSystem {
 	}
 	public static GLViewportConfig glViewport = new GLViewportConfig(0, 0, Gdx.graphics.getBackBufferWidth(), Gdx.graphics.getBackBufferHeight());
 
-	private Cameras cameras;
+	protected Cameras cameras;
 	protected Environment environment;
 	protected RenderUtils renderUtils;
 
@@ -47,13 +50,18 @@ public abstract class RenderPassSystem extends BaseSystem {
 	protected ComponentMapper<SceneModelInstance> sceneNodeInstanceMapper;
 	protected EntitySubscription renderObjectsSubscription;
 
-	private SceneRenderableProvider sceneRenderableProvider = new SceneRenderableProvider();
+	private SceneRenderQueue renderQueue;
 
 	private Array<SceneRenderable> sceneRenderables = new Array<>();
 
 	private boolean shouldStartContext;
 	private boolean shouldEndContext;
 
+	private boolean frustumCulling = true;
+
+	private boolean instancedRendering;
+	private InstanceTransformBuffer instanceTransformBuffer;
+
 	public RenderPassSystem (SceneShaderProvider sceneShaderProvider, Class<? extends Component>... componentsToGather) {
 		this.sceneShaderProvider = sceneShaderProvider;
 		this.componentsToGather = componentsToGather;
@@ -65,6 +73,60 @@ public abstract class RenderPassSystem extends BaseSystem {
 		return this;
 	}
 
+	/**
+	 * Draw unskinned renderables that share shader, mesh and material with one instanced draw call.
+	 * Requires GL3, ignored on GL2. Passes whose shader doesn't read a_instanceSRT when instancedFlag is defined
+	 * (shaded, depth and shadow shaders do, water doesn't) fall back to drawing each renderable on its own.
+	 */
+	public RenderPassSystem setInstancedRendering (boolean instancedRendering) {
+		this.instancedRendering = instancedRendering && Gdx.gl30 != null;
+		if (this.instancedRendering && instanceTransformBuffer == null) {
+			instanceTransformBuffer = new InstanceTransformBuffer(128);
+		}
+		if (renderQueue != null) {
+			renderQueue.setInstanced(this.instancedRendering);
+		}
+		return this;
+	}
+
+	public boolean isInstancedRendering () {
+		return instancedRendering;
+	}
+
+	/**
+	 * Skip primitives whose world bounds are outside {@link #getCullingFrustum()}, on by default
+	 */
+	public RenderPassSystem setFrustumCulling (boolean frustumCulling) {
+		this.frustumCulling = frustumCulling;
+		return this;
+	}
+
+	public boolean isFrustumCulling () {
+		return frustumCulling;
+	}
+
+	/**
+	 * Frustum the gathered renderables are culled against, the game camera's by default.
+	 * Passes rendering from another point of view should override this.
+	 */
+	protected Frustum getCullingFrustum () {
+		return cameras.getGameCamera().frustum;
+	}
+
+	/**
+	 * @return primitives gathered for rendering this frame
+	 */
+	public int getVisibleCount () {
+		return renderQueue.getVisibleCount();
+	}
+
+	/**
+	 * @return primitives rejected by frustum culling this frame
+	 */
+	public int getCulledCount () {
+		return renderQueue.getCulledCount();
+	}
+
 
 	@Override
 	protected void initialize () {
@@ -74,6 +136,22 @@ public abstract class RenderPassSystem extends BaseSystem {
 
 		createSubscriptions();
 
+		renderQueue = new SceneRenderQueue(renderObjectsSubscription, sceneNodeInstanceMapper, sceneShaderProvider, instancedRendering);
+	}
+
+	/**
+	 * Compiles every shader variant this pass will need for the primitives of sceneGraph ahead of the first frame
+	 */
+	public void warmUp (SceneGraph sceneGraph) {
+		sceneShaderProvider.warmUp(sceneGraph, instancedRendering);
+	}
+
+	/**
+	 * Persistent list of everything this pass draws, see {@link SceneRenderQueue#invalidate(int)} for changes it does
+	 * not pick up by itself
+	 */
+	public SceneRenderQueue getRenderQueue () {
+		return renderQueue;
 	}
 
 	protected void createSubscriptions () {
@@ -103,8 +181,14 @@ public abstract class RenderPassSystem extends BaseSystem {
 	}
 
 	protected void collectRendables() {
-		sceneRenderableProvider.obtainSceneRenderables(renderObjectsSubscription, sceneNodeInstanceMapper, sceneShaderProvider, sceneRenderables);
-		sceneRenderableProvider.sort(sceneRenderables);
+		sceneRenderables = renderQueue.update(frustumCulling ? getCullingFrustum() : null, cameras.getGameCamera().position);
+	}
+
+	/**
+	 * Renderables gathered by the last {@link #collectRendables()}, in draw order
+	 */
+	protected Array<SceneRenderable> getCollectedRenderables () {
+		return sceneRenderables;
 	}
 
 	@Override
@@ -114,8 +198,6 @@ public abstract class RenderPassSystem extends BaseSystem {
 		if (shouldEndContext) {
 			renderUtils.getRenderContext().end();
 		}
-
-		sceneRenderableProvider.freeAll(sceneRenderables);
 	}
 
 	/**
@@ -123,16 +205,58 @@ public abstract class RenderPassSystem extends BaseSystem {
 	 */
 	public void renderAllCollectedRenderables () {
 		BaseSceneShader currentShader = null;
-		for (SceneRenderable renderable : sceneRenderables) {
+		for (int i = 0; i < sceneRenderables.size; ) {
+			final SceneRenderable renderable = sceneRenderables.get(i);
 			if (currentShader != renderable.shader) {
 				if (currentShader != null) currentShader.end();
 				currentShader = renderable.shader;
 				currentShader.begin(cameras, renderUtils, environment.getSceneEnvironment());
 			}
-			currentShader.render(renderable);
+
+			if (renderable.instanced && currentShader.supportsInstancing()) {
+				i = renderInstancedBatch(currentShader, i);
+			} else {
+				currentShader.render(renderable);
+				i++;
+			}
 		}
 		if (currentShader != null) currentShader.end();
 
 	}
 
+	/**
+	 * Collects the run of renderables starting at start that can share a single instanced draw, and draws them.
+	 * @return index of the first renderable not drawn
+	 */
+	private int renderInstancedBatch (BaseSceneShader shader, int start) {
+		final SceneRenderable first = sceneRenderables.get(start);
+		instanceTransformBuffer.clear();
+
+		int end = start;
+		while (end < sceneRenderables.size) {
+			final SceneRenderable renderable = sceneRenderables.get(end);
+			if (!renderable.instanced
+				|| renderable.shader != shader
+				|| renderable.sceneMesh.mesh != first.sceneMesh.mesh
+				|| renderable.sceneMesh.renderMode != first.sceneMesh.renderMode
+				|| renderable.material != first.material) {
+				break;
+			}
+			instanceTransformBuffer.add(renderable.worldTransform);
+			end++;
+		}
+
+		shader.renderInstanced(first, instanceTransformBuffer);
+		return end;
+	}
+
+	@Override
+	protected void dispose () {
+		super.dispose();
+		renderQueue.dispose();
+		if (instanceTransformBuffer != null) {
+			instanceTransformBuffer.dispose();
+		}
+	}
+
 }
@@ -2,39 +2,149 @@ package com.rockbite.bongo.engine.systems;
 
 import com.artemis.BaseSystem;
 import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Json;
 import com.rockbite.bongo.engine.components.singletons.Scenes;
+import com.rockbite.bongo.engine.gltf.GLTFBinary;
 import com.rockbite.bongo.engine.gltf.GLTFDataModel;
 import com.rockbite.bongo.engine.gltf.scene.SceneGraph;
+import com.rockbite.bongo.engine.gltf.scene.SceneLoadHandle;
 import com.rockbite.bongo.engine.gltf.scene.SceneResourceContext;
+import com.rockbite.bongo.engine.threadutil.ThreadUtils;
 import lombok.Getter;
+import lombok.Setter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class SceneLoaderSystem extends BaseSystem {
 
+	private static final Logger logger = LoggerFactory.getLogger(SceneLoaderSystem.class);
+
+	private static class PendingLoad {
+		private final SceneLoadHandle handle;
+		private volatile GLTFDataModel dataModel;
+		private volatile SceneResourceContext resourceContext;
+		private volatile Throwable error;
+
+		private PendingLoad (SceneLoadHandle handle) {
+			this.handle = handle;
+		}
+	}
 
 	@Getter
 	private Scenes scenes;
 
+	/**
+	 * Milliseconds per frame spent creating textures and meshes for async loads. At least one upload happens every
+	 * frame while loads are pending, so a single large texture can still go over.
+	 */
+	@Getter @Setter
+	private float uploadBudgetMillis = 2f;
+
+	private final Array<PendingLoad> pendingLoads = new Array<>();
+
 	/**
 	 * Process the system.
 	 */
 	@Override
 	protected void processSystem () {
+		if (pendingLoads.size == 0) return;
 
-	}
+		final long start = System.nanoTime();
+		final long budget = (long)(uploadBudgetMillis * 1000000L);
+
+		for (int i = 0; i < pendingLoads.size; ) {
+			final PendingLoad pendingLoad = pendingLoads.get(i);
 
+			if (pendingLoad.error != null) {
+				pendingLoads.removeIndex(i);
+				logger.error("Failed to load scene " + pendingLoad.handle.getHandle().path(), pendingLoad.error);
+				pendingLoad.handle.fail(pendingLoad.error);
+				continue;
+			}
+			if (pendingLoad.handle.getStage() != SceneLoadHandle.Stage.UPLOADING) {
+				i++;
+				continue;
+			}
 
+			final long remaining = budget - (System.nanoTime() - start);
+			if (remaining <= 0) return;
+
+			try {
+				if (!pendingLoad.resourceContext.upload(remaining)) return;
+
+				pendingLoads.removeIndex(i);
+				pendingLoad.handle.complete(addScene(pendingLoad.dataModel, pendingLoad.resourceContext));
+			} catch (RuntimeException e) {
+				pendingLoads.removeIndex(i);
+				logger.error("Failed to upload scene " + pendingLoad.handle.getHandle().path(), e);
+				pendingLoad.handle.fail(e);
+			}
+		}
+	}
+
+	/**
+	 * Loads a .gltf, with embedded or external buffers, or a .glb. External and binary buffers are memory mapped.
+	 */
 	public void loadScene (FileHandle handle) {
-		Json json = new Json();
-		json.setIgnoreUnknownFields(true);
-		final GLTFDataModel gltfModel = json.fromJson(GLTFDataModel.class, handle);
+		final GLTFBinary binary = GLTFBinary.isBinary(handle) ? GLTFBinary.read(handle) : null;
+		final GLTFDataModel gltfModel = parse(handle, binary);
 
 		SceneResourceContext sceneResourceContext = new SceneResourceContext();
-		sceneResourceContext.loadFromDataModel(gltfModel);
+		sceneResourceContext.loadFromDataModel(gltfModel, handle, binary != null ? binary.getBinaryChunk() : null);
 
+		addScene(gltfModel, sceneResourceContext);
+	}
+
+	/**
+	 * Parses, decodes images and interleaves vertices on the worker pool, then creates GL resources over the following
+	 * frames within {@link #uploadBudgetMillis}. The scene is added to {@link Scenes} when the handle completes.
+	 */
+	public SceneLoadHandle loadSceneAsync (FileHandle handle) {
+		final SceneLoadHandle loadHandle = new SceneLoadHandle(handle);
+		final PendingLoad pendingLoad = new PendingLoad(loadHandle);
+		pendingLoads.add(pendingLoad);
+
+		ThreadUtils.getWorkerPool().execute(() -> {
+			try {
+				final GLTFBinary binary = GLTFBinary.isBinary(handle) ? GLTFBinary.read(handle) : null;
+				final GLTFDataModel gltfModel = parse(handle, binary);
+
+				final SceneResourceContext sceneResourceContext = new SceneResourceContext();
+				sceneResourceContext.prepare(gltfModel, handle, binary != null ? binary.getBinaryChunk() : null, true);
+
+				pendingLoad.dataModel = gltfModel;
+				pendingLoad.resourceContext = sceneResourceContext;
+				loadHandle.prepared(sceneResourceContext);
+			} catch (Throwable e) {
+				pendingLoad.error = e;
+			}
+		});
+
+		return loadHandle;
+	}
+
+	public boolean hasPendingLoads () {
+		return pendingLoads.size > 0;
+	}
+
+	/**
+	 * @param binary the container when handle is a .glb, null for .gltf
+	 */
+	private GLTFDataModel parse (FileHandle handle, GLTFBinary binary) {
+		Json json = new Json();
+		json.setIgnoreUnknownFields(true);
+
+		if (binary != null) {
+			return json.fromJson(GLTFDataModel.class, binary.getJson());
+		}
+		return json.fromJson(GLTFDataModel.class, handle);
+	}
 
+	private SceneGraph addScene (GLTFDataModel gltfModel, SceneResourceContext sceneResourceContext) {
 		//load default scene
 		SceneGraph sceneGraph = new SceneGraph(gltfModel.getScenes()[gltfModel.getScene()], gltfModel, sceneResourceContext);
 		scenes.addScene(sceneGraph);
+		return sceneGraph;
 	}
 }
@@ -0,0 +1,80 @@
+package com.rockbite.bongo.engine.systems;
+
+import com.artemis.BaseEntitySystem;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.math.Matrix4;
+import com.rockbite.bongo.engine.render.InterpolatedTransform;
+
+/**
+ * Captures the transforms of its entities before every logic tick and blends them towards their current state by
+ * {@link GameLoopSystemInvocationStrategy#getAlpha()} once the ticks of a frame are done, see {@link LogicTickListener}.
+ * Logic can then run at a low fixed rate while render passes, which draw with the interpolated transforms, move objects
+ * smoothly at the display rate.
+ * <p>
+ * Does nothing on its own under other invocation strategies, render transforms then stay the current transforms.
+ * <p>
+ * Not registered by {@link com.rockbite.bongo.engine.EngineBuilder}, add it along with logic systems that move
+ * entities on the fixed tick. Transforms written every frame would be pulled back towards the last tick instead.
+ * Disabling the system hands entities back their current transforms.
+ */
+public abstract class TransformInterpolationSystem extends BaseEntitySystem implements LogicTickListener {
+
+	/**
+	 * Transform logic systems write to
+	 */
+	protected abstract Matrix4 getTransform (int entity);
+
+	protected abstract InterpolatedTransform getInterpolatedTransform (int entity);
+
+	@Override
+	protected void inserted (int entityId) {
+		// nothing to blend from yet, the first frame renders the transform as it is
+		getInterpolatedTransform(entityId).reset();
+	}
+
+	@Override
+	protected void removed (int entityId) {
+		getInterpolatedTransform(entityId).reset();
+	}
+
+	@Override
+	public void setEnabled (boolean enabled) {
+		if (isEnabled() && !enabled) {
+			final IntBag entities = getSubscription().getEntities();
+			final int[] ids = entities.getData();
+			for (int i = 0, s = entities.size(); i < s; i++) {
+				getInterpolatedTransform(ids[i]).reset();
+			}
+		}
+		super.setEnabled(enabled);
+	}
+
+	@Override
+	public void beforeLogicTick () {
+		final IntBag entities = getSubscription().getEntities();
+		final int[] ids = entities.getData();
+		for (int i = 0, s = entities.size(); i < s; i++) {
+			final Matrix4 transform = getTransform(ids[i]);
+			if (transform == null) continue;
+
+			getInterpolatedTransform(ids[i]).capture(transform);
+		}
+	}
+
+	@Override
+	public void afterLogicTicks (float alpha) {
+		final IntBag entities = getSubscription().getEntities();
+		final int[] ids = entities.getData();
+		for (int i = 0, s = entities.size(); i < s; i++) {
+			final Matrix4 transform = getTransform(ids[i]);
+			if (transform == null) continue;
+
+			getInterpolatedTransform(ids[i]).interpolate(transform, alpha);
+		}
+	}
+
+	@Override
+	protected void processSystem () {
+		// interpolated by the invocation strategy through LogicTickListener
+	}
+}
@@ -1,9 +1,9 @@
 package com.rockbite.bongo.engine.systems.render;
 
+import com.artemis.BaseEntitySystem;
 import com.artemis.ComponentMapper;
-import com.artemis.Entity;
 import com.artemis.annotations.All;
-import com.artemis.systems.EntityProcessingSystem;
+import com.artemis.utils.IntBag;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.math.Quaternion;
 import com.badlogic.gdx.math.Vector3;
@@ -14,57 +14,95 @@ import com.rockbite.bongo.engine.gltf.scene.SceneNode;
 import com.rockbite.bongo.engine.gltf.scene.animation.SceneAnimation;
 import com.rockbite.bongo.engine.gltf.scene.animation.SceneAnimationSampler;
 import com.rockbite.bongo.engine.gltf.scene.animation.SceneNodeAnimation;
+import com.rockbite.bongo.engine.threadutil.ThreadUtils;
+import lombok.Getter;
+import lombok.Setter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.RecursiveAction;
+
 @All({SceneModelInstance.class, Animation.class})
-public class AnimationSystem extends EntityProcessingSystem {
+public class AnimationSystem extends BaseEntitySystem {
 
 	private static final Logger logger = LoggerFactory.getLogger(AnimationSystem.class);
 
+	/**
+	 * Entities per fork join leaf task when running in parallel
+	 */
+	private static final int PARALLEL_BATCH_SIZE = 16;
+
 	//MAPPERS
 	private ComponentMapper<SceneModelInstance> modelMapper;
 	private ComponentMapper<Animation> animationMapper;
 
 	/**
-	 * Process a entity this system is interested in.
-	 *
-	 * @param e the entity to process
+	 * When enabled, entities are sampled and their transforms updated on {@link ThreadUtils#getWorkerPool()}.
+	 * Each entity only touches its own {@link SceneModelInstance}, the call still returns only once every entity is done,
+	 * so render passes that follow see finished transforms.
 	 */
+	@Getter @Setter
+	private boolean parallel;
+
+	private float delta;
+
 	@Override
-	protected void process (Entity e) {
-		final SceneModelInstance sceneModelInstance = modelMapper.get(e.getId());
-		final Animation animation = animationMapper.get(e.getId());
+	protected void begin () {
+		super.begin();
+		delta = Gdx.graphics.getDeltaTime();
+	}
+
+	@Override
+	protected void processSystem () {
+		final IntBag entities = getSubscription().getEntities();
+		if (entities.isEmpty()) return;
+
+		final int[] ids = entities.getData();
+		if (parallel) {
+			ThreadUtils.getWorkerPool().invoke(new AnimateTask(ids, 0, entities.size()));
+		} else {
+			for (int i = 0, s = entities.size(); i < s; i++) {
+				animate(ids[i], translation, rotation, scale);
+			}
+		}
+	}
+
+	private void animate (int entity, Vector3 translation, Quaternion rotation, Vector3 scale) {
+		final SceneModelInstance sceneModelInstance = modelMapper.get(entity);
+		final Animation animation = animationMapper.get(entity);
 
 		final SceneAnimation anim = sceneModelInstance.findAnimation(animation.getAnimationName());
 
 		if (anim != null) {
 			float trackTime = animation.getTrack();
-			trackTime += Gdx.graphics.getDeltaTime();
+			trackTime += delta;
 			if (trackTime > anim.getMaxInputTime()) {
 				trackTime = 0;
 			}
 			animation.setTrack(trackTime);
 
-			for (SceneNodeAnimation sceneNodeAnimation : anim.getSceneNodeAnimationArray()) {
+			final Array<SceneNodeAnimation> sceneNodeAnimationArray = anim.getSceneNodeAnimationArray();
+			for (int n = 0; n < sceneNodeAnimationArray.size; n++) {
+				final SceneNodeAnimation sceneNodeAnimation = sceneNodeAnimationArray.get(n);
 				final SceneNode sceneNode = sceneNodeAnimation.getSceneNode();
 				final Array<SceneAnimationSampler<?>> samplers = sceneNodeAnimation.getSamplers();
+				final int[] keyframeCursors = sceneNodeAnimation.getKeyframeCursors();
 
 				translation.set(sceneNode.translation);
 				rotation.set(sceneNode.rotation);
 				scale.set(sceneNode.scale);
 
-				for (SceneAnimationSampler<?> sampler : samplers) {
+				for (int i = 0; i < samplers.size; i++) {
+					final SceneAnimationSampler<?> sampler = samplers.get(i);
 
 					if (sampler instanceof SceneAnimationSampler.RotationSampler) {
-						rotation.set(((SceneAnimationSampler.RotationSampler)sampler).getInterpolatedValueForTime(trackTime));
+						keyframeCursors[i] = ((SceneAnimationSampler.RotationSampler)sampler).sample(trackTime, keyframeCursors[i], rotation);
 					}
 					if (sampler instanceof SceneAnimationSampler.ScaleSampler) {
-						scale.set(((SceneAnimationSampler.ScaleSampler)sampler).getInterpolatedValueForTime(trackTime));
+						keyframeCursors[i] = ((SceneAnimationSampler.ScaleSampler)sampler).sample(trackTime, keyframeCursors[i], scale);
 					}
 					if (sampler instanceof SceneAnimationSampler.TranslationSampler) {
-						Vector3 translationForNode = ((SceneAnimationSampler.TranslationSampler)sampler).getInterpolatedValueForTime(trackTime);
-						translation.set(translationForNode);
+						keyframeCursors[i] = ((SceneAnimationSampler.TranslationSampler)sampler).sample(trackTime, keyframeCursors[i], translation);
 					}
 
 				}
@@ -81,4 +119,35 @@ public class AnimationSystem extends EntityProcessingSystem {
 	private Vector3 scale = new Vector3();
 	private Quaternion rotation = new Quaternion();
 
+	private class AnimateTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] entities;
+		private final int from;
+		private final int to;
+
+		private AnimateTask (int[] entities, int from, int to) {
+			this.entities = entities;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute () {
+			if (to - from <= PARALLEL_BATCH_SIZE) {
+				final Vector3 translation = new Vector3();
+				final Vector3 scale = new Vector3();
+				final Quaternion rotation = new Quaternion();
+				for (int i = from; i < to; i++) {
+					animate(entities[i], translation, rotation, scale);
+				}
+				return;
+			}
+
+			final int mid = (from + to) >>> 1;
+			invokeAll(new AnimateTask(entities, from, mid), new AnimateTask(entities, mid, to));
+		}
+	}
+
 }
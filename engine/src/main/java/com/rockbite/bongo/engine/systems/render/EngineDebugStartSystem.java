@@ -5,12 +5,14 @@ import com.artemis.BaseSystem;
 import com.artemis.Component;
 import com.artemis.Entity;
 import com.artemis.EntitySubscription;
+import com.artemis.SystemInvocationStrategy;
 import com.artemis.annotations.AspectDescriptor;
 import com.artemis.utils.Bag;
 import com.artemis.utils.IntBag;
 import com.artemis.utils.reflect.ClassReflection;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g3d.Attribute;
 import com.badlogic.gdx.graphics.g3d.Attributes;
@@ -35,7 +37,9 @@ import com.rockbite.bongo.engine.gltf.scene.shader.PBRMaterialAttribute;
 import com.rockbite.bongo.engine.gltf.scene.shader.ShaderControlProvider;
 import com.rockbite.bongo.engine.input.InputInterceptor;
 import com.rockbite.bongo.engine.input.InputProvider;
+import com.rockbite.bongo.engine.profiling.SystemProfiler;
 import com.rockbite.bongo.engine.reflect.ReflectUtils;
+import com.rockbite.bongo.engine.systems.GameLoopSystemInvocationStrategy;
 import imgui.ImGui;
 import imgui.ImVec2;
 import imgui.gl3.ImGuiImplGl3;
@@ -223,6 +227,67 @@ public class EngineDebugStartSystem extends BaseSystem implements InputProvider
 		debugTextures();
 		debugComponents();
 		shadersUI();
+		profiler();
+	}
+
+	private final SystemProfiler.Stats profilerStats = new SystemProfiler.Stats();
+	private String lastTraceExport;
+
+	private void profiler () {
+		final SystemInvocationStrategy strategy = world.getInvocationStrategy();
+		if (!(strategy instanceof GameLoopSystemInvocationStrategy)) return;
+
+		final SystemProfiler profiler = ((GameLoopSystemInvocationStrategy)strategy).getProfiler();
+
+		ImGui.begin("Systems profiler");
+
+		if (ImGui.checkbox("Record", Bongo.PROFILE_SYSTEMS)) {
+			Bongo.PROFILE_SYSTEMS = !Bongo.PROFILE_SYSTEMS;
+		}
+
+		ImGui.sameLine();
+		if (ImGui.button("Export Chrome trace")) {
+			final FileHandle traceFile = Gdx.files.local("profiles/systems-" + System.currentTimeMillis() + ".json");
+			profiler.exportChromeTrace(traceFile);
+			lastTraceExport = traceFile.path();
+		}
+		if (lastTraceExport != null) {
+			ImGui.textDisabled(lastTraceExport);
+		}
+
+		profiler.computeStats(profilerStats);
+		ImGui.text("Frames: " + profilerStats.getFrames() + ", average frame: " + formatMillis(profilerStats.getAverageFrameNanos()) + " ms");
+
+		if (ImGui.beginTable("SystemTimings", 5)) {
+			ImGui.tableSetupColumn("System");
+			ImGui.tableSetupColumn("Avg ms");
+			ImGui.tableSetupColumn("P99 ms");
+			ImGui.tableSetupColumn("Max ms");
+			ImGui.tableSetupColumn("Calls");
+			ImGui.tableHeadersRow();
+
+			for (int event = 0; event < profilerStats.getEventCount(); event++) {
+				ImGui.tableNextRow();
+				ImGui.tableNextColumn();
+				ImGui.text(profiler.getEventName(event));
+				ImGui.tableNextColumn();
+				ImGui.text(formatMillis(profilerStats.getAverageNanos(event)));
+				ImGui.tableNextColumn();
+				ImGui.text(formatMillis(profilerStats.getP99Nanos(event)));
+				ImGui.tableNextColumn();
+				ImGui.text(formatMillis(profilerStats.getMaxNanos(event)));
+				ImGui.tableNextColumn();
+				ImGui.text(String.format("%.1f", profilerStats.getAverageCalls(event)));
+			}
+
+			ImGui.endTable();
+		}
+
+		ImGui.end();
+	}
+
+	private static String formatMillis (long nanos) {
+		return String.format("%.3f", nanos / 1000000f);
 	}
 
 	private void entities () {
@@ -12,11 +12,13 @@ import com.badlogic.gdx.graphics.Cubemap;
 import com.badlogic.gdx.graphics.glutils.KTXTextureData;
 import com.rockbite.bongo.engine.components.render.PointLight;
 import com.rockbite.bongo.engine.components.render.Skybox;
+import com.rockbite.bongo.engine.components.singletons.Cameras;
 import com.rockbite.bongo.engine.components.singletons.Environment;
 import com.rockbite.bongo.engine.gltf.scene.SceneEnvironment;
 import com.rockbite.bongo.engine.gltf.scene.SceneModel;
 import com.rockbite.bongo.engine.gltf.scene.SceneModelInstance;
 import com.rockbite.bongo.engine.meshutils.CubeUtils;
+import com.rockbite.bongo.engine.render.PointLightUniformBuffer;
 import lombok.Getter;
 
 public class EnvironmentConfigSystem extends BaseSystem {
@@ -30,6 +32,10 @@ public class EnvironmentConfigSystem extends BaseSystem {
 
 	@Getter
 	private Environment environment;
+	private Cameras cameras;
+
+	private PointLight originLight;
+	private PointLightUniformBuffer pointLightUniformBuffer;
 
 	@Override
 	protected void initialize () {
@@ -41,6 +47,14 @@ public class EnvironmentConfigSystem extends BaseSystem {
 		SceneModel skybox1 = CubeUtils.createBox("Skybox", 1, 1, 1, null);
 		edit.add(new SceneModelInstance(skybox1));
 
+		originLight = new PointLight();
+		originLight.getWorldPosition().set(0, 0, 0);
+		originLight.setRadiance(1f, 0, 0, 100f);
+
+		if (Gdx.gl30 != null) {
+			pointLightUniformBuffer = new PointLightUniformBuffer();
+		}
+
 //		environment.getSceneEnvironment().setSkyBox(createCubemap("field/skybox", "png"));
 //		environment.getSceneEnvironment().setIrradianceMap(createCubemap("field/irradiance", "png"));
 	}
@@ -76,21 +90,26 @@ public class EnvironmentConfigSystem extends BaseSystem {
 
 		sceneEnvironment.getPointLights().clear();
 
-		//todo only put in the closest
 		IntBag entities = pointLights.getEntities();
-		int idx = 0;
 		for (int i = 0; i < entities.size(); i++) {
 			PointLight pointLight = pointLightMapper.get(entities.get(i));
 			sceneEnvironment.getPointLights().add(pointLight);
-			idx++;
-
-			if (idx >= environment.getSceneEnvironment().getMaxPointLights()) break;
 		}
 
-		PointLight value = new PointLight();
-		value.getWorldPosition().set(0, 0, 0);
-		value.setRadiance(1f, 0, 0, 100f);
-		sceneEnvironment.getPointLights().add(value);
+		sceneEnvironment.getPointLights().add(originLight);
+
+		sceneEnvironment.selectActivePointLights(cameras.getGameCamera());
 
+		if (pointLightUniformBuffer != null) {
+			pointLightUniformBuffer.upload(sceneEnvironment.getActivePointLights(), sceneEnvironment.getMaxPointLights());
+		}
+	}
+
+	@Override
+	protected void dispose () {
+		super.dispose();
+		if (pointLightUniformBuffer != null) {
+			pointLightUniformBuffer.dispose();
+		}
 	}
 }
@@ -0,0 +1,29 @@
+package com.rockbite.bongo.engine.systems.render;
+
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.All;
+import com.badlogic.gdx.math.Matrix4;
+import com.rockbite.bongo.engine.gltf.scene.SceneModelInstance;
+import com.rockbite.bongo.engine.render.InterpolatedTransform;
+import com.rockbite.bongo.engine.systems.TransformInterpolationSystem;
+
+/**
+ * Interpolates {@link SceneModelInstance} transforms between logic ticks, render passes draw them with
+ * {@link SceneModelInstance#getRenderTransform()}
+ */
+@All(SceneModelInstance.class)
+public class SceneTransformInterpolationSystem extends TransformInterpolationSystem {
+
+	//MAPPERS
+	private ComponentMapper<SceneModelInstance> modelMapper;
+
+	@Override
+	protected Matrix4 getTransform (int entity) {
+		return modelMapper.get(entity).getTransform();
+	}
+
+	@Override
+	protected InterpolatedTransform getInterpolatedTransform (int entity) {
+		return modelMapper.get(entity).getInterpolatedTransform();
+	}
+}
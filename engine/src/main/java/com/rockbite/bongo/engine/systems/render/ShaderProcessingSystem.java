@@ -10,6 +10,7 @@ import com.rockbite.bongo.engine.fileutil.AutoReloadingFileHandle;
 import com.rockbite.bongo.engine.fileutil.ReloadUtils;
 import com.rockbite.bongo.engine.gltf.scene.shader.BaseSceneShader;
 import com.rockbite.bongo.engine.gltf.scene.shader.ShaderControlProvider;
+import com.rockbite.bongo.engine.render.ShaderSourceCache;
 import lombok.Data;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,13 +25,27 @@ public class ShaderProcessingSystem {
 		ShaderStageFiles vertexStageFiles;
 		ShaderStageFiles fragmentStageFiles;
 
-		public CombinedVertFragFiles (ReloadUtils.AutoReloadingListener listener,
+		private long sourceHash;
+		private boolean sourceHashValid;
+
+		public CombinedVertFragFiles (final ReloadUtils.AutoReloadingListener listener,
 			OrderedSet<FileHandle> verts,
 			OrderedSet<FileHandle> frags,
 			ObjectMap<String, FileHandle> mapping) {
 
-			vertexStageFiles = new ShaderStageFiles(listener, verts, mapping);
-			fragmentStageFiles = new ShaderStageFiles(listener, frags, mapping);
+			//Drop the cached hash before the owner reloads, so it sees the edited sources
+			final ReloadUtils.AutoReloadingListener invalidatingListener = new ReloadUtils.AutoReloadingListener() {
+				@Override
+				public void onAutoReloadFileChanged () {
+					sourceHashValid = false;
+					if (listener != null) {
+						listener.onAutoReloadFileChanged();
+					}
+				}
+			};
+
+			vertexStageFiles = new ShaderStageFiles(invalidatingListener, verts, mapping);
+			fragmentStageFiles = new ShaderStageFiles(invalidatingListener, frags, mapping);
 
 		}
 
@@ -41,6 +56,21 @@ public class ShaderProcessingSystem {
 		public String getFragmentShader () {
 			return fragmentStageFiles.getCombinedString();
 		}
+
+		/**
+		 * Hash of the raw contents of every file both stages depend on, changes whenever any of them is edited.
+		 * Read from disk once and cached until one of the files reports a change
+		 */
+		public long getSourceHash () {
+			if (!sourceHashValid) {
+				long hash = ShaderSourceCache.HASH_SEED;
+				hash = vertexStageFiles.hash(hash);
+				hash = fragmentStageFiles.hash(hash);
+				sourceHash = hash;
+				sourceHashValid = true;
+			}
+			return sourceHash;
+		}
 	}
 
 	static class ShaderStageFiles {
@@ -67,6 +97,14 @@ public class ShaderProcessingSystem {
 			return currentContent;
 		}
 
+		private long hash (long hash) {
+			for (AutoReloadingFileHandle shaderSource : shaderSources) {
+				hash = ShaderSourceCache.hash(hash, shaderSource.getHandle().path());
+				hash = ShaderSourceCache.hash(hash, shaderSource.getHandle().readString());
+			}
+			return hash;
+		}
+
 		private ObjectSet<FileHandle> included = new ObjectSet<>();
 		private String getCombinedString () {
 			included.clear();
@@ -307,8 +345,15 @@ public class ShaderProcessingSystem {
 	}
 
 	public static ProgramExtraction compileAndExtract (String prefix, CombinedVertFragFiles combinedVertFragFiles) {
-		String vertString = combinedVertFragFiles.getVertexShader();
-		String fragString = combinedVertFragFiles.getFragmentShader();
+		final long sourceHash = combinedVertFragFiles.getSourceHash();
+		String[] expandedSources = ShaderSourceCache.get(sourceHash);
+		if (expandedSources == null) {
+			expandedSources = new String[]{combinedVertFragFiles.getVertexShader(), combinedVertFragFiles.getFragmentShader()};
+			ShaderSourceCache.put(sourceHash, expandedSources[0], expandedSources[1]);
+		}
+
+		String vertString = expandedSources[0];
+		String fragString = expandedSources[1];
 
 		Array<BaseSceneShader.ShaderControl> shaderControls = new Array<>();
 
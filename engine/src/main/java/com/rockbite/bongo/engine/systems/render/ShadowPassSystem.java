@@ -3,15 +3,23 @@ package com.rockbite.bongo.engine.systems.render;
 import com.artemis.Component;
 import com.badlogic.gdx.Files;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.GL30;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.graphics.glutils.GLFrameBuffer;
+import com.badlogic.gdx.math.Frustum;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.rockbite.bongo.engine.components.render.DepthLayer;
 import com.rockbite.bongo.engine.components.render.ShadowLayer;
+import com.rockbite.bongo.engine.gltf.scene.SceneRenderable;
 import com.rockbite.bongo.engine.gltf.scene.shader.DefaultSceneShaderProvider;
 import com.rockbite.bongo.engine.gltf.scene.shader.SceneShaderProvider;
 import com.rockbite.bongo.engine.gltf.scene.shader.bundled.ShadowMapShader;
@@ -19,10 +27,51 @@ import com.rockbite.bongo.engine.render.FrameBufferWithDepthOnly;
 import com.rockbite.bongo.engine.render.ShaderSourceProvider;
 import com.rockbite.bongo.engine.systems.RenderPassSystem;
 
+import java.util.Arrays;
+
+/**
+ * Renders directional light shadows as cascades, each a square tile of a horizontal strip atlas.
+ * <p>
+ * Each cascade is fitted to its own slice of the view frustum, from the split of the cascade before it to its own
+ * split, so near cascades have the highest texel density. A cascade is only re-rendered when its light volume or the
+ * transforms of the casters inside it change.
+ * <p>
+ * GL2 has no depth textures, so it keeps a single RGBA packed map fitted around the whole camera frustum.
+ */
 public class ShadowPassSystem extends RenderPassSystem {
 
+	public static final int MAX_CASCADES = 4;
+
 	private FrameBuffer shadowMapBuffer;
 
+	private int shadowMapSize = 1024;
+	private int cascadeCount = MAX_CASCADES;
+	private int depthInternalFormat = GL30.GL_DEPTH_COMPONENT24;
+	private int depthType = GL20.GL_UNSIGNED_INT;
+
+	/** Far end of the last cascade, 0 to use the camera far plane */
+	private float shadowDistance;
+	/** Blend between uniform (0) and logarithmic (1) split distances */
+	private float cascadeSplitLambda = 0.75f;
+	private boolean cacheStaticCascades = true;
+
+	private int currentCascade;
+
+	private final Matrix4[] cascadeLightMatrices = new Matrix4[MAX_CASCADES];
+	private final Matrix4[] renderedLightMatrices = new Matrix4[MAX_CASCADES];
+	private final long[] renderedCasterHashes = new long[MAX_CASCADES];
+	private final boolean[] renderedValid = new boolean[MAX_CASCADES];
+
+	private final float[] cascadeSamplingMatrices = new float[MAX_CASCADES * 16];
+	private final float[] cascadeSplits = new float[MAX_CASCADES];
+	private final Matrix4 shadowMatrix = new Matrix4();
+
+	private final Vector3[] sliceCorners = new Vector3[8];
+	private final Matrix4 tileMatrix = new Matrix4();
+
+	private final Frustum lightFrustum = new Frustum();
+	private final Matrix4 inverseLightMatrix = new Matrix4();
+
 	public ShadowPassSystem () {
 		this(ShadowLayer.class);
 	}
@@ -36,31 +85,139 @@ public class ShadowPassSystem extends RenderPassSystem {
 
 	public ShadowPassSystem (SceneShaderProvider sceneShaderProvider, Class<? extends Component>... componentsToGather) {
 		super(sceneShaderProvider, componentsToGather);
+
+		for (int i = 0; i < MAX_CASCADES; i++) {
+			cascadeLightMatrices[i] = new Matrix4();
+			renderedLightMatrices[i] = new Matrix4();
+		}
+		for (int i = 0; i < sliceCorners.length; i++) {
+			sliceCorners[i] = new Vector3();
+		}
+	}
+
+	/**
+	 * @param shadowMapSize width and height of a single cascade, the atlas is cascadeCount times as wide
+	 */
+	public ShadowPassSystem setShadowMapSize (int shadowMapSize) {
+		this.shadowMapSize = shadowMapSize;
+		rebuildShadowMap();
+		return this;
 	}
 
+	/**
+	 * Lit shaders bake the cascade count into their prefix and are recompiled when it changes, so it is best set before
+	 * the first frame
+	 */
+	public ShadowPassSystem setCascadeCount (int cascadeCount) {
+		if (cascadeCount < 1 || cascadeCount > MAX_CASCADES) {
+			throw new GdxRuntimeException("Cascade count must be between 1 and " + MAX_CASCADES + ", got " + cascadeCount);
+		}
+		this.cascadeCount = cascadeCount;
+		rebuildShadowMap();
+		return this;
+	}
+
+	/**
+	 * Depth attachment format on GL3, e.g. GL_DEPTH_COMPONENT16/GL_UNSIGNED_SHORT or GL_DEPTH_COMPONENT32F/GL_FLOAT
+	 */
+	public ShadowPassSystem setDepthFormat (int internalFormat, int type) {
+		this.depthInternalFormat = internalFormat;
+		this.depthType = type;
+		rebuildShadowMap();
+		return this;
+	}
+
+	public ShadowPassSystem setShadowDistance (float shadowDistance) {
+		this.shadowDistance = shadowDistance;
+		return this;
+	}
+
+	public ShadowPassSystem setCascadeSplitLambda (float cascadeSplitLambda) {
+		this.cascadeSplitLambda = MathUtils.clamp(cascadeSplitLambda, 0f, 1f);
+		return this;
+	}
+
+	/**
+	 * @param cacheStaticCascades when false every cascade is re-rendered every frame
+	 */
+	public ShadowPassSystem setCacheStaticCascades (boolean cacheStaticCascades) {
+		this.cacheStaticCascades = cacheStaticCascades;
+		return this;
+	}
+
+	/**
+	 * The whole cascade atlas
+	 */
 	public Texture getShadowMapDepthTexture () {
 
 		final Array<Texture> textureAttachments = shadowMapBuffer.getTextureAttachments();
 		return textureAttachments.get(0);
 	}
 
+	/**
+	 * Size of a single cascade tile
+	 */
 	public int getShadowMapSize () {
-		return shadowMapBuffer.getWidth();
+		return shadowMapSize;
+	}
+
+	public int getCascadeCount () {
+		return Gdx.gl30 != null ? cascadeCount : 1;
+	}
+
+	/**
+	 * Light matrix of the cascade currently being rendered, for the shadow map shader
+	 */
+	public Matrix4 getCurrentCascadeLightMatrix () {
+		return cascadeLightMatrices[currentCascade];
+	}
+
+	/**
+	 * World to shadow clip space matrices of every cascade, 16 floats each. Clip xy maps to the cascade tile within
+	 * the atlas after the usual * 0.5 + 0.5.
+	 */
+	public float[] getCascadeSamplingMatrices () {
+		return cascadeSamplingMatrices;
+	}
+
+	/**
+	 * View depth at which each cascade ends
+	 */
+	public float[] getCascadeSplits () {
+		return cascadeSplits;
+	}
+
+	/**
+	 * Sampling matrix of the last cascade. Only covers the whole shadow distance when there is a single cascade,
+	 * shaders that sample the atlas should pick a cascade by view depth from {@link #getCascadeSamplingMatrices()}.
+	 */
+	public Matrix4 getShadowMatrix () {
+		return shadowMatrix;
 	}
 
 	@Override
 	protected void initialize () {
 		super.initialize();
 
-		final int shadowMapSize = 4096;
+		buildShadowMap();
+	}
+
+	private void rebuildShadowMap () {
+		if (shadowMapBuffer == null) return;
+
+		shadowMapBuffer.dispose();
+		buildShadowMap();
+	}
+
+	private void buildShadowMap () {
 		if (Gdx.gl30 != null) {
-			GLFrameBuffer.FrameBufferBuilder frameBufferBuilder = new GLFrameBuffer.FrameBufferBuilder(shadowMapSize, shadowMapSize) {
+			GLFrameBuffer.FrameBufferBuilder frameBufferBuilder = new GLFrameBuffer.FrameBufferBuilder(shadowMapSize * cascadeCount, shadowMapSize) {
 				@Override
 				public FrameBuffer build () {
 					return new FrameBufferWithDepthOnly(this);
 				}
 			};
-			frameBufferBuilder.addDepthTextureAttachment(GL30.GL_DEPTH_COMPONENT32F, GL20.GL_FLOAT);
+			frameBufferBuilder.addDepthTextureAttachment(depthInternalFormat, depthType);
 			shadowMapBuffer = frameBufferBuilder.build();
 
 			final Texture depthTexture = shadowMapBuffer.getTextureAttachments().get(0);
@@ -71,6 +228,104 @@ public class ShadowPassSystem extends RenderPassSystem {
 			frameBufferBuilder.addBasicColorTextureAttachment(Pixmap.Format.RGBA8888);
 			shadowMapBuffer = frameBufferBuilder.build();
 		}
+
+		for (int i = 0; i < MAX_CASCADES; i++) {
+			renderedValid[i] = false;
+		}
+	}
+
+	/**
+	 * Cull against the light volume of the cascade being rendered, rather than the game camera
+	 */
+	@Override
+	protected Frustum getCullingFrustum () {
+		lightFrustum.update(inverseLightMatrix.set(cascadeLightMatrices[currentCascade]).inv());
+		return lightFrustum;
+	}
+
+	/**
+	 * Only fits the cascades, renderables are collected per cascade in {@link #processSystem()}
+	 */
+	@Override
+	protected void collectRendables () {
+		updateCascades();
+	}
+
+	private void updateCascades () {
+		final Camera camera = cameras.getGameCamera();
+		final int count = getCascadeCount();
+
+		if (Gdx.gl30 == null) {
+			environment.getSceneEnvironment().calculateDirectionLightSpaceMatrix(camera, cascadeLightMatrices[0], shadowMapSize);
+			cascadeSplits[0] = camera.far;
+			updateSamplingMatrix(0, count);
+			shadowMatrix.set(cascadeLightMatrices[0]);
+			return;
+		}
+
+		final float near = camera.near;
+		final float far = shadowDistance > 0 ? Math.min(shadowDistance, camera.far) : camera.far;
+		final Vector3[] planePoints = camera.frustum.planePoints;
+		//Bounds from the previous frame, casters that just moved in are picked up a frame late
+		final BoundingBox casterBounds = getRenderQueue().getBounds();
+
+		float previousSplit = near;
+		for (int i = 0; i < count; i++) {
+			final float fraction = (i + 1) / (float)count;
+			final float logSplit = near * (float)Math.pow(far / near, fraction);
+			final float uniformSplit = near + (far - near) * fraction;
+			final float split = MathUtils.lerp(uniformSplit, logSplit, cascadeSplitLambda);
+			cascadeSplits[i] = split;
+
+			//Depth is linear along the frustum edges, so the corners of the slice are a lerp of near and far corners
+			final float nearAlpha = (previousSplit - camera.near) / (camera.far - camera.near);
+			final float farAlpha = (split - camera.near) / (camera.far - camera.near);
+			for (int j = 0; j < 4; j++) {
+				sliceCorners[j].set(planePoints[j]).lerp(planePoints[j + 4], nearAlpha);
+				sliceCorners[j + 4].set(planePoints[j]).lerp(planePoints[j + 4], farAlpha);
+			}
+			previousSplit = split;
+
+			environment.getSceneEnvironment().calculateCascadeLightSpaceMatrix(sliceCorners, casterBounds, shadowMapSize, cascadeLightMatrices[i]);
+			updateSamplingMatrix(i, count);
+		}
+		for (int i = count; i < MAX_CASCADES; i++) {
+			cascadeSplits[i] = far;
+		}
+
+		shadowMatrix.set(cascadeLightMatrices[count - 1]);
+		shadowMatrix.mulLeft(tileMatrix(count - 1, count));
+	}
+
+	/**
+	 * Squeezes the clip space x of a cascade into its tile of the atlas
+	 */
+	private Matrix4 tileMatrix (int cascade, int count) {
+		tileMatrix.idt();
+		tileMatrix.val[Matrix4.M00] = 1f / count;
+		tileMatrix.val[Matrix4.M03] = (1f + 2f * cascade) / count - 1f;
+		return tileMatrix;
+	}
+
+	private void updateSamplingMatrix (int cascade, int count) {
+		inverseLightMatrix.set(cascadeLightMatrices[cascade]).mulLeft(tileMatrix(cascade, count));
+		System.arraycopy(inverseLightMatrix.val, 0, cascadeSamplingMatrices, cascade * 16, 16);
+	}
+
+	/**
+	 * Hash of everything that ends up in the depth of a cascade, the collected renderables and the versions of their
+	 * transforms, see {@link SceneRenderable#transformVersion}
+	 */
+	private long casterHash () {
+		final Array<SceneRenderable> renderables = getCollectedRenderables();
+
+		long hash = renderables.size;
+		for (int i = 0; i < renderables.size; i++) {
+			final SceneRenderable renderable = renderables.get(i);
+			hash = hash * 31 + System.identityHashCode(renderable);
+			hash = hash * 31 + renderable.transformVersion;
+		}
+		return hash;
 	}
 
 	/**
@@ -80,15 +335,44 @@ public class ShadowPassSystem extends RenderPassSystem {
 	protected void processSystem () {
 
 		shadowMapBuffer.begin();
-		Gdx.gl.glClearColor(0, 0, 0, 1f);
-		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
+		renderUtils.getRenderContext().setDepthMask(true);
+
+		final int count = getCascadeCount();
+		for (int i = 0; i < count; i++) {
+			currentCascade = i;
+			super.collectRendables();
 
+			final long hash = casterHash();
+			if (cacheStaticCascades
+				&& renderedValid[i]
+				&& renderedCasterHashes[i] == hash
+				&& Arrays.equals(renderedLightMatrices[i].val, cascadeLightMatrices[i].val)) {
+				continue;
+			}
+			renderedValid[i] = true;
+			renderedCasterHashes[i] = hash;
+			renderedLightMatrices[i].set(cascadeLightMatrices[i]);
 
-		renderAllCollectedRenderables();
+			final int x = i * shadowMapSize;
+			Gdx.gl.glViewport(x, 0, shadowMapSize, shadowMapSize);
+			Gdx.gl.glEnable(GL20.GL_SCISSOR_TEST);
+			Gdx.gl.glScissor(x, 0, shadowMapSize, shadowMapSize);
+			Gdx.gl.glClearColor(0, 0, 0, 1f);
+			Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
+			Gdx.gl.glDisable(GL20.GL_SCISSOR_TEST);
+
+			renderAllCollectedRenderables();
+		}
 
 		shadowMapBuffer.end(glViewport.x, glViewport.y, glViewport.width, glViewport.height);
 	}
 
-
+	@Override
+	protected void dispose () {
+		super.dispose();
+		if (shadowMapBuffer != null) {
+			shadowMapBuffer.dispose();
+		}
+	}
 
 }
@@ -4,10 +4,24 @@ import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.rockbite.bongo.engine.Bongo;
 import lombok.Setter;
 
+import java.util.concurrent.ForkJoinPool;
+
 public class ThreadUtils {
 
 	@Setter
 	private static Thread gdxThread;
+
+	private static ForkJoinPool workerPool;
+
+	/**
+	 * Shared work stealing pool for engine side parallel updates. Leaves one core for the gdx thread.
+	 */
+	public static synchronized ForkJoinPool getWorkerPool () {
+		if (workerPool == null) {
+			workerPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+		}
+		return workerPool;
+	}
 	
 	public static void gdxThreadSafetyCheck () {
 		if (Bongo.DEBUG) {
@@ -33,7 +47,11 @@ public class ThreadUtils {
 		return true;
 	}
 
-	public static void clearStatics () {
+	public static synchronized void clearStatics () {
 		gdxThread = null;
+		if (workerPool != null) {
+			workerPool.shutdown();
+			workerPool = null;
+		}
 	}
 }
@@ -60,7 +60,13 @@ struct PointLight {
     vec4 rgbRadiance;
 };
 
+#ifdef pointLightBlockFlag
+layout(std140) uniform PointLightBlock {
+    PointLight u_pointLights[NumPointLights];
+};
+#else
 uniform PointLight u_pointLights[NumPointLights];
+#endif
 
 vec4 Bongo_BRDF (
 vec3 albedo, float metalness, float roughness,
@@ -59,6 +59,13 @@ uniform samplerCube u_irradianceMap;
 uniform sampler2D u_shadowMap;
 #endif
 
+#ifdef NumShadowCascades
+uniform mat4 u_cascadeMatrices[NumShadowCascades];
+uniform vec4 u_cascadeSplits;
+uniform vec2 u_shadowTexelSize;
+uniform vec3 u_cameraDirection;
+#endif
+
 
 in vec4 v_worldPosition;
 in vec3 v_normal;
@@ -111,6 +118,47 @@ float shadowPCF (vec4 fragPosLightSpace, vec3 normal, vec3 lightDir) {
 }
 #endif
 
+#ifdef NumShadowCascades
+float cascadeShadow (vec3 worldPos, vec3 normal, vec3 lightDir) {
+    float viewDepth = dot(worldPos - u_cameraPosition, u_cameraDirection);
+
+    int cascade = NumShadowCascades;
+    for (int i = NumShadowCascades - 1; i >= 0; i--) {
+        if (viewDepth < u_cascadeSplits[i]) {
+            cascade = i;
+        }
+    }
+    if (cascade == NumShadowCascades) {
+        return 0.0;
+    }
+
+    vec4 fragPosLightSpace = u_cascadeMatrices[cascade] * vec4(worldPos, 1.0);
+    vec3 projCoords = fragPosLightSpace.xyz/fragPosLightSpace.w;
+    projCoords = projCoords * 0.5 + 0.5;
+
+    //Keep the filter taps inside this cascade's tile of the atlas
+    float tileWidth = 1.0 / float(NumShadowCascades);
+    float tileMin = float(cascade) * tileWidth + u_shadowTexelSize.x;
+    float tileMax = float(cascade + 1) * tileWidth - u_shadowTexelSize.x;
+
+    float bias = max(0.0005 * (1.0 - dot(normal, lightDir)), 0.0005);
+
+    float shadow = 0.0;
+    int samples = 4;
+    for (int i = 0; i < samples; i++) {
+        vec2 uv = projCoords.xy + poissonDisk[i] * u_shadowTexelSize;
+        uv.x = clamp(uv.x, tileMin, tileMax);
+
+        float closestDepth = texture(u_shadowMap, uv).r;
+        if (projCoords.z - bias > closestDepth) {
+            shadow += 1.0;
+        }
+    }
+
+    return shadow/float(samples);
+}
+#endif
+
 float SRGB_ALPHA = 0.055;
 
 // Converts a single srgb channel to rgb
@@ -192,7 +240,9 @@ void main () {
 
     float shadow = 0.0;
 
-    #ifdef shadowMapFlag
+    #if defined(NumShadowCascades)
+        shadow = cascadeShadow(v_worldPosition.xyz, N, L);
+    #elif defined(shadowMapFlag)
         shadow = shadowPCF(v_FragPosLightSpace, N, L);
     #endif
 
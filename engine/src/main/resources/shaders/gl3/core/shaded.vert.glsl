@@ -1,5 +1,8 @@
 #ifdef normalFlag
 in vec3 a_normal;
+#ifdef instancedFlag
+in mat3 a_instanceNormalMatrix;
+#endif
 #endif
 
 #if defined(baseColourTextureFlag) | defined(normalTextureFlag) | defined(emissiveTextureFlag) | defined(metalRoughnessTextureFlag) | defined(occlusionTextureFlag)
@@ -21,7 +24,11 @@ void main () {
     v_FragPosLightSpace = u_lightMatrix * v_worldPosition;
 
     #ifdef normalFlag
-        v_normal = u_normalMatrix * a_normal;
+        #ifdef instancedFlag
+            v_normal = a_instanceNormalMatrix * a_normal;
+        #else
+            v_normal = u_normalMatrix * a_normal;
+        #endif
     #else
         v_normal = vec3(0.0, 1.0, 0.0);
     #endif
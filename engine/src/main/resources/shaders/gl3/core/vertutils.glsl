@@ -8,7 +8,19 @@ in vec4 a_joints_0;
 #endif
 
 uniform mat4 u_projTrans;
+#ifdef instancedFlag
+in mat4 a_instanceSRT;
+#else
 uniform mat4 u_srt;
+#endif
+
+mat4 Bongo_modelMatrix () {
+    #ifdef instancedFlag
+        return a_instanceSRT;
+    #else
+        return u_srt;
+    #endif
+}
 
 vec4 Bongo_worldToClip (vec4 worldSpace) {
     return u_projTrans * worldSpace;
@@ -23,10 +35,10 @@ vec4 Bongo_localToWorld () {
                 a_weights_0.y * u_jointMatrix[int(a_joints_0.y)] +
                 a_weights_0.z * u_jointMatrix[int(a_joints_0.z)] +
                 a_weights_0.w * u_jointMatrix[int(a_joints_0.w)];
-            return u_srt * skinMatrix * vec4(a_position.xyz, 1.0);
+            return Bongo_modelMatrix() * skinMatrix * vec4(a_position.xyz, 1.0);
         #endif
 
-        return u_srt * vec4(a_position.xyz, 1.0);
+        return Bongo_modelMatrix() * vec4(a_position.xyz, 1.0);
 
     #else
         return vec4(0.5);
@@ -27,6 +27,13 @@ uniform float u_time;
 uniform sampler2D u_shadowMap;
 #endif
 
+#ifdef NumShadowCascades
+uniform mat4 u_cascadeMatrices[NumShadowCascades];
+uniform vec4 u_cascadeSplits;
+uniform vec2 u_shadowTexelSize;
+uniform vec3 u_cameraDirection;
+#endif
+
 uniform sampler2D u_waveNormal;
 uniform sampler2D u_depthTexture;
 uniform sampler2D u_foamTexture;
@@ -96,6 +103,47 @@ float shadowPCF (vec4 fragPosLightSpace, vec3 normal, vec3 lightDir) {
 }
 #endif
 
+#ifdef NumShadowCascades
+float cascadeShadow (vec3 worldPos, vec3 normal, vec3 lightDir) {
+    float viewDepth = dot(worldPos - u_cameraPosition, u_cameraDirection);
+
+    int cascade = NumShadowCascades;
+    for (int i = NumShadowCascades - 1; i >= 0; i--) {
+        if (viewDepth < u_cascadeSplits[i]) {
+            cascade = i;
+        }
+    }
+    if (cascade == NumShadowCascades) {
+        return 0.0;
+    }
+
+    vec4 fragPosLightSpace = u_cascadeMatrices[cascade] * vec4(worldPos, 1.0);
+    vec3 projCoords = fragPosLightSpace.xyz/fragPosLightSpace.w;
+    projCoords = projCoords * 0.5 + 0.5;
+
+    //Keep the filter taps inside this cascade's tile of the atlas
+    float tileWidth = 1.0 / float(NumShadowCascades);
+    float tileMin = float(cascade) * tileWidth + u_shadowTexelSize.x;
+    float tileMax = float(cascade + 1) * tileWidth - u_shadowTexelSize.x;
+
+    float bias = max(0.0005 * (1.0 - dot(normal, lightDir)), 0.0005);
+
+    float shadow = 0.0;
+    int samples = 4;
+    for (int i = 0; i < samples; i++) {
+        vec2 uv = projCoords.xy + poissonDisk[i] * u_shadowTexelSize;
+        uv.x = clamp(uv.x, tileMin, tileMax);
+
+        float closestDepth = texture(u_shadowMap, uv).r;
+        if (projCoords.z - bias > closestDepth) {
+            shadow += 1.0;
+        }
+    }
+
+    return shadow/float(samples);
+}
+#endif
+
 void main() {
     vec3 lightDir = -u_lightDir;
 
@@ -156,7 +204,9 @@ void main() {
 
     float shadow = 0.0;
 
-    #ifdef shadowMapFlag
+    #if defined(NumShadowCascades)
+        shadow = cascadeShadow(v_worldPos, N, lightDir);
+    #elif defined(shadowMapFlag)
         shadow = shadowPCF(v_FragPosLightSpace, N, lightDir);
     #endif
 
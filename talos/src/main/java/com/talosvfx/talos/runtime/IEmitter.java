@@ -27,8 +27,17 @@ public interface IEmitter {
     void pause();
     void resume();
     void restart();
+    /**
+     * Drops every live particle and restarts, keeping particle pools and storage for the next use
+     */
+    void reset();
     float getDelayRemaining();
     void update(float delta);
+    /**
+     * Regenerates point data for the live particles without stepping them, for graphs whose point data was overwritten
+     * by another instance since the last update
+     */
+    void generatePoints();
     ParticleEmitterDescriptor getEmitterGraph();
     void setVisible(boolean isVisible);
     boolean isVisible();
@@ -25,6 +25,8 @@ import com.talosvfx.talos.runtime.modules.DrawableModule;
 import com.talosvfx.talos.runtime.modules.ParticleModule;
 import com.talosvfx.talos.runtime.modules.ParticlePointDataGeneratorModule;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 public class Particle implements Pool.Poolable {
 
     private IEmitter emitterReference;
@@ -32,6 +34,8 @@ public class Particle implements Pool.Poolable {
     public Vector3 spawnPosition = new Vector3();
 
     public Vector3 position = new Vector3();
+    /** Position before the last step, for interpolating rendered points between fixed steps */
+    public Vector3 previousPosition = new Vector3();
     public Vector3 velocity = new Vector3();
     public Vector3 spinVelocity = new Vector3();
     public Vector3 acceleration = new Vector3();
@@ -57,7 +61,12 @@ public class Particle implements Pool.Poolable {
     }
 
     public void init(IEmitter emitterReference) {
-        this.seed = MathUtils.random();
+        if (emitterReference.getEmitterGraph().isInstanceCopy()) {
+            //Isolated instances may be updated off the gdx thread, keep away from the shared generator
+            this.seed = ThreadLocalRandom.current().nextFloat();
+        } else {
+            this.seed = MathUtils.random();
+        }
         this.requesterID = emitterReference.getScope().newParticleRequester();
         init(emitterReference, seed);
     }
@@ -76,6 +85,7 @@ public class Particle implements Pool.Poolable {
         //Starting values
         life = particleModule.getLife(); // really makes more sense like this, for deterministic purposes
         position.set(particleModule.getSpawnPosition()); // offset
+        previousPosition.set(position);
         acceleration.set(0, 0, 0);
         velocity.set(particleModule.getInitialVelocity());
         spinVelocity.set(particleModule.getInitialSpinVelocity());
@@ -86,6 +96,14 @@ public class Particle implements Pool.Poolable {
         durationAtInit = emitterReference.getAlpha();
     }
 
+    /**
+     * Points this particle at emitterReference without sampling any modules, for particles used as a view over rows of
+     * a {@link ParticleStore} or for particles played back from a baked timeline
+     */
+    public void setEmitter (IEmitter emitterReference) {
+        this.emitterReference = emitterReference;
+    }
+
     public void update (ParticleEmitterInstance particleEmitterInstance, float delta) {
         if(alpha == 1f) return;
 
@@ -102,6 +120,13 @@ public class Particle implements Pool.Poolable {
 
         applyAlpha(alpha, delta);
 
+        generatePointData(particleEmitterInstance);
+    }
+
+    /**
+     * Adds the point data of this particle at its current state to the point generator of the emitter
+     */
+    public void generatePointData (ParticleEmitterInstance particleEmitterInstance) {
         final DrawableModule drawableModule = emitterReference.getDrawableModule();
         if (drawableModule == null) return;
 
@@ -127,6 +152,8 @@ public class Particle implements Pool.Poolable {
 
         particleModule.updateScopeData(this);
 
+        previousPosition.set(position);
+
         //Step teh particle data
 
         if (particleModule.hasPositionOverride()) {
@@ -261,6 +288,7 @@ public class Particle implements Pool.Poolable {
     @Override
     public void reset() {
         position.setZero();
+        previousPosition.setZero();
         requesterID = -1;
     }
 
@@ -22,14 +22,27 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.IntMap;
 import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.StreamUtils;
 import com.talosvfx.talos.runtime.assets.AssetProvider;
 import com.talosvfx.talos.runtime.assets.AtlasAssetProvider;
 import com.talosvfx.talos.runtime.modules.AbstractModule;
 import com.talosvfx.talos.runtime.modules.DrawableModule;
 import com.talosvfx.talos.runtime.modules.EmitterModule;
+import com.talosvfx.talos.runtime.modules.ModuleGraphCompiler;
 import com.talosvfx.talos.runtime.modules.ParticleModule;
+import com.talosvfx.talos.runtime.modules.ShadedSpriteModule;
+import com.talosvfx.talos.runtime.serialization.BinaryEffectFormat;
 import com.talosvfx.talos.runtime.serialization.ConnectionData;
 import com.talosvfx.talos.runtime.serialization.ExportData;
+import com.talosvfx.talos.runtime.simulation.BakedTimeline;
+import com.talosvfx.talos.runtime.simulation.TinyEmitter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
 
 public class ParticleEffectDescriptor {
 
@@ -42,6 +55,30 @@ public class ParticleEffectDescriptor {
 
 	private ParticleEffectInstance processsingEffectReference;
 
+	/**
+	 * Evaluate emitter graphs through programs built by {@link ModuleGraphCompiler} instead of recursive pulls
+	 */
+	private boolean compiledEvaluation;
+
+	public static final String TIMELINE_CACHE_EXTENSION = "timeline";
+
+	private static final int DEFAULT_POOL_MAX = 64;
+
+	private static final int TIMELINE_CACHE_MAGIC = 0x54544C43; // TTLC
+	private static final int TIMELINE_CACHE_VERSION = 1;
+
+	/**
+	 * Effect file this was loaded from and the hash of its contents, a timeline cache only applies to the source it was
+	 * baked from
+	 */
+	private FileHandle fileHandle;
+	private int sourceHash;
+
+	/**
+	 * Reused instances handed out by {@link #obtainEffectInstance()}, created on first use when not configured
+	 */
+	private ParticleEffectPool instancePool;
+
 	public ParticleEffectDescriptor () {
 
 	}
@@ -63,15 +100,24 @@ public class ParticleEffectDescriptor {
 		return new ParticleEmitterDescriptor(this);
 	}
 
+	/**
+	 * Loads an effect exported as json, or converted to {@link BinaryEffectFormat} when the file has its extension
+	 */
 	public void load(FileHandle fileHandle) {
-		Json json = new Json();
-		ParticleEmitterDescriptor.registerModules();
-		for (Class clazz: ParticleEmitterDescriptor.registeredModules) {
-			json.addClassTag(clazz.getSimpleName(), clazz);
+		if (BinaryEffectFormat.isBinary(fileHandle)) {
+			final byte[] source = fileHandle.readBytes();
+			load(BinaryEffectFormat.read(source));
+			this.sourceHash = Arrays.hashCode(source);
+		} else {
+			final String source = fileHandle.readString();
+			load(ParticleEmitterDescriptor.getModuleJson().fromJson(ExportData.class, source));
+			this.sourceHash = source.hashCode();
 		}
 
-		final ExportData exportData = json.fromJson(ExportData.class, fileHandle.readString());
+		this.fileHandle = fileHandle;
+	}
 
+	public void load(ExportData exportData) {
 		if (exportData.metadata.versionString == null) {
 			exportData.metadata.versionString = "1.4.0"; //Default for unknown versions
 		}
@@ -95,7 +141,6 @@ public class ParticleEffectDescriptor {
 					emitterDescriptor.drawableModule = (DrawableModule)module;
 				}
 				idMap.put(module.getIndex(), module);
-				System.out.println(module.getIndex() + " " + module);
 				emitterDescriptor.modules.add(module); // I cannot understand how this was working before. This is needed so that it can later reset requesters.
 
 			}
@@ -141,6 +186,193 @@ public class ParticleEffectDescriptor {
 		return particleEffectInstance;
 	}
 
+	/**
+	 * Creates an instance that owns a copy of every emitter graph instead of evaluating the graphs of this descriptor.
+	 * Module caches, slot values, point data and scope all live on the instance, so isolated instances of the same
+	 * effect can be updated on different threads at the same time.
+	 */
+	public ParticleEffectInstance createIsolatedEffectInstance() {
+		ParticleEffectInstance particleEffectInstance = new ParticleEffectInstance(this, true);
+
+		Json json = ParticleEmitterDescriptor.getModuleJson();
+		for(ParticleEmitterDescriptor emitterDescriptor: emitterModuleGraphs) {
+			particleEffectInstance.addEmitter(emitterDescriptor.copyForInstance(particleEffectInstance, json));
+		}
+
+		particleEffectInstance.sortEmitters();
+
+		// create default scope
+		particleEffectInstance.setScope(new ScopePayload());
+
+		return particleEffectInstance;
+	}
+
+	/**
+	 * Creates an instance whose emitters play back timelines baked from the emitter graphs instead of simulating, see
+	 * {@link TinyEmitter}. Timelines are baked once and shared by every baked instance of this effect, a timeline
+	 * cache next to the effect file is loaded first if there is one.
+	 */
+	public ParticleEffectInstance createBakedEffectInstance() {
+		if (!hasBakedTimelines()) {
+			FileHandle cacheFile = getTimelineCacheFile();
+			if (cacheFile != null && cacheFile.exists()) {
+				loadTimelineCache(cacheFile);
+			}
+		}
+
+		ParticleEffectInstance particleEffectInstance = new ParticleEffectInstance(this);
+		setEffectReference(particleEffectInstance);
+
+		// emitters bake against the scope of the instance
+		particleEffectInstance.setScope(new ScopePayload());
+
+		for(ParticleEmitterDescriptor emitterDescriptor: emitterModuleGraphs) {
+			particleEffectInstance.addAdvancedEmitter(emitterDescriptor);
+		}
+
+		particleEffectInstance.sortEmitters();
+
+		return particleEffectInstance;
+	}
+
+	/**
+	 * Replaces the instance pool of this effect, instances obtained from the previous pool are still freed to it
+	 *
+	 * @param warmCount idle instances created right away
+	 * @param max most idle instances kept, more freed instances are dropped
+	 */
+	public ParticleEffectPool createInstancePool (ParticleEffectPool.InstanceType instanceType, int warmCount, int max) {
+		instancePool = new ParticleEffectPool(this, instanceType, warmCount, max);
+		instancePool.warm();
+		return instancePool;
+	}
+
+	public ParticleEffectPool getInstancePool () {
+		if (instancePool == null) {
+			createInstancePool(ParticleEffectPool.InstanceType.SHARED, 0, DEFAULT_POOL_MAX);
+		}
+		return instancePool;
+	}
+
+	/**
+	 * Reused instance ready to play, hand it back with {@link #freeEffectInstance(ParticleEffectInstance)}
+	 */
+	public ParticleEffectInstance obtainEffectInstance () {
+		return getInstancePool().obtain();
+	}
+
+	public void freeEffectInstance (ParticleEffectInstance instance) {
+		final ParticleEffectPool pool = instance.getPool();
+		if (pool == null || pool.getDescriptor() != this) {
+			throw new GdxRuntimeException("Effect instance was not obtained from this descriptor");
+		}
+		pool.free(instance);
+	}
+
+	public boolean hasBakedTimelines () {
+		for(ParticleEmitterDescriptor emitterDescriptor: emitterModuleGraphs) {
+			if (emitterDescriptor.getParticleModule() != null && emitterDescriptor.getBakedTimeline() == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public FileHandle getFileHandle () {
+		return fileHandle;
+	}
+
+	/**
+	 * Compiles the shaders of the effect, GL thread only. Loading only reads shader sources, so effects loaded on
+	 * another thread would otherwise compile them on first draw.
+	 */
+	public void createResources () {
+		for (int i = 0; i < emitterModuleGraphs.size; i++) {
+			final Array<AbstractModule> modules = emitterModuleGraphs.get(i).getModules();
+			for (int j = 0; j < modules.size; j++) {
+				if (modules.get(j) instanceof ShadedSpriteModule) {
+					((ShadedSpriteModule)modules.get(j)).createResources();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return name of the effect file without extension, or a placeholder when not loaded from a file
+	 */
+	public String getName () {
+		return fileHandle != null ? fileHandle.nameWithoutExtension() : "unnamed";
+	}
+
+	/**
+	 * @return where the timeline cache of the effect file lives, null if this was not loaded from a file
+	 */
+	public FileHandle getTimelineCacheFile () {
+		if (fileHandle == null) return null;
+		return fileHandle.sibling(fileHandle.nameWithoutExtension() + "." + TIMELINE_CACHE_EXTENSION);
+	}
+
+	/**
+	 * Bakes whatever emitters have no timeline yet and writes all timelines to file
+	 */
+	public void saveTimelineCache (FileHandle file) {
+		if (!hasBakedTimelines()) {
+			createBakedEffectInstance();
+		}
+
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(file.write(false)));
+			out.writeInt(TIMELINE_CACHE_MAGIC);
+			out.writeInt(TIMELINE_CACHE_VERSION);
+			out.writeInt(sourceHash);
+			out.writeInt(emitterModuleGraphs.size);
+			for(ParticleEmitterDescriptor emitterDescriptor: emitterModuleGraphs) {
+				BakedTimeline timeline = emitterDescriptor.getBakedTimeline();
+				out.writeBoolean(timeline != null);
+				if (timeline != null) {
+					timeline.write(out);
+				}
+			}
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Could not write timeline cache: " + file, e);
+		} finally {
+			StreamUtils.closeQuietly(out);
+		}
+	}
+
+	/**
+	 * Hands the timelines in file to the emitter graphs
+	 *
+	 * @return false if file was baked from a different effect source or emitter setup, nothing is loaded then
+	 */
+	public boolean loadTimelineCache (FileHandle file) {
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(file.read()));
+			if (in.readInt() != TIMELINE_CACHE_MAGIC) {
+				throw new GdxRuntimeException("Not a timeline cache: " + file);
+			}
+			if (in.readInt() != TIMELINE_CACHE_VERSION) return false;
+			if (in.readInt() != sourceHash) return false;
+			if (in.readInt() != emitterModuleGraphs.size) return false;
+
+			Array<BakedTimeline> timelines = new Array<>();
+			for (int i = 0; i < emitterModuleGraphs.size; i++) {
+				timelines.add(in.readBoolean() ? BakedTimeline.read(in) : null);
+			}
+
+			for (int i = 0; i < emitterModuleGraphs.size; i++) {
+				emitterModuleGraphs.get(i).setBakedTimeline(timelines.get(i));
+			}
+			return true;
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Could not read timeline cache: " + file, e);
+		} finally {
+			StreamUtils.closeQuietly(in);
+		}
+	}
+
 	public boolean isContinuous() {
 		for(ParticleEmitterDescriptor emitterDescriptor: emitterModuleGraphs) {
 			if(emitterDescriptor.getEmitterModule() == null || emitterDescriptor.getParticleModule() == null) {
@@ -165,8 +397,23 @@ public class ParticleEffectDescriptor {
 		this.assetProvider = assetProvider;
 	}
 
+	public boolean isCompiledEvaluation () {
+		return compiledEvaluation;
+	}
+
+	/**
+	 * Switches between the interpreter and compiled graph programs for every instance of this effect. Graphs switch
+	 * on their next update, and graphs that can not be compiled stay interpreted.
+	 */
+	public void setCompiledEvaluation (boolean compiledEvaluation) {
+		this.compiledEvaluation = compiledEvaluation;
+	}
+
 	public void setEffectReference(ParticleEffectInstance particleEffectInstance) {
 		processsingEffectReference = particleEffectInstance;
+		for (int i = 0; i < emitterModuleGraphs.size; i++) {
+			emitterModuleGraphs.get(i).bindEvaluation();
+		}
 	}
 
 	public ParticleEffectInstance getInstanceReference() {
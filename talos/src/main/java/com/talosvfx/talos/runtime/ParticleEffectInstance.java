@@ -17,16 +17,25 @@
 package com.talosvfx.talos.runtime;
 
 import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+import com.talosvfx.talos.runtime.modules.DrawableModule;
+import com.talosvfx.talos.runtime.modules.ParticlePointDataGeneratorModule;
 import com.talosvfx.talos.runtime.render.ParticleRenderer;
 import com.talosvfx.talos.runtime.simulation.TinyEmitter;
 
 import java.util.Comparator;
 
-public class ParticleEffectInstance {
+public class ParticleEffectInstance implements Pool.Poolable {
 
     private final ParticleEffectDescriptor descriptor;
 
+	/**
+	 * Emitters evaluate graphs owned by this instance, see {@link ParticleEffectDescriptor#createIsolatedEffectInstance()}
+	 */
+	private final boolean isolated;
+
     private Array<IEmitter> emitters = new Array<>();
 
     Vector3 position = new Vector3();
@@ -46,6 +55,53 @@ public class ParticleEffectInstance {
 
     private boolean paused = false;
 
+	/**
+	 * Importance when a particle budget has to be shared, higher is kept emitting longer
+	 */
+	private int priority;
+
+	/**
+	 * Multiplies the emission rate of every emitter, lowered for distant or over budget effects
+	 */
+	private float emissionScale = 1f;
+
+	/**
+	 * Only every n-th {@link #update(float)} steps the emitters, with the time of the calls in between added up
+	 */
+	private int updateInterval = 1;
+	private int heldUpdates;
+	private float heldTime;
+
+	/**
+	 * Emitter steps taken so far, tells callers whether an update actually advanced the effect
+	 */
+	private int stepCount;
+
+	/**
+	 * Culled instances are not stepped, the time they miss is caught up with {@link #fastForward(float)} once they are not.
+	 * Effects that do not loop still advance in coarse steps whenever the missed time reaches the fast forward limit, so
+	 * they complete while off-screen.
+	 */
+	private boolean culled;
+	private float culledTime;
+	private float fastForwardLimit = 2f;
+	private float fastForwardStep = 0.1f;
+
+	/**
+	 * Box around every point generated by the last step
+	 */
+	private final BoundingBox bounds = new BoundingBox();
+
+	/**
+	 * Pool this instance was created by and is freed to, null for instances created directly
+	 */
+	ParticleEffectPool pool;
+
+	/**
+	 * True while the instance waits in its pool, freeing it again is an error
+	 */
+	boolean idle;
+
 	public void init () {
 		for (int i = 0; i < emitters.size; i++) {
 			emitters.get(i).init();
@@ -69,13 +125,31 @@ public class ParticleEffectInstance {
 	}
 
     public ParticleEffectInstance (ParticleEffectDescriptor particleEffectDescriptor) {
+        this(particleEffectDescriptor, false);
+    }
+
+    public ParticleEffectInstance (ParticleEffectDescriptor particleEffectDescriptor, boolean isolated) {
         this.descriptor = particleEffectDescriptor;
+        this.isolated = isolated;
     }
 
+	public ParticleEffectDescriptor getDescriptor () {
+		return descriptor;
+	}
+
+	/**
+	 * @return true if this instance shares no module state with other instances and can be updated off the gdx thread,
+	 * concurrently with other isolated instances
+	 */
+	public boolean isIsolated () {
+		return isolated;
+	}
+
 	public void setScope (ScopePayload scope) {
         this.scopePayload = scope;
 		for (int i = 0; i < emitters.size; i++) {
 			emitters.get(i).setScope(scope);
+			emitters.get(i).getEmitterGraph().bindEvaluation();
 		}
 	}
 
@@ -88,7 +162,59 @@ public class ParticleEffectInstance {
 
 		if(isComplete() && !loopable) return;
 
-    	descriptor.setEffectReference(this);
+		if (culled) {
+			culledTime += delta;
+			if (!loopable && culledTime >= Math.max(fastForwardLimit, fastForwardStep)) {
+				advance(culledTime);
+				culledTime = 0;
+			}
+			return;
+		}
+
+		if (culledTime > 0) {
+			float missed = culledTime;
+			culledTime = 0;
+			fastForward(missed);
+		}
+
+		if (updateInterval > 1) {
+			heldTime += delta;
+			if (++heldUpdates < updateInterval) return;
+
+			delta = heldTime;
+			heldTime = 0;
+			heldUpdates = 0;
+		}
+
+		step(delta);
+	}
+
+	/**
+	 * Catches up on time in coarse steps of at most the fast forward step, skipping anything above the fast forward limit.
+	 * Meant for effects coming back into view, not for exact simulation.
+	 */
+	public void fastForward (float time) {
+		advance(Math.min(time, fastForwardLimit));
+	}
+
+	private void advance (float time) {
+		while (time > 0 && !(isComplete() && !loopable)) {
+			float delta = Math.min(time, fastForwardStep);
+			step(delta);
+			time -= delta;
+		}
+	}
+
+	private void step (float delta) {
+		stepCount++;
+
+		if (!isolated) {
+			descriptor.setEffectReference(this);
+		}
+
+		for (int i = 0; i < emitters.size; i++) {
+			emitters.get(i).getEmitterGraph().prepareEvaluation();
+		}
 
 		if(totalTime > 3600) totalTime = 0; //TODO: maybe just supple TimeUtils time now instead...
 		totalTime += delta;
@@ -104,6 +230,8 @@ public class ParticleEffectInstance {
 			particleCount += emitters.get(i).getActiveParticleCount();
 		}
 
+		updateBounds();
+
 		if(particleCount == 0 && loopable) {
 			for (int i = 0; i < emitters.size; i++) {
 				if(!emitters.get(i).isContinuous()) {
@@ -115,7 +243,54 @@ public class ParticleEffectInstance {
 		}
 	}
 
+	private void updateBounds () {
+		bounds.inf();
+		for (int i = 0; i < emitters.size; i++) {
+			final DrawableModule drawableModule = emitters.get(i).getDrawableModule();
+			if (drawableModule == null) continue;
+
+			final ParticlePointDataGeneratorModule pointDataGenerator = drawableModule.getPointDataGenerator();
+			if (pointDataGenerator == null) continue;
+
+			final Array<ParticlePointGroup> pointData = pointDataGenerator.pointData;
+			for (int j = 0; j < pointData.size; j++) {
+				final Array<ParticlePointData> points = pointData.get(j).pointDataArray;
+				for (int k = 0; k < points.size; k++) {
+					final ParticlePointData point = points.get(k);
+					bounds.ext(point.previousX, point.previousY, point.previousZ);
+					bounds.ext(point.currentX, point.currentY, point.currentZ);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves every generated point between the last two updates, for rendering in between fixed simulation steps
+	 *
+	 * @param alpha 0 for the previous update, 1 for the latest one
+	 */
+	public void interpolate (float alpha) {
+		for (int i = 0; i < emitters.size; i++) {
+			final DrawableModule drawableModule = emitters.get(i).getDrawableModule();
+			if (drawableModule == null) continue;
+
+			final ParticlePointDataGeneratorModule pointDataGenerator = drawableModule.getPointDataGenerator();
+			if (pointDataGenerator == null) continue;
+
+			final Array<ParticlePointGroup> pointData = pointDataGenerator.pointData;
+			for (int j = 0; j < pointData.size; j++) {
+				final Array<ParticlePointData> points = pointData.get(j).pointDataArray;
+				for (int k = 0; k < points.size; k++) {
+					points.get(k).interpolate(alpha);
+				}
+			}
+		}
+	}
+
 	public void render (ParticleRenderer particleRenderer) {
+		if (!isolated) {
+			descriptor.setEffectReference(this);
+		}
 		particleRenderer.render(this);
 	}
 
@@ -139,8 +314,8 @@ public class ParticleEffectInstance {
 
 
 	public boolean isContinuous() {
-		for (ParticleEmitterDescriptor emitterDescriptor: descriptor.emitterModuleGraphs) {
-			if (emitterDescriptor.isContinuous()) {
+		for (int i = 0; i < emitters.size; i++) {
+			if (emitters.get(i).getEmitterGraph().isContinuous()) {
 				return true;
 			}
 		}
@@ -160,6 +335,29 @@ public class ParticleEffectInstance {
 		return true;
 	}
 
+	/**
+	 * Switches every regular emitter of this effect between per particle objects and column storage, see
+	 * {@link ParticleEmitterInstance#setParticleStoreEnabled(boolean)}
+	 */
+	public void setParticleStoreEnabled (boolean enabled) {
+		for (int i = 0; i < emitters.size; i++) {
+			if (emitters.get(i) instanceof ParticleEmitterInstance) {
+				((ParticleEmitterInstance)emitters.get(i)).setParticleStoreEnabled(enabled);
+			}
+		}
+	}
+
+	/**
+	 * Batch evaluation for every regular emitter of this effect, see {@link ParticleEmitterInstance#setBatchEvaluation(boolean)}
+	 */
+	public void setBatchEvaluation (boolean enabled) {
+		for (int i = 0; i < emitters.size; i++) {
+			if (emitters.get(i) instanceof ParticleEmitterInstance) {
+				((ParticleEmitterInstance)emitters.get(i)).setBatchEvaluation(enabled);
+			}
+		}
+	}
+
 	public void allowCompletion() {
     	loopable = false;
 		for (int i = 0; i < emitters.size; i++) {
@@ -190,6 +388,40 @@ public class ParticleEffectInstance {
 		totalTime = 0;
 	}
 
+	/**
+	 * Puts the instance back in the state it was created in, for reuse through {@link ParticleEffectPool}. Emitters
+	 * drop their particles but keep their pools and stores.
+	 */
+	@Override
+	public void reset () {
+		for (int i = 0; i < emitters.size; i++) {
+			emitters.get(i).reset();
+		}
+
+		position.setZero();
+		loopable = false;
+		paused = false;
+		alpha = 1f;
+		totalTime = 0;
+		particleCount = 0;
+		nodeCalls = 0;
+
+		priority = 0;
+		emissionScale = 1f;
+		updateInterval = 1;
+		heldUpdates = 0;
+		heldTime = 0;
+		culled = false;
+		culledTime = 0;
+		fastForwardLimit = 2f;
+		fastForwardStep = 0.1f;
+		bounds.inf();
+	}
+
+	public ParticleEffectPool getPool () {
+		return pool;
+	}
+
 
 
 	public Array<IEmitter> getEmitters () {
@@ -219,6 +451,80 @@ public class ParticleEffectInstance {
 		return particleCount;
 	}
 
+	/**
+	 * Bounds of the points generated by the last step, not valid when there were none
+	 */
+	public BoundingBox getBounds () {
+		return bounds;
+	}
+
+	public int getPriority () {
+		return priority;
+	}
+
+	public void setPriority (int priority) {
+		this.priority = priority;
+	}
+
+	public float getEmissionScale () {
+		return emissionScale;
+	}
+
+	public void setEmissionScale (float emissionScale) {
+		this.emissionScale = emissionScale;
+	}
+
+	public int getUpdateInterval () {
+		return updateInterval;
+	}
+
+	public void setUpdateInterval (int updateInterval) {
+		this.updateInterval = Math.max(1, updateInterval);
+	}
+
+	/**
+	 * Time added up by skipped updates that the next stepping update will advance by
+	 */
+	public float getHeldTime () {
+		return heldTime;
+	}
+
+	public int getStepCount () {
+		return stepCount;
+	}
+
+	/**
+	 * Regenerates the point data of every emitter without stepping, for an instance sharing the graphs of its
+	 * descriptor that is drawn on a frame it was not updated on
+	 */
+	public void generatePoints () {
+		if (!isolated) {
+			descriptor.setEffectReference(this);
+		}
+
+		for (int i = 0; i < emitters.size; i++) {
+			emitters.get(i).getEmitterGraph().prepareEvaluation();
+			emitters.get(i).generatePoints();
+		}
+	}
+
+	public boolean isCulled () {
+		return culled;
+	}
+
+	public void setCulled (boolean culled) {
+		this.culled = culled;
+	}
+
+	/**
+	 * @param limit most time caught up after being culled, in seconds
+	 * @param step longest single step while catching up
+	 */
+	public void setFastForward (float limit, float step) {
+		this.fastForwardLimit = limit;
+		this.fastForwardStep = Math.max(0.001f, step);
+	}
+
 	public int getNodeCalls() {
 		return nodeCalls;
 	}
@@ -227,6 +533,10 @@ public class ParticleEffectInstance {
 		nodeCalls++;
 	}
 
+	public void reportNodeCalls(int count) {
+		nodeCalls += count;
+	}
+
 	public void sortEmitters() {
 		emitters.sort(emitterComparator);
 		for(int i = 0; i < emitters.size; i++) {
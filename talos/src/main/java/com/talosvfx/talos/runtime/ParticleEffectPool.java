@@ -0,0 +1,104 @@
+package com.talosvfx.talos.runtime;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.rockbite.bongo.engine.pooling.PoolWithBookkeeping;
+
+/**
+ * Reuses effect instances of one descriptor, see {@link ParticleEffectDescriptor#createInstancePool(InstanceType, int, int)}.
+ * Freed instances are {@link ParticleEffectInstance#reset()} instead of rebuilt, so their emitters keep particle pools,
+ * point pools and stores. Instances freed while max are already idle are dropped.
+ */
+public class ParticleEffectPool extends PoolWithBookkeeping<ParticleEffectInstance> {
+
+	public enum InstanceType {
+		/**
+		 * {@link ParticleEffectDescriptor#createEffectInstance()}
+		 */
+		SHARED,
+		/**
+		 * {@link ParticleEffectDescriptor#createIsolatedEffectInstance()}
+		 */
+		ISOLATED,
+		/**
+		 * {@link ParticleEffectDescriptor#createBakedEffectInstance()}
+		 */
+		BAKED
+	}
+
+	private final ParticleEffectDescriptor descriptor;
+	private final InstanceType instanceType;
+	private final int warmCount;
+
+	public ParticleEffectPool (ParticleEffectDescriptor descriptor, InstanceType instanceType, int warmCount, int max) {
+		super("ParticleEffectPool: " + descriptor.getName(), Math.max(16, warmCount), max);
+		this.descriptor = descriptor;
+		this.instanceType = instanceType;
+		this.warmCount = warmCount;
+	}
+
+	/**
+	 * Creates idle instances up to the warm count, so the first obtains do not build any
+	 */
+	public void warm () {
+		final int missing = Math.min(warmCount, max) - getFree();
+		if (missing > 0) {
+			fill(missing);
+		}
+	}
+
+	@Override
+	protected ParticleEffectInstance newObject () {
+		final ParticleEffectInstance instance;
+		switch (instanceType) {
+		case ISOLATED:
+			instance = descriptor.createIsolatedEffectInstance();
+			break;
+		case BAKED:
+			instance = descriptor.createBakedEffectInstance();
+			break;
+		default:
+			instance = descriptor.createEffectInstance();
+			break;
+		}
+		instance.pool = this;
+		instance.idle = true;
+		return instance;
+	}
+
+	@Override
+	public ParticleEffectInstance obtain () {
+		final ParticleEffectInstance instance = super.obtain();
+		instance.idle = false;
+		return instance;
+	}
+
+	@Override
+	public void free (ParticleEffectInstance instance) {
+		if (instance.pool != this) {
+			throw new GdxRuntimeException("Effect instance does not belong to pool: " + getPoolName());
+		}
+		if (instance.idle) {
+			throw new GdxRuntimeException("Effect instance freed twice to pool: " + getPoolName());
+		}
+		instance.idle = true;
+		super.free(instance);
+	}
+
+	@Override
+	protected void discard (ParticleEffectInstance instance) {
+		super.discard(instance);
+		instance.pool = null;
+	}
+
+	public ParticleEffectDescriptor getDescriptor () {
+		return descriptor;
+	}
+
+	public InstanceType getInstanceType () {
+		return instanceType;
+	}
+
+	public int getWarmCount () {
+		return warmCount;
+	}
+}
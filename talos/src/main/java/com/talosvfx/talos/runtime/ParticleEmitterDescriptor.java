@@ -17,7 +17,16 @@
 package com.talosvfx.talos.runtime;
 
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+import com.badlogic.gdx.utils.reflect.Constructor;
+import com.badlogic.gdx.utils.reflect.ReflectionException;
 import com.talosvfx.talos.runtime.modules.AbstractModule;
 import com.talosvfx.talos.runtime.modules.AttractorModule;
 import com.talosvfx.talos.runtime.modules.CartToRadModule;
@@ -35,6 +44,8 @@ import com.talosvfx.talos.runtime.modules.GlobalScopeModule;
 import com.talosvfx.talos.runtime.modules.GradientColorModule;
 import com.talosvfx.talos.runtime.modules.InputModule;
 import com.talosvfx.talos.runtime.modules.InterpolationModule;
+import com.talosvfx.talos.runtime.modules.ModuleGraphCompiler;
+import com.talosvfx.talos.runtime.modules.ModuleGraphProgram;
 import com.talosvfx.talos.runtime.modules.MathModule;
 import com.talosvfx.talos.runtime.modules.MixModule;
 import com.talosvfx.talos.runtime.modules.NinePatchModule;
@@ -53,6 +64,8 @@ import com.talosvfx.talos.runtime.modules.TextureModule;
 import com.talosvfx.talos.runtime.modules.Vector2Module;
 import com.talosvfx.talos.runtime.modules.Vector3Module;
 import com.talosvfx.talos.runtime.modules.VectorFieldModule;
+import com.talosvfx.talos.runtime.simulation.BakedTimeline;
+import com.talosvfx.talos.runtime.simulation.TinyEmitter;
 
 public class ParticleEmitterDescriptor {
 
@@ -66,57 +79,176 @@ public class ParticleEmitterDescriptor {
 
     private int sortPosition;
 
+    /**
+     * Owner of a graph copied with {@link #copyForInstance(ParticleEffectInstance, Json)}, null for graphs shared
+     * through the effect descriptor
+     */
+    private ParticleEffectInstance instanceReference;
+
+    /**
+     * Serialized modules and their connections, the definition every per instance copy is built from.
+     * Built lazily and dropped whenever the graph is edited.
+     */
+    private Array<JsonValue> moduleDefinitions;
+    private IntArray connectionDefinitions;
+
+    private ModuleGraphProgram program;
+    private boolean programDirty = true;
+    private boolean programRequested;
+
+    /** Incremented on every structural edit, lets batch evaluators drop what they resolved */
+    private int version;
+
+    /**
+     * Pre-simulated particles played back by {@link TinyEmitter}, dropped along with the definition
+     */
+    private BakedTimeline bakedTimeline;
+
     public static ObjectSet<Class> registeredModules;
 
+    /**
+     * Creates a module of one registered class, resolved once instead of instantiating modules through reflection
+     */
+    public interface ModuleFactory {
+        AbstractModule create ();
+    }
+
+    private static ObjectMap<String, ModuleFactory> moduleFactories;
+
+    private static final ThreadLocal<Json> moduleJson = ThreadLocal.withInitial(ParticleEmitterDescriptor::createModuleJson);
+
     public ParticleEmitterDescriptor (ParticleEffectDescriptor descriptor) {
         this.particleEffectResourceDescriptor = descriptor;
         registerModules();
     }
 
+    /**
+     * Json that reads and writes modules by their registered simple class names
+     */
+    public static Json createModuleJson () {
+        Json json = new Json();
+        for (Class<?> clazz: copyRegisteredModules()) {
+            json.addClassTag(clazz.getSimpleName(), clazz);
+        }
+        return json;
+    }
+
+    /**
+     * Registered module classes copied under the registration lock, module json is created on loader threads
+     */
+    private static synchronized Array<Class<?>> copyRegisteredModules () {
+        registerModules();
+        Array<Class<?>> classes = new Array<>(registeredModules.size);
+        for (Class<?> clazz: registeredModules) {
+            classes.add(clazz);
+        }
+        return classes;
+    }
+
+    /**
+     * Module json of the calling thread, created once per thread, see {@link #createModuleJson()}
+     */
+    public static Json getModuleJson () {
+        return moduleJson.get();
+    }
+
+    /**
+     * Name a module class is written under, its simple name when registered, the full name otherwise, the same as
+     * the class tags of {@link #createModuleJson()}
+     */
+    public static synchronized String getModuleName (Class<? extends AbstractModule> clazz) {
+        registerModules();
+        return registeredModules.contains(clazz) ? clazz.getSimpleName() : clazz.getName();
+    }
+
+    /**
+     * @param name see {@link #getModuleName(Class)}, unregistered classes are looked up by reflection once
+     */
+    public static AbstractModule createModule (String name) {
+        ModuleFactory factory;
+        synchronized (ParticleEmitterDescriptor.class) {
+            registerModules();
+            factory = moduleFactories.get(name);
+            if (factory == null) {
+                factory = createReflectionFactory(name);
+                moduleFactories.put(name, factory);
+            }
+        }
+        return factory.create();
+    }
+
+    private static ModuleFactory createReflectionFactory (final String name) {
+        try {
+            final Class<?> clazz = ClassReflection.forName(name);
+            if (!ClassReflection.isAssignableFrom(AbstractModule.class, clazz)) {
+                throw new GdxRuntimeException("Not a module: " + name);
+            }
+            final Constructor constructor = ClassReflection.getConstructor(clazz);
+            return new ModuleFactory() {
+                @Override
+                public AbstractModule create () {
+                    try {
+                        return (AbstractModule)constructor.newInstance();
+                    } catch (ReflectionException e) {
+                        throw new GdxRuntimeException("Could not create module: " + name, e);
+                    }
+                }
+            };
+        } catch (ReflectionException e) {
+            throw new GdxRuntimeException("No module registered for name: " + name, e);
+        }
+    }
+
     public static ObjectSet<Class> getRegisteredModules() {
         registerModules();
         return registeredModules;
     }
 
-    public static void registerModules() {
+    public static synchronized void registerModules() {
         if(registeredModules == null) {
             registeredModules = new ObjectSet<>();
-            registeredModules.add(EmitterModule.class);
-            registeredModules.add(InterpolationModule.class);
-            registeredModules.add(InputModule.class);
-            registeredModules.add(ParticleModule.class);
-            registeredModules.add(StaticValueModule.class);
-            registeredModules.add(RandomRangeModule.class);
-            registeredModules.add(MixModule.class);
-            registeredModules.add(MathModule.class);
-            registeredModules.add(CurveModule.class);
-            registeredModules.add(Vector2Module.class);
-            registeredModules.add(Vector3Module.class);
-            registeredModules.add(ColorModule.class);
-            registeredModules.add(DynamicRangeModule.class);
-            registeredModules.add(ScriptModule.class);
-            registeredModules.add(GradientColorModule.class);
-            registeredModules.add(TextureModule.class);
-            registeredModules.add(EmConfigModule.class);
-            registeredModules.add(OffsetModule.class);
-            registeredModules.add(RandomInputModule.class);
-            registeredModules.add(NoiseModule.class);
-            registeredModules.add(PolylineModule.class);
-            registeredModules.add(RibbonModule.class);
-            registeredModules.add(FromToModule.class);
-            registeredModules.add(GlobalScopeModule.class);
-            registeredModules.add(FlipbookModule.class);
-            registeredModules.add(ShadedSpriteModule.class);
-            registeredModules.add(FakeMotionBlurModule.class);
-            registeredModules.add(VectorFieldModule.class);
-            registeredModules.add(RadToCartModule.class);
-            registeredModules.add(CartToRadModule.class);
-            registeredModules.add(AttractorModule.class);
-            registeredModules.add(ForceApplierModule.class);
-            registeredModules.add(NinePatchModule.class);
+            moduleFactories = new ObjectMap<>();
+            registerModule(EmitterModule.class, EmitterModule::new);
+            registerModule(InterpolationModule.class, InterpolationModule::new);
+            registerModule(InputModule.class, InputModule::new);
+            registerModule(ParticleModule.class, ParticleModule::new);
+            registerModule(StaticValueModule.class, StaticValueModule::new);
+            registerModule(RandomRangeModule.class, RandomRangeModule::new);
+            registerModule(MixModule.class, MixModule::new);
+            registerModule(MathModule.class, MathModule::new);
+            registerModule(CurveModule.class, CurveModule::new);
+            registerModule(Vector2Module.class, Vector2Module::new);
+            registerModule(Vector3Module.class, Vector3Module::new);
+            registerModule(ColorModule.class, ColorModule::new);
+            registerModule(DynamicRangeModule.class, DynamicRangeModule::new);
+            registerModule(ScriptModule.class, ScriptModule::new);
+            registerModule(GradientColorModule.class, GradientColorModule::new);
+            registerModule(TextureModule.class, TextureModule::new);
+            registerModule(EmConfigModule.class, EmConfigModule::new);
+            registerModule(OffsetModule.class, OffsetModule::new);
+            registerModule(RandomInputModule.class, RandomInputModule::new);
+            registerModule(NoiseModule.class, NoiseModule::new);
+            registerModule(PolylineModule.class, PolylineModule::new);
+            registerModule(RibbonModule.class, RibbonModule::new);
+            registerModule(FromToModule.class, FromToModule::new);
+            registerModule(GlobalScopeModule.class, GlobalScopeModule::new);
+            registerModule(FlipbookModule.class, FlipbookModule::new);
+            registerModule(ShadedSpriteModule.class, ShadedSpriteModule::new);
+            registerModule(FakeMotionBlurModule.class, FakeMotionBlurModule::new);
+            registerModule(VectorFieldModule.class, VectorFieldModule::new);
+            registerModule(RadToCartModule.class, RadToCartModule::new);
+            registerModule(CartToRadModule.class, CartToRadModule::new);
+            registerModule(AttractorModule.class, AttractorModule::new);
+            registerModule(ForceApplierModule.class, ForceApplierModule::new);
+            registerModule(NinePatchModule.class, NinePatchModule::new);
         }
     }
 
+    private static void registerModule (Class<? extends AbstractModule> clazz, ModuleFactory factory) {
+        registeredModules.add(clazz);
+        moduleFactories.put(clazz.getSimpleName(), factory);
+    }
+
     public boolean addModule (AbstractModule module) {
         boolean added = true;
         if (module instanceof ParticleModule) {
@@ -143,6 +275,7 @@ public class ParticleEmitterDescriptor {
 
         if (added) {
             modules.add(module);
+            graphChanged();
         }
 
         return added;
@@ -158,6 +291,7 @@ public class ParticleEmitterDescriptor {
         }
 
         modules.removeValue(module, true);
+        graphChanged();
 
         if(module instanceof ParticleModule) {
             particleModule = null;
@@ -172,10 +306,160 @@ public class ParticleEmitterDescriptor {
         // slotFrom is the output of slot from
         from.attachModuleToMyOutput(to, slotFrom, slotTo);
         to.attachModuleToMyInput(from, slotTo, slotFrom);
+        graphChanged();
     }
 
     public void removeNode(AbstractModule module, int slot,boolean isInput) {
         module.detach(slot, isInput);
+        graphChanged();
+    }
+
+    private void graphChanged () {
+        version++;
+        invalidateDefinition();
+        if (!programDirty) {
+            ModuleGraphCompiler.decompile(modules);
+            program = null;
+            programDirty = true;
+        }
+    }
+
+    /**
+     * Compiles or drops the evaluation program to match {@link ParticleEffectDescriptor#isCompiledEvaluation()}.
+     * Cheap when nothing changed, called before every update.
+     */
+    public void prepareEvaluation () {
+        boolean requested = particleEffectResourceDescriptor.isCompiledEvaluation();
+        if (programDirty || requested != programRequested) {
+            if (requested) {
+                program = ModuleGraphCompiler.compile(modules);
+            } else {
+                ModuleGraphCompiler.decompile(modules);
+                program = null;
+            }
+            programRequested = requested;
+            programDirty = false;
+        }
+        bindEvaluation();
+    }
+
+    /**
+     * Points the compiled program at the current instance reference, called whenever it or its scope changes
+     */
+    public void bindEvaluation () {
+        if (program != null) {
+            program.bind(getInstanceReference());
+        }
+    }
+
+    public int getVersion () {
+        return version;
+    }
+
+    /**
+     * Drop the cached definition and baked timeline so the next copy or bake picks up module values changed in place
+     */
+    public synchronized void invalidateDefinition () {
+        moduleDefinitions = null;
+        connectionDefinitions = null;
+        bakedTimeline = null;
+    }
+
+    public synchronized BakedTimeline getBakedTimeline () {
+        return bakedTimeline;
+    }
+
+    public synchronized void setBakedTimeline (BakedTimeline bakedTimeline) {
+        this.bakedTimeline = bakedTimeline;
+    }
+
+    private void buildDefinition (Json json) {
+        if (moduleDefinitions != null) return;
+
+        JsonReader reader = new JsonReader();
+        Array<JsonValue> definitions = new Array<>(modules.size);
+        IntArray connections = new IntArray();
+
+        for (int i = 0; i < modules.size; i++) {
+            AbstractModule module = modules.get(i);
+            definitions.add(reader.parse(json.toJson(module, AbstractModule.class)));
+
+            for (Slot inputSlot : module.getInputSlots().values()) {
+                if (inputSlot.getTargetSlot() == null) continue;
+                int from = modules.indexOf(inputSlot.getTargetModule(), true);
+                if (from == -1) continue;
+
+                connections.add(from, inputSlot.getTargetSlot().getIndex(), i, inputSlot.getIndex());
+            }
+        }
+
+        connectionDefinitions = connections;
+        moduleDefinitions = definitions;
+    }
+
+    /**
+     * Creates a graph with its own modules, and so its own slot values, requester caches and point data, that resolves
+     * scope against instance only. Instances owning their graphs never touch shared module state and can be updated
+     * concurrently. Shaded sprite drawables are the exception, they hold GL resources and are shared with this graph,
+     * which is fine as they are only used when drawing.
+     *
+     * @param json created with {@link #createModuleJson()}, not shared between threads
+     */
+    public ParticleEmitterDescriptor copyForInstance (ParticleEffectInstance instance, Json json) {
+        final Array<JsonValue> definitions;
+        final IntArray connections;
+        final AbstractModule[] sources;
+        synchronized (this) {
+            buildDefinition(json);
+            definitions = moduleDefinitions;
+            connections = connectionDefinitions;
+            sources = modules.toArray(AbstractModule.class);
+        }
+
+        ParticleEmitterDescriptor copy = new ParticleEmitterDescriptor(particleEffectResourceDescriptor);
+        copy.instanceReference = instance;
+        copy.sortPosition = sortPosition;
+
+        for (int i = 0; i < definitions.size; i++) {
+            AbstractModule module = json.readValue(AbstractModule.class, definitions.get(i));
+            module.setModuleGraph(copy);
+            if (module instanceof ShadedSpriteModule && i < sources.length && sources[i] instanceof ShadedSpriteModule) {
+                // GL resources stay with the descriptor, copies draw with its compiled shader
+                ((ShadedSpriteModule)module).shareDrawable((ShadedSpriteModule)sources[i]);
+            }
+            if (module instanceof ParticleModule) {
+                copy.particleModule = (ParticleModule)module;
+            }
+            if (module instanceof EmitterModule) {
+                copy.emitterModule = (EmitterModule)module;
+            }
+            if (module instanceof DrawableModule) {
+                copy.drawableModule = (DrawableModule)module;
+            }
+            copy.modules.add(module);
+        }
+
+        for (int i = 0; i < connections.size; i += 4) {
+            AbstractModule moduleFrom = copy.modules.get(connections.get(i));
+            AbstractModule moduleTo = copy.modules.get(connections.get(i + 2));
+            copy.connectNode(moduleFrom, moduleTo, connections.get(i + 1), connections.get(i + 3));
+        }
+
+        return copy;
+    }
+
+    /**
+     * The effect instance modules of this graph are evaluated for
+     */
+    public ParticleEffectInstance getInstanceReference () {
+        if (instanceReference != null) {
+            return instanceReference;
+        }
+        return particleEffectResourceDescriptor.getInstanceReference();
+    }
+
+    public boolean isInstanceCopy () {
+        return instanceReference != null;
     }
 
     public ParticleModule getParticleModule() {
@@ -186,6 +470,9 @@ public class ParticleEmitterDescriptor {
         for(AbstractModule module: modules) {
             module.resetLastRequester();
         }
+        if (program != null) {
+            program.reset();
+        }
     }
 
     public EmitterModule getEmitterModule() {
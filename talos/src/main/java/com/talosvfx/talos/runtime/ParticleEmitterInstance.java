@@ -23,7 +23,9 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Pool;
 import com.talosvfx.talos.runtime.modules.DrawableModule;
 import com.talosvfx.talos.runtime.modules.EmitterModule;
+import com.talosvfx.talos.runtime.modules.ModuleBatch;
 import com.talosvfx.talos.runtime.modules.ParticleModule;
+import com.talosvfx.talos.runtime.modules.ParticlePointDataGeneratorModule;
 
 public class ParticleEmitterInstance implements IEmitter {
 
@@ -68,6 +70,16 @@ public class ParticleEmitterInstance implements IEmitter {
 	};
     private boolean isStopped = false;
 
+	/**
+	 * Column storage used instead of {@link #activeParticles} when enabled, see {@link #setParticleStoreEnabled(boolean)}
+	 */
+	private ParticleStore particleStore;
+	private final Particle particleView = new Particle();
+	/**
+	 * Evaluates the particle module for all stored rows at once when set, see {@link #setBatchEvaluation(boolean)}
+	 */
+	private ModuleBatch moduleBatch;
+
     public ParticleEmitterInstance (ParticleEmitterDescriptor moduleGraph, ParticleEffectInstance particleEffectInstance) {
 		this.emitterGraph = moduleGraph;
         parentParticleInstance = particleEffectInstance;
@@ -153,14 +165,21 @@ public class ParticleEmitterInstance implements IEmitter {
 		//
 		if (alpha < 1f || (alpha == 1f && deltaLeftover > 0)) { // emission only here
 			// let's emmit
-			particlesToEmmit += rate * deltaLeftover;
+			particlesToEmmit += rate * deltaLeftover * parentParticleInstance.getEmissionScale();
 
 			if(isImmortal) {
-				particlesToEmmit = Math.max(0, Math.round(rate * duration) - activeParticles.size);
+				particlesToEmmit = Math.max(0, Math.round(rate * duration) - getActiveParticleCount());
 			}
 
 			int count = (int)particlesToEmmit;
 			for (int i = 0; i < count; i++) {
+				if (particleStore != null) {
+					if (emitterGraph.getParticleModule() != null) {
+						particleView.init(this);
+						particleStore.add(particleView);
+					}
+					continue;
+				}
 				Particle particle = particlePool.obtain();
 				if (emitterGraph.getParticleModule() != null) {
 					particle.init(this);
@@ -180,6 +199,9 @@ public class ParticleEmitterInstance implements IEmitter {
 			} else {
 				// all immortals must die
 				if(isImmortal) {
+					if (particleStore != null) {
+						particleStore.clear();
+					}
 					for (int i = activeParticles.size - 1; i >= 0; i--) {
 						Particle particle = activeParticles.get(i);
 						particle.alpha = 1f;
@@ -191,7 +213,7 @@ public class ParticleEmitterInstance implements IEmitter {
 			}
 		}
 
-		if(activeParticles.size == 0) {
+		if(getActiveParticleCount() == 0) {
 			isComplete = true;
 		} else {
 			isComplete = false;
@@ -243,6 +265,11 @@ public class ParticleEmitterInstance implements IEmitter {
 		final DrawableModule drawableModule = getDrawableModule();
 		if (drawableModule == null) return;
 
+		if (particleStore != null) {
+			updateStoredParticles(drawableModule, delta);
+			return;
+		}
+
 		if (drawableModule.getPointDataGenerator() != null) {
 			drawableModule.getPointDataGenerator().freePoints(particlePointDataPool, groupPool);
 		}
@@ -282,6 +309,149 @@ public class ParticleEmitterInstance implements IEmitter {
 		}
 	}
 
+	@Override
+	public void generatePoints () {
+		final DrawableModule drawableModule = getDrawableModule();
+		if (drawableModule == null) return;
+
+		final ParticlePointDataGeneratorModule pointDataGenerator = drawableModule.getPointDataGenerator();
+		final ParticleModule particleModule = getParticleModule();
+		if (pointDataGenerator == null || particleModule == null) return;
+
+		pointDataGenerator.freePoints(particlePointDataPool, groupPool);
+		emitterGraph.resetRequesters();
+
+		if (particleStore != null) {
+			particleView.setEmitter(this);
+			for (int i = particleStore.getSize() - 1; i >= 0; i--) {
+				if (particleStore.isFrozen(i)) continue;
+
+				particleStore.read(i, particleView);
+				particleModule.updateScopeData(particleView);
+				particleView.generatePointData(this);
+			}
+		} else {
+			for (int i = activeParticles.size - 1; i >= 0; i--) {
+				Particle particle = activeParticles.get(i);
+				particleModule.updateScopeData(particle);
+				particle.generatePointData(this);
+			}
+		}
+
+		emitterGraph.resetRequesters();
+	}
+
+	/**
+	 * Same steps as {@link Particle#update(ParticleEmitterInstance, float)} over the rows of the store, split in three
+	 * passes. Modules are sampled row by row, then every row is integrated in one loop, then point data is generated.
+	 */
+	private void updateStoredParticles (DrawableModule drawableModule, float delta) {
+		final ParticlePointDataGeneratorModule pointDataGenerator = drawableModule.getPointDataGenerator();
+		if (pointDataGenerator != null) {
+			pointDataGenerator.freePoints(particlePointDataPool, groupPool);
+		}
+
+		final ParticleModule particleModule = getParticleModule();
+		final ParticleStore store = particleStore;
+		particleView.setEmitter(this);
+
+		if (particleModule != null && moduleBatch != null && moduleBatch.canEvaluate(particleModule)) {
+			store.sampleBatch(moduleBatch, particleModule, alpha, delta);
+			store.integrate(delta);
+		} else if (particleModule != null) {
+			for (int i = store.getSize() - 1; i >= 0; i--) {
+				if (store.alpha[i] == 1f) {
+					store.freeze(i);
+					continue;
+				}
+
+				float life = particleModule.getLife();
+				float particleAlpha = store.alpha[i] + delta / life;
+				if (particleAlpha > 1f) particleAlpha = 1f;
+				store.life[i] = life;
+				store.alpha[i] = particleAlpha;
+
+				store.read(i, particleView);
+				particleModule.updateScopeData(particleView);
+				store.sample(i, particleModule);
+			}
+
+			store.integrate(delta);
+		}
+
+		for (int i = store.getSize() - 1; i >= 0; i--) {
+			if (pointDataGenerator != null && particleModule != null && !store.isFrozen(i)) {
+				store.read(i, particleView);
+
+				int cacheMode = scopePayload.getRequestMode();
+				int cacheRequestID = scopePayload.getRequesterID();
+
+				scopePayload.setCurrentRequestMode(ScopePayload.PARTICLE_ALPHA);
+				scopePayload.setCurrentRequesterID(particleView.requesterID);
+				pointDataGenerator.generateParticlePointData(particleView, particlePointDataPool, groupPool);
+
+				scopePayload.setCurrentRequestMode(cacheMode);
+				scopePayload.setCurrentRequesterID(cacheRequestID);
+			}
+
+			if (isImmortal && store.alpha[i] >= 1f) {
+				store.alpha[i] = store.alpha[i] - 1f;
+			}
+
+			if (store.alpha[i] >= 1f) {
+				store.removeIndex(i);
+			}
+		}
+
+		if (isImmortal) {
+			store.truncate(Math.max(0, Math.round(rate * duration)));
+		}
+	}
+
+	/**
+	 * Keep particles in a {@link ParticleStore} instead of one {@link Particle} object each. Live particles are moved
+	 * over. While enabled {@link #getActiveParticles()} is empty and point data references a reused view, so only
+	 * renderers working from point data, such as the mesh generator modules, see the particles.
+	 */
+	public void setParticleStoreEnabled (boolean enabled) {
+		if (enabled == (particleStore != null)) return;
+
+		if (enabled) {
+			particleStore = new ParticleStore(Math.max(64, activeParticles.size));
+			for (int i = 0; i < activeParticles.size; i++) {
+				particleStore.add(activeParticles.get(i));
+			}
+			particlePool.freeAll(activeParticles);
+			activeParticles.clear();
+		} else {
+			for (int i = 0; i < particleStore.getSize(); i++) {
+				Particle particle = particlePool.obtain();
+				particle.setEmitter(this);
+				particleStore.read(i, particle);
+				activeParticles.add(particle);
+			}
+			particleStore = null;
+		}
+	}
+
+	public boolean isParticleStoreEnabled () {
+		return particleStore != null;
+	}
+
+	/**
+	 * Sample the particle module through a {@link ModuleBatch}, one column per input for all stored particles, instead
+	 * of particle by particle. Only applies while the particle store is enabled, graphs with non numerical inputs keep
+	 * the per particle path.
+	 */
+	public void setBatchEvaluation (boolean enabled) {
+		if (enabled == (moduleBatch != null)) return;
+		moduleBatch = enabled ? new ModuleBatch(emitterGraph) : null;
+	}
+
+	public boolean isBatchEvaluation () {
+		return moduleBatch != null;
+	}
+
 	public void restart() {
     	delayTimer = delay;
     	alpha = 0;
@@ -290,6 +460,24 @@ public class ParticleEmitterInstance implements IEmitter {
         isStopped = false;
 	}
 
+	@Override
+	public void reset () {
+		particlePool.freeAll(activeParticles);
+		activeParticles.clear();
+		if (particleStore != null) {
+			particleStore.clear();
+		}
+
+		// shared graphs hold the points of whichever instance updated last, only own points are freed
+		final DrawableModule drawableModule = getDrawableModule();
+		if (emitterGraph.isInstanceCopy() && drawableModule != null && drawableModule.getPointDataGenerator() != null) {
+			drawableModule.getPointDataGenerator().freePoints(particlePointDataPool, groupPool);
+		}
+
+		paused = false;
+		restart();
+	}
+
 	@Override
 	public float getDelayRemaining () {
 		return delayTimer;
@@ -301,6 +489,9 @@ public class ParticleEmitterInstance implements IEmitter {
 
 	@Override
 	public int getActiveParticleCount () {
+		if (particleStore != null) {
+			return particleStore.getSize();
+		}
 		return activeParticles.size;
 	}
 
@@ -4,10 +4,27 @@ import com.badlogic.gdx.math.Vector3;
 
 public class ParticlePointData {
 
+	/**
+	 * Particle the point was generated from. When the emitter keeps its particles in a {@link ParticleStore} this is a
+	 * view that is reused for every row, read the copied values below instead.
+	 */
 	public Particle reference;
+	public IEmitter emitter;
+	public float particleSeed;
+	public float particleAlpha;
+	public Vector3 particleRotation = new Vector3();
+
 	public float alpha;
 	public float x, y, z;
 
+	/**
+	 * Point position after the previous and after the latest simulation step. x, y and z are set to the latest one when
+	 * generated, and moved in between with {@link #interpolate(float)} when rendering runs ahead of a fixed step
+	 * simulation.
+	 */
+	public float previousX, previousY, previousZ;
+	public float currentX, currentY, currentZ;
+
 	public int pointDataIndex;
 
 	public void setFromParticle (Particle particle) {
@@ -25,6 +42,25 @@ public class ParticlePointData {
 		this.x += particle.position.x;
 		this.y += particle.position.y;
 		this.z += particle.position.z;
+		this.currentX = x;
+		this.currentY = y;
+		this.currentZ = z;
+		this.previousX = positionOverrideX + particle.previousPosition.x;
+		this.previousY = positionOverrideY + particle.previousPosition.y;
+		this.previousZ = positionOverrideZ + particle.previousPosition.z;
 		this.reference = particle;
+		this.emitter = particle.getEmitter();
+		this.particleSeed = particle.seed;
+		this.particleAlpha = particle.alpha;
+		this.particleRotation.set(particle.rotation);
+	}
+
+	/**
+	 * Places the point between its previous and current step position, 0 is the previous step and 1 the current one
+	 */
+	public void interpolate (float alpha) {
+		this.x = previousX + (currentX - previousX) * alpha;
+		this.y = previousY + (currentY - previousY) * alpha;
+		this.z = previousZ + (currentZ - previousZ) * alpha;
 	}
 }
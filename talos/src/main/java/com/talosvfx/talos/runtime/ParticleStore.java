@@ -0,0 +1,500 @@
+package com.talosvfx.talos.runtime;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.Vector3;
+import com.talosvfx.talos.runtime.modules.ModuleBatch;
+import com.talosvfx.talos.runtime.modules.ParticleModule;
+import com.talosvfx.talos.runtime.values.NumericalColumn;
+
+/**
+ * Structure of arrays storage for the particles of one emitter. Every particle is a row across flat columns, vectors
+ * are interleaved with a stride of their component count. Rows are removed by moving the last row into the hole, so
+ * order is not kept.
+ * <p>
+ * An update samples the particle module row by row with {@link #sample(int, ParticleModule)}, then steps every row in
+ * one pass with {@link #integrate(float)}. The integration matches {@link Particle#applyAlpha(float, float)}.
+ * Alternatively {@link #sampleBatch(ModuleBatch, ParticleModule, float, float)} samples all rows at once.
+ */
+public class ParticleStore {
+
+	static final int POSITION_OVERRIDE = 1;
+	static final int VELOCITY_OVER_TIME = 1 << 1;
+	static final int DRAG = 1 << 2;
+	static final int ROTATION_OVERRIDE = 1 << 3;
+	static final int SPIN_OVER_TIME = 1 << 4;
+	/** Row already finished its life before this step, left untouched like {@link Particle#update} does */
+	static final int FROZEN = 1 << 5;
+
+	private int size;
+	private int capacity;
+
+	public float[] spawnPosition;
+	public float[] position;
+	public float[] previousPosition;
+	public float[] velocity;
+	public float[] spinVelocity;
+	public float[] acceleration;
+	public float[] rotation;
+	public float[] particleSize;
+	public float[] pivot;
+	public float[] color;
+
+	public float[] alpha;
+	public float[] life;
+	public float[] seed;
+	public float[] durationAtInit;
+	public int[] requesterID;
+
+	//Particle module values sampled for the current step
+	private float[] forces;
+	private float[] gravity;
+	private float[] drag;
+	private float[] positionTarget;
+	private float[] rotationTarget;
+	private int[] flags;
+
+	public ParticleStore () {
+		this(64);
+	}
+
+	public ParticleStore (int initialCapacity) {
+		resize(Math.max(1, initialCapacity));
+	}
+
+	public int getSize () {
+		return size;
+	}
+
+	/**
+	 * Copies particle into a new row
+	 *
+	 * @return the row index
+	 */
+	public int add (Particle particle) {
+		if (size == capacity) {
+			resize(capacity * 2);
+		}
+		final int index = size++;
+		write(index, particle);
+		flags[index] = 0;
+		return index;
+	}
+
+	/**
+	 * Moves the last row into index
+	 */
+	public void removeIndex (int index) {
+		if (index >= size) throw new IndexOutOfBoundsException("index can't be >= size: " + index + " >= " + size);
+
+		final int last = --size;
+		if (index == last) return;
+
+		copy3(spawnPosition, last, index);
+		copy3(position, last, index);
+		copy3(previousPosition, last, index);
+		copy3(velocity, last, index);
+		copy3(spinVelocity, last, index);
+		copy3(acceleration, last, index);
+		copy3(rotation, last, index);
+		copy3(forces, last, index);
+		copy3(gravity, last, index);
+		copy3(drag, last, index);
+		copy3(positionTarget, last, index);
+		copy3(rotationTarget, last, index);
+		System.arraycopy(particleSize, last * 2, particleSize, index * 2, 2);
+		System.arraycopy(pivot, last * 2, pivot, index * 2, 2);
+		System.arraycopy(color, last * 4, color, index * 4, 4);
+
+		alpha[index] = alpha[last];
+		life[index] = life[last];
+		seed[index] = seed[last];
+		durationAtInit[index] = durationAtInit[last];
+		requesterID[index] = requesterID[last];
+		flags[index] = flags[last];
+	}
+
+	/**
+	 * Drops every row from newSize onwards
+	 */
+	public void truncate (int newSize) {
+		if (newSize < size) {
+			size = Math.max(0, newSize);
+		}
+	}
+
+	public void clear () {
+		size = 0;
+	}
+
+	/**
+	 * Loads row index into particle, which is expected to already point at the owning emitter
+	 */
+	public void read (int index, Particle particle) {
+		final int i3 = index * 3;
+		particle.spawnPosition.set(spawnPosition[i3], spawnPosition[i3 + 1], spawnPosition[i3 + 2]);
+		particle.position.set(position[i3], position[i3 + 1], position[i3 + 2]);
+		particle.previousPosition.set(previousPosition[i3], previousPosition[i3 + 1], previousPosition[i3 + 2]);
+		particle.velocity.set(velocity[i3], velocity[i3 + 1], velocity[i3 + 2]);
+		particle.spinVelocity.set(spinVelocity[i3], spinVelocity[i3 + 1], spinVelocity[i3 + 2]);
+		particle.acceleration.set(acceleration[i3], acceleration[i3 + 1], acceleration[i3 + 2]);
+		particle.rotation.set(rotation[i3], rotation[i3 + 1], rotation[i3 + 2]);
+
+		final int i2 = index * 2;
+		particle.size.set(particleSize[i2], particleSize[i2 + 1]);
+		particle.pivot.set(pivot[i2], pivot[i2 + 1]);
+
+		final int i4 = index * 4;
+		particle.color.set(color[i4], color[i4 + 1], color[i4 + 2], color[i4 + 3]);
+
+		particle.alpha = alpha[index];
+		particle.life = life[index];
+		particle.seed = seed[index];
+		particle.durationAtInit = durationAtInit[index];
+		particle.requesterID = requesterID[index];
+	}
+
+	/**
+	 * Stores particle into row index
+	 */
+	public void write (int index, Particle particle) {
+		final int i3 = index * 3;
+		set3(spawnPosition, i3, particle.spawnPosition);
+		set3(position, i3, particle.position);
+		set3(previousPosition, i3, particle.previousPosition);
+		set3(velocity, i3, particle.velocity);
+		set3(spinVelocity, i3, particle.spinVelocity);
+		set3(acceleration, i3, particle.acceleration);
+		set3(rotation, i3, particle.rotation);
+
+		final int i2 = index * 2;
+		particleSize[i2] = particle.size.x;
+		particleSize[i2 + 1] = particle.size.y;
+		pivot[i2] = particle.pivot.x;
+		pivot[i2 + 1] = particle.pivot.y;
+
+		final int i4 = index * 4;
+		color[i4] = particle.color.r;
+		color[i4 + 1] = particle.color.g;
+		color[i4 + 2] = particle.color.b;
+		color[i4 + 3] = particle.color.a;
+
+		alpha[index] = particle.alpha;
+		life[index] = particle.life;
+		seed[index] = particle.seed;
+		durationAtInit[index] = particle.durationAtInit;
+		requesterID[index] = particle.requesterID;
+	}
+
+	/**
+	 * Marks row index as not stepped this update
+	 */
+	void freeze (int index) {
+		flags[index] = FROZEN;
+	}
+
+	boolean isFrozen (int index) {
+		return (flags[index] & FROZEN) != 0;
+	}
+
+	/**
+	 * Reads the particle module inputs that drive integration for row index, in the same order
+	 * {@link Particle#applyAlpha(float, float)} does. The scope must already be set up for this row.
+	 */
+	public void sample (int index, ParticleModule particleModule) {
+		final int i3 = index * 3;
+		int rowFlags = 0;
+
+		if (particleModule.hasPositionOverride()) {
+			rowFlags |= POSITION_OVERRIDE;
+			set3(positionTarget, i3, particleModule.getPositionOverride());
+		} else {
+			set3(drag, i3, particleModule.getDrag());
+
+			if (particleModule.hasVelocityOverTime()) {
+				rowFlags |= VELOCITY_OVER_TIME;
+				set3(positionTarget, i3, particleModule.getVelocityOverTime());
+			} else {
+				set3(forces, i3, particleModule.getForces());
+				set3(gravity, i3, particleModule.getGravity());
+
+				if (particleModule.hasDrag()) {
+					rowFlags |= DRAG;
+				}
+			}
+		}
+
+		if (particleModule.hasRotationOverride()) {
+			rowFlags |= ROTATION_OVERRIDE;
+			set3(rotationTarget, i3, particleModule.getRotationOverride());
+		} else if (particleModule.hasSpinVelocityOverTime()) {
+			rowFlags |= SPIN_OVER_TIME;
+			set3(rotationTarget, i3, particleModule.getSpinVelocityOverTime());
+		}
+
+		final Vector2 modulePivot = particleModule.getPivot();
+		pivot[index * 2] = modulePivot.x;
+		pivot[index * 2 + 1] = modulePivot.y;
+
+		flags[index] = rowFlags;
+	}
+
+	/**
+	 * Advances alpha and samples the particle module inputs for every row in one batch evaluation, replacing the per row
+	 * life update and {@link #sample(int, ParticleModule)}. Life is evaluated with the scope of its own row, inputs that
+	 * are skipped by the scalar path are still evaluated but ignored.
+	 */
+	public void sampleBatch (ModuleBatch batch, ParticleModule particleModule, float emitterAlpha, float delta) {
+		final int size = this.size;
+
+		beginBatch(batch, emitterAlpha);
+		NumericalColumn lifeColumn = batch.evaluate(particleModule, ParticleModule.LIFE);
+		for (int i = 0; i < size; i++) {
+			if (alpha[i] == 1f) {
+				flags[i] = FROZEN;
+				continue;
+			}
+
+			float rowLife = lifeColumn.empty[i] ? 1 : lifeColumn.getFloat(i);
+			float particleAlpha = alpha[i] + delta / rowLife;
+			if (particleAlpha > 1f) particleAlpha = 1f;
+			life[i] = rowLife;
+			alpha[i] = particleAlpha;
+			flags[i] = 0;
+		}
+
+		// the remaining inputs see the advanced alpha
+		beginBatch(batch, emitterAlpha);
+		NumericalColumn positionOverride = batch.evaluate(particleModule, ParticleModule.POSITION_OVERRIDE);
+		NumericalColumn dragColumn = batch.evaluate(particleModule, ParticleModule.DRAG);
+		NumericalColumn velocityOverTime = batch.evaluate(particleModule, ParticleModule.VELOCITY_OVER_TIME);
+		NumericalColumn forcesColumn = batch.evaluate(particleModule, ParticleModule.FORCES);
+		NumericalColumn gravityColumn = batch.evaluate(particleModule, ParticleModule.GRAVITY);
+		NumericalColumn rotationOverride = batch.evaluate(particleModule, ParticleModule.ROTATION_OVERRIDE);
+		NumericalColumn spinOverTime = batch.evaluate(particleModule, ParticleModule.SPIN_OVER_TIME);
+		NumericalColumn pivotColumn = batch.evaluate(particleModule, ParticleModule.PIVOT);
+
+		for (int i = 0; i < size; i++) {
+			if (flags[i] == FROZEN) continue;
+
+			final int i3 = i * 3;
+			int rowFlags = 0;
+
+			if (!positionOverride.empty[i]) {
+				rowFlags |= POSITION_OVERRIDE;
+				set3(positionTarget, i3, positionOverride, i);
+			} else {
+				set3(drag, i3, dragColumn, i);
+
+				if (!velocityOverTime.empty[i]) {
+					rowFlags |= VELOCITY_OVER_TIME;
+					set3(positionTarget, i3, velocityOverTime, i);
+				} else {
+					set3(forces, i3, forcesColumn, i);
+					set3(gravity, i3, gravityColumn, i);
+
+					if (!dragColumn.empty[i]) {
+						rowFlags |= DRAG;
+					}
+				}
+			}
+
+			if (!rotationOverride.empty[i]) {
+				rowFlags |= ROTATION_OVERRIDE;
+				set3(rotationTarget, i3, rotationOverride, i);
+			} else if (!spinOverTime.empty[i]) {
+				rowFlags |= SPIN_OVER_TIME;
+				set3(rotationTarget, i3, spinOverTime, i);
+			}
+
+			float pivotX = 0.5f;
+			float pivotY = 0.5f;
+			if (!pivotColumn.empty[i]) {
+				pivotX = element(pivotColumn, i, 0);
+				pivotY = element(pivotColumn, i, 1);
+			}
+			pivot[i * 2] = Math.max(0f, Math.min(1f, pivotX));
+			pivot[i * 2 + 1] = Math.max(0f, Math.min(1f, pivotY));
+
+			flags[i] = rowFlags;
+		}
+	}
+
+	private void beginBatch (ModuleBatch batch, float emitterAlpha) {
+		batch.begin(size);
+		batch.requestMode = ScopePayload.PARTICLE_ALPHA;
+		for (int i = 0; i < size; i++) {
+			batch.emitterAlpha[i] = emitterAlpha;
+			batch.particleAlpha[i] = alpha[i];
+			batch.seed[i] = seed[i];
+			batch.emitterAlphaAtInit[i] = durationAtInit[i];
+			batch.requesterID[i] = requesterID[i];
+		}
+		System.arraycopy(position, 0, batch.particlePosition, 0, size * 3);
+	}
+
+	/**
+	 * Steps position, velocity, acceleration and rotation of every sampled row
+	 */
+	public void integrate (float delta) {
+		final float[] position = this.position;
+		final float[] velocity = this.velocity;
+		final float[] acceleration = this.acceleration;
+		final float[] rotation = this.rotation;
+		final float[] spinVelocity = this.spinVelocity;
+		final float[] forces = this.forces;
+		final float[] gravity = this.gravity;
+		final float[] drag = this.drag;
+		final float[] positionTarget = this.positionTarget;
+		final float[] rotationTarget = this.rotationTarget;
+		final int[] flags = this.flags;
+
+		for (int i = 0, i3 = 0; i < size; i++, i3 += 3) {
+			final int rowFlags = flags[i];
+			if ((rowFlags & FROZEN) != 0) continue;
+
+			previousPosition[i3] = position[i3];
+			previousPosition[i3 + 1] = position[i3 + 1];
+			previousPosition[i3 + 2] = position[i3 + 2];
+
+			if ((rowFlags & POSITION_OVERRIDE) != 0) {
+				position[i3] = positionTarget[i3];
+				position[i3 + 1] = positionTarget[i3 + 1];
+				position[i3 + 2] = positionTarget[i3 + 2];
+			} else {
+				if ((rowFlags & VELOCITY_OVER_TIME) != 0) {
+					velocity[i3] = positionTarget[i3];
+					velocity[i3 + 1] = positionTarget[i3 + 1];
+					velocity[i3 + 2] = positionTarget[i3 + 2];
+				} else {
+					float ax = acceleration[i3];
+					float ay = acceleration[i3 + 1];
+					float az = acceleration[i3 + 2];
+
+					ax += forces[i3] * delta;
+					ay += forces[i3 + 1] * delta;
+					az += forces[i3 + 2] * delta;
+
+					ax += gravity[i3] * delta;
+					ay += gravity[i3 + 1] * delta;
+					az += gravity[i3 + 2] * delta;
+
+					acceleration[i3] = ax;
+					acceleration[i3 + 1] = ay;
+					acceleration[i3 + 2] = az;
+
+					final float px = velocity[i3];
+					final float py = velocity[i3 + 1];
+					final float pz = velocity[i3 + 2];
+
+					float vx = px + ax * delta;
+					float vy = py + ay * delta;
+					float vz = pz + az * delta;
+
+					if ((rowFlags & DRAG) != 0) {
+						//Drag is computed from the velocity before this step
+						float dragComponentX = Math.abs(0.5f * (px * px) * drag[i3]);
+						float dragComponentY = Math.abs(0.5f * (py * py) * drag[i3 + 1]);
+						float dragComponentZ = Math.abs(0.5f * (pz * pz) * drag[i3 + 2]);
+
+						vx = vx - (Math.signum(vx) * (dragComponentX * delta));
+						vy = vy - (Math.signum(vy) * (dragComponentY * delta));
+						vz = vz - (Math.signum(vz) * (dragComponentZ * delta));
+					}
+
+					velocity[i3] = vx;
+					velocity[i3 + 1] = vy;
+					velocity[i3 + 2] = vz;
+				}
+
+				position[i3] += velocity[i3] * delta;
+				position[i3 + 1] += velocity[i3 + 1] * delta;
+				position[i3 + 2] += velocity[i3 + 2] * delta;
+			}
+
+			if ((rowFlags & ROTATION_OVERRIDE) != 0) {
+				rotation[i3] = rotationTarget[i3];
+				rotation[i3 + 1] = rotationTarget[i3 + 1];
+				rotation[i3 + 2] = rotationTarget[i3 + 2];
+			} else {
+				if ((rowFlags & SPIN_OVER_TIME) != 0) {
+					spinVelocity[i3] = rotationTarget[i3];
+					spinVelocity[i3 + 1] = rotationTarget[i3 + 1];
+					spinVelocity[i3 + 2] = rotationTarget[i3 + 2];
+				}
+
+				rotation[i3] += spinVelocity[i3] * delta;
+				rotation[i3 + 1] += spinVelocity[i3 + 1] * delta;
+				rotation[i3 + 2] += spinVelocity[i3 + 2] * delta;
+			}
+		}
+	}
+
+	private void resize (int newCapacity) {
+		spawnPosition = grow(spawnPosition, newCapacity * 3);
+		position = grow(position, newCapacity * 3);
+		previousPosition = grow(previousPosition, newCapacity * 3);
+		velocity = grow(velocity, newCapacity * 3);
+		spinVelocity = grow(spinVelocity, newCapacity * 3);
+		acceleration = grow(acceleration, newCapacity * 3);
+		rotation = grow(rotation, newCapacity * 3);
+		forces = grow(forces, newCapacity * 3);
+		gravity = grow(gravity, newCapacity * 3);
+		drag = grow(drag, newCapacity * 3);
+		positionTarget = grow(positionTarget, newCapacity * 3);
+		rotationTarget = grow(rotationTarget, newCapacity * 3);
+		particleSize = grow(particleSize, newCapacity * 2);
+		pivot = grow(pivot, newCapacity * 2);
+		color = grow(color, newCapacity * 4);
+
+		alpha = grow(alpha, newCapacity);
+		life = grow(life, newCapacity);
+		seed = grow(seed, newCapacity);
+		durationAtInit = grow(durationAtInit, newCapacity);
+
+		final int[] newRequesterID = new int[newCapacity];
+		final int[] newFlags = new int[newCapacity];
+		if (requesterID != null) {
+			System.arraycopy(requesterID, 0, newRequesterID, 0, size);
+			System.arraycopy(flags, 0, newFlags, 0, size);
+		}
+		requesterID = newRequesterID;
+		flags = newFlags;
+
+		capacity = newCapacity;
+	}
+
+	private float[] grow (float[] column, int length) {
+		final float[] newColumn = new float[length];
+		if (column != null) {
+			System.arraycopy(column, 0, newColumn, 0, Math.min(column.length, length));
+		}
+		return newColumn;
+	}
+
+	private static void copy3 (float[] column, int from, int to) {
+		final int f3 = from * 3;
+		final int t3 = to * 3;
+		column[t3] = column[f3];
+		column[t3 + 1] = column[f3 + 1];
+		column[t3 + 2] = column[f3 + 2];
+	}
+
+	private static void set3 (float[] column, int i3, Vector3 value) {
+		column[i3] = value.x;
+		column[i3 + 1] = value.y;
+		column[i3 + 2] = value.z;
+	}
+
+	private static void set3 (float[] column, int i3, NumericalColumn value, int row) {
+		column[i3] = element(value, row, 0);
+		column[i3 + 1] = element(value, row, 1);
+		column[i3 + 2] = element(value, row, 2);
+	}
+
+	/**
+	 * Elements past the count of a row read as zero, like a slot value freshly set from a shorter one
+	 */
+	private static float element (NumericalColumn value, int row, int element) {
+		return element < value.counts[row] ? value.get(row, element) : 0;
+	}
+}
@@ -0,0 +1,87 @@
+package com.talosvfx.talos.runtime.assets;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.talosvfx.talos.runtime.ParticleEffectDescriptor;
+import com.talosvfx.talos.runtime.serialization.BinaryEffectFormat;
+
+/**
+ * Loads effects through an {@link AssetManager}. Reading the file and building the emitter graphs happens in
+ * {@link #loadAsync(AssetManager, String, FileHandle, ParticleEffectDescriptorParameter)} on the asset manager executor.
+ * GL work, the atlas dependency uploading its textures and effect shaders compiling through
+ * {@link ParticleEffectDescriptor#createResources()}, stays on the GL thread. Files with the
+ * {@link BinaryEffectFormat#EXTENSION} extension are read as binary, anything else as exported json.
+ * <pre>
+ * assetManager.setLoader(ParticleEffectDescriptor.class, new ParticleEffectDescriptorLoader(resolver));
+ * </pre>
+ */
+public class ParticleEffectDescriptorLoader extends AsynchronousAssetLoader<ParticleEffectDescriptor, ParticleEffectDescriptorLoader.ParticleEffectDescriptorParameter> {
+
+	private ParticleEffectDescriptor descriptor;
+
+	public ParticleEffectDescriptorLoader (FileHandleResolver resolver) {
+		super(resolver);
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, ParticleEffectDescriptorParameter parameter) {
+		if (parameter == null || parameter.atlasFile == null) return null;
+
+		Array<AssetDescriptor> dependencies = new Array<>();
+		dependencies.add(new AssetDescriptor<>(parameter.atlasFile, TextureAtlas.class));
+		return dependencies;
+	}
+
+	@Override
+	public void loadAsync (AssetManager manager, String fileName, FileHandle file, ParticleEffectDescriptorParameter parameter) {
+		descriptor = new ParticleEffectDescriptor();
+
+		if (parameter != null && parameter.assetProvider != null) {
+			descriptor.setAssetProvider(parameter.assetProvider);
+		} else if (parameter != null && parameter.atlasFile != null) {
+			descriptor.setAssetProvider(new AtlasAssetProvider(manager.get(parameter.atlasFile, TextureAtlas.class)));
+		} else {
+			throw new GdxRuntimeException("No asset provider or atlas given for effect: " + fileName);
+		}
+
+		descriptor.load(file);
+
+		if (parameter.loadTimelineCache) {
+			final FileHandle cacheFile = descriptor.getTimelineCacheFile();
+			if (cacheFile != null && cacheFile.exists()) {
+				descriptor.loadTimelineCache(cacheFile);
+			}
+		}
+	}
+
+	@Override
+	public ParticleEffectDescriptor loadSync (AssetManager manager, String fileName, FileHandle file, ParticleEffectDescriptorParameter parameter) {
+		ParticleEffectDescriptor descriptor = this.descriptor;
+		this.descriptor = null;
+		descriptor.createResources();
+		return descriptor;
+	}
+
+	public static class ParticleEffectDescriptorParameter extends AssetLoaderParameters<ParticleEffectDescriptor> {
+		/**
+		 * Atlas the effect regions are found in, loaded as a dependency
+		 */
+		public String atlasFile;
+		/**
+		 * Used instead of the atlas when set, has to be safe to use off the GL thread
+		 */
+		public AssetProvider assetProvider;
+		/**
+		 * Also read the baked timeline cache next to the effect, see {@link ParticleEffectDescriptor#getTimelineCacheFile()}
+		 */
+		public boolean loadTimelineCache = true;
+	}
+}
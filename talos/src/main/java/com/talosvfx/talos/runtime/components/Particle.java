@@ -3,7 +3,10 @@ package com.talosvfx.talos.runtime.components;
 import com.artemis.Component;
 import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector3;
+import com.rockbite.bongo.engine.render.InterpolatedTransform;
 import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import com.talosvfx.talos.runtime.systems.ParticleLifecycleSystem;
+import com.talosvfx.talos.runtime.systems.ParticleTransformInterpolationSystem;
 import lombok.Data;
 
 @Data
@@ -11,6 +14,34 @@ public class Particle extends Component {
 
 	private Matrix4 transform = new Matrix4();
 
+	/**
+	 * State of {@link #transform} before the last logic tick, see {@link ParticleTransformInterpolationSystem}
+	 */
+	private final InterpolatedTransform interpolatedTransform = new InterpolatedTransform();
+
 	private ParticleEffectInstance particleEffectInstance;
 
+	/**
+	 * Simulation steps per second when stepped by the particle simulation system, 0 steps on every logic tick
+	 */
+	private float simulationRate;
+
+	/**
+	 * Time accumulated towards the next simulation step
+	 */
+	private float simulationTime;
+
+	/**
+	 * Delete the entity once its effect is complete, see {@link ParticleLifecycleSystem}
+	 */
+	private boolean removeWhenComplete;
+
+	/**
+	 * Transform to draw with, interpolated between logic ticks when {@link ParticleTransformInterpolationSystem} is
+	 * present
+	 */
+	public Matrix4 getRenderTransform () {
+		return interpolatedTransform.getRenderTransform(transform);
+	}
+
 }
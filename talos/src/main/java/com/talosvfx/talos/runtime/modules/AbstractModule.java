@@ -35,7 +35,15 @@ public abstract class AbstractModule implements Json.Serializable {
 
     protected int index = -1;
 
-    private int lastRequester = -1;
+    int lastRequester = -1;
+
+    /**
+     * Installed by {@link ModuleGraphCompiler}, null while interpreted. Indexed by input slot id, the copy of each
+     * input and the steps of the program to run before it.
+     */
+    ModuleGraphProgram program;
+    int[] inputCopies;
+    int[][] inputSteps;
 
     public AbstractModule () {
         init();
@@ -123,6 +131,16 @@ public abstract class AbstractModule implements Json.Serializable {
      */
     protected abstract void processCustomValues ();
 
+    /**
+     * Column version of {@link #processCustomValues()}, computes the outputs for every row of the batch at once.
+     * Input columns are already fetched and alpha defaulted.
+     *
+     * @return false if not supported, the batch then calls {@link #processCustomValues()} row by row
+     */
+    public boolean processBatch (ModuleBatch batch) {
+        return false;
+    }
+
 
     public void setIndex(int index) {
         this.index = index;
@@ -134,6 +152,10 @@ public abstract class AbstractModule implements Json.Serializable {
      * @param slotId
      */
     public void fetchInputSlotValue(int slotId) {
+        if(program != null && program.fetch(this, slotId)) {
+            return;
+        }
+
         //find what it is connected to
         Slot inputSlot = inputSlots.get(slotId);
 
@@ -168,7 +190,7 @@ public abstract class AbstractModule implements Json.Serializable {
             fetchAllInputSlotValues();
             // process
             this.processValues();
-            graph.getEffectDescriptor().getInstanceReference().reportNodeCall();
+            graph.getInstanceReference().reportNodeCall();
 
             lastRequester = requester;
         }
@@ -221,7 +243,7 @@ public abstract class AbstractModule implements Json.Serializable {
     }
 
     public ScopePayload getScope() {
-        return graph.getEffectDescriptor().getInstanceReference().getScope();
+        return graph.getInstanceReference().getScope();
     }
 
     public Slot getInputSlot(int slotId) {
@@ -20,6 +20,7 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import com.talosvfx.talos.runtime.values.NumericalColumn;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 import java.util.Comparator;
@@ -97,6 +98,18 @@ public class CurveModule extends AbstractModule {
         output.set(interpolate(alpha.getFloat()));
     }
 
+    @Override
+    public boolean processBatch (ModuleBatch batch) {
+        NumericalColumn alpha = batch.input(this, ALPHA);
+        NumericalColumn output = batch.output(this, OUTPUT);
+
+        for (int row = 0, size = batch.getSize(); row < size; row++) {
+            output.set(row, interpolate(alpha.getFloat(row)));
+        }
+
+        return true;
+    }
+
     private float interpolate(float alpha) {
         // interpolate alpha in this point space
 
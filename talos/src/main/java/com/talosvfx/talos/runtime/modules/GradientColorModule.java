@@ -22,6 +22,7 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.talosvfx.talos.runtime.values.ColorPoint;
+import com.talosvfx.talos.runtime.values.NumericalColumn;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 import java.util.Comparator;
@@ -68,6 +69,19 @@ public class GradientColorModule extends AbstractModule {
 		interpolate(alpha.getFloat(), output);
 	}
 
+	@Override
+	public boolean processBatch (ModuleBatch batch) {
+		NumericalColumn alpha = batch.input(this, ALPHA);
+		NumericalColumn output = batch.output(this, OUTPUT);
+
+		for (int row = 0, size = batch.getSize(); row < size; row++) {
+			Color color = getPosColor(alpha.getFloat(row));
+			output.set(row, color.r, color.g, color.b, 1f);
+		}
+
+		return true;
+	}
+
 	private void interpolate (float alpha, NumericalValue output) {
 		Color color = getPosColor(alpha);
 		output.set(color.r, color.g, color.b, 1f);
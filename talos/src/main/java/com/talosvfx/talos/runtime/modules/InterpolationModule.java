@@ -20,6 +20,7 @@ import com.badlogic.gdx.math.Interpolation;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.talosvfx.talos.runtime.utils.InterpolationMappings;
+import com.talosvfx.talos.runtime.values.NumericalColumn;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public class InterpolationModule extends AbstractModule {
@@ -44,6 +45,19 @@ public class InterpolationModule extends AbstractModule {
         output.set(currentInterpolation.apply(alpha.getFloat()));
     }
 
+    @Override
+    public boolean processBatch (ModuleBatch batch) {
+        NumericalColumn alpha = batch.input(this, ALPHA);
+        NumericalColumn output = batch.output(this, OUTPUT);
+
+        final Interpolation interpolation = currentInterpolation;
+        for (int row = 0, size = batch.getSize(); row < size; row++) {
+            output.set(row, interpolation.apply(alpha.getFloat(row)));
+        }
+
+        return true;
+    }
+
     public void setInterpolation(Interpolation interpolation) {
         this.currentInterpolation = interpolation;
     }
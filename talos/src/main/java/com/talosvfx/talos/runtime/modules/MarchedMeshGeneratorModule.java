@@ -7,7 +7,6 @@ import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
-import com.talosvfx.talos.runtime.Particle;
 import com.talosvfx.talos.runtime.ParticlePointData;
 import com.talosvfx.talos.runtime.ParticlePointGroup;
 import com.talosvfx.talos.runtime.ScopePayload;
@@ -105,10 +104,9 @@ public class MarchedMeshGeneratorModule extends MeshGeneratorModule {
 			for (int j = 0; j < pointDataArray.size; j++) {
 				ParticlePointData particlePointData = pointDataArray.get(j);
 
-				Particle reference = particlePointData.reference;
 				getScope().set(ScopePayload.SUB_PARTICLE_ALPHA, particlePointData.alpha);
-				getScope().set(ScopePayload.PARTICLE_SEED, reference.seed);
-				getScope().set(ScopePayload.PARTICLE_ALPHA, reference.alpha);
+				getScope().set(ScopePayload.PARTICLE_SEED, particlePointData.particleSeed);
+				getScope().set(ScopePayload.PARTICLE_ALPHA, particlePointData.particleAlpha);
 
 				getScope().setCurrentRequesterID(getScope().newParticleRequester());
 
@@ -19,7 +19,9 @@ package com.talosvfx.talos.runtime.modules;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.talosvfx.talos.runtime.Expression;
+import com.badlogic.gdx.math.MathUtils;
 import com.talosvfx.talos.runtime.utils.MathExpressionMappings;
+import com.talosvfx.talos.runtime.values.NumericalColumn;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public class MathModule extends AbstractModule {
@@ -56,6 +58,68 @@ public class MathModule extends AbstractModule {
         }
     }
 
+    @Override
+    public boolean processBatch (ModuleBatch batch) {
+        if(currentExpression == null) return true;
+
+        NumericalColumn a = batch.input(this, A);
+        NumericalColumn b = batch.input(this, B);
+        NumericalColumn out = batch.output(this, OUTPUT);
+        final int size = batch.getSize();
+
+        final float[] ae = a.elements, be = b.elements, oe = out.elements;
+        final int stride = NumericalColumn.STRIDE;
+
+        for (int row = 0; row < size; row++) {
+            if(a.empty[row]) a.set(row, defaultA);
+            if(b.empty[row]) b.set(row, defaultB);
+            out.counts[row] = a.counts[row];
+        }
+
+        // one tight loop per expression, same arithmetic as the NumericalValue operations
+        if(currentExpression == Expression.sum) {
+            for (int row = 0; row < size; row++) {
+                for (int i = row * stride, end = i + a.counts[row]; i < end; i++) oe[i] = ae[i] + be[i];
+            }
+        } else if(currentExpression == Expression.substract) {
+            for (int row = 0; row < size; row++) {
+                for (int i = row * stride, end = i + a.counts[row]; i < end; i++) oe[i] = ae[i] - be[i];
+            }
+        } else if(currentExpression == Expression.multiply) {
+            for (int row = 0; row < size; row++) {
+                for (int i = row * stride, end = i + a.counts[row]; i < end; i++) oe[i] = ae[i] * be[i];
+            }
+        } else if(currentExpression == Expression.divide || currentExpression == Expression.mod) {
+            boolean mod = currentExpression == Expression.mod;
+            for (int row = 0; row < size; row++) {
+                float d = be[row * stride];
+                if(d == 0) d = 1;
+                for (int i = row * stride, end = i + a.counts[row]; i < end; i++) oe[i] = mod ? ae[i] % d : ae[i] / d;
+            }
+        } else if(currentExpression == Expression.pow) {
+            for (int row = 0; row < size; row++) {
+                float p = be[row * stride];
+                for (int i = row * stride, end = i + a.counts[row]; i < end; i++) oe[i] = (float) Math.pow(ae[i], p);
+            }
+        } else if(currentExpression == Expression.abs) {
+            for (int row = 0; row < size; row++) {
+                for (int i = row * stride, end = i + a.counts[row]; i < end; i++) oe[i] = Math.abs(ae[i]);
+            }
+        } else if(currentExpression == Expression.sin) {
+            for (int row = 0; row < size; row++) {
+                for (int i = row * stride, end = i + a.counts[row]; i < end; i++) oe[i] = MathUtils.sinDeg(ae[i]) * be[i];
+            }
+        } else if(currentExpression == Expression.cos) {
+            for (int row = 0; row < size; row++) {
+                for (int i = row * stride, end = i + a.counts[row]; i < end; i++) oe[i] = MathUtils.cosDeg(ae[i]) * be[i];
+            }
+        } else {
+            return false;
+        }
+
+        return true;
+    }
+
     public void setExpression(Expression expression) {
         this.currentExpression = expression;
     }
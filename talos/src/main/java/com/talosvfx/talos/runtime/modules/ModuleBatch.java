@@ -0,0 +1,263 @@
+package com.talosvfx.talos.runtime.modules;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
+import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.Slot;
+import com.talosvfx.talos.runtime.values.NumericalColumn;
+import com.talosvfx.talos.runtime.values.NumericalValue;
+
+/**
+ * Evaluates module graphs for a whole set of particles at once. Scope data is given per row in the columns below,
+ * and every slot gets a {@link NumericalColumn}. Modules implementing {@link AbstractModule#processBatch(ModuleBatch)}
+ * process all rows in one call, any other module is run row by row through its scalar
+ * {@link AbstractModule#processCustomValues()}.
+ * <p>
+ * Each row is evaluated once per {@link #begin(int)}, there is no requester caching across rows. Only graphs made of
+ * numerical values can be batched, see {@link #canEvaluate(AbstractModule)}.
+ */
+public class ModuleBatch {
+
+	private final ParticleEmitterDescriptor graph;
+	private int graphVersion = -1;
+
+	private int size;
+
+	/** Request mode the alpha slots default for, one of the {@link ScopePayload} alpha keys */
+	public int requestMode = ScopePayload.PARTICLE_ALPHA;
+
+	public float[] emitterAlpha = new float[0];
+	public float[] particleAlpha = new float[0];
+	public float[] seed = new float[0];
+	public float[] emitterAlphaAtInit = new float[0];
+	/** Three floats per row */
+	public float[] particlePosition = new float[0];
+	public int[] requesterID = new int[0];
+
+	private final ObjectMap<Slot, NumericalColumn> columns = new ObjectMap<>();
+	private final ObjectMap<Slot, Array<AbstractModule>> programs = new ObjectMap<>();
+	private final ObjectMap<AbstractModule, Boolean> supported = new ObjectMap<>();
+	private final ObjectSet<AbstractModule> evaluated = new ObjectSet<>();
+
+	public ModuleBatch (ParticleEmitterDescriptor graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * Starts a new evaluation over size rows. Fill the scope columns before evaluating.
+	 */
+	public void begin (int size) {
+		if (graphVersion != graph.getVersion()) {
+			columns.clear();
+			programs.clear();
+			supported.clear();
+			graphVersion = graph.getVersion();
+		}
+
+		this.size = size;
+		if (seed.length < size) {
+			int capacity = Math.max(size, seed.length * 2);
+			emitterAlpha = new float[capacity];
+			particleAlpha = new float[capacity];
+			seed = new float[capacity];
+			emitterAlphaAtInit = new float[capacity];
+			particlePosition = new float[capacity * 3];
+			requesterID = new int[capacity];
+		}
+		evaluated.clear();
+	}
+
+	public int getSize () {
+		return size;
+	}
+
+	/**
+	 * @return true if every module feeding the inputs of module only carries numerical values
+	 */
+	public boolean canEvaluate (AbstractModule module) {
+		Boolean result = supported.get(module);
+		if (result == null) {
+			result = true;
+			for (Slot inputSlot : module.getInputSlots().values()) {
+				if (!(inputSlot.getValue() instanceof NumericalValue)) {
+					result = false;
+					break;
+				}
+				if (inputSlot.getTargetSlot() != null && getProgram(inputSlot) == null) {
+					result = false;
+					break;
+				}
+			}
+			supported.put(module, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Evaluates everything upstream of the input and fetches it for every row
+	 *
+	 * @return the input column of module, as {@link AbstractModule#fetchInputSlotValue(int)} would leave it
+	 */
+	public NumericalColumn evaluate (AbstractModule module, int slotId) {
+		Slot inputSlot = module.getInputSlot(slotId);
+		NumericalColumn column = column(inputSlot);
+
+		if (inputSlot.getTargetSlot() == null) {
+			column.setAllEmpty();
+			return column;
+		}
+
+		Array<AbstractModule> program = getProgram(inputSlot);
+		for (int i = 0; i < program.size; i++) {
+			AbstractModule step = program.get(i);
+			if (evaluated.add(step)) {
+				evaluateModule(step);
+			}
+		}
+
+		column.setFromOutput(column(inputSlot.getTargetSlot()));
+		return column;
+	}
+
+	/**
+	 * Input column of module, filled before {@link AbstractModule#processBatch(ModuleBatch)} is called
+	 */
+	public NumericalColumn input (AbstractModule module, int slotId) {
+		return column(module.getInputSlot(slotId));
+	}
+
+	/**
+	 * Output column of module to be written by {@link AbstractModule#processBatch(ModuleBatch)}
+	 */
+	public NumericalColumn output (AbstractModule module, int slotId) {
+		return column(module.getOutputSlot(slotId));
+	}
+
+	private NumericalColumn column (Slot slot) {
+		NumericalColumn column = columns.get(slot);
+		if (column == null) {
+			column = new NumericalColumn();
+			columns.put(slot, column);
+		}
+		column.setSize(size);
+		return column;
+	}
+
+	private void evaluateModule (AbstractModule module) {
+		for (Slot inputSlot : module.getInputSlots().values()) {
+			NumericalColumn column = column(inputSlot);
+			if (inputSlot.getTargetSlot() == null) {
+				column.setAllEmpty();
+			} else {
+				column.setFromOutput(column(inputSlot.getTargetSlot()));
+			}
+		}
+
+		applyAlphaDefaults(module);
+
+		for (Slot outputSlot : module.getOutputSlots().values()) {
+			column(outputSlot);
+		}
+
+		if (!module.processBatch(this)) {
+			processRows(module);
+		}
+	}
+
+	/**
+	 * Column version of {@link AbstractModule#processAlphaDefaults()}
+	 */
+	private void applyAlphaDefaults (AbstractModule module) {
+		for (IntMap.Entry<Slot> alphaSlot : module.alphaSlots) {
+			NumericalColumn column = column(alphaSlot.value);
+
+			float[] source = requestMode == ScopePayload.EMITTER_ALPHA ? emitterAlpha : particleAlpha;
+			for (int row = 0; row < size; row++) {
+				if (column.empty[row]) {
+					column.set(row, source[row]);
+					column.empty[row] = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Scalar fallback, loads every row into the scope and slot values and lets the module process it
+	 */
+	private void processRows (AbstractModule module) {
+		ScopePayload scope = module.getScope();
+		int cachedMode = scope.getRequestMode();
+		int cachedRequester = scope.getRequesterID();
+
+		scope.setCurrentRequestMode(requestMode);
+
+		for (int row = 0; row < size; row++) {
+			scope.set(ScopePayload.EMITTER_ALPHA, emitterAlpha[row]);
+			scope.set(ScopePayload.PARTICLE_ALPHA, particleAlpha[row]);
+			scope.set(ScopePayload.PARTICLE_SEED, seed[row]);
+			scope.set(ScopePayload.EMITTER_ALPHA_AT_P_INIT, emitterAlphaAtInit[row]);
+			scope.set(ScopePayload.PARTICLE_POSITION, particlePosition[row * 3], particlePosition[row * 3 + 1], particlePosition[row * 3 + 2]);
+			scope.setCurrentRequesterID(requesterID[row]);
+
+			for (Slot inputSlot : module.getInputSlots().values()) {
+				column(inputSlot).load(row, (NumericalValue)inputSlot.getValue());
+			}
+
+			module.processCustomValues();
+
+			for (Slot outputSlot : module.getOutputSlots().values()) {
+				column(outputSlot).store(row, (NumericalValue)outputSlot.getValue());
+			}
+		}
+
+		scope.setCurrentRequestMode(cachedMode);
+		scope.setCurrentRequesterID(cachedRequester);
+	}
+
+	/**
+	 * Upstream modules of a connected input in evaluation order, null if any of them can not be batched
+	 */
+	private Array<AbstractModule> getProgram (Slot inputSlot) {
+		if (programs.containsKey(inputSlot)) {
+			return programs.get(inputSlot);
+		}
+
+		Array<AbstractModule> program = new Array<>();
+		if (!collectUpstream(inputSlot.getTargetModule(), new ObjectSet<AbstractModule>(), new ObjectSet<AbstractModule>(), program)) {
+			program = null;
+		}
+		programs.put(inputSlot, program);
+		return program;
+	}
+
+	private boolean collectUpstream (AbstractModule module, ObjectSet<AbstractModule> visiting, ObjectSet<AbstractModule> visited, Array<AbstractModule> program) {
+		if (visited.contains(module)) return true;
+		if (!visiting.add(module)) return false;
+		if (!hasNumericalSlots(module)) return false;
+
+		for (Slot inputSlot : module.getInputSlots().values()) {
+			if (inputSlot.getTargetSlot() == null) continue;
+			if (!collectUpstream(inputSlot.getTargetModule(), visiting, visited, program)) {
+				return false;
+			}
+		}
+
+		visiting.remove(module);
+		visited.add(module);
+		program.add(module);
+		return true;
+	}
+
+	private static boolean hasNumericalSlots (AbstractModule module) {
+		for (Slot slot : module.getInputSlots().values()) {
+			if (!(slot.getValue() instanceof NumericalValue)) return false;
+		}
+		for (Slot slot : module.getOutputSlots().values()) {
+			if (!(slot.getValue() instanceof NumericalValue)) return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,184 @@
+package com.talosvfx.talos.runtime.modules;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.talosvfx.talos.runtime.Slot;
+import com.talosvfx.talos.runtime.values.Value;
+
+/**
+ * Flattens the pull based evaluation of an emitter graph into a {@link ModuleGraphProgram}.
+ * <p>
+ * Modules are numbered once in the same depth first order the interpreter first visits them, every slot value gets a
+ * register, and for every connected input the steps upstream of it are resolved to an array of module numbers.
+ * Input slots are stored on the module by slot id, so a fetch goes straight to its steps and its copy. Modules are
+ * still evaluated by their own {@link AbstractModule#processCustomValues()}, so results match the interpreter exactly.
+ * <p>
+ * Emitter level requests (requester 0) re-evaluate every pull in the interpreter and keep going through it. Graphs with
+ * cycles, or with modules that pull their own inputs under other requesters such as {@link PolylineModule} and
+ * {@link RibbonModule}, are left interpreted.
+ */
+public class ModuleGraphCompiler {
+
+	/**
+	 * Builds the program and installs the resolved inputs on every module of the graph
+	 *
+	 * @return null if the graph can not be compiled and stays interpreted
+	 */
+	public static ModuleGraphProgram compile (Array<AbstractModule> modules) {
+		decompile(modules);
+
+		for (int i = 0; i < modules.size; i++) {
+			if (!isCompilable(modules.get(i))) {
+				return null;
+			}
+		}
+
+		ObjectSet<AbstractModule> inGraph = new ObjectSet<>();
+		for (int i = 0; i < modules.size; i++) {
+			inGraph.add(modules.get(i));
+		}
+
+		//Number every module in evaluation order
+		ObjectSet<AbstractModule> visiting = new ObjectSet<>();
+		ObjectIntMap<AbstractModule> steps = new ObjectIntMap<>();
+		Array<AbstractModule> order = new Array<>(AbstractModule.class);
+		for (int i = 0; i < modules.size; i++) {
+			if (!collectUpstream(modules.get(i), inGraph, visiting, steps, order)) {
+				return null;
+			}
+		}
+
+		//A register per slot, inputs copy from the register of the output they are connected to
+		ObjectIntMap<Slot> slotRegisters = new ObjectIntMap<>();
+		Array<Value> registers = new Array<>(Value.class);
+		for (int i = 0; i < order.size; i++) {
+			AbstractModule module = order.get(i);
+			for (Slot slot : module.getOutputSlots().values()) {
+				slotRegisters.put(slot, registers.size);
+				registers.add(slot.getValue());
+			}
+			for (Slot slot : module.getInputSlots().values()) {
+				slotRegisters.put(slot, registers.size);
+				registers.add(slot.getValue());
+			}
+		}
+
+		int[] copyStart = new int[order.size + 1];
+		IntArray copySource = new IntArray();
+		IntArray copyTarget = new IntArray();
+		int[] alphaStart = new int[order.size + 1];
+		IntArray alphaRegisters = new IntArray();
+
+		for (int i = 0; i < order.size; i++) {
+			AbstractModule module = order.get(i);
+
+			copyStart[i] = copySource.size;
+			alphaStart[i] = alphaRegisters.size;
+
+			int slotCount = 0;
+			for (Slot inputSlot : module.getInputSlots().values()) {
+				slotCount = Math.max(slotCount, inputSlot.getIndex() + 1);
+			}
+			module.inputCopies = new int[slotCount];
+			module.inputSteps = new int[slotCount][];
+			for (int slotId = 0; slotId < slotCount; slotId++) {
+				module.inputCopies[slotId] = -1;
+			}
+
+			for (IntMap.Entry<Slot> entry : module.getInputSlots()) {
+				Slot inputSlot = entry.value;
+				Slot targetSlot = inputSlot.getTargetSlot();
+
+				module.inputCopies[entry.key] = copySource.size;
+				copySource.add(targetSlot == null ? -1 : slotRegisters.get(targetSlot, -1));
+				copyTarget.add(slotRegisters.get(inputSlot, -1));
+
+				if (targetSlot != null) {
+					module.inputSteps[entry.key] = upstreamSteps(inputSlot.getTargetModule(), steps);
+				}
+			}
+
+			for (Slot alphaSlot : module.alphaSlots.values()) {
+				alphaRegisters.add(slotRegisters.get(alphaSlot, -1));
+			}
+		}
+		copyStart[order.size] = copySource.size;
+		alphaStart[order.size] = alphaRegisters.size;
+
+		ModuleGraphProgram program = new ModuleGraphProgram(order.toArray(), registers.toArray(), copyStart, copySource.toArray(), copyTarget.toArray(), alphaStart, alphaRegisters.toArray());
+		for (int i = 0; i < order.size; i++) {
+			order.get(i).program = program;
+		}
+		return program;
+	}
+
+	public static void decompile (Array<AbstractModule> modules) {
+		for (int i = 0; i < modules.size; i++) {
+			AbstractModule module = modules.get(i);
+			module.program = null;
+			module.inputCopies = null;
+			module.inputSteps = null;
+		}
+	}
+
+	/**
+	 * Modules that override how inputs are pulled or processed can not be flattened
+	 */
+	private static boolean isCompilable (AbstractModule module) {
+		try {
+			Class<?> clazz = module.getClass();
+			return clazz.getMethod("fetchAllInputSlotValues").getDeclaringClass() == AbstractModule.class
+				&& clazz.getMethod("fetchInputSlotValue", int.class).getDeclaringClass() == AbstractModule.class
+				&& clazz.getMethod("fetchOutputSlotValue", int.class).getDeclaringClass() == AbstractModule.class
+				&& clazz.getMethod("processValues").getDeclaringClass() == AbstractModule.class;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Post order over inputs in slot map order, which is the order the interpreter first evaluates modules in
+	 *
+	 * @return false on a cycle or a connection to a module outside the graph
+	 */
+	private static boolean collectUpstream (AbstractModule module, ObjectSet<AbstractModule> inGraph, ObjectSet<AbstractModule> visiting, ObjectIntMap<AbstractModule> steps, Array<AbstractModule> order) {
+		if (!inGraph.contains(module)) return false;
+		if (steps.containsKey(module)) return true;
+		if (!visiting.add(module)) return false;
+
+		for (Slot inputSlot : module.getInputSlots().values()) {
+			if (inputSlot.getTargetSlot() == null) continue;
+			if (!collectUpstream(inputSlot.getTargetModule(), inGraph, visiting, steps, order)) {
+				return false;
+			}
+		}
+
+		visiting.remove(module);
+		steps.put(module, order.size);
+		order.add(module);
+		return true;
+	}
+
+	/**
+	 * Steps a fetch from module has to run, in the order the interpreter would run them
+	 */
+	private static int[] upstreamSteps (AbstractModule module, ObjectIntMap<AbstractModule> steps) {
+		IntArray result = new IntArray();
+		collectSteps(module, steps, new ObjectSet<AbstractModule>(), result);
+		return result.toArray();
+	}
+
+	private static void collectSteps (AbstractModule module, ObjectIntMap<AbstractModule> steps, ObjectSet<AbstractModule> visited, IntArray result) {
+		if (!visited.add(module)) return;
+
+		for (Slot inputSlot : module.getInputSlots().values()) {
+			if (inputSlot.getTargetSlot() == null) continue;
+			collectSteps(inputSlot.getTargetModule(), steps, visited, result);
+		}
+
+		result.add(steps.get(module, -1));
+	}
+}
@@ -0,0 +1,151 @@
+package com.talosvfx.talos.runtime.modules;
+
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.values.Value;
+
+/**
+ * An emitter graph flattened by {@link ModuleGraphCompiler}.
+ * <p>
+ * Every slot value of the graph sits in one register array, and every input is a copy between two register indices.
+ * Modules are numbered in evaluation order, their input copies and alpha defaults are contiguous ranges of the flat
+ * arrays, and each connected input of a module is resolved to the steps that have to run before it can be copied.
+ * A fetch is then array indexing only, with no slot map lookups or recursion through
+ * {@link AbstractModule#fetchOutputSlotValue(int)}.
+ * <p>
+ * A step is skipped when it already ran for the current requester, tracked in {@link #evaluatedFor} rather than on the
+ * modules, so a module shared by two inputs of the same particle is still evaluated once.
+ */
+public class ModuleGraphProgram {
+
+	final AbstractModule[] modules;
+	final int[] evaluatedFor;
+
+	final Value[] registers;
+
+	/**
+	 * Input copies of module i are copyStart[i] until copyStart[i + 1]. A source of -1 is an input with nothing
+	 * connected, which is marked empty.
+	 */
+	final int[] copyStart;
+	final int[] copySource;
+	final int[] copyTarget;
+
+	/**
+	 * Alpha inputs of module i are alphaStart[i] until alphaStart[i + 1], filled from the scope when left empty
+	 */
+	final int[] alphaStart;
+	final int[] alphaRegisters;
+
+	private ParticleEffectInstance instance;
+	private ScopePayload scope;
+
+	ModuleGraphProgram (AbstractModule[] modules, Value[] registers, int[] copyStart, int[] copySource, int[] copyTarget, int[] alphaStart, int[] alphaRegisters) {
+		this.modules = modules;
+		this.registers = registers;
+		this.copyStart = copyStart;
+		this.copySource = copySource;
+		this.copyTarget = copyTarget;
+		this.alphaStart = alphaStart;
+		this.alphaRegisters = alphaRegisters;
+
+		evaluatedFor = new int[modules.length];
+		reset();
+	}
+
+	/**
+	 * Binds the instance the graph is evaluated for. Has to be called again whenever the instance reference of the
+	 * graph or its scope changes.
+	 */
+	public void bind (ParticleEffectInstance instance) {
+		this.instance = instance;
+		this.scope = instance == null ? null : instance.getScope();
+	}
+
+	/**
+	 * Forgets which requester every step last ran for, same as {@link AbstractModule#resetLastRequester()}
+	 */
+	public void reset () {
+		for (int i = 0; i < evaluatedFor.length; i++) {
+			evaluatedFor[i] = -1;
+		}
+	}
+
+	/**
+	 * Compiled version of {@link AbstractModule#fetchInputSlotValue(int)}
+	 *
+	 * @return false if the fetch has to go through the interpreter, emitter level requests always do
+	 */
+	boolean fetch (AbstractModule module, int slotId) {
+		int requester = scope.getRequesterID();
+		if (requester == 0) return false;
+
+		int[] inputCopies = module.inputCopies;
+		if (slotId >= inputCopies.length || inputCopies[slotId] < 0) return false;
+
+		int[] steps = module.inputSteps[slotId];
+		if (steps != null) {
+			run(steps, requester);
+		}
+		copy(inputCopies[slotId]);
+		return true;
+	}
+
+	private void run (int[] steps, int requester) {
+		int nodeCalls = 0;
+		for (int i = 0; i < steps.length; i++) {
+			int step = steps[i];
+			if (evaluatedFor[step] == requester) continue;
+
+			for (int c = copyStart[step], end = copyStart[step + 1]; c < end; c++) {
+				copy(c);
+			}
+			for (int a = alphaStart[step], end = alphaStart[step + 1]; a < end; a++) {
+				alphaDefault(registers[alphaRegisters[a]]);
+			}
+			modules[step].processCustomValues();
+
+			evaluatedFor[step] = requester;
+			nodeCalls++;
+		}
+
+		if (nodeCalls > 0) {
+			instance.reportNodeCalls(nodeCalls);
+		}
+	}
+
+	private void copy (int copy) {
+		Value target = registers[copyTarget[copy]];
+		if (target == null) return;
+
+		int source = copySource[copy];
+		if (source < 0) {
+			target.setEmpty(true);
+			return;
+		}
+
+		Value result = registers[source];
+		if (result != null) {
+			target.set(result);
+			target.setEmpty(false);
+			target.setAddition(result.isAddition());
+		}
+	}
+
+	/**
+	 * Same as {@link AbstractModule#processAlphaDefaults()} for a single alpha input
+	 */
+	private void alphaDefault (Value alpha) {
+		if (!alpha.isEmpty()) return;
+
+		int requestMode = scope.getRequestMode();
+		if (requestMode == ScopePayload.SUB_PARTICLE_ALPHA) {
+			alpha.set(scope.get(ScopePayload.SUB_PARTICLE_ALPHA));
+		} else if (requestMode == ScopePayload.EMITTER_ALPHA) {
+			alpha.set(scope.get(ScopePayload.EMITTER_ALPHA));
+		} else {
+			alpha.set(scope.get(ScopePayload.PARTICLE_ALPHA));
+		}
+		alpha.setEmpty(false);
+	}
+}
@@ -20,6 +20,7 @@ import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.talosvfx.talos.runtime.ScopePayload;
 import com.talosvfx.talos.runtime.utils.SimplexNoise;
+import com.talosvfx.talos.runtime.values.NumericalColumn;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 public class NoiseModule extends AbstractModule {
@@ -46,15 +47,28 @@ public class NoiseModule extends AbstractModule {
 
     @Override
     public void processCustomValues () {
-        output.set(noiseFunction(x.getFloat(), y.getFloat()));
+        output.set(noiseFunction(x.getFloat(), y.getFloat(), getScope().getFloat(ScopePayload.PARTICLE_SEED)));
     }
 
-    private float noiseFunction(float x, float y) {
+    @Override
+    public boolean processBatch (ModuleBatch batch) {
+        NumericalColumn x = batch.input(this, X);
+        NumericalColumn y = batch.input(this, Y);
+        NumericalColumn output = batch.output(this, OUTPUT);
+        final float[] seed = batch.seed;
+
+        for (int row = 0, size = batch.getSize(); row < size; row++) {
+            output.set(row, noiseFunction(x.getFloat(row), y.getFloat(row), seed[row]));
+        }
+
+        return true;
+    }
+
+    private float noiseFunction(float x, float y, float particleSeed) {
         // normalize
         x = x - (int)x;
         y = y - (int)y;
 
-        float particleSeed = getScope().getFloat(ScopePayload.PARTICLE_SEED);
         y = y * particleSeed;
         y = y - (int)y;
 
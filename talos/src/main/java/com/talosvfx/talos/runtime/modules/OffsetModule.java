@@ -25,6 +25,7 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.talosvfx.talos.runtime.ScopePayload;
+import com.talosvfx.talos.runtime.values.NumericalColumn;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 import java.util.Comparator;
@@ -110,8 +111,9 @@ public class OffsetModule extends AbstractModule {
         alpha = interpolate(alpha); // apply the curve
 
         // let's find pos by shape
-        getRandomPosOn(lowSide, lowEdge, lowShape, lowPos, lowSize, randLow);
-        getRandomPosOn(highSide, highEdge, highShape, highPos, highSize, randHigh);
+        float seed = getScope().getFloat(ScopePayload.PARTICLE_SEED);
+        getRandomPosOn(seed, lowSide, lowEdge, lowShape, lowPos, lowSize, randLow);
+        getRandomPosOn(seed, highSide, highEdge, highShape, highPos, highSize, randHigh);
 
         float x = Interpolation.linear.apply(randLow.x, randHigh.x, alpha);
         float y = Interpolation.linear.apply(randLow.y, randHigh.y, alpha);
@@ -119,8 +121,29 @@ public class OffsetModule extends AbstractModule {
         output.set(x, y);
     }
 
-    private void getRandomPosOn(int side, boolean edge, int shape, NumericalValue pos, NumericalValue size, Vector2 result) {
-        random.setSeed((long) ((getScope().getFloat(ScopePayload.PARTICLE_SEED) * 10000 * index * 1000)));
+    @Override
+    public boolean processBatch (ModuleBatch batch) {
+        NumericalColumn alphaColumn = batch.input(this, ALPHA);
+        NumericalColumn output = batch.output(this, OUTPUT);
+        final float[] seed = batch.seed;
+
+        for (int row = 0, size = batch.getSize(); row < size; row++) {
+            float alpha = interpolate(alphaColumn.getFloat(row));
+
+            getRandomPosOn(seed[row], lowSide, lowEdge, lowShape, lowPos, lowSize, randLow);
+            getRandomPosOn(seed[row], highSide, highEdge, highShape, highPos, highSize, randHigh);
+
+            float x = Interpolation.linear.apply(randLow.x, randHigh.x, alpha);
+            float y = Interpolation.linear.apply(randLow.y, randHigh.y, alpha);
+
+            output.set(row, x, y);
+        }
+
+        return true;
+    }
+
+    private void getRandomPosOn(float seed, int side, boolean edge, int shape, NumericalValue pos, NumericalValue size, Vector2 result) {
+        random.setSeed((long) ((seed * 10000 * index * 1000)));
         float angle = random.nextFloat();
 
         if(side == SIDE_TOP) angle = angle/2f;
@@ -7,7 +7,6 @@ import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
-import com.talosvfx.talos.runtime.Particle;
 import com.talosvfx.talos.runtime.ParticleDrawable;
 import com.talosvfx.talos.runtime.ParticlePointData;
 import com.talosvfx.talos.runtime.ParticlePointGroup;
@@ -119,10 +118,9 @@ public class QuadMeshGeneratorModule extends MeshGeneratorModule {
 			for (int j = 0; j < pointDataArray.size; j++) {
 				ParticlePointData particlePointData = pointDataArray.get(j);
 
-				Particle reference = particlePointData.reference;
 				getScope().set(ScopePayload.SUB_PARTICLE_ALPHA, particlePointData.alpha);
-				getScope().set(ScopePayload.PARTICLE_SEED, reference.seed);
-				getScope().set(ScopePayload.PARTICLE_ALPHA, reference.alpha);
+				getScope().set(ScopePayload.PARTICLE_SEED, particlePointData.particleSeed);
+				getScope().set(ScopePayload.PARTICLE_ALPHA, particlePointData.particleAlpha);
 
 				getScope().setCurrentRequesterID(getScope().newParticleRequester());
 
@@ -137,9 +135,9 @@ public class QuadMeshGeneratorModule extends MeshGeneratorModule {
 				float y = particlePointData.y;
 				float z = particlePointData.z;
 
-				ParticleModule particleModule = particlePointData.reference.getEmitter().getParticleModule();
+				ParticleModule particleModule = particlePointData.emitter.getParticleModule();
 
-				Vector3 rotation = reference.rotation;
+				Vector3 rotation = particlePointData.particleRotation;
 				float transparency = particleModule.getTransparency();
 				Color color = particleModule.getColor();
 
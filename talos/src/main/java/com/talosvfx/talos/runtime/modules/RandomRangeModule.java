@@ -20,6 +20,7 @@ import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.talosvfx.talos.runtime.ScopePayload;
 import com.talosvfx.talos.runtime.utils.DistributedRandom;
+import com.talosvfx.talos.runtime.values.NumericalColumn;
 import com.talosvfx.talos.runtime.values.NumericalValue;
 
 import java.util.Random;
@@ -76,6 +77,40 @@ public class RandomRangeModule extends AbstractModule {
         output.set(res);
     }
 
+    @Override
+    public boolean processBatch (ModuleBatch batch) {
+        NumericalColumn minInput = batch.input(this, MIN_INPUT);
+        NumericalColumn maxInput = batch.input(this, MAX_INPUT);
+        NumericalColumn output = batch.output(this, OUTPUT);
+        final float[] seed = batch.seed;
+
+        for (int row = 0, size = batch.getSize(); row < size; row++) {
+            float startPos;
+            if(!distributed) {
+                startPos = firstFloat((long) (seed[row] * 10000 * (index+1) * 1000));
+            } else {
+                distributedRandom.setSeed(10000 * (index+1));
+                startPos = distributedRandom.nextFloat();
+            }
+
+            float min = minInput.empty[row] ? this.min : minInput.getFloat(row);
+            float max = maxInput.empty[row] ? this.max : maxInput.getFloat(row);
+
+            output.set(row, min + (max - min) * startPos);
+        }
+
+        return true;
+    }
+
+    /**
+     * First {@link Random#nextFloat()} after {@link Random#setSeed(long)}, without touching a shared generator
+     */
+    static float firstFloat (long seed) {
+        long scrambled = (seed ^ 0x5DEECE66DL) & ((1L << 48) - 1);
+        long next = (scrambled * 0x5DEECE66DL + 0xBL) & ((1L << 48) - 1);
+        return (int) (next >>> 24) / (float) (1 << 24);
+    }
+
     public void setMinMax(float min, float max) {
         this.min = min;
         this.max = max;
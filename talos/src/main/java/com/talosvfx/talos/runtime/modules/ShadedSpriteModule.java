@@ -82,6 +82,20 @@ public class ShadedSpriteModule extends AbstractModule {
         }
     }
 
+    /**
+     * Compiles the shader on the GL thread, loading only hands the source to the drawable
+     */
+    public void createResources() {
+        ((ShadedDrawable) outputValue.getDrawable()).createResources();
+    }
+
+    /**
+     * Draws with the drawable of source, so graph copies share its shader instead of compiling their own
+     */
+    public void shareDrawable(ShadedSpriteModule source) {
+        outputValue.setDrawable(source.outputValue.getDrawable());
+    }
+
     public ShaderDescriptor getShaderDescriptor() {
         return shaderDescriptor;
     }
@@ -4,7 +4,6 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
-import com.talosvfx.talos.runtime.Particle;
 import com.talosvfx.talos.runtime.ParticlePointData;
 import com.talosvfx.talos.runtime.ParticlePointGroup;
 import com.talosvfx.talos.runtime.ScopePayload;
@@ -108,14 +107,11 @@ public class StripMeshGeneratorModule extends MeshGeneratorModule {
 				ParticlePointData particlePointData = pointData.get(j);
 				ParticlePointData nextParticlePointData = pointData.get(j + 1);
 
-				Particle fromReference = particlePointData.reference;
-				Particle toReference = nextParticlePointData.reference;
-
-				float particleTransparency = fromReference.getEmitter().getParticleModule().getTransparency();
+				float particleTransparency = particlePointData.emitter.getParticleModule().getTransparency();
 
 				getScope().set(ScopePayload.SUB_PARTICLE_ALPHA, particlePointData.alpha);
-				getScope().set(ScopePayload.PARTICLE_SEED, fromReference.seed);
-				getScope().set(ScopePayload.PARTICLE_ALPHA, fromReference.alpha);
+				getScope().set(ScopePayload.PARTICLE_SEED, particlePointData.particleSeed);
+				getScope().set(ScopePayload.PARTICLE_ALPHA, particlePointData.particleAlpha);
 				getScope().setCurrentRequesterID(getScope().newParticleRequester());
 
 				fetchAllInputSlotValues();
@@ -125,8 +121,8 @@ public class StripMeshGeneratorModule extends MeshGeneratorModule {
 				fromTransparency = this.transparency.isEmpty() ? 1 : this.transparency.getFloat(); //default
 
 				getScope().set(ScopePayload.SUB_PARTICLE_ALPHA, nextParticlePointData.alpha);
-				getScope().set(ScopePayload.PARTICLE_SEED, toReference.seed);
-				getScope().set(ScopePayload.PARTICLE_ALPHA, fromReference.alpha);
+				getScope().set(ScopePayload.PARTICLE_SEED, nextParticlePointData.particleSeed);
+				getScope().set(ScopePayload.PARTICLE_ALPHA, particlePointData.particleAlpha);
 				getScope().setCurrentRequesterID(getScope().newParticleRequester());
 
 				fetchAllInputSlotValues();
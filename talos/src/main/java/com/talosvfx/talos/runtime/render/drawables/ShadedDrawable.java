@@ -13,8 +13,14 @@ import com.talosvfx.talos.runtime.Particle;
 import com.talosvfx.talos.runtime.ParticleDrawable;
 import com.talosvfx.talos.runtime.utils.DefaultShaders;
 
+/**
+ * Draws particles with a custom fragment shader. The shader and the placeholder texture are GL resources, so they are
+ * only created by {@link #createResources()} on the GL thread, at the latest on first draw. Setting the shader source
+ * is safe from loader threads.
+ */
 public class ShadedDrawable extends ParticleDrawable {
 
+    private String fragCode;
     private ShaderProgram shaderProgram;
 
     private Texture texture;
@@ -24,9 +30,31 @@ public class ShadedDrawable extends ParticleDrawable {
     private Color defaultUVOffset = new Color(0, 0, 1, 1);
 
     public ShadedDrawable() {
-        Pixmap pixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
-        texture = new Texture(pixmap);
-        region = new TextureRegion(texture);
+    }
+
+    /**
+     * Creates the placeholder texture and compiles the shader if it was not yet, GL thread only
+     */
+    public void createResources() {
+        if (texture == null) {
+            Pixmap pixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+            texture = new Texture(pixmap);
+            pixmap.dispose();
+            region = new TextureRegion(texture);
+        }
+
+        if (fragCode != null && shaderProgram == null) {
+            ShaderProgram.pedantic = true;
+
+            shaderProgram = new ShaderProgram(
+                    DefaultShaders.DEFAULT_VERTEX_SHADER,
+                    fragCode
+            );
+
+            if(!shaderProgram.isCompiled()){
+                Gdx.app.log("GL SHADER ERROR", shaderProgram.getLog());
+            }
+        }
     }
 
     @Override
@@ -35,6 +63,7 @@ public class ShadedDrawable extends ParticleDrawable {
 
     @Override
     public void draw(Batch batch, Particle particle, Color color) {
+        createResources();
 
         if (shaderProgram == null || !shaderProgram.isCompiled()) return;
 
@@ -89,6 +118,8 @@ public class ShadedDrawable extends ParticleDrawable {
     }
 
     public ShaderProgram getShaderProgram(Batch batch, Color color, float alpha, float life) {
+        createResources();
+
         if (shaderProgram == null || !shaderProgram.isCompiled()) return null;
 
         batch.setShader(shaderProgram);
@@ -100,21 +131,20 @@ public class ShadedDrawable extends ParticleDrawable {
 
     @Override
     public TextureRegion getTextureRegion() {
+        createResources();
         return region;
     }
 
+    /**
+     * Keeps the source only, compiled by {@link #createResources()}. A program compiled from other source is dropped.
+     */
     public void setShader(String fragCode) {
-        if (fragCode == null) return;
-
-        ShaderProgram.pedantic = true;
-
-        shaderProgram = new ShaderProgram(
-                DefaultShaders.DEFAULT_VERTEX_SHADER,
-                fragCode
-        );
+        if (fragCode == null || fragCode.equals(this.fragCode)) return;
 
-        if(!shaderProgram.isCompiled()){
-            Gdx.app.log("GL SHADER ERROR", shaderProgram.getLog());
+        this.fragCode = fragCode;
+        if (shaderProgram != null) {
+            shaderProgram.dispose();
+            shaderProgram = null;
         }
     }
 
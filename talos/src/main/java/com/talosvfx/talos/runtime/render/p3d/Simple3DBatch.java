@@ -111,11 +111,12 @@ public class Simple3DBatch {
     }
 
     public void setBlendFunction (int src, int dst) {
-        if (blendSrc != src || blendDst != dst) {
-            flush();
-        }
+        if (blendSrc == src && blendDst == dst) return;
 
+        flush();
 
+        blendSrc = src;
+        blendDst = dst;
         Gdx.gl.glBlendFuncSeparate(src, dst, src, dst);
     }
 }
@@ -0,0 +1,607 @@
+package com.talosvfx.talos.runtime.render.p3d;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.rockbite.bongo.engine.render.ShaderSourceProvider;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Collects the quads of every effect drawn in a frame and draws them at {@link #end()}, sorted by blend mode, then
+ * texture. Quads of blend modes that depend on draw order, any destination factor other than {@link GL20#GL_ONE}, are
+ * sorted back to front by view depth before texture instead. Sorting is a radix sort over packed int keys, so the cost
+ * does not depend on how the quads arrive.
+ * <p>
+ * {@link #setBlendFunction(int, int)} only sets the blend mode of the quads that follow, and nothing is drawn before
+ * {@link #end()}. All sorted vertices are then streamed into one vertex buffer, orphaned on every upload, and drawn in
+ * as few calls as the blend modes and textures allow. Draws are not limited by 16-bit indices, every draw
+ * points the vertex attributes at its first quad.
+ * <p>
+ * On GL3 up to {@link #MAX_TEXTURE_UNITS} textures are bound at once and every vertex carries the unit it samples, the
+ * way {@link com.rockbite.bongo.engine.render.PolygonSpriteBatchMultiTextureMULTIBIND} does it, so only running out of
+ * units or changing blend mode splits a draw. On GL2 every texture change does.
+ */
+public class SortedParticleBatch implements Disposable {
+
+	public static final int MAX_TEXTURE_UNITS = 8;
+
+	/**
+	 * Floats of the vertices handed to {@link #render(float[], Texture)}, position, packed colour and texture coordinates
+	 */
+	public static final int INPUT_VERTEX_SIZE = 3 + 1 + 2;
+	private static final int INPUT_QUAD_SIZE = INPUT_VERTEX_SIZE * 4;
+
+	/**
+	 * Floats of the streamed vertices, the input plus the texture unit
+	 */
+	private static final int VERTEX_SIZE = INPUT_VERTEX_SIZE + 1;
+	private static final int VERTEX_BYTES = VERTEX_SIZE * 4;
+	private static final int QUAD_SIZE = VERTEX_SIZE * 4;
+
+	/**
+	 * Most quads a single draw call addresses with 16-bit indices
+	 */
+	private static final int MAX_QUADS_PER_DRAW = 16384;
+
+	private static final String TEXTURE_INDEX_ATTRIBUTE = "texture_index";
+
+	//KEY LAYOUT, sorted as unsigned ints
+	private static final int BLEND_SHIFT = 28;
+	private static final int MAX_BLEND_MODES = 1 << 4;
+	private static final int MAX_TEXTURES = 1 << 12;
+	private static final int DEPTH_SHIFT = 12;
+	private static final int DEPTH_STEPS = 0xFFFF;
+	private static final int UNSORTED_TEXTURE_SHIFT = 16;
+
+	private final IntArray blendSrc = new IntArray();
+	private final IntArray blendDst = new IntArray();
+	private int currentBlend;
+
+	private final ObjectIntMap<Texture> textureIds = new ObjectIntMap<>();
+	private final Array<Texture> textures = new Array<>();
+
+	private float[] quads;
+	private int[] quadBlend;
+	private int[] quadTexture;
+	private float[] quadDepth;
+	private int quadCount;
+
+	private int[] keys;
+	private int[] order;
+	private int[] sortKeys;
+	private int[] sortOrder;
+	private final int[] histogram = new int[256];
+
+	private float[] sortedVertices;
+	private FloatBuffer vertexBuffer;
+
+	private final IntArray commandFirstQuad = new IntArray();
+	private final IntArray commandQuadCount = new IntArray();
+	private final IntArray commandBlend = new IntArray();
+	private final IntArray commandTextureOffset = new IntArray();
+	private final Array<Texture> commandTextures = new Array<>();
+	private final Texture[] boundUnits = new Texture[MAX_TEXTURE_UNITS];
+
+	private int vertexBufferHandle;
+	private int indexBufferHandle;
+	private int vertexArrayHandle;
+	private int vertexBufferCapacity;
+
+	private final int textureUnits;
+	private IntBuffer textureUnitIndices;
+	private ShaderProgram multiTextureShader;
+	private ShaderProgram shader;
+
+	private Camera camera;
+	private final Vector3 cameraPosition = new Vector3();
+	private final Vector3 cameraDirection = new Vector3();
+
+	private boolean drawing;
+
+	private int drawCalls;
+
+	public SortedParticleBatch (int initialQuads) {
+		initialQuads = Math.max(1, initialQuads);
+		quads = new float[initialQuads * INPUT_QUAD_SIZE];
+		quadBlend = new int[initialQuads];
+		quadTexture = new int[initialQuads];
+		quadDepth = new float[initialQuads];
+
+		if (Gdx.gl30 != null) {
+			final IntBuffer query = BufferUtils.newIntBuffer(16);
+			Gdx.gl.glGetIntegerv(GL20.GL_MAX_TEXTURE_IMAGE_UNITS, query);
+			textureUnits = Math.max(1, Math.min(MAX_TEXTURE_UNITS, query.get(0)));
+			multiTextureShader = createMultiTextureShader(textureUnits);
+
+			textureUnitIndices = BufferUtils.newIntBuffer(textureUnits);
+			for (int i = 0; i < textureUnits; i++) {
+				textureUnitIndices.put(i);
+			}
+			((Buffer)textureUnitIndices).flip();
+		} else {
+			textureUnits = 1;
+		}
+
+		addBlendMode(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+	}
+
+	private static ShaderProgram createMultiTextureShader (int textureUnits) {
+		final String prepend = "#define MAX_TEXTURE_UNITS " + textureUnits + "\n";
+		final String vertexSource = ShaderSourceProvider.resolveVertex("core/particleMultiTexture", Files.FileType.Classpath).readString();
+		final String fragmentSource = ShaderSourceProvider.resolveFragment("core/particleMultiTexture", Files.FileType.Classpath).readString();
+
+		final ShaderProgram shaderProgram = new ShaderProgram(prepend + vertexSource, prepend + fragmentSource);
+		if (!shaderProgram.isCompiled()) {
+			Gdx.app.error("SortedParticleBatch", "Multi texture particle shader failed, drawing one texture at a time\n" + shaderProgram.getLog());
+			shaderProgram.dispose();
+			return null;
+		}
+		return shaderProgram;
+	}
+
+	/**
+	 * Registers a blend mode ahead of use, blend modes are drawn in the order they were first registered or used
+	 *
+	 * @return index of the blend mode
+	 */
+	public int addBlendMode (int src, int dst) {
+		for (int i = 0; i < blendSrc.size; i++) {
+			if (blendSrc.get(i) == src && blendDst.get(i) == dst) return i;
+		}
+		if (blendSrc.size == MAX_BLEND_MODES) {
+			throw new GdxRuntimeException("SortedParticleBatch supports at most " + MAX_BLEND_MODES + " blend modes");
+		}
+		blendSrc.add(src);
+		blendDst.add(dst);
+		return blendSrc.size - 1;
+	}
+
+	/**
+	 * Blend mode of the quads rendered after this call, nothing is flushed
+	 */
+	public void setBlendFunction (int src, int dst) {
+		currentBlend = addBlendMode(src, dst);
+	}
+
+	public void begin (Camera camera, ShaderProgram shaderProgram) {
+		if (drawing) throw new GdxRuntimeException("SortedParticleBatch.end must be called before begin");
+		drawing = true;
+
+		this.camera = camera;
+		cameraPosition.set(camera.position);
+		cameraDirection.set(camera.direction);
+
+		shader = textureUnits > 1 && multiTextureShader != null ? multiTextureShader : shaderProgram;
+
+		currentBlend = 0;
+		quadCount = 0;
+		drawCalls = 0;
+	}
+
+	/**
+	 * Queues verts, one or more quads of {@link #INPUT_VERTEX_SIZE} floats per vertex
+	 */
+	public void render (float[] verts, Texture texture) {
+		final int incomingQuads = verts.length / INPUT_QUAD_SIZE;
+		ensureQuadCapacity(quadCount + incomingQuads);
+
+		final int textureId = getTextureId(texture);
+
+		for (int i = 0; i < incomingQuads; i++) {
+			final int source = i * INPUT_QUAD_SIZE;
+			System.arraycopy(verts, source, quads, quadCount * INPUT_QUAD_SIZE, INPUT_QUAD_SIZE);
+
+			float x = 0, y = 0, z = 0;
+			for (int vertex = 0; vertex < 4; vertex++) {
+				final int offset = source + vertex * INPUT_VERTEX_SIZE;
+				x += verts[offset];
+				y += verts[offset + 1];
+				z += verts[offset + 2];
+			}
+
+			quadBlend[quadCount] = currentBlend;
+			quadTexture[quadCount] = textureId;
+			quadDepth[quadCount] = (x * 0.25f - cameraPosition.x) * cameraDirection.x
+				+ (y * 0.25f - cameraPosition.y) * cameraDirection.y
+				+ (z * 0.25f - cameraPosition.z) * cameraDirection.z;
+			quadCount++;
+		}
+	}
+
+	public void end () {
+		if (!drawing) throw new GdxRuntimeException("SortedParticleBatch.begin must be called before end");
+		drawing = false;
+
+		if (quadCount > 0) {
+			computeKeys();
+			sortKeys();
+			buildCommands();
+			draw();
+		}
+
+		textureIds.clear();
+		textures.clear();
+		commandTextures.clear();
+		camera = null;
+	}
+
+	public Camera getCamera () {
+		return camera;
+	}
+
+	/**
+	 * Quads drawn by the last {@link #end()}
+	 */
+	public int getQuadCount () {
+		return quadCount;
+	}
+
+	/**
+	 * Draw calls issued by the last {@link #end()}
+	 */
+	public int getDrawCalls () {
+		return drawCalls;
+	}
+
+	public int getTextureUnits () {
+		return shader == multiTextureShader ? textureUnits : 1;
+	}
+
+	private int getTextureId (Texture texture) {
+		int id = textureIds.get(texture, -1);
+		if (id == -1) {
+			if (textures.size == MAX_TEXTURES) {
+				throw new GdxRuntimeException("SortedParticleBatch supports at most " + MAX_TEXTURES + " textures per frame");
+			}
+			id = textures.size;
+			textures.add(texture);
+			textureIds.put(texture, id);
+		}
+		return id;
+	}
+
+	private void ensureQuadCapacity (int capacity) {
+		if (capacity <= quadBlend.length) return;
+
+		final int newCapacity = Math.max(capacity, quadBlend.length * 2);
+		final float[] newQuads = new float[newCapacity * INPUT_QUAD_SIZE];
+		System.arraycopy(quads, 0, newQuads, 0, quadCount * INPUT_QUAD_SIZE);
+		quads = newQuads;
+
+		final int[] newBlend = new int[newCapacity];
+		System.arraycopy(quadBlend, 0, newBlend, 0, quadCount);
+		quadBlend = newBlend;
+
+		final int[] newTexture = new int[newCapacity];
+		System.arraycopy(quadTexture, 0, newTexture, 0, quadCount);
+		quadTexture = newTexture;
+
+		final float[] newDepth = new float[newCapacity];
+		System.arraycopy(quadDepth, 0, newDepth, 0, quadCount);
+		quadDepth = newDepth;
+	}
+
+	private boolean isDepthSorted (int blend) {
+		return blendDst.get(blend) != GL20.GL_ONE;
+	}
+
+	/**
+	 * Blend mode in the top 4 bits. Depth sorted modes follow with 16 bits of depth, far first, then 12 bits of texture,
+	 * other modes with 12 bits of texture.
+	 */
+	private void computeKeys () {
+		if (keys == null || keys.length < quadCount) {
+			final int capacity = quadBlend.length;
+			keys = new int[capacity];
+			order = new int[capacity];
+			sortKeys = new int[capacity];
+			sortOrder = new int[capacity];
+		}
+
+		float minDepth = Float.POSITIVE_INFINITY;
+		float maxDepth = Float.NEGATIVE_INFINITY;
+		for (int i = 0; i < quadCount; i++) {
+			if (!isDepthSorted(quadBlend[i])) continue;
+			minDepth = Math.min(minDepth, quadDepth[i]);
+			maxDepth = Math.max(maxDepth, quadDepth[i]);
+		}
+		final float depthRange = maxDepth - minDepth;
+		final float depthScale = depthRange > 0 ? DEPTH_STEPS / depthRange : 0;
+
+		for (int i = 0; i < quadCount; i++) {
+			final int blend = quadBlend[i];
+			int key = blend << BLEND_SHIFT;
+			if (isDepthSorted(blend)) {
+				final int depth = Math.round((quadDepth[i] - minDepth) * depthScale);
+				key |= (DEPTH_STEPS - depth) << DEPTH_SHIFT;
+				key |= quadTexture[i];
+			} else {
+				key |= quadTexture[i] << UNSORTED_TEXTURE_SHIFT;
+			}
+			keys[i] = key;
+			order[i] = i;
+		}
+	}
+
+	/**
+	 * Stable least significant digit radix sort of keys and order, a byte per pass, skipping bytes all keys share
+	 */
+	private void sortKeys () {
+		for (int shift = 0; shift < 32; shift += 8) {
+			final int[] histogram = this.histogram;
+			for (int i = 0; i < 256; i++) {
+				histogram[i] = 0;
+			}
+			for (int i = 0; i < quadCount; i++) {
+				histogram[(keys[i] >>> shift) & 0xFF]++;
+			}
+			if (histogram[(keys[0] >>> shift) & 0xFF] == quadCount) continue;
+
+			int sum = 0;
+			for (int i = 0; i < 256; i++) {
+				final int count = histogram[i];
+				histogram[i] = sum;
+				sum += count;
+			}
+			for (int i = 0; i < quadCount; i++) {
+				final int target = histogram[(keys[i] >>> shift) & 0xFF]++;
+				sortKeys[target] = keys[i];
+				sortOrder[target] = order[i];
+			}
+
+			int[] swap = keys;
+			keys = sortKeys;
+			sortKeys = swap;
+			swap = order;
+			order = sortOrder;
+			sortOrder = swap;
+		}
+	}
+
+	/**
+	 * Writes the quads in sorted order with their texture unit, and splits them into draws wherever the blend mode
+	 * changes or the texture units run out
+	 */
+	private void buildCommands () {
+		commandFirstQuad.clear();
+		commandQuadCount.clear();
+		commandBlend.clear();
+		commandTextureOffset.clear();
+		commandTextures.clear();
+
+		if (sortedVertices == null || sortedVertices.length < quadCount * QUAD_SIZE) {
+			sortedVertices = new float[quadBlend.length * QUAD_SIZE];
+		}
+
+		final int units = getTextureUnits();
+		int unitsUsed = 0;
+
+		for (int i = 0; i < quadCount; i++) {
+			final int quad = order[i];
+			final int blend = quadBlend[quad];
+			final Texture texture = textures.get(quadTexture[quad]);
+
+			final int commandIndex = commandBlend.size - 1;
+			int unit = -1;
+			if (commandIndex >= 0 && commandBlend.get(commandIndex) == blend) {
+				final int textureOffset = commandTextureOffset.get(commandIndex);
+				for (int j = 0; j < unitsUsed; j++) {
+					if (commandTextures.get(textureOffset + j) == texture) {
+						unit = j;
+						break;
+					}
+				}
+				if (unit == -1 && unitsUsed < units) {
+					commandTextures.add(texture);
+					unit = unitsUsed++;
+				}
+			}
+
+			if (unit == -1) {
+				commandFirstQuad.add(i);
+				commandQuadCount.add(0);
+				commandBlend.add(blend);
+				commandTextureOffset.add(commandTextures.size);
+				commandTextures.add(texture);
+				unitsUsed = 1;
+				unit = 0;
+			}
+			commandQuadCount.incr(commandQuadCount.size - 1, 1);
+
+			final int source = quad * INPUT_QUAD_SIZE;
+			int target = i * QUAD_SIZE;
+			for (int vertex = 0; vertex < 4; vertex++) {
+				System.arraycopy(quads, source + vertex * INPUT_VERTEX_SIZE, sortedVertices, target, INPUT_VERTEX_SIZE);
+				sortedVertices[target + INPUT_VERTEX_SIZE] = unit;
+				target += VERTEX_SIZE;
+			}
+		}
+	}
+
+	private void draw () {
+		final GL20 gl = Gdx.gl;
+
+		createBuffers();
+		if (Gdx.gl30 != null) {
+			Gdx.gl30.glBindVertexArray(vertexArrayHandle);
+		}
+		gl.glBindBuffer(GL20.GL_ELEMENT_ARRAY_BUFFER, indexBufferHandle);
+		uploadVertices();
+
+		shader.bind();
+		shader.setUniformMatrix("u_projTrans", camera.combined);
+		if (shader == multiTextureShader) {
+			gl.glUniform1iv(shader.fetchUniformLocation("u_textures", true), textureUnits, textureUnitIndices);
+		} else {
+			shader.setUniformi("u_texture", 0);
+		}
+
+		final int positionLocation = shader.getAttributeLocation(ShaderProgram.POSITION_ATTRIBUTE);
+		final int colorLocation = shader.getAttributeLocation(ShaderProgram.COLOR_ATTRIBUTE);
+		final int texCoordLocation = shader.getAttributeLocation(ShaderProgram.TEXCOORD_ATTRIBUTE + "0");
+		final int textureIndexLocation = shader.getAttributeLocation(TEXTURE_INDEX_ATTRIBUTE);
+		enableAttribute(positionLocation);
+		enableAttribute(colorLocation);
+		enableAttribute(texCoordLocation);
+		enableAttribute(textureIndexLocation);
+
+		int lastBlend = -1;
+		for (int command = 0; command < commandBlend.size; command++) {
+			final int blend = commandBlend.get(command);
+			if (blend != lastBlend) {
+				gl.glBlendFuncSeparate(blendSrc.get(blend), blendDst.get(blend), blendSrc.get(blend), blendDst.get(blend));
+				lastBlend = blend;
+			}
+
+			final int textureOffset = commandTextureOffset.get(command);
+			final int textureEnd = command + 1 < commandBlend.size ? commandTextureOffset.get(command + 1) : commandTextures.size;
+			for (int unit = textureEnd - textureOffset - 1; unit >= 0; unit--) {
+				final Texture texture = commandTextures.get(textureOffset + unit);
+				if (boundUnits[unit] != texture) {
+					texture.bind(unit);
+					boundUnits[unit] = texture;
+				}
+			}
+
+			int firstQuad = commandFirstQuad.get(command);
+			int remaining = commandQuadCount.get(command);
+			while (remaining > 0) {
+				final int count = Math.min(remaining, MAX_QUADS_PER_DRAW);
+				final int offset = firstQuad * 4 * VERTEX_BYTES;
+				pointAttribute(positionLocation, 3, GL20.GL_FLOAT, false, offset);
+				pointAttribute(colorLocation, 4, GL20.GL_UNSIGNED_BYTE, true, offset + 3 * 4);
+				pointAttribute(texCoordLocation, 2, GL20.GL_FLOAT, false, offset + 4 * 4);
+				pointAttribute(textureIndexLocation, 1, GL20.GL_FLOAT, false, offset + 6 * 4);
+
+				gl.glDrawElements(GL20.GL_TRIANGLES, count * 6, GL20.GL_UNSIGNED_SHORT, 0);
+				drawCalls++;
+
+				firstQuad += count;
+				remaining -= count;
+			}
+		}
+
+		disableAttribute(positionLocation);
+		disableAttribute(colorLocation);
+		disableAttribute(texCoordLocation);
+		disableAttribute(textureIndexLocation);
+
+		gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+		if (Gdx.gl30 != null) {
+			Gdx.gl30.glBindVertexArray(0);
+		}
+		gl.glBindBuffer(GL20.GL_ELEMENT_ARRAY_BUFFER, 0);
+
+		gl.glActiveTexture(GL20.GL_TEXTURE0);
+		for (int i = 0; i < boundUnits.length; i++) {
+			boundUnits[i] = null;
+		}
+
+		gl.glBlendFuncSeparate(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA, GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+	}
+
+	private void createBuffers () {
+		if (vertexBufferHandle != 0) return;
+
+		final GL20 gl = Gdx.gl;
+		vertexBufferHandle = gl.glGenBuffer();
+		indexBufferHandle = gl.glGenBuffer();
+
+		if (Gdx.gl30 != null) {
+			final IntBuffer handle = BufferUtils.newIntBuffer(1);
+			Gdx.gl30.glGenVertexArrays(1, handle);
+			vertexArrayHandle = handle.get(0);
+			Gdx.gl30.glBindVertexArray(vertexArrayHandle);
+		}
+
+		final ShortBuffer indices = BufferUtils.newShortBuffer(MAX_QUADS_PER_DRAW * 6);
+		for (int i = 0, j = 0; i < MAX_QUADS_PER_DRAW; i++, j += 4) {
+			indices.put((short)j);
+			indices.put((short)(j + 1));
+			indices.put((short)(j + 2));
+			indices.put((short)(j + 2));
+			indices.put((short)(j + 3));
+			indices.put((short)j);
+		}
+		((Buffer)indices).flip();
+
+		gl.glBindBuffer(GL20.GL_ELEMENT_ARRAY_BUFFER, indexBufferHandle);
+		gl.glBufferData(GL20.GL_ELEMENT_ARRAY_BUFFER, MAX_QUADS_PER_DRAW * 6 * 2, indices, GL20.GL_STATIC_DRAW);
+
+		if (Gdx.gl30 != null) {
+			Gdx.gl30.glBindVertexArray(0);
+		}
+		gl.glBindBuffer(GL20.GL_ELEMENT_ARRAY_BUFFER, 0);
+	}
+
+	/**
+	 * Orphans the vertex buffer and fills it with this frame's sorted vertices, so the driver never waits on the
+	 * draws of the previous frame
+	 */
+	private void uploadVertices () {
+		final int floats = quadCount * QUAD_SIZE;
+		if (vertexBuffer == null || vertexBuffer.capacity() < floats) {
+			vertexBuffer = BufferUtils.newFloatBuffer(sortedVertices.length);
+		}
+		((Buffer)vertexBuffer).clear();
+		vertexBuffer.put(sortedVertices, 0, floats);
+		((Buffer)vertexBuffer).flip();
+
+		final GL20 gl = Gdx.gl;
+		gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, vertexBufferHandle);
+		vertexBufferCapacity = Math.max(vertexBufferCapacity, vertexBuffer.capacity() * 4);
+		gl.glBufferData(GL20.GL_ARRAY_BUFFER, vertexBufferCapacity, null, GL20.GL_STREAM_DRAW);
+		gl.glBufferSubData(GL20.GL_ARRAY_BUFFER, 0, floats * 4, vertexBuffer);
+	}
+
+	private static void enableAttribute (int location) {
+		if (location < 0) return;
+		Gdx.gl.glEnableVertexAttribArray(location);
+	}
+
+	private static void disableAttribute (int location) {
+		if (location < 0) return;
+		Gdx.gl.glDisableVertexAttribArray(location);
+	}
+
+	private static void pointAttribute (int location, int size, int type, boolean normalize, int offset) {
+		if (location < 0) return;
+		Gdx.gl.glVertexAttribPointer(location, size, type, normalize, VERTEX_BYTES, offset);
+	}
+
+	@Override
+	public void dispose () {
+		final GL20 gl = Gdx.gl;
+		if (vertexBufferHandle != 0) {
+			gl.glDeleteBuffer(vertexBufferHandle);
+			gl.glDeleteBuffer(indexBufferHandle);
+			vertexBufferHandle = 0;
+			indexBufferHandle = 0;
+		}
+		if (vertexArrayHandle != 0) {
+			final IntBuffer handle = BufferUtils.newIntBuffer(1);
+			handle.put(vertexArrayHandle);
+			((Buffer)handle).flip();
+			Gdx.gl30.glDeleteVertexArrays(1, handle);
+			vertexArrayHandle = 0;
+		}
+		if (multiTextureShader != null) {
+			multiTextureShader.dispose();
+			multiTextureShader = null;
+		}
+	}
+}
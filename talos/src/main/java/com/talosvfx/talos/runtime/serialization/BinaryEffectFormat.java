@@ -0,0 +1,323 @@
+package com.talosvfx.talos.runtime.serialization;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
+import com.talosvfx.talos.runtime.modules.AbstractModule;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compact binary form of {@link ExportData}. Strings, module class names included, are written once to a table and
+ * referenced by index, counts and integers are written as variable length ints. Every module is stored as its class index plus the tree it writes through
+ * {@link AbstractModule#write(Json)}, so modules are read back with their own {@link AbstractModule#read(Json, JsonValue)}
+ * without parsing text or looking registered classes up by reflection, see
+ * {@link ParticleEmitterDescriptor#createModule(String)}.
+ * <p>
+ * Convert exported effects with {@link #convert(FileHandle, FileHandle)}, {@link com.talosvfx.talos.runtime.ParticleEffectDescriptor#load(FileHandle)}
+ * reads files with the {@link #EXTENSION} extension as binary.
+ */
+public class BinaryEffectFormat {
+
+	public static final String EXTENSION = "tlsb";
+
+	private static final int MAGIC = 0x544C5342; // TLSB
+	private static final int VERSION = 1;
+
+	private static final byte TYPE_NULL = 0;
+	private static final byte TYPE_OBJECT = 1;
+	private static final byte TYPE_ARRAY = 2;
+	private static final byte TYPE_STRING = 3;
+	private static final byte TYPE_FLOAT = 4;
+	private static final byte TYPE_DOUBLE = 5;
+	private static final byte TYPE_INT = 6;
+	private static final byte TYPE_LONG = 7;
+	private static final byte TYPE_TRUE = 8;
+	private static final byte TYPE_FALSE = 9;
+
+	private static final int NO_STRING = -1;
+
+	public static boolean isBinary (FileHandle fileHandle) {
+		return EXTENSION.equalsIgnoreCase(fileHandle.extension());
+	}
+
+	/**
+	 * Reads an effect exported as json and writes it in binary form
+	 */
+	public static void convert (FileHandle jsonFile, FileHandle binaryFile) {
+		final Json json = ParticleEmitterDescriptor.getModuleJson();
+		final ExportData exportData = json.fromJson(ExportData.class, jsonFile.readString());
+
+		OutputStream out = null;
+		try {
+			out = new BufferedOutputStream(binaryFile.write(false));
+			write(exportData, out);
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Could not write binary effect: " + binaryFile, e);
+		} finally {
+			StreamUtils.closeQuietly(out);
+		}
+	}
+
+	public static void write (ExportData exportData, OutputStream outputStream) throws IOException {
+		final Json json = ParticleEmitterDescriptor.getModuleJson();
+		final JsonReader reader = new JsonReader();
+
+		final Array<String> strings = new Array<>();
+		final ObjectIntMap<String> stringIndices = new ObjectIntMap<>();
+
+		// module trees first, so every string they hold is in the table before it is written
+		final Array<Array<JsonValue>> emitterModules = new Array<>();
+		for (ExportData.EmitterExportData emitter : exportData.emitters) {
+			indexString(emitter.name, strings, stringIndices);
+
+			Array<JsonValue> modules = new Array<>();
+			for (AbstractModule module : emitter.modules) {
+				indexString(ParticleEmitterDescriptor.getModuleName(module.getClass()), strings, stringIndices);
+
+				JsonValue tree = reader.parse(json.toJson(module));
+				indexStrings(tree, strings, stringIndices);
+				modules.add(tree);
+			}
+			emitterModules.add(modules);
+		}
+
+		indexString(exportData.metadata.versionString, strings, stringIndices);
+		for (String resource : exportData.metadata.resources) {
+			indexString(resource, strings, stringIndices);
+		}
+
+		final DataOutputStream out = new DataOutputStream(outputStream);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+
+		writeVarInt(strings.size, out);
+		for (String string : strings) {
+			out.writeUTF(string);
+		}
+
+		writeString(exportData.metadata.versionString, out, stringIndices);
+		writeVarInt(exportData.metadata.resources.size, out);
+		for (String resource : exportData.metadata.resources) {
+			writeString(resource, out, stringIndices);
+		}
+
+		writeVarInt(exportData.emitters.size, out);
+		for (int i = 0; i < exportData.emitters.size; i++) {
+			final ExportData.EmitterExportData emitter = exportData.emitters.get(i);
+			writeString(emitter.name, out, stringIndices);
+
+			final Array<JsonValue> modules = emitterModules.get(i);
+			writeVarInt(modules.size, out);
+			for (int j = 0; j < modules.size; j++) {
+				writeString(ParticleEmitterDescriptor.getModuleName(emitter.modules.get(j).getClass()), out, stringIndices);
+				writeValue(modules.get(j), out, stringIndices);
+			}
+
+			writeVarInt(emitter.connections.size, out);
+			for (ConnectionData connection : emitter.connections) {
+				writeVarInt(connection.moduleFrom, out);
+				writeVarInt(connection.moduleTo, out);
+				writeVarInt(connection.slotFrom, out);
+				writeVarInt(connection.slotTo, out);
+			}
+		}
+
+		out.flush();
+	}
+
+	public static ExportData read (byte[] bytes) {
+		try {
+			return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Could not read binary effect", e);
+		}
+	}
+
+	public static ExportData read (DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new GdxRuntimeException("Not a binary effect");
+		}
+		final int version = in.readInt();
+		if (version != VERSION) {
+			throw new GdxRuntimeException("Unsupported binary effect version: " + version);
+		}
+
+		final String[] strings = new String[readVarInt(in)];
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = in.readUTF();
+		}
+
+		final Json json = ParticleEmitterDescriptor.getModuleJson();
+		final ExportData exportData = new ExportData();
+
+		exportData.metadata.versionString = readString(in, strings);
+		final int resourceCount = readVarInt(in);
+		for (int i = 0; i < resourceCount; i++) {
+			exportData.metadata.resources.add(readString(in, strings));
+		}
+
+		final int emitterCount = readVarInt(in);
+		for (int i = 0; i < emitterCount; i++) {
+			ExportData.EmitterExportData emitter = new ExportData.EmitterExportData();
+			emitter.name = readString(in, strings);
+
+			final int moduleCount = readVarInt(in);
+			for (int j = 0; j < moduleCount; j++) {
+				AbstractModule module = ParticleEmitterDescriptor.createModule(readString(in, strings));
+				module.read(json, readValue(in, strings));
+				emitter.modules.add(module);
+			}
+
+			final int connectionCount = readVarInt(in);
+			for (int j = 0; j < connectionCount; j++) {
+				emitter.connections.add(new ConnectionData(readVarInt(in), readVarInt(in), readVarInt(in), readVarInt(in)));
+			}
+
+			exportData.emitters.add(emitter);
+		}
+
+		return exportData;
+	}
+
+	private static void indexString (String string, Array<String> strings, ObjectIntMap<String> stringIndices) {
+		if (string == null || stringIndices.containsKey(string)) return;
+		stringIndices.put(string, strings.size);
+		strings.add(string);
+	}
+
+	private static void indexStrings (JsonValue value, Array<String> strings, ObjectIntMap<String> stringIndices) {
+		indexString(value.name, strings, stringIndices);
+		if (value.isString()) {
+			indexString(value.asString(), strings, stringIndices);
+		}
+		for (JsonValue child = value.child; child != null; child = child.next) {
+			indexStrings(child, strings, stringIndices);
+		}
+	}
+
+	private static void writeString (String string, DataOutputStream out, ObjectIntMap<String> stringIndices) throws IOException {
+		writeVarInt((string == null ? NO_STRING : stringIndices.get(string, NO_STRING)) + 1, out);
+	}
+
+	private static String readString (DataInputStream in, String[] strings) throws IOException {
+		final int index = readVarInt(in) - 1;
+		return index == NO_STRING ? null : strings[index];
+	}
+
+	/**
+	 * Seven bits per byte, low bits first, the high bit set on every byte but the last
+	 */
+	private static void writeVarInt (int value, DataOutputStream out) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readVarInt (DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			final int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new GdxRuntimeException("Corrupt binary effect, malformed varint");
+	}
+
+	private static void writeValue (JsonValue value, DataOutputStream out, ObjectIntMap<String> stringIndices) throws IOException {
+		switch (value.type()) {
+		case object:
+		case array:
+			out.writeByte(value.isObject() ? TYPE_OBJECT : TYPE_ARRAY);
+			writeVarInt(value.size, out);
+			for (JsonValue child = value.child; child != null; child = child.next) {
+				if (value.isObject()) {
+					writeString(child.name, out, stringIndices);
+				}
+				writeValue(child, out, stringIndices);
+			}
+			break;
+		case stringValue:
+			out.writeByte(TYPE_STRING);
+			writeString(value.asString(), out, stringIndices);
+			break;
+		case doubleValue:
+			final double doubleValue = value.asDouble();
+			if ((float)doubleValue == doubleValue) {
+				out.writeByte(TYPE_FLOAT);
+				out.writeFloat((float)doubleValue);
+			} else {
+				out.writeByte(TYPE_DOUBLE);
+				out.writeDouble(doubleValue);
+			}
+			break;
+		case longValue:
+			final long longValue = value.asLong();
+			if ((int)longValue == longValue) {
+				out.writeByte(TYPE_INT);
+				writeVarInt(((int)longValue << 1) ^ ((int)longValue >> 31), out);
+			} else {
+				out.writeByte(TYPE_LONG);
+				out.writeLong(longValue);
+			}
+			break;
+		case booleanValue:
+			out.writeByte(value.asBoolean() ? TYPE_TRUE : TYPE_FALSE);
+			break;
+		case nullValue:
+			out.writeByte(TYPE_NULL);
+			break;
+		}
+	}
+
+	private static JsonValue readValue (DataInputStream in, String[] strings) throws IOException {
+		final byte type = in.readByte();
+		switch (type) {
+		case TYPE_OBJECT:
+		case TYPE_ARRAY:
+			final JsonValue value = new JsonValue(type == TYPE_OBJECT ? JsonValue.ValueType.object : JsonValue.ValueType.array);
+			final int size = readVarInt(in);
+			for (int i = 0; i < size; i++) {
+				final String name = type == TYPE_OBJECT ? readString(in, strings) : null;
+				final JsonValue child = readValue(in, strings);
+				if (name != null) {
+					child.setName(name);
+				}
+				value.addChild(child);
+			}
+			return value;
+		case TYPE_STRING:
+			return new JsonValue(readString(in, strings));
+		case TYPE_FLOAT:
+			return new JsonValue(in.readFloat());
+		case TYPE_DOUBLE:
+			return new JsonValue(in.readDouble());
+		case TYPE_INT:
+			final int zigZag = readVarInt(in);
+			return new JsonValue((zigZag >>> 1) ^ -(zigZag & 1));
+		case TYPE_LONG:
+			return new JsonValue(in.readLong());
+		case TYPE_TRUE:
+			return new JsonValue(true);
+		case TYPE_FALSE:
+			return new JsonValue(false);
+		case TYPE_NULL:
+			return new JsonValue(JsonValue.ValueType.nullValue);
+		default:
+			throw new GdxRuntimeException("Corrupt binary effect, unknown value type: " + type);
+		}
+	}
+}
@@ -0,0 +1,337 @@
+package com.talosvfx.talos.runtime.simulation;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.talosvfx.talos.runtime.Particle;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Every particle one emitter cycle spawns, pre-simulated at {@link #FRAME_RATE}. Records are kept in emission order,
+ * each with its start and end time, its seed and a run of keyframes. Keyframes hold the particle position, rotation and
+ * pivot, quantized to 16 bits over the range each channel covers in the whole timeline.
+ * <p>
+ * Built by {@link TinyEmitter} through a {@link Recorder}, and written to and read from the binary timeline cache.
+ */
+public class BakedTimeline {
+
+	public static final float FRAME_RATE = 30f;
+
+	public static final int POSITION_X = 0;
+	public static final int POSITION_Y = 1;
+	public static final int POSITION_Z = 2;
+	public static final int ROTATION_X = 3;
+	public static final int ROTATION_Y = 4;
+	public static final int ROTATION_Z = 5;
+	public static final int PIVOT_X = 6;
+	public static final int PIVOT_Y = 7;
+	public static final int CHANNELS = 8;
+
+	private static final int MAGIC = 0x54424C54; // TBLT
+	private static final int VERSION = 1;
+
+	private static final float QUANTIZE_STEPS = 65535f;
+
+	/**
+	 * Length of one emission cycle, continuous emitters repeat the timeline every duration
+	 */
+	private float duration;
+	private boolean continuous;
+	/**
+	 * Latest end and longest life of any record
+	 */
+	private float endTime;
+	private float maxLife;
+
+	private final float[] channelMin = new float[CHANNELS];
+	private final float[] channelRange = new float[CHANNELS];
+
+	private int size;
+	private float[] start;
+	private float[] end;
+	private float[] seed;
+	private int[] keyframeOffset;
+	private int[] keyframeCount;
+
+	/**
+	 * {@link #CHANNELS} unsigned shorts per keyframe
+	 */
+	private short[] keyframes;
+
+	private BakedTimeline () {
+	}
+
+	public int getSize () {
+		return size;
+	}
+
+	public float getDuration () {
+		return duration;
+	}
+
+	public boolean isContinuous () {
+		return continuous;
+	}
+
+	public float getEndTime () {
+		return endTime;
+	}
+
+	public float getMaxLife () {
+		return maxLife;
+	}
+
+	public float getStart (int record) {
+		return start[record];
+	}
+
+	public float getEnd (int record) {
+		return end[record];
+	}
+
+	public float getSeed (int record) {
+		return seed[record];
+	}
+
+	public int getKeyframeCount () {
+		return keyframes.length / CHANNELS;
+	}
+
+	/**
+	 * @return number of records started at or before time, records alive at time are below this index
+	 */
+	public int upperBound (float time) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (start[mid] <= time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Channel value of a record, lerped between the keyframes around localTime
+	 *
+	 * @param localTime seconds since the record started
+	 */
+	public float sample (int record, int channel, float localTime) {
+		final int count = keyframeCount[record];
+		if (count == 0) return channelMin[channel];
+
+		float frame = Math.max(0, localTime * FRAME_RATE);
+		int index = (int)frame;
+		if (index >= count - 1) {
+			return dequantize(keyframeOffset[record] + count - 1, channel);
+		}
+
+		float fraction = frame - index;
+		float from = dequantize(keyframeOffset[record] + index, channel);
+		float to = dequantize(keyframeOffset[record] + index + 1, channel);
+		return from + (to - from) * fraction;
+	}
+
+	/**
+	 * Sets the position, rotation and pivot of particle to the record at localTime
+	 */
+	public void sample (int record, float localTime, Particle particle) {
+		particle.position.set(
+			sample(record, POSITION_X, localTime),
+			sample(record, POSITION_Y, localTime),
+			sample(record, POSITION_Z, localTime));
+		particle.rotation.set(
+			sample(record, ROTATION_X, localTime),
+			sample(record, ROTATION_Y, localTime),
+			sample(record, ROTATION_Z, localTime));
+		particle.pivot.set(
+			sample(record, PIVOT_X, localTime),
+			sample(record, PIVOT_Y, localTime));
+	}
+
+	private float dequantize (int keyframe, int channel) {
+		final int quantized = keyframes[keyframe * CHANNELS + channel] & 0xFFFF;
+		return channelMin[channel] + quantized / QUANTIZE_STEPS * channelRange[channel];
+	}
+
+	public void write (DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+
+		out.writeFloat(duration);
+		out.writeBoolean(continuous);
+		out.writeFloat(endTime);
+		out.writeFloat(maxLife);
+
+		for (int i = 0; i < CHANNELS; i++) {
+			out.writeFloat(channelMin[i]);
+			out.writeFloat(channelRange[i]);
+		}
+
+		out.writeInt(size);
+		for (int i = 0; i < size; i++) {
+			out.writeFloat(start[i]);
+			out.writeFloat(end[i]);
+			out.writeFloat(seed[i]);
+			out.writeInt(keyframeCount[i]);
+		}
+
+		out.writeInt(keyframes.length);
+		for (int i = 0; i < keyframes.length; i++) {
+			out.writeShort(keyframes[i]);
+		}
+	}
+
+	public static BakedTimeline read (DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new GdxRuntimeException("Not a baked timeline");
+		}
+		final int version = in.readInt();
+		if (version != VERSION) {
+			throw new GdxRuntimeException("Unsupported baked timeline version: " + version);
+		}
+
+		BakedTimeline timeline = new BakedTimeline();
+		timeline.duration = in.readFloat();
+		timeline.continuous = in.readBoolean();
+		timeline.endTime = in.readFloat();
+		timeline.maxLife = in.readFloat();
+
+		for (int i = 0; i < CHANNELS; i++) {
+			timeline.channelMin[i] = in.readFloat();
+			timeline.channelRange[i] = in.readFloat();
+		}
+
+		final int size = in.readInt();
+		timeline.allocate(size);
+		int offset = 0;
+		for (int i = 0; i < size; i++) {
+			timeline.start[i] = in.readFloat();
+			timeline.end[i] = in.readFloat();
+			timeline.seed[i] = in.readFloat();
+			timeline.keyframeOffset[i] = offset;
+			timeline.keyframeCount[i] = in.readInt();
+			offset += timeline.keyframeCount[i];
+		}
+
+		final int length = in.readInt();
+		if (length != offset * CHANNELS) {
+			throw new GdxRuntimeException("Corrupt baked timeline, expected " + offset * CHANNELS + " keyframe values, found " + length);
+		}
+		timeline.keyframes = new short[length];
+		for (int i = 0; i < length; i++) {
+			timeline.keyframes[i] = in.readShort();
+		}
+
+		return timeline;
+	}
+
+	private void allocate (int size) {
+		this.size = size;
+		start = new float[size];
+		end = new float[size];
+		seed = new float[size];
+		keyframeOffset = new int[size];
+		keyframeCount = new int[size];
+	}
+
+	/**
+	 * Collects full precision keyframes of the particles while baking, and quantizes them once all are recorded
+	 */
+	public static class Recorder {
+
+		private final FloatArray starts = new FloatArray();
+		private final FloatArray ends = new FloatArray();
+		private final FloatArray seeds = new FloatArray();
+		private final Array<FloatArray> frames = new Array<>();
+
+		/**
+		 * @return the record index to pass to {@link #keyframe(int, Particle)} and {@link #end(int, float)}
+		 */
+		public int begin (float start, float seed) {
+			starts.add(start);
+			ends.add(start);
+			seeds.add(seed);
+			frames.add(new FloatArray());
+			return starts.size - 1;
+		}
+
+		/**
+		 * Appends the current state of particle to the record, one keyframe every 1 / {@link #FRAME_RATE} seconds
+		 */
+		public void keyframe (int record, Particle particle) {
+			final FloatArray values = frames.get(record);
+			values.add(particle.position.x, particle.position.y, particle.position.z);
+			values.add(particle.rotation.x, particle.rotation.y, particle.rotation.z);
+			values.add(particle.pivot.x, particle.pivot.y);
+		}
+
+		/**
+		 * @param life seconds the particle lived for
+		 */
+		public void end (int record, float life) {
+			ends.set(record, starts.get(record) + life);
+		}
+
+		public BakedTimeline finish (float duration, boolean continuous) {
+			BakedTimeline timeline = new BakedTimeline();
+			timeline.duration = duration;
+			timeline.continuous = continuous;
+			timeline.allocate(starts.size);
+
+			final float[] max = new float[CHANNELS];
+			for (int channel = 0; channel < CHANNELS; channel++) {
+				timeline.channelMin[channel] = Float.POSITIVE_INFINITY;
+				max[channel] = Float.NEGATIVE_INFINITY;
+			}
+
+			int offset = 0;
+			for (int i = 0; i < starts.size; i++) {
+				final FloatArray values = frames.get(i);
+				for (int j = 0; j < values.size; j++) {
+					final int channel = j % CHANNELS;
+					timeline.channelMin[channel] = Math.min(timeline.channelMin[channel], values.get(j));
+					max[channel] = Math.max(max[channel], values.get(j));
+				}
+
+				timeline.start[i] = starts.get(i);
+				timeline.end[i] = ends.get(i);
+				timeline.seed[i] = seeds.get(i);
+				timeline.keyframeOffset[i] = offset;
+				timeline.keyframeCount[i] = values.size / CHANNELS;
+				offset += timeline.keyframeCount[i];
+
+				timeline.endTime = Math.max(timeline.endTime, timeline.end[i]);
+				timeline.maxLife = Math.max(timeline.maxLife, timeline.end[i] - timeline.start[i]);
+			}
+
+			for (int channel = 0; channel < CHANNELS; channel++) {
+				if (timeline.channelMin[channel] > max[channel]) {
+					timeline.channelMin[channel] = 0;
+					max[channel] = 0;
+				}
+				timeline.channelRange[channel] = max[channel] - timeline.channelMin[channel];
+			}
+
+			timeline.keyframes = new short[offset * CHANNELS];
+			int index = 0;
+			for (int i = 0; i < frames.size; i++) {
+				final FloatArray values = frames.get(i);
+				for (int j = 0; j < values.size; j++) {
+					final int channel = j % CHANNELS;
+					final float range = timeline.channelRange[channel];
+					float normalized = range > 0 ? (values.get(j) - timeline.channelMin[channel]) / range : 0;
+					timeline.keyframes[index++] = (short)Math.round(normalized * QUANTIZE_STEPS);
+				}
+			}
+
+			return timeline;
+		}
+	}
+}
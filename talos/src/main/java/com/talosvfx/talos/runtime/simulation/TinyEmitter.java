@@ -2,22 +2,41 @@ package com.talosvfx.talos.runtime.simulation;
 
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongMap;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.TimeUtils;
 import com.talosvfx.talos.runtime.IEmitter;
 import com.talosvfx.talos.runtime.Particle;
 import com.talosvfx.talos.runtime.ParticleEffectInstance;
 import com.talosvfx.talos.runtime.ParticleEmitterDescriptor;
+import com.talosvfx.talos.runtime.ParticlePointData;
+import com.talosvfx.talos.runtime.ParticlePointGroup;
 import com.talosvfx.talos.runtime.ScopePayload;
 import com.talosvfx.talos.runtime.modules.DrawableModule;
 import com.talosvfx.talos.runtime.modules.EmitterModule;
 import com.talosvfx.talos.runtime.modules.ParticleModule;
-
+import com.talosvfx.talos.runtime.modules.ParticlePointDataGeneratorModule;
+
+/**
+ * Emitter that plays back a {@link BakedTimeline} instead of simulating. The emitter graph is run once, the first time
+ * any instance needs it, and the timeline is kept on the graph for every other instance of the effect. Updating only
+ * looks up the records alive at the current time and samples their keyframes, the particle module is never evaluated.
+ * A record keeps its particle for as long as it stays alive, so a frame only resamples existing particles.
+ * <p>
+ * Baking uses a fixed seed, so every instance plays the same particles. Modules evaluated when drawing, size and color
+ * in the mesh generators, still run per point.
+ */
 public class TinyEmitter implements IEmitter {
 
+    /**
+     * Particles still alive this long into a bake, from immortal or very long lived emitters, end there
+     */
+    private static final float MAX_BAKE_TIME = 60f;
+    private static final long BAKE_SEED = 0x7A105L;
+
     private final ParticleEffectInstance parentParticleInstance;
     private ParticleEmitterDescriptor emitterGraph;
     private EmitterModule emitterModule;
@@ -32,14 +51,31 @@ public class TinyEmitter implements IEmitter {
     private float alpha;
     private float particlesToEmmit;
 
-    private float timePassed = 0;
+    private BakedTimeline timeline;
     private float cursor = 0;
-    private Array<ParticleRecord> timeline = new Array();
+    /**
+     * Whole cycles taken off the cursor of a continuous emitter, keeps the emission cycle part of particle keys stable
+     */
+    private int shiftedCycles;
+    /**
+     * Records starting after this time are not played, set when stopped
+     */
+    private float stopCursor = Float.MAX_VALUE;
+
+    // bake state
+    private BakedTimeline.Recorder recorder;
+    private RandomXS128 bakeRandom;
+    private float timePassed = 0;
+    private final Array<Particle> bakingParticles = new Array<>();
+    private final IntArray bakingRecords = new IntArray();
+
+    private Array<Particle> activeParticles = new Array<>();
 
-    private Array<ParticleRecord> tmp = new Array();
-    private Array<Particle> activeParticles = new Array();
-    public ObjectMap<ParticleRecord, Particle> newMap = new ObjectMap();
-    public ObjectMap<ParticleRecord, Particle> recordMap = new ObjectMap();
+    /**
+     * Particles shown by the last seek and the one in progress, keyed by emission cycle and record
+     */
+    private LongMap<Particle> shownParticles = new LongMap<>();
+    private LongMap<Particle> showingParticles = new LongMap<>();
     private final Pool<Particle> particlePool = new Pool<Particle>() {
         @Override
         protected Particle newObject () {
@@ -47,7 +83,20 @@ public class TinyEmitter implements IEmitter {
         }
     };
 
-    Vector3 effectPosition = new Vector3();
+    private final Pool<ParticlePointData> particlePointDataPool = new Pool<ParticlePointData>() {
+        @Override
+        protected ParticlePointData newObject () {
+            return new ParticlePointData();
+        }
+    };
+
+    private final Pool<ParticlePointGroup> groupPool = new Pool<ParticlePointGroup>() {
+        @Override
+        protected ParticlePointGroup newObject () {
+            return new ParticlePointGroup();
+        }
+    };
+
     public Color tint = new Color(Color.WHITE);
 
     private boolean isVisible = true;
@@ -66,24 +115,40 @@ public class TinyEmitter implements IEmitter {
         init();
     }
 
-    public void simulate() {
-        if(emitterGraph == null) return;
-        timeline.clear();
+    /**
+     * Runs the emitter graph through one emission cycle at {@link BakedTimeline#FRAME_RATE}, following every particle
+     * it emits until it dies
+     */
+    public BakedTimeline simulate() {
+        if (!parentParticleInstance.isIsolated()) {
+            parentParticleInstance.getDescriptor().setEffectReference(parentParticleInstance);
+        }
+        emitterGraph.prepareEvaluation();
+
+        recorder = new BakedTimeline.Recorder();
+        bakeRandom = new RandomXS128(BAKE_SEED);
         timePassed = 0;
-        long startTime = TimeUtils.nanoTime();
-        System.out.println("starting tiny particle simulation");
+        alpha = 0f;
+        particlesToEmmit = 1f; // always emmit one first
 
-        if(emitterModule == null) return;
-        float step = 1/30f; // simulating 30 frames per second
-        while (alpha < 1f) {
+        float step = 1f / BakedTimeline.FRAME_RATE;
+        while ((alpha < 1f || bakingParticles.size > 0) && timePassed < MAX_BAKE_TIME) {
             updateSimulation(step);
         }
-        long endTime = TimeUtils.nanoTime();
-        System.out.println("time at the end: "+ timePassed);
-        System.out.println("timeline size: "+ timeline.size);
-        System.out.println();
 
-        System.out.println("Simulation complete in: " + TimeUtils.nanosToMillis(endTime - startTime) + "ms");
+        for (int i = 0; i < bakingParticles.size; i++) {
+            Particle particle = bakingParticles.get(i);
+            recorder.end(bakingRecords.get(i), particle.alpha * particle.life);
+        }
+        particlePool.freeAll(bakingParticles);
+        bakingParticles.clear();
+        bakingRecords.clear();
+
+        BakedTimeline result = recorder.finish(duration, isContinuous);
+        recorder = null;
+        bakeRandom = null;
+
+        return result;
     }
 
     public void init() {
@@ -97,16 +162,16 @@ public class TinyEmitter implements IEmitter {
         delay = emitterModule.getDelay();
         isContinuous = emitterModule.isContinuous();
 
-        delayTimer = delay;
-
-        alpha = 0f;
-        particlesToEmmit = 1f; // always emmit one first
-        isComplete = false;
+        timeline = emitterGraph.getBakedTimeline();
+        if (timeline == null && particleModule != null) {
+            timeline = simulate();
+            emitterGraph.setBakedTimeline(timeline);
+        }
 
-        simulate();
+        restart();
     }
 
-    public void updateSimulation (float delta) {
+    private void updateSimulation (float delta) {
         emitterModule.getScope().set(ScopePayload.EMITTER_ALPHA, alpha);
         emitterModule.getScope().setCurrentRequesterID(emitterModule.getScope().newParticleRequester());
         duration = emitterModule.getDuration();
@@ -126,24 +191,55 @@ public class TinyEmitter implements IEmitter {
         emitterModule.getScope().set(ScopePayload.EMITTER_ALPHA, alpha);
 
         if (alpha < 1f || (alpha == 1f && deltaLeftover > 0)) { // emission only here
-            // let's emmit
+            // let's emmit, emission scale is applied on playback
             particlesToEmmit += rate * deltaLeftover;
 
             int count = (int)particlesToEmmit;
             for (int i = 0; i < count; i++) {
-                if (emitterGraph.getParticleModule() != null) {
-                    // emit a particle here and record it's data
-                    emitParticle();
-                }
+                emitParticle();
             }
             particlesToEmmit -= count;
         }
 
         emitterGraph.resetRequesters();
 
+        for (int i = bakingParticles.size - 1; i >= 0; i--) {
+            Particle particle = bakingParticles.get(i);
+            int record = bakingRecords.get(i);
+
+            float particleAlpha = particle.life > 0 ? particle.alpha + delta / particle.life : 1f;
+            if (particleAlpha > 1f) particleAlpha = 1f;
+            particle.alpha = particleAlpha;
+            particle.applyAlpha(particleAlpha, delta);
+            recorder.keyframe(record, particle);
+
+            if (particleAlpha == 1f) {
+                recorder.end(record, particle.life);
+                particlePool.free(particle);
+                bakingParticles.removeIndex(i);
+                bakingRecords.removeIndex(i);
+            }
+        }
+
+        emitterGraph.resetRequesters();
+
         timePassed += delta;
     }
 
+    private void emitParticle() {
+        float seed = bakeRandom.nextFloat();
+
+        Particle particle = particlePool.obtain();
+        particle.requesterID = scopePayload.newParticleRequester();
+        particle.init(this, seed);
+
+        int record = recorder.begin(timePassed, seed);
+        recorder.keyframe(record, particle);
+
+        bakingParticles.add(particle);
+        bakingRecords.add(record);
+    }
+
     @Override
     public ParticleEmitterDescriptor getEmitterGraph () {
         return emitterGraph;
@@ -169,27 +265,6 @@ public class TinyEmitter implements IEmitter {
         return activeParticles;
     }
 
-    /**
-     * really not gonna, just pretending
-     */
-    private void emitParticle() {
-        float seed = MathUtils.random();
-        particleModule.getScope().set(ScopePayload.EMITTER_ALPHA, alpha);
-        particleModule.getScope().set(ScopePayload.PARTICLE_ALPHA, 0);
-        particleModule.getScope().set(ScopePayload.PARTICLE_SEED, seed);
-        particleModule.getScope().setCurrentRequesterID(particleModule.getScope().newParticleRequester());
-        particleModule.getScope().set(ScopePayload.EMITTER_ALPHA_AT_P_INIT, alpha);
-
-        float life = particleModule.getLife();
-
-        ParticleRecord record = new ParticleRecord();
-        record.start = timePassed;
-        record.end = timePassed + life;
-        record.seed = seed;
-
-        timeline.add(record);
-    }
-
     @Override
     public float getAlpha () {
         return alpha;
@@ -212,7 +287,7 @@ public class TinyEmitter implements IEmitter {
 
     @Override
     public Vector3 getEffectPosition () {
-        return effectPosition;
+        return parentParticleInstance.getPosition();
     }
 
     @Override
@@ -246,8 +321,8 @@ public class TinyEmitter implements IEmitter {
     }
 
     public void stop() {
-        alpha = 1f;
         isStopped = true;
+        stopCursor = cursor;
     }
 
     public void pause() {
@@ -261,10 +336,27 @@ public class TinyEmitter implements IEmitter {
     @Override
     public void restart () {
         delayTimer = delay;
+        cursor = 0;
+        shiftedCycles = 0;
         alpha = 0;
         isComplete = false;
         particlesToEmmit = 1f;
         isStopped = false;
+        stopCursor = Float.MAX_VALUE;
+    }
+
+    @Override
+    public void reset () {
+        particlePool.freeAll(activeParticles);
+        activeParticles.clear();
+        shownParticles.clear();
+
+        if (emitterGraph.isInstanceCopy() && drawableModule != null && drawableModule.getPointDataGenerator() != null) {
+            drawableModule.getPointDataGenerator().freePoints(particlePointDataPool, groupPool);
+        }
+
+        paused = false;
+        restart();
     }
 
     @Override
@@ -272,140 +364,175 @@ public class TinyEmitter implements IEmitter {
         return delayTimer;
     }
 
+    public BakedTimeline getTimeline () {
+        return timeline;
+    }
+
+    public float getCursor () {
+        return cursor;
+    }
+
     @Override
     public void update (float delta) {
-        seek(cursor + delta);
-    }
+        if (paused) return;
 
-    public class ParticleRecord {
-        public float start;
-        public float end;
-        public float seed;
+        if (delayTimer > 0) {
+            delayTimer -= delta;
+            if (delayTimer > 0) {
+                seek(cursor, 0);
+                return;
+            }
+            delta = -delayTimer;
+            delayTimer = 0;
+        }
+
+        seek(cursor + delta, delta);
     }
 
-    public void seek(float time) {
-        if(timeline.size == 0) return; // nothing to do
+    /**
+     * Shows the particles alive at time seconds into playback. Nothing is simulated, seeking anywhere costs the same as
+     * updating.
+     */
+    public void seek (float time) {
+        seek(time, 0);
+    }
 
-        int index = timeline.size - 1;
-        ParticleRecord last = timeline.get(index);
+    /**
+     * @param delta time since the previous frame shown, particles get their position that long ago as previous position
+     */
+    private void seek (float time, float delta) {
+        activeParticles.clear();
 
-        float duration = last.start;
-        time %= duration;
+        cursor = time;
 
-        if (time < last.start) {
-            // need to find where we are, approximate first, then search for fastest result
-            int approximation = MathUtils.clamp(Math.round((time/last.start) * timeline.size), 0, timeline.size - 1);
-            int found = -1;
-            int i = 0;
-            if(checkRecordToBeTheSeekPosition(approximation, time)) {
-                found = approximation;
-            }
-            while(found == -1) {
-                boolean left = checkRecordToBeTheSeekPosition(approximation - i, time);
-                boolean right = checkRecordToBeTheSeekPosition(approximation + i, time);
-                if(left) {
-                    found = approximation - i;
+        if (timeline != null) {
+            final float cycleDuration = timeline.getDuration();
+            if (timeline.isContinuous() && cycleDuration > 0) {
+                // past the tail of the first cycles every cycle looks the same, keep the cursor small
+                final int tailCycles = MathUtils.ceil(timeline.getEndTime() / cycleDuration);
+                int cycle = (int)(cursor / cycleDuration);
+                if (cycle > tailCycles + 1) {
+                    int shiftCycles = cycle - tailCycles - 1;
+                    float shift = shiftCycles * cycleDuration;
+                    cursor -= shift;
+                    if (isStopped) stopCursor -= shift;
+                    shiftedCycles += shiftCycles;
+                    cycle = tailCycles + 1;
                 }
-                if(right) {
-                    found = approximation + i;
-                }
-                i++;
-                if(approximation - i < 0 && approximation + i > timeline.size-1) {
-                    found = index;
+
+                final float local = cursor - cycle * cycleDuration;
+                for (int k = 0; k <= cycle; k++) {
+                    final float cycleTime = local + k * cycleDuration;
+                    if (cycleTime >= timeline.getEndTime()) break;
+                    collectParticles(cycleTime, cursor - cycleTime, cycle - k + shiftedCycles, delta);
                 }
+
+                alpha = local / cycleDuration;
+                isComplete = isStopped && cursor >= stopCursor + timeline.getMaxLife();
+            } else {
+                collectParticles(cursor, 0, 0, delta);
+
+                alpha = cycleDuration > 0 ? Math.min(1f, cursor / cycleDuration) : 1f;
+                isComplete = cursor >= Math.min(timeline.getEndTime(), stopCursor + timeline.getMaxLife());
             }
-            index = found;
-            System.out.println("seek search complete in " + i + " steps");
+        } else {
+            isComplete = true;
         }
 
-        // now time to gather particles that have collisions, till first one that does not
-        int count = 0;
-        float delta = time - cursor;
-        cursor = time;
-        newMap.clear();
-        activeParticles.clear();
-        while(index >= 0 && timeline.get(index).end > time) {
-            count++;
+        // whatever was shown last time and is not any more has died
+        for (Particle particle : shownParticles.values()) {
+            particlePool.free(particle);
+        }
+        shownParticles.clear();
 
-            ParticleRecord record = timeline.get(index);
-            float particleAlpha = (time - record.start) / (record.end - record.start);
-            float particleSeed = record.seed;
+        LongMap<Particle> swap = shownParticles;
+        shownParticles = showingParticles;
+        showingParticles = swap;
 
-            Particle particle;
-            boolean initCalled = false;
-            if (recordMap.containsKey(record)) {
-                particle = recordMap.get(record);
-            } else {
+        generatePoints();
+    }
+
+    /**
+     * Fills active particles from the records alive at time, reusing the particle a record had the last time it was shown
+     *
+     * @param cycleStart playback time the timeline started at, for continuous emitters the start of the cycle
+     * @param emissionCycle cycle the records were emitted in, 0 for emitters that do not repeat
+     */
+    private void collectParticles (float time, float cycleStart, int emissionCycle, float delta) {
+        final float emissionScale = parentParticleInstance.getEmissionScale();
+        final float oldest = time - timeline.getMaxLife();
+
+        for (int record = timeline.upperBound(time) - 1; record >= 0; record--) {
+            final float start = timeline.getStart(record);
+            if (start < oldest) break;
+
+            final float end = timeline.getEnd(record);
+            if (end <= time) continue;
+            if (cycleStart + start > stopCursor) continue;
+            if (!isEmitted(record, emissionScale)) continue;
+
+            final long key = ((long)emissionCycle << 32) | record;
+            Particle particle = shownParticles.remove(key);
+            if (particle == null) {
                 particle = particlePool.obtain();
-                particle.init(this, particleSeed);
-                initCalled = true;
-                recordMap.put(record, particle);
+                particle.setEmitter(this);
+                particle.seed = timeline.getSeed(record);
+                particle.life = end - start;
+                particle.durationAtInit = timeline.getDuration() > 0 ? Math.min(1f, start / timeline.getDuration()) : 0;
+                particle.requesterID = scopePayload.newParticleRequester();
+                particle.spawnPosition.set(getEffectPosition());
             }
+            showingParticles.put(key, particle);
 
-            if(Math.abs(delta) > 0.1f) {
-                // we need to re-seek this state from left
-                if(!initCalled) {
-                    particle.init(this);
-                }
+            final float localTime = time - start;
+            final float previousTime = Math.max(0, localTime - delta);
 
-                // now fast forward
-                float pos = 0f;
-                float miniDelta = 1/30f;
-                int ffCount = 0;
-                while(pos < time - record.start) {
-                    pos += miniDelta;
-                    if (pos > time - record.start) {
-                        miniDelta = time - record.start - pos;
-                        pos = time - record.start;
-                    }
-                    particle.update(null, miniDelta);
-                    ffCount++;
-                }
-                System.out.println("fast forwarded in " + ffCount + " steps");
-            } else {
-                particle.applyAlpha(particleAlpha, delta);
-            }
+            particle.alpha = localTime / particle.life;
+            timeline.sample(record, localTime, particle);
+            particle.previousPosition.set(
+                timeline.sample(record, BakedTimeline.POSITION_X, previousTime),
+                timeline.sample(record, BakedTimeline.POSITION_Y, previousTime),
+                timeline.sample(record, BakedTimeline.POSITION_Z, previousTime));
 
-            newMap.put(record, particle);
             activeParticles.add(particle);
-
-            index--;
-        }
-
-        tmp.clear();
-        for(ParticleRecord oldRecord: recordMap.keys()) {
-            if(!newMap.containsKey(oldRecord)) {
-                particlePool.free(recordMap.get(oldRecord));
-                tmp.add(oldRecord);
-            }
-        }
-        for(ParticleRecord oldRecord : tmp) {
-            recordMap.remove(oldRecord);
         }
+    }
 
-        System.out.println("found " + count + " collisions");
+    /**
+     * Thins out records by their index, so the same particles stay hidden from frame to frame
+     */
+    private static boolean isEmitted (int record, float emissionScale) {
+        if (emissionScale >= 1f) return true;
+        return ((record * 0x9E3779B1) >>> 8) / (float)(1 << 24) < emissionScale;
     }
 
-    private boolean checkRecordToBeTheSeekPosition(int index, float time) {
-        if(index < 0 || index >= timeline.size) return false;
+    @Override
+    public void generatePoints () {
+        if (drawableModule == null) return;
 
-        ParticleRecord record =  timeline.get(index);
+        final ParticlePointDataGeneratorModule pointDataGenerator = drawableModule.getPointDataGenerator();
+        if (pointDataGenerator == null) return;
 
-        if(index >= timeline.size - 1) {
-            if (record.start < time) {
-                return true;
-            } else {
-                return false;
-            }
-        }
+        pointDataGenerator.freePoints(particlePointDataPool, groupPool);
+        if (particleModule == null) return;
+
+        // particles keep their requester from frame to frame, module outputs cached for it are stale
+        emitterGraph.resetRequesters();
+
+        int cacheMode = scopePayload.getRequestMode();
+        int cacheRequestID = scopePayload.getRequesterID();
 
-        ParticleRecord recordNext =  timeline.get(index + 1);
+        for (int i = 0; i < activeParticles.size; i++) {
+            Particle particle = activeParticles.get(i);
 
-        if(record.start <= time && recordNext.start >= time) {
-            return true;
+            particleModule.updateScopeData(particle);
+            scopePayload.setCurrentRequestMode(ScopePayload.PARTICLE_ALPHA);
+            scopePayload.setCurrentRequesterID(particle.requesterID);
+            pointDataGenerator.generateParticlePointData(particle, particlePointDataPool, groupPool);
         }
 
-        return false;
+        scopePayload.setCurrentRequestMode(cacheMode);
+        scopePayload.setCurrentRequesterID(cacheRequestID);
     }
 
     public void setVisible(boolean isVisible) {
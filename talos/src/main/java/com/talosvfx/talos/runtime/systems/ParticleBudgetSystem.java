@@ -0,0 +1,223 @@
+package com.talosvfx.talos.runtime.systems;
+
+import com.artemis.BaseEntitySystem;
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.All;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+import com.rockbite.bongo.engine.components.singletons.Cameras;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import com.talosvfx.talos.runtime.components.Particle;
+import com.talosvfx.talos.runtime.systems.render.ParticleRenderPassSystem;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Comparator;
+
+/**
+ * Decides once per frame how much every particle effect gets to do. It does not step or draw anything itself, it sets
+ * {@link ParticleEffectInstance#setCulled(boolean)}, {@link ParticleEffectInstance#setUpdateInterval(int)} and
+ * {@link ParticleEffectInstance#setEmissionScale(float)}, which the instances honour when they are updated. Register it
+ * before {@link ParticleRenderPassSystem}.
+ * <ul>
+ * <li>Effects whose bounds, accumulated during their last update, are outside the game camera frustum, or that are
+ * beyond the cull distance, are culled. They are neither stepped nor drawn, and fast forward the time they missed once
+ * they are back.</li>
+ * <li>Between the LOD near and far distances emission scales down to the minimum emission scale and updates get
+ * spread out up to the max update interval.</li>
+ * <li>Visible effects are ranked by priority, then by distance. Once the ranked particle counts exceed the particle cap,
+ * the remaining effects stop emitting until there is room again.</li>
+ * </ul>
+ * Live counts and budget pressure of the last frame are available from the getters.
+ */
+@All(Particle.class)
+public class ParticleBudgetSystem extends BaseEntitySystem {
+
+	//SINGLETONS
+	private Cameras cameras;
+
+	//MAPPERS
+	private ComponentMapper<Particle> particleMapper;
+
+	/**
+	 * Most live particles across visible effects before low priority effects stop emitting
+	 */
+	@Getter @Setter
+	private int particleCap = 20000;
+
+	@Getter @Setter
+	private boolean cullingEnabled = true;
+
+	/**
+	 * Grows effect bounds to account for the size of the drawn points
+	 */
+	@Getter @Setter
+	private float boundsPadding = 1f;
+
+	/**
+	 * Effects further from the camera are culled, 0 to never cull by distance
+	 */
+	@Getter @Setter
+	private float cullDistance;
+
+	@Getter @Setter
+	private float lodNearDistance = 10f;
+
+	@Getter @Setter
+	private float lodFarDistance = 50f;
+
+	@Getter @Setter
+	private float minEmissionScale = 0.25f;
+
+	@Getter @Setter
+	private int maxUpdateInterval = 4;
+
+	/**
+	 * Most time and longest step used to catch up effects coming back into view
+	 */
+	@Getter @Setter
+	private float fastForwardLimit = 2f;
+	@Getter @Setter
+	private float fastForwardStep = 0.1f;
+
+	//REPORT, of the last processed frame
+	@Getter
+	private int liveParticles;
+	@Getter
+	private int visibleEffects;
+	@Getter
+	private int culledEffects;
+	/**
+	 * Visible effects that were stopped from emitting to stay within the cap
+	 */
+	@Getter
+	private int throttledEffects;
+	/**
+	 * Live particles of visible effects over the particle cap, above 1 means the cap is exceeded
+	 */
+	@Getter
+	private float budgetPressure;
+
+	private final Array<Candidate> candidates = new Array<>();
+	private final Pool<Candidate> candidatePool = new Pool<Candidate>() {
+		@Override
+		protected Candidate newObject () {
+			return new Candidate();
+		}
+	};
+
+	private final BoundingBox paddedBounds = new BoundingBox();
+	private final Vector3 tempMin = new Vector3();
+	private final Vector3 tempMax = new Vector3();
+	private final Vector3 tempCenter = new Vector3();
+
+	private final Comparator<Candidate> rankComparator = new Comparator<Candidate>() {
+		@Override
+		public int compare (Candidate o1, Candidate o2) {
+			if (o1.priority != o2.priority) return o2.priority - o1.priority;
+			return Float.compare(o1.distance, o2.distance);
+		}
+	};
+
+	@Override
+	protected void processSystem () {
+		final Camera camera = cameras.getGameCamera();
+
+		liveParticles = 0;
+		visibleEffects = 0;
+		culledEffects = 0;
+		throttledEffects = 0;
+
+		IntBag entities = getSubscription().getEntities();
+		int size = entities.size();
+		for (int i = 0; i < size; i++) {
+			int entityID = entities.get(i);
+
+			Particle particle = particleMapper.get(entityID);
+
+			ParticleEffectInstance particleEffectInstance = particle.getParticleEffectInstance();
+			if (particleEffectInstance == null) continue;
+
+			liveParticles += particleEffectInstance.getParticleCount();
+			particleEffectInstance.setFastForward(fastForwardLimit, fastForwardStep);
+
+			final BoundingBox bounds = particleEffectInstance.getBounds();
+			final Vector3 center = bounds.isValid() ? bounds.getCenter(tempCenter) : particleEffectInstance.getPosition();
+			final float distance = camera.position.dst(center);
+
+			if (isCulled(camera, particleEffectInstance, distance)) {
+				particleEffectInstance.setCulled(true);
+				culledEffects++;
+				continue;
+			}
+
+			particleEffectInstance.setCulled(false);
+			visibleEffects++;
+
+			float lod = 0;
+			if (lodFarDistance > lodNearDistance) {
+				lod = MathUtils.clamp((distance - lodNearDistance) / (lodFarDistance - lodNearDistance), 0f, 1f);
+			}
+			particleEffectInstance.setUpdateInterval(1 + Math.round(lod * (Math.max(1, maxUpdateInterval) - 1)));
+
+			Candidate candidate = candidatePool.obtain();
+			candidate.instance = particleEffectInstance;
+			candidate.priority = particleEffectInstance.getPriority();
+			candidate.distance = distance;
+			candidate.emissionScale = MathUtils.lerp(1f, minEmissionScale, lod);
+			candidates.add(candidate);
+		}
+
+		candidates.sort(rankComparator);
+
+		int visibleParticles = 0;
+		for (int i = 0; i < candidates.size; i++) {
+			final Candidate candidate = candidates.get(i);
+			if (visibleParticles >= particleCap) {
+				candidate.instance.setEmissionScale(0);
+				throttledEffects++;
+			} else {
+				candidate.instance.setEmissionScale(candidate.emissionScale);
+			}
+			visibleParticles += candidate.instance.getParticleCount();
+		}
+		candidatePool.freeAll(candidates);
+		candidates.clear();
+
+		budgetPressure = particleCap > 0 ? (float)visibleParticles / particleCap : 0;
+	}
+
+	private boolean isCulled (Camera camera, ParticleEffectInstance particleEffectInstance, float distance) {
+		if (cullDistance > 0 && distance > cullDistance) return true;
+		if (!cullingEnabled) return false;
+
+		// the effect may have moved since its bounds were last accumulated
+		final Vector3 position = particleEffectInstance.getPosition();
+		if (camera.frustum.sphereInFrustum(position, boundsPadding)) return false;
+
+		final BoundingBox bounds = particleEffectInstance.getBounds();
+		if (!bounds.isValid()) return false;
+
+		tempMin.set(bounds.min).sub(boundsPadding);
+		tempMax.set(bounds.max).add(boundsPadding);
+		paddedBounds.set(tempMin, tempMax);
+		return !camera.frustum.boundsInFrustum(paddedBounds);
+	}
+
+	private static class Candidate implements Pool.Poolable {
+		private ParticleEffectInstance instance;
+		private int priority;
+		private float distance;
+		private float emissionScale;
+
+		@Override
+		public void reset () {
+			instance = null;
+		}
+	}
+}
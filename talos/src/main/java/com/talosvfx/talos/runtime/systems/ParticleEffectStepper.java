@@ -0,0 +1,91 @@
+package com.talosvfx.talos.runtime.systems;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.rockbite.bongo.engine.threadutil.ThreadUtils;
+import com.talosvfx.talos.runtime.ParticleEffectDescriptor;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Updates effect instances, optionally on {@link ThreadUtils#getWorkerPool()}. Only isolated instances, see
+ * {@link ParticleEffectDescriptor#createIsolatedEffectInstance()}, are deferred to the pool, instances sharing the graphs
+ * of their descriptor are updated on the calling thread right away.
+ */
+public class ParticleEffectStepper {
+
+	/**
+	 * Effect instances per fork join leaf task
+	 */
+	private static final int PARALLEL_BATCH_SIZE = 8;
+
+	private final Array<ParticleEffectInstance> deferred = new Array<>(false, 64, ParticleEffectInstance.class);
+	private final FloatArray deferredDeltas = new FloatArray(false, 64);
+	private final IntArray deferredSteps = new IntArray(false, 64);
+
+	/**
+	 * Updates instance steps times by delta, or queues it for {@link #flush()} when parallel
+	 */
+	public void step (ParticleEffectInstance instance, float delta, int steps, boolean parallel) {
+		if (steps <= 0) return;
+
+		if (parallel && instance.isIsolated()) {
+			deferred.add(instance);
+			deferredDeltas.add(delta);
+			deferredSteps.add(steps);
+		} else {
+			for (int i = 0; i < steps; i++) {
+				instance.update(delta);
+			}
+		}
+	}
+
+	/**
+	 * Runs every queued update, returns once all are done
+	 */
+	public void flush () {
+		if (deferred.size == 0) return;
+
+		ThreadUtils.getWorkerPool().invoke(new UpdateTask(deferred.items, deferredDeltas.items, deferredSteps.items, 0, deferred.size));
+
+		deferred.clear();
+		deferredDeltas.clear();
+		deferredSteps.clear();
+	}
+
+	private static class UpdateTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ParticleEffectInstance[] instances;
+		private final float[] deltas;
+		private final int[] steps;
+		private final int from;
+		private final int to;
+
+		private UpdateTask (ParticleEffectInstance[] instances, float[] deltas, int[] steps, int from, int to) {
+			this.instances = instances;
+			this.deltas = deltas;
+			this.steps = steps;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute () {
+			if (to - from <= PARALLEL_BATCH_SIZE) {
+				for (int i = from; i < to; i++) {
+					for (int j = 0; j < steps[i]; j++) {
+						instances[i].update(deltas[i]);
+					}
+				}
+				return;
+			}
+
+			final int mid = (from + to) >>> 1;
+			invokeAll(new UpdateTask(instances, deltas, steps, from, mid), new UpdateTask(instances, deltas, steps, mid, to));
+		}
+	}
+}
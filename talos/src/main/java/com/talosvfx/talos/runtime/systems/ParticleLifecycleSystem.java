@@ -0,0 +1,57 @@
+package com.talosvfx.talos.runtime.systems;
+
+import com.artemis.BaseEntitySystem;
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.All;
+import com.artemis.utils.IntBag;
+import com.talosvfx.talos.runtime.ParticleEffectDescriptor;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import com.talosvfx.talos.runtime.ParticleEffectPool;
+import com.talosvfx.talos.runtime.components.Particle;
+
+/**
+ * Ties pooled effect instances to the entities playing them. Entities flagged with
+ * {@link Particle#isRemoveWhenComplete()} are deleted once their effect completes, and whenever an entity with a
+ * {@link Particle} goes away an instance obtained through {@link ParticleEffectDescriptor#obtainEffectInstance()} is
+ * freed back to its {@link ParticleEffectPool}.
+ * <p>
+ * The instance is read from the component when the entity leaves, which artemis allows for deleted entities. Removing
+ * only the component needs delayed component removal in the world configuration, otherwise the instance is not freed.
+ */
+@All(Particle.class)
+public class ParticleLifecycleSystem extends BaseEntitySystem {
+
+	//MAPPERS
+	private ComponentMapper<Particle> particleMapper;
+
+	@Override
+	protected void processSystem () {
+		IntBag entities = getSubscription().getEntities();
+		int size = entities.size();
+		for (int i = 0; i < size; i++) {
+			int entityID = entities.get(i);
+
+			Particle particle = particleMapper.get(entityID);
+			if (!particle.isRemoveWhenComplete()) continue;
+
+			ParticleEffectInstance particleEffectInstance = particle.getParticleEffectInstance();
+			if (particleEffectInstance == null) continue;
+
+			if (particleEffectInstance.isComplete()) {
+				world.delete(entityID);
+			}
+		}
+	}
+
+	@Override
+	protected void removed (int entityId) {
+		Particle particle = particleMapper.getSafe(entityId, null);
+		if (particle == null) return;
+
+		ParticleEffectInstance particleEffectInstance = particle.getParticleEffectInstance();
+		if (particleEffectInstance == null || particleEffectInstance.getPool() == null) return;
+
+		particle.setParticleEffectInstance(null);
+		particleEffectInstance.getPool().free(particleEffectInstance);
+	}
+}
@@ -0,0 +1,151 @@
+package com.talosvfx.talos.runtime.systems;
+
+import com.artemis.BaseEntitySystem;
+import com.artemis.ComponentMapper;
+import com.artemis.SystemInvocationStrategy;
+import com.artemis.annotations.All;
+import com.artemis.utils.IntBag;
+import com.badlogic.gdx.math.Vector3;
+import com.rockbite.bongo.engine.systems.GameLoopSystemInvocationStrategy;
+import com.rockbite.bongo.engine.systems.PhysicsStepMarker;
+import com.talosvfx.talos.runtime.ParticleEffectDescriptor;
+import com.talosvfx.talos.runtime.ParticleEffectInstance;
+import com.talosvfx.talos.runtime.components.Particle;
+import com.talosvfx.talos.runtime.systems.render.ParticleRenderPassSystem;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Steps particle effects on the fixed logic tick of {@link GameLoopSystemInvocationStrategy}, so simulation cost does
+ * not follow the render frame rate. When this system is in the world {@link ParticleRenderPassSystem} no longer updates
+ * these effects, it only moves generated points between their last two simulated positions by
+ * {@link #getInterpolationAlpha(Particle)} and draws them.
+ * <p>
+ * Isolated instances, see {@link ParticleEffectDescriptor#createIsolatedEffectInstance()}, are stepped here on the
+ * tick. Instances sharing the graphs of their descriptor also share its point data, which has to be generated right
+ * before each one is drawn, so the render pass steps them through {@link #stepShared(Particle, float)} instead. They
+ * take steps of the same fixed length from accumulated frame time, but can not be stepped in parallel, and are
+ * regenerated on frames without a step, which costs a point generation pass per frame.
+ * <p>
+ * Effects step once per tick by default. A {@link Particle#getSimulationRate()} above zero steps that effect at its own
+ * rate instead, e.g. 30 for distant ambience, accumulating tick time until a full step is due.
+ */
+@All(Particle.class)
+public class ParticleSimulationSystem extends BaseEntitySystem implements PhysicsStepMarker {
+
+	//MAPPERS
+	private ComponentMapper<Particle> particleMapper;
+
+	/**
+	 * When enabled, effect instances are stepped on the worker pool, see {@link ParticleEffectStepper}
+	 */
+	@Getter @Setter
+	private boolean parallelUpdate;
+
+	/**
+	 * Most fixed steps an effect takes in one tick or frame. Time past that, e.g. after a hitch, is dropped so effects
+	 * slow down for a frame instead of falling further behind trying to catch up
+	 */
+	private static final int MAX_STEPS_PER_FRAME = 4;
+
+	private final ParticleEffectStepper stepper = new ParticleEffectStepper();
+
+	private final Vector3 tempVec3 = new Vector3();
+
+	@Override
+	protected void processSystem () {
+		final float tickDelta = getTickDelta();
+
+		IntBag entities = getSubscription().getEntities();
+		int size = entities.size();
+		for (int i = 0; i < size; i++) {
+			int entityID = entities.get(i);
+
+			Particle particle = particleMapper.get(entityID);
+
+			ParticleEffectInstance particleEffectInstance = particle.getParticleEffectInstance();
+			if (particleEffectInstance == null) continue;
+			if (!particleEffectInstance.isIsolated()) continue;
+
+			particle.getTransform().getTranslation(tempVec3);
+			particleEffectInstance.setPosition(tempVec3.x, tempVec3.y, tempVec3.z);
+
+			final float stepDelta = getStepDelta(particle, tickDelta);
+			if (stepDelta <= 0) continue;
+
+			float simulationTime = particle.getSimulationTime() + tickDelta;
+			int steps = 0;
+			while (simulationTime >= stepDelta && steps < MAX_STEPS_PER_FRAME) {
+				simulationTime -= stepDelta;
+				steps++;
+			}
+			particle.setSimulationTime(simulationTime % stepDelta);
+
+			stepper.step(particleEffectInstance, stepDelta, steps, parallelUpdate);
+		}
+
+		stepper.flush();
+	}
+
+	/**
+	 * Steps an instance sharing the graphs of its descriptor by the frame time, in the same fixed steps an isolated
+	 * instance takes on the tick. Called by the render pass right before the instance is drawn.
+	 */
+	public void stepShared (Particle particle, float frameDelta) {
+		final ParticleEffectInstance particleEffectInstance = particle.getParticleEffectInstance();
+		final int stepCount = particleEffectInstance.getStepCount();
+
+		final float stepDelta = getStepDelta(particle, getTickDelta());
+		if (stepDelta > 0) {
+			float simulationTime = particle.getSimulationTime() + frameDelta;
+			int steps = 0;
+			while (simulationTime >= stepDelta && steps < MAX_STEPS_PER_FRAME) {
+				simulationTime -= stepDelta;
+				particleEffectInstance.update(stepDelta);
+				steps++;
+			}
+			particle.setSimulationTime(simulationTime % stepDelta);
+		}
+
+		// another instance of the descriptor may have generated the shared points since this one last stepped
+		if (particleEffectInstance.getStepCount() == stepCount && !particleEffectInstance.isCulled()) {
+			particleEffectInstance.generatePoints();
+		}
+	}
+
+	/**
+	 * How far rendering is between the last two simulation steps of an effect, 0 at the previous step and 1 at the latest
+	 */
+	public float getInterpolationAlpha (Particle particle) {
+		final float tickDelta = getTickDelta();
+		final float stepDelta = getStepDelta(particle, tickDelta);
+		if (stepDelta <= 0) return 1f;
+
+		final ParticleEffectInstance particleEffectInstance = particle.getParticleEffectInstance();
+
+		// time stepped by neither this system nor the instance yet, the latter holds it under a reduced update rate
+		float pending = particle.getSimulationTime() + particleEffectInstance.getHeldTime();
+		final SystemInvocationStrategy strategy = world.getInvocationStrategy();
+		if (particleEffectInstance.isIsolated() && strategy instanceof GameLoopSystemInvocationStrategy) {
+			pending += ((GameLoopSystemInvocationStrategy)strategy).getAlpha() * tickDelta;
+		}
+
+		return Math.min(1f, pending / (stepDelta * particleEffectInstance.getUpdateInterval()));
+	}
+
+	private float getTickDelta () {
+		final SystemInvocationStrategy strategy = world.getInvocationStrategy();
+		if (strategy instanceof GameLoopSystemInvocationStrategy) {
+			return ((GameLoopSystemInvocationStrategy)strategy).getSecondsPerLogicTick();
+		}
+		return world.getDelta();
+	}
+
+	private static float getStepDelta (Particle particle, float tickDelta) {
+		final float simulationRate = particle.getSimulationRate();
+		if (simulationRate > 0) {
+			return 1f / simulationRate;
+		}
+		return tickDelta;
+	}
+}
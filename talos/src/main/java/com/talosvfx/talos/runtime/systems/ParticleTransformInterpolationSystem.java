@@ -0,0 +1,30 @@
+package com.talosvfx.talos.runtime.systems;
+
+import com.artemis.ComponentMapper;
+import com.artemis.annotations.All;
+import com.badlogic.gdx.math.Matrix4;
+import com.rockbite.bongo.engine.render.InterpolatedTransform;
+import com.rockbite.bongo.engine.systems.TransformInterpolationSystem;
+import com.talosvfx.talos.runtime.components.Particle;
+import com.talosvfx.talos.runtime.systems.render.ParticleRenderPassSystem;
+
+/**
+ * Interpolates {@link Particle} transforms between logic ticks, so effects moved by logic systems are emitted from
+ * smoothly moving positions by {@link ParticleRenderPassSystem}
+ */
+@All(Particle.class)
+public class ParticleTransformInterpolationSystem extends TransformInterpolationSystem {
+
+	//MAPPERS
+	private ComponentMapper<Particle> particleMapper;
+
+	@Override
+	protected Matrix4 getTransform (int entity) {
+		return particleMapper.get(entity).getTransform();
+	}
+
+	@Override
+	protected InterpolatedTransform getInterpolatedTransform (int entity) {
+		return particleMapper.get(entity).getInterpolatedTransform();
+	}
+}
@@ -32,6 +32,7 @@ import com.rockbite.bongo.engine.render.AutoReloadingShaderProgram;
 import com.rockbite.bongo.engine.render.ShaderSourceProvider;
 import com.rockbite.bongo.engine.systems.RenderPassSystem;
 import com.rockbite.bongo.engine.systems.assets.AssetSystem;
+import com.rockbite.bongo.engine.threadutil.ThreadUtils;
 import com.talosvfx.talos.runtime.IEmitter;
 import com.talosvfx.talos.runtime.ParticleEffectDescriptor;
 import com.talosvfx.talos.runtime.ParticleEffectInstance;
@@ -43,8 +44,12 @@ import com.talosvfx.talos.runtime.modules.MeshGeneratorModule;
 import com.talosvfx.talos.runtime.modules.ParticlePointDataGeneratorModule;
 import com.talosvfx.talos.runtime.modules.SpriteMaterialModule;
 import com.talosvfx.talos.runtime.render.ParticleRenderer;
-import com.talosvfx.talos.runtime.render.p3d.Simple3DBatch;
+import com.talosvfx.talos.runtime.render.p3d.SortedParticleBatch;
+import com.talosvfx.talos.runtime.systems.ParticleEffectStepper;
+import com.talosvfx.talos.runtime.systems.ParticleSimulationSystem;
 import com.talosvfx.talos.runtime.values.DrawableValue;
+import lombok.Getter;
+import lombok.Setter;
 import net.mostlyoriginal.api.event.common.Subscribe;
 
 
@@ -52,7 +57,12 @@ public class ParticleRenderPassSystem extends RenderPassSystem implements Partic
 
 	//SINGLETONS
 	private Cameras cameras;
-	private Simple3DBatch simple3DBatch;
+
+	/**
+	 * Collects the quads of every effect and draws them sorted once all effects are rendered
+	 */
+	@Getter
+	private SortedParticleBatch particleBatch;
 
 
 	//MAPPERS
@@ -61,6 +71,22 @@ public class ParticleRenderPassSystem extends RenderPassSystem implements Partic
 
 	private Vector3 tempVec3 = new Vector3();
 
+	/**
+	 * When enabled, isolated effect instances, see {@link ParticleEffectDescriptor#createIsolatedEffectInstance()},
+	 * are updated on {@link ThreadUtils#getWorkerPool()} before anything is rendered. Instances sharing the graphs of
+	 * their descriptor keep their point data in those graphs, so they are always updated right before they are drawn.
+	 */
+	@Getter @Setter
+	private boolean parallelUpdate;
+
+	private final ParticleEffectStepper stepper = new ParticleEffectStepper();
+
+	/**
+	 * Steps isolated effects on the logic tick when present, this pass then only interpolates and draws them. Shared
+	 * instances are stepped through it at the same fixed rate right before they are drawn.
+	 */
+	private ParticleSimulationSystem simulationSystem;
+
 	public ParticleRenderPassSystem () {
 		this(Particle.class);
 	}
@@ -72,7 +98,11 @@ public class ParticleRenderPassSystem extends RenderPassSystem implements Partic
 			componentClazz
 		);
 
-		simple3DBatch = new Simple3DBatch(4000, new VertexAttributes(VertexAttribute.Position(), VertexAttribute.ColorPacked(), VertexAttribute.TexCoords(0)));
+		particleBatch = new SortedParticleBatch(4000);
+		// blend modes draw in registration order, additive last
+		particleBatch.addBlendMode(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		particleBatch.addBlendMode(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		particleBatch.addBlendMode(GL20.GL_SRC_ALPHA, GL20.GL_ONE);
 		shaderProgram = new AutoReloadingShaderProgram(ShaderSourceProvider.resolveVertex("core/particle"), ShaderSourceProvider.resolveFragment("core/particle"));
 
 	}
@@ -85,6 +115,7 @@ public class ParticleRenderPassSystem extends RenderPassSystem implements Partic
 	@Override
 	protected void initialize () {
 		super.initialize();
+		simulationSystem = world.getSystem(ParticleSimulationSystem.class);
 	}
 
 	@Override
@@ -112,10 +143,14 @@ public class ParticleRenderPassSystem extends RenderPassSystem implements Partic
 		Gdx.gl.glEnable(GL20.GL_DEPTH_TEST);
 		Gdx.gl.glDepthMask(false);
 
-		simple3DBatch.begin(cameras.getGameCamera(), shaderProgram.getShaderProgram());
+		particleBatch.begin(cameras.getGameCamera(), shaderProgram.getShaderProgram());
 
 		float deltaTime = Gdx.graphics.getDeltaTime();
 
+		if (simulationSystem == null && parallelUpdate) {
+			updateEffectsAhead(deltaTime);
+		}
+
 		IntBag entities = renderObjectsSubscription.getEntities();
 		int size = entities.size();
 		for (int i = 0; i < size; i++) {
@@ -123,24 +158,74 @@ public class ParticleRenderPassSystem extends RenderPassSystem implements Partic
 
 			Particle particle = particleMapper.get(entityID);
 
-
 			ParticleEffectInstance particleEffectInstance = particle.getParticleEffectInstance();
 			if (particleEffectInstance == null) continue;
 
-			particle.getTransform().getTranslation(tempVec3);
+			if (!isSteppedAhead(particleEffectInstance)) {
+				particle.getRenderTransform().getTranslation(tempVec3);
 
-			particleEffectInstance.setPosition(tempVec3.x, tempVec3.y, tempVec3.z);
-			particleEffectInstance.update(deltaTime);
+				particleEffectInstance.setPosition(tempVec3.x, tempVec3.y, tempVec3.z);
+				if (simulationSystem != null) {
+					simulationSystem.stepShared(particle, deltaTime);
+				} else {
+					particleEffectInstance.update(deltaTime);
+				}
+			}
+
+			if (particleEffectInstance.isCulled()) continue;
 
+			if (simulationSystem != null) {
+				particleEffectInstance.interpolate(simulationSystem.getInterpolationAlpha(particle));
+			}
 
 			particleEffectInstance.render(this);
 		}
 
-		simple3DBatch.end();
+		particleBatch.end();
 
 		renderContext.begin();
 	}
 
+	/**
+	 * Isolated instances own their point data, so they can be stepped by the simulation system or all at once in
+	 * parallel before anything is drawn
+	 */
+	private boolean isSteppedAhead (ParticleEffectInstance particleEffectInstance) {
+		if (!particleEffectInstance.isIsolated()) return false;
+		return simulationSystem != null || parallelUpdate;
+	}
+
+	/**
+	 * Steps every isolated effect before the first one is rendered, so they can run in parallel
+	 */
+	private void updateEffectsAhead (float deltaTime) {
+		IntBag entities = renderObjectsSubscription.getEntities();
+		int size = entities.size();
+		for (int i = 0; i < size; i++) {
+			int entityID = entities.get(i);
+
+			Particle particle = particleMapper.get(entityID);
+
+			ParticleEffectInstance particleEffectInstance = particle.getParticleEffectInstance();
+			if (particleEffectInstance == null) continue;
+			if (!particleEffectInstance.isIsolated()) continue;
+
+			particle.getRenderTransform().getTranslation(tempVec3);
+
+			particleEffectInstance.setPosition(tempVec3.x, tempVec3.y, tempVec3.z);
+
+			stepper.step(particleEffectInstance, deltaTime, 1, true);
+		}
+
+		stepper.flush();
+	}
+
+	@Override
+	protected void dispose () {
+		super.dispose();
+		particleBatch.dispose();
+	}
+
 	@Override
 	public Camera getCamera () {
 		return cameras.getGameCamera();
@@ -148,20 +233,16 @@ public class ParticleRenderPassSystem extends RenderPassSystem implements Partic
 
 	@Override
 	public void render (ParticleEffectInstance particleEffectInstance) {
-
-
-		simple3DBatch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE);
-
 		for (int i = 0; i < particleEffectInstance.getEmitters().size; i++) {
 			final IEmitter particleEmitter = particleEffectInstance.getEmitters().get(i);
 			if(!particleEmitter.isVisible()) continue;
 			if(particleEmitter.isBlendAdd()) {
-				simple3DBatch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+				particleBatch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
 			} else {
 				if (particleEmitter.isAdditive()) {
-					simple3DBatch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE);
+					particleBatch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE);
 				} else {
-					simple3DBatch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+					particleBatch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
 				}
 			}
 
@@ -187,8 +268,6 @@ public class ParticleRenderPassSystem extends RenderPassSystem implements Partic
 			particleEmitter.getScope().setCurrentRequestMode(cachedMode);
 			particleEmitter.getScope().setCurrentRequesterID(cachedRequesterID);
 		}
-
-		simple3DBatch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
 	}
 
 	@Override
@@ -197,7 +276,7 @@ public class ParticleRenderPassSystem extends RenderPassSystem implements Partic
 			DrawableValue drawableValue = ((SpriteMaterialModule)materialModule).getDrawableValue();
 			TextureRegion textureRegion = drawableValue.getDrawable().getTextureRegion();
 
-			simple3DBatch.render(verts, textureRegion.getTexture());
+			particleBatch.render(verts, textureRegion.getTexture());
 		}
 
 	}
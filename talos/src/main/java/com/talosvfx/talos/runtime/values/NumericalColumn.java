@@ -0,0 +1,106 @@
+package com.talosvfx.talos.runtime.values;
+
+/**
+ * One {@link NumericalValue} per row, for evaluating a module over many particles at once. Rows hold up to four
+ * elements at a stride of four, with their own element count and empty flag.
+ */
+public class NumericalColumn {
+
+	public static final int STRIDE = 4;
+
+	public float[] elements = new float[0];
+	public int[] counts = new int[0];
+	public boolean[] empty = new boolean[0];
+
+	private int size;
+
+	public void setSize (int size) {
+		if (counts.length < size) {
+			int capacity = Math.max(size, counts.length * 2);
+			float[] newElements = new float[capacity * STRIDE];
+			int[] newCounts = new int[capacity];
+			boolean[] newEmpty = new boolean[capacity];
+			System.arraycopy(elements, 0, newElements, 0, elements.length);
+			System.arraycopy(counts, 0, newCounts, 0, counts.length);
+			System.arraycopy(empty, 0, newEmpty, 0, empty.length);
+			elements = newElements;
+			counts = newCounts;
+			empty = newEmpty;
+		}
+		this.size = size;
+	}
+
+	public int getSize () {
+		return size;
+	}
+
+	/**
+	 * Same as {@link NumericalValue#setEmpty(boolean)} with true on every row
+	 */
+	public void setAllEmpty () {
+		for (int i = 0; i < size; i++) {
+			empty[i] = true;
+			counts[i] = 0;
+		}
+	}
+
+	public void set (int row, float value) {
+		elements[row * STRIDE] = value;
+		counts[row] = 1;
+	}
+
+	public void set (int row, float x, float y) {
+		final int offset = row * STRIDE;
+		elements[offset] = x;
+		elements[offset + 1] = y;
+		counts[row] = 2;
+	}
+
+	public void set (int row, float r, float g, float b, float a) {
+		final int offset = row * STRIDE;
+		elements[offset] = r;
+		elements[offset + 1] = g;
+		elements[offset + 2] = b;
+		elements[offset + 3] = a;
+		counts[row] = 4;
+	}
+
+	public float getFloat (int row) {
+		return elements[row * STRIDE];
+	}
+
+	public float get (int row, int element) {
+		return elements[row * STRIDE + element];
+	}
+
+	/**
+	 * Every row of other into this one, as an input fetched from a connected output
+	 */
+	public void setFromOutput (NumericalColumn other) {
+		setSize(other.size);
+		System.arraycopy(other.elements, 0, elements, 0, size * STRIDE);
+		System.arraycopy(other.counts, 0, counts, 0, size);
+		for (int i = 0; i < size; i++) {
+			empty[i] = false;
+		}
+	}
+
+	/**
+	 * Loads row into value
+	 */
+	public void load (int row, NumericalValue value) {
+		final float[] valueElements = value.getElements();
+		System.arraycopy(elements, row * STRIDE, valueElements, 0, STRIDE);
+		value.setElementsCount(counts[row]);
+		value.setEmpty(empty[row]);
+	}
+
+	/**
+	 * Stores value into row
+	 */
+	public void store (int row, NumericalValue value) {
+		System.arraycopy(value.getElements(), 0, elements, row * STRIDE, STRIDE);
+		counts[row] = value.elementsCount();
+		empty[row] = value.isEmpty();
+	}
+}
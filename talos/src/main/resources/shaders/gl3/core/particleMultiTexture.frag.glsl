@@ -0,0 +1,45 @@
+#ifdef GL_ES
+#define LOWP lowp
+precision mediump float;
+#else
+#define LOWP
+#endif
+
+uniform sampler2D u_textures[MAX_TEXTURE_UNITS];
+
+in vec4 v_color;
+in vec2 v_texCoords;
+in float v_texture_index;
+
+out vec4 fragmentColor;
+
+vec4 sampleTextureArray (int index, vec2 texCoords) {
+    if (index == 0) return texture(u_textures[0], texCoords);
+#if MAX_TEXTURE_UNITS > 1
+    if (index == 1) return texture(u_textures[1], texCoords);
+#endif
+#if MAX_TEXTURE_UNITS > 2
+    if (index == 2) return texture(u_textures[2], texCoords);
+#endif
+#if MAX_TEXTURE_UNITS > 3
+    if (index == 3) return texture(u_textures[3], texCoords);
+#endif
+#if MAX_TEXTURE_UNITS > 4
+    if (index == 4) return texture(u_textures[4], texCoords);
+#endif
+#if MAX_TEXTURE_UNITS > 5
+    if (index == 5) return texture(u_textures[5], texCoords);
+#endif
+#if MAX_TEXTURE_UNITS > 6
+    if (index == 6) return texture(u_textures[6], texCoords);
+#endif
+#if MAX_TEXTURE_UNITS > 7
+    if (index == 7) return texture(u_textures[7], texCoords);
+#endif
+    return vec4(0.0);
+}
+
+void main () {
+    vec4 diffuse = sampleTextureArray(int(v_texture_index + 0.5), v_texCoords);
+    fragmentColor = vec4(diffuse * v_color);
+}